@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.bytecode.ClassFile;
+
+/**
+ * 限制缓存数量及内存占用的 {@link ClassPool}，用于长期运行、持续生成动态类的场景。
+ * <p>{@link ClassPool} 会一直持有创建或读取过的 {@link CtClass}：构建器调用 stopPruning(true)，
+ * 只构建而未加载的类及 makeParams 等方法解析的参数类型都不会被释放。这里按最近使用顺序记录缓存的 {@link CtClass}，
+ * 数量或估算的字节数超过限制时，从最久未使用的开始淘汰：</p>
+ * <ul>
+ * <li>已冻结（已生成字节码或已加载）的类；</li>
+ * <li>从类路径读取且未修改的类，再次使用时重新读取。</li>
+ * </ul>
+ * <p>正在构建（未冻结的新建类及已修改的类）的 {@link CtClass} 不会被淘汰，因此占用可能暂时超过限制。
+ * 已淘汰的新建类无法再通过 {@link #get(String)} 取得，依赖其他动态类的构建（如实现类与接口类）请在同一构建器中完成。</p>
+ * <p>每个类的字节数只估算一次：类冻结后，或从类路径读取的类解析后，按其 {@link ClassFile} 序列化后的大小计，此前按
+ * {@value #REFERENCE_WEIGHT} 字节计。总字节数随缓存、删除及估算增量维护；缓存数量超过限制或每缓存 {@value #SWEEP_INTERVAL}
+ * 个类时只检查尚未估算的类，再从最久未使用的开始淘汰到限制以内。</p>
+ * <p>使用时将其作为构建器的 {@link ClassPool} 传入，如 <code>new JaxwsEndpointApiCtClassBuilder(pool, classname)</code>、
+ * {@link EndpointCatalog#load(java.io.Reader, ClassPool, EndpointClassCache, EndpointCatalog.Visitor)}，
+ * 或作为 {@link ParallelEndpointGenerator} 工作线程 {@link ClassPool} 的父级。</p>
+ */
+public class BoundedClassPool extends ClassPool {
+
+	/**
+	 * 尚未估算的 {@link CtClass} 的字节数
+	 */
+	public static final long REFERENCE_WEIGHT = 256;
+
+	private static final int SWEEP_INTERVAL = 64;
+
+	// javassist 未提供判断 CtClass 是否已解析的方法，通过反射读取，无法访问时按未解析估算
+	private static final Field CLASSFILE = classfileField();
+
+	private final int maxEntries;
+	private final long maxBytes;
+	// 类名 -> 缓存记录，按访问顺序排列
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+	// 尚未估算字节数的类名
+	private final Set<String> unsettled = new LinkedHashSet<String>();
+	private long residentBytes = 0;
+	private long evictions = 0;
+	private int admissions = 0;
+
+	/**
+	 * 使用系统类路径
+	 * @param maxEntries	: 缓存的 {@link CtClass} 数量上限
+	 * @param maxBytes		: 估算的字节数上限
+	 */
+	public BoundedClassPool(final int maxEntries, final long maxBytes) {
+		this(null, maxEntries, maxBytes);
+		this.appendSystemPath();
+	}
+
+	/**
+	 * @param parent		: 父级 {@link ClassPool}，父级缓存的类不受限制
+	 * @param maxEntries	: 缓存的 {@link CtClass} 数量上限
+	 * @param maxBytes		: 估算的字节数上限
+	 */
+	public BoundedClassPool(final ClassPool parent, final int maxEntries, final long maxBytes) {
+		super(parent);
+		if (maxEntries <= 0 || maxBytes <= 0) {
+			throw new IllegalArgumentException("maxEntries and maxBytes must be positive");
+		}
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+	}
+
+	@Override
+	protected CtClass getCached(final String classname) {
+		CtClass clazz = super.getCached(classname);
+		if (clazz != null) {
+			synchronized (this) {
+				// 更新访问顺序
+				entries.get(classname);
+			}
+		}
+		return clazz;
+	}
+
+	@Override
+	protected void cacheCtClass(final String classname, final CtClass c, final boolean dynamic) {
+		super.cacheCtClass(classname, c, dynamic);
+		synchronized (this) {
+			Entry previous = entries.put(classname, new Entry(dynamic));
+			if (previous != null) {
+				residentBytes -= previous.weight;
+			}
+			residentBytes += REFERENCE_WEIGHT;
+			unsettled.add(classname);
+			if (entries.size() > maxEntries || ++admissions % SWEEP_INTERVAL == 0) {
+				this.trim();
+			}
+		}
+	}
+
+	@Override
+	protected CtClass removeCached(final String classname) {
+		CtClass removed = super.removeCached(classname);
+		synchronized (this) {
+			this.forget(classname);
+		}
+		return removed;
+	}
+
+	/**
+	 * 估算尚未估算的类，并淘汰超出限制的 {@link CtClass}
+	 */
+	public synchronized void trim() {
+		Iterator<String> pending = unsettled.iterator();
+		while (pending.hasNext()) {
+			String classname = pending.next();
+			Entry entry = entries.get(classname);
+			long weight = entry == null ? -1 : settle(super.getCached(classname), entry.dynamic);
+			if (entry == null || weight >= 0) {
+				pending.remove();
+			}
+			if (entry != null && weight >= 0) {
+				residentBytes += weight - entry.weight;
+				entry.weight = weight;
+			}
+		}
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while ((entries.size() > maxEntries || residentBytes > maxBytes) && iterator.hasNext()) {
+			Map.Entry<String, Entry> entry = iterator.next();
+			CtClass clazz = super.getCached(entry.getKey());
+			if (clazz == null || evictable(clazz, entry.getValue().dynamic)) {
+				iterator.remove();
+				unsettled.remove(entry.getKey());
+				super.removeCached(entry.getKey());
+				residentBytes -= entry.getValue().weight;
+				evictions++;
+			}
+		}
+	}
+
+	/**
+	 * @return 缓存的 {@link CtClass} 数量
+	 */
+	public synchronized int getResidentEntries() {
+		return entries.size();
+	}
+
+	/**
+	 * @return 估算的字节数，尚未估算的类按 {@link #REFERENCE_WEIGHT} 计
+	 */
+	public synchronized long getResidentBytes() {
+		return residentBytes;
+	}
+
+	/**
+	 * @return 累计淘汰的 {@link CtClass} 数量
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	private void forget(final String classname) {
+		Entry entry = entries.remove(classname);
+		if (entry != null) {
+			residentBytes -= entry.weight;
+			unsettled.remove(classname);
+		}
+	}
+
+	private static boolean evictable(final CtClass clazz, final boolean dynamic) {
+		return clazz.isFrozen() || (!dynamic && !clazz.isModified());
+	}
+
+	/**
+	 * 类的内容不再变化时估算其字节数
+	 * @return 字节数，仍可能变化时返回 -1
+	 */
+	private static long settle(final CtClass clazz, final boolean dynamic) {
+		if (clazz == null) {
+			return REFERENCE_WEIGHT;
+		}
+		ClassFile classFile = classFile(clazz);
+		if (clazz.isFrozen() || (!dynamic && classFile != null && !clazz.isModified())) {
+			return weight(classFile);
+		}
+		return -1;
+	}
+
+	private static ClassFile classFile(final CtClass clazz) {
+		if (CLASSFILE != null && CLASSFILE.getDeclaringClass().isInstance(clazz)) {
+			try {
+				return (ClassFile) CLASSFILE.get(clazz);
+			} catch (IllegalAccessException e) {
+				// 按未解析估算
+			}
+		}
+		return null;
+	}
+
+	private static long weight(final ClassFile classFile) {
+		if (classFile == null) {
+			return REFERENCE_WEIGHT;
+		}
+		try (DataOutputStream out = new DataOutputStream(OutputStream.nullOutputStream())) {
+			classFile.write(out);
+			return Math.max(out.size(), REFERENCE_WEIGHT);
+		} catch (IOException | RuntimeException e) {
+			return REFERENCE_WEIGHT;
+		}
+	}
+
+	private static Field classfileField() {
+		try {
+			Field field = Class.forName("javassist.CtClassType").getDeclaredField("classfile");
+			field.setAccessible(true);
+			return field;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 缓存记录
+	 */
+	private static final class Entry {
+
+		private final boolean dynamic;
+		private long weight = REFERENCE_WEIGHT;
+
+		private Entry(final boolean dynamic) {
+			this.dynamic = dynamic;
+		}
+
+	}
+
+}
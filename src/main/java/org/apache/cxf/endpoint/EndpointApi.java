@@ -20,17 +20,52 @@ import java.lang.reflect.InvocationHandler;
 public abstract class EndpointApi {
 
 	private InvocationHandler handler;
+	private EndpointInvocationHandler operationHandler;
+	private EndpointAsyncHandler asyncHandler;
+	private EndpointInvoker invoker;
 	
 	public EndpointApi() {
 	}
 	
 	public EndpointApi(InvocationHandler handler) {
+		this(handler, null);
+	}
+	
+	/**
+	 * {@link EndpointInvoker} 与 {@link InvocationHandler} 都只有一个抽象方法且参数个数相同，
+	 * 以两个参数区分，避免单参数构造器传入 lambda 时产生歧义
+	 * @param handler		: The {@link InvocationHandler} instance，可为 null
+	 * @param invoker		: The {@link EndpointInvoker} instance，可为 null
+	 */
+	protected EndpointApi(InvocationHandler handler, EndpointInvoker invoker) {
 		this.handler = handler;
+		this.invoker = invoker;
+		// 支持操作序号的回调接口在构造时判断一次，避免每次调用时进行类型检查
+		if (handler instanceof EndpointInvocationHandler) {
+			this.operationHandler = (EndpointInvocationHandler) handler;
+		}
+		if (handler instanceof EndpointAsyncHandler) {
+			this.asyncHandler = (EndpointAsyncHandler) handler;
+		}
+		// invokedynamic 调用点按回调安装单态目标；其余调用方式的类直接返回，不登记回调
+		EndpointCallSites.install(this);
 	}
-
+	
 	public InvocationHandler getHandler() {
 		return handler;
 	}
 	
+	public EndpointInvocationHandler getOperationHandler() {
+		return operationHandler;
+	}
+	
+	public EndpointAsyncHandler getAsyncHandler() {
+		return asyncHandler;
+	}
+	
+	public EndpointInvoker getInvoker() {
+		return invoker;
+	}
+	
 	
 }
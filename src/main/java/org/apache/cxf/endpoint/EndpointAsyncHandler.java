@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 异步调用接口：声明为异步的方法由生成的方法体直接返回该接口给出的 {@link CompletionStage}，
+ * 调用线程（如 CXF 的传输线程）无需等待处理完成即可释放。
+ * <p>同步方法通过该接口调用时，会等待 {@link CompletionStage} 完成后返回结果。</p>
+ */
+public interface EndpointAsyncHandler extends EndpointInvocationHandler {
+
+	/**
+	 * @param proxy			: 动态类实例
+	 * @param operation		: 操作序号
+	 * @param binding		: 生成动态类时解析的绑定数据，不会为 null
+	 * @param method		: 被调用的方法
+	 * @param args			: 方法参数
+	 * @return 方法返回值的 {@link CompletionStage}
+	 */
+	CompletionStage<?> invokeAsync(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args);
+
+	@Override
+	default Object invoke(Object proxy, int operation, Method method, Object[] args) throws Throwable {
+		return invoke(proxy, operation, EndpointBinding.EMPTY, method, args);
+	}
+
+	@Override
+	default Object invoke(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) throws Throwable {
+		// 只实现了异步接口时，同步方法只能等待结果；实现类应当为同步方法提供不经过执行器的实现，参见 ExecutorInvocationHandler
+		CompletionStage<?> stage = invokeAsync(proxy, operation, binding, method, args);
+		// 方法本身返回 CompletionStage 时直接返回
+		if (CompletionStage.class.isAssignableFrom(method.getReturnType())) {
+			return stage;
+		}
+		try {
+			return stage.toCompletableFuture().get();
+		} catch (ExecutionException | CompletionException e) {
+			throw e.getCause() != null ? e.getCause() : e;
+		}
+	}
+
+}
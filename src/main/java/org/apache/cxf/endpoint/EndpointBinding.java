@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.cxf.endpoint.annotation.WebBound;
+import org.apache.cxf.endpoint.utils.JsonUtils;
+
+/**
+ * <code>@WebBound</code> 绑定数据在生成动态类时的解析结果，不可修改。
+ * <p>生成的方法体通过静态字段持有该对象并直接传给 {@link EndpointInvocationHandler}，
+ * 调用时无需读取注解或解析 JSON。绑定数据不要求是 JSON 对象，数组或标量按原样通过 {@link #getJson()} 读取，
+ * 此时 {@link #getValues()} 为空；格式错误的 JSON 在构建时报错。</p>
+ */
+public final class EndpointBinding {
+
+	public static final EndpointBinding EMPTY = new EndpointBinding("", "{}", Collections.<String, Object>emptyMap());
+
+	private final String uid;
+	private final String json;
+	private final Map<String, Object> values;
+
+	private EndpointBinding(String uid, String json, Map<String, Object> values) {
+		this.uid = uid;
+		this.json = json;
+		this.values = values;
+	}
+
+	/**
+	 * 解析绑定数据
+	 * @param uid			: {@link WebBound#uid()}
+	 * @param json			: {@link WebBound#json()}
+	 * @return {@link EndpointBinding} instance
+	 * @throws IllegalArgumentException JSON 格式错误时抛出
+	 */
+	public static EndpointBinding parse(String uid, String json) {
+		String text = json == null ? "" : json;
+		return new EndpointBinding(uid == null ? "" : uid, text, values(text));
+	}
+
+	public String getUid() {
+		return uid;
+	}
+
+	public String getJson() {
+		return json;
+	}
+
+	/**
+	 * @return 解析后的绑定数据，嵌套的对象及数组同样不可修改；JSON 不是对象时为空
+	 */
+	public Map<String, Object> getValues() {
+		return values;
+	}
+
+	public Object get(String key) {
+		return values.get(key);
+	}
+
+	public String getString(String key) {
+		Object value = values.get(key);
+		return value == null ? null : value.toString();
+	}
+
+	public Number getNumber(String key) {
+		Object value = values.get(key);
+		return value instanceof Number ? (Number) value : null;
+	}
+
+	public boolean getBoolean(String key) {
+		return Boolean.TRUE.equals(values.get(key));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> values(String json) {
+		if (json.trim().isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Object value = JsonUtils.parse(json);
+		return value instanceof Map ? (Map<String, Object>) value : Collections.<String, Object>emptyMap();
+	}
+
+	@Override
+	public String toString() {
+		return "EndpointBinding[uid=" + uid + ", json=" + json + "]";
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.cxf.endpoint.annotation.WebBound;
+
+/**
+ * 生成动态类时登记的 {@link EndpointBinding}，由生成的方法体在首次调用时读取并缓存到静态字段。
+ * <p>方法未单独绑定时使用类级别的绑定，两者都没有时为 {@link EndpointBinding#EMPTY}。</p>
+ * <p>构建期按类名登记，构建器创建时清除同名类遗留的登记；类定义后（{@link #attach(Class)} 或首次读取时）
+ * 按 {@link Class} 保存一份快照并清除按类名的登记，之后按类名修改或清除登记不再影响已定义的类，
+ * 同名的新版本类与仍在服务的旧版本类互不干扰，快照随类一起卸载。</p>
+ * <p>没有登记的类（如预先生成、由其他方式加载的类）在首次读取时从类及其方法的 <code>@WebBound</code> 注解中解析。</p>
+ */
+public final class EndpointBindings {
+
+	// 类级别绑定的登记键
+	private static final String CLASS_KEY = "";
+
+	// 类名 -> 登记键 -> 绑定数据，尚未定义的类
+	private static final ConcurrentMap<String, ConcurrentMap<String, EndpointBinding>> STAGED = new ConcurrentHashMap<String, ConcurrentMap<String, EndpointBinding>>();
+
+	// 已定义的类 -> 登记键 -> 绑定数据
+	private static final ClassValue<Map<String, EndpointBinding>> BINDINGS = new ClassValue<Map<String, EndpointBinding>>() {
+		@Override
+		protected Map<String, EndpointBinding> computeValue(Class<?> type) {
+			Map<String, EndpointBinding> staged = STAGED.get(EndpointClassDefiner.nameOf(type));
+			if (staged == null || staged.isEmpty()) {
+				staged = annotated(type);
+			}
+			return staged.isEmpty() ? Collections.<String, EndpointBinding>emptyMap()
+					: Collections.unmodifiableMap(new HashMap<String, EndpointBinding>(staged));
+		}
+	};
+
+	private EndpointBindings() {
+	}
+
+	/**
+	 * 方法的登记键
+	 * @param name			: 方法名称
+	 * @param descriptor	: 方法描述符，如 (Ljava/lang/String;)V
+	 * @return the key
+	 */
+	public static String key(String name, String descriptor) {
+		return name + descriptor;
+	}
+
+	public static void register(String classname, EndpointBinding binding) {
+		register(classname, CLASS_KEY, binding);
+	}
+
+	public static void register(String classname, String key, EndpointBinding binding) {
+		STAGED.computeIfAbsent(classname, name -> new ConcurrentHashMap<String, EndpointBinding>()).put(key, binding);
+	}
+
+	public static void remove(String classname, String key) {
+		Map<String, EndpointBinding> staged = STAGED.get(classname);
+		if (staged != null) {
+			staged.remove(key);
+		}
+	}
+
+	/**
+	 * 清除按类名登记的全部绑定，已定义的类保留各自的快照
+	 * @param classname		: 动态类名称
+	 */
+	public static void removeAll(String classname) {
+		STAGED.remove(classname);
+	}
+
+	/**
+	 * 为刚定义的类及其动态父类保存按类名登记的绑定快照，保存后清除按类名的登记
+	 * @param type			: 动态类
+	 */
+	public static void attach(Class<?> type) {
+		for (Class<?> current = type; current != null && current != Object.class && current != EndpointApi.class; current = current.getSuperclass()) {
+			String classname = EndpointClassDefiner.nameOf(current);
+			Map<String, EndpointBinding> staged = STAGED.get(classname);
+			BINDINGS.get(current);
+			if (staged != null) {
+				// 只清除已保存的那一份，同名类新开始的构建不受影响
+				STAGED.remove(classname, staged);
+			}
+		}
+	}
+
+	/**
+	 * 获取方法的绑定数据
+	 * @param type			: 动态类
+	 * @param key			: 方法的登记键
+	 * @return {@link EndpointBinding} instance，不会为 null
+	 */
+	public static EndpointBinding get(Class<?> type, String key) {
+		Map<String, EndpointBinding> bindings = BINDINGS.get(type);
+		EndpointBinding binding = bindings.get(key);
+		if (binding == null) {
+			binding = bindings.get(CLASS_KEY);
+		}
+		return binding != null ? binding : EndpointBinding.EMPTY;
+	}
+
+	/**
+	 * 从类及其方法的 <code>@WebBound</code> 注解中解析绑定数据
+	 * @param type			: 动态类
+	 * @return 登记键 -> 绑定数据
+	 */
+	private static Map<String, EndpointBinding> annotated(Class<?> type) {
+		Map<String, EndpointBinding> bindings = new HashMap<String, EndpointBinding>();
+		WebBound bound = type.getAnnotation(WebBound.class);
+		if (bound != null) {
+			bindings.put(CLASS_KEY, EndpointBinding.parse(bound.uid(), bound.json()));
+		}
+		for (Method method : type.getDeclaredMethods()) {
+			bound = method.getAnnotation(WebBound.class);
+			if (bound != null) {
+				String descriptor = MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+				bindings.put(key(method.getName(), descriptor), EndpointBinding.parse(bound.uid(), bound.json()));
+			}
+		}
+		return bindings;
+	}
+
+	/**
+	 * 按实例的实际类获取方法的绑定数据，用于只收到 {@link Method} 的 {@link java.lang.reflect.InvocationHandler}；
+	 * 共享形状类时 {@link Method} 属于形状类，不带方法级别的 <code>@WebBound</code>，绑定数据仍按实例所属的接口读取
+	 * @param proxy			: 动态类实例
+	 * @param method		: 被调用的方法
+	 * @return {@link EndpointBinding} instance，不会为 null
+	 */
+	public static EndpointBinding get(Object proxy, Method method) {
+		String descriptor = MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+		return get(proxy.getClass(), key(method.getName(), descriptor));
+	}
+
+}
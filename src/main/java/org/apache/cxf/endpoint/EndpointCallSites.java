@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link EndpointDispatch#INDY} 模式下 invokedynamic 指令的引导方法及调用点管理。
+ * <p>每个动态类的每个方法对应一个 {@link MutableCallSite}，JIT 可以把调用点当前的目标视为单态并内联；
+ * 未绑定目标时回退到实例上的 {@link InvocationHandler}，通过 {@link #bind(Class, String, MethodHandle)}
+ * 绑定的目标可随时替换或通过 {@link #unbind(Class, String)} 解除，已编译的代码会随之失效重新编译。</p>
+ * <p>绑定的 {@link MethodHandle} 第一个参数为动态类实例，其余与方法参数一致，类型可通过 asType 转换即可。</p>
+ * <p>绑定以动态类为单位，对该类的全部实例生效；只需针对实例的场景，由实例构造时调用的 {@link #install(EndpointApi)}
+ * 负责：类的全部实例使用同一回调时，调用点直接调用该回调，出现第二个不同的回调后恢复为通用逻辑。</p>
+ */
+public final class EndpointCallSites {
+
+	/**
+	 * 引导方法描述符，生成 invokedynamic 指令时使用
+	 */
+	public static final String BOOTSTRAP_DESCRIPTOR = MethodType.methodType(CallSite.class, MethodHandles.Lookup.class,
+			String.class, MethodType.class, int.class).toMethodDescriptorString();
+
+	/**
+	 * 包含 invokedynamic 调用点的动态类声明的标记字段（私有、静态、合成）
+	 */
+	public static final String INDY_MARKER = "_indy";
+
+	private static final MethodHandle DISPATCH;
+	private static final MethodHandle DISPATCH_SHAPE;
+	private static final MethodHandle DISPATCH_CALLBACK;
+	private static final MethodHandle IS_CALLBACK;
+	static {
+		try {
+			DISPATCH = MethodHandles.lookup().findStatic(EndpointCallSites.class, "dispatch",
+					MethodType.methodType(Object.class, Method.class, int.class, EndpointBinding.class, Object.class, Object[].class));
+			DISPATCH_SHAPE = MethodHandles.lookup().findStatic(EndpointCallSites.class, "dispatchShape",
+					MethodType.methodType(Object.class, Method.class, int.class, String.class, Object.class, Object[].class));
+			DISPATCH_CALLBACK = MethodHandles.lookup().findStatic(EndpointCallSites.class, "dispatchCallback",
+					MethodType.methodType(Object.class, Object.class, Method.class, int.class, EndpointBinding.class, Object.class, Object[].class));
+			IS_CALLBACK = MethodHandles.lookup().findStatic(EndpointCallSites.class, "isCallback",
+					MethodType.methodType(boolean.class, Object.class, EndpointApi.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// 以动态类为键，类被卸载时调用点随之回收
+	private static final ClassValue<ConcurrentMap<String, Link>> LINKS = new ClassValue<ConcurrentMap<String, Link>>() {
+		@Override
+		protected ConcurrentMap<String, Link> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<String, Link>();
+		}
+	};
+
+	// 出现多个不同回调的动态类，调用点不再安装单态目标
+	private static final Object POLYMORPHIC = new Object();
+	
+	// 动态类是否声明了 invokedynamic 调用点
+	private static final ClassValue<Boolean> INDY = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			try {
+				type.getDeclaredField(INDY_MARKER);
+				return Boolean.TRUE;
+			} catch (NoSuchFieldException e) {
+				return Boolean.FALSE;
+			}
+		}
+	};
+
+	// 以动态类为键记录实例的回调：null、唯一的回调或 POLYMORPHIC
+	private static final ClassValue<AtomicReference<Object>> CALLBACKS = new ClassValue<AtomicReference<Object>>() {
+		@Override
+		protected AtomicReference<Object> computeValue(Class<?> type) {
+			return new AtomicReference<Object>();
+		}
+	};
+
+	private EndpointCallSites() {
+	}
+
+	/**
+	 * invokedynamic 引导方法，由 JVM 在调用点首次执行时调用
+	 * @param lookup		: 动态类的 {@link MethodHandles.Lookup}
+	 * @param name			: 方法名称
+	 * @param type			: 调用点类型，第一个参数为 {@link EndpointApi}
+	 * @param ordinal		: 操作序号
+	 * @return {@link CallSite} instance
+	 * @throws NoSuchMethodException if method not found
+	 */
+	public static CallSite bootstrap(MethodHandles.Lookup lookup, String name, MethodType type, int ordinal) throws NoSuchMethodException {
+		Class<?> declaring = lookup.lookupClass();
+		Method method = declaring.getDeclaredMethod(name, type.dropParameterTypes(0, 1).parameterArray());
+		Link link = link(declaring, method);
+		synchronized (link) {
+			// 先于类加载绑定的调用点，此时补充操作序号
+			link.ordinal = ordinal;
+			link.fallback = fallback(method, ordinal, type);
+			if (!link.bound) {
+				link.site.setTarget(link.target(CALLBACKS.get(declaring).get()));
+			}
+		}
+		return link.site;
+	}
+
+	/**
+	 * 实例设置回调后调用，为动态类已链接的调用点安装单态目标：回调与安装时相同的实例直接调用该回调，
+	 * 其余实例仍走通用逻辑；同一动态类出现第二个不同的回调后，调用点恢复为通用逻辑且不再安装。
+	 * <p>通过 {@link #bind(Method, MethodHandle)} 绑定的调用点不受影响；形状类由多个接口共享，始终走通用逻辑。
+	 * 没有 invokedynamic 调用点的类直接返回，不登记（也不持有）回调。</p>
+	 * @param api			: 已设置回调的动态类实例
+	 */
+	public static void install(EndpointApi api) {
+		Class<?> declaring = api.getClass();
+		if (!INDY.get(declaring)) {
+			return;
+		}
+		Object callback = callback(api);
+		if (callback == null) {
+			return;
+		}
+		AtomicReference<Object> current = CALLBACKS.get(declaring);
+		Object previous = current.get();
+		if (previous == callback || previous == POLYMORPHIC) {
+			return;
+		}
+		if (!current.compareAndSet(previous, previous == null ? callback : POLYMORPHIC)) {
+			// 并发设置回调时直接退化为通用逻辑
+			current.set(POLYMORPHIC);
+		}
+		for (Link link : LINKS.get(declaring).values()) {
+			synchronized (link) {
+				if (!link.bound) {
+					link.site.setTarget(link.target(current.get()));
+					MutableCallSite.syncAll(new MutableCallSite[] { link.site });
+				}
+			}
+		}
+	}
+
+	/**
+	 * 为动态类的方法绑定调用目标，对该类的全部实例生效；方法存在重载时须使用 {@link #bind(Method, MethodHandle)}
+	 * @param type			: 动态类
+	 * @param name			: 方法名称
+	 * @param target		: 调用目标
+	 * @throws IllegalArgumentException 方法不存在或存在重载时
+	 */
+	public static void bind(Class<?> type, String name, MethodHandle target) {
+		bind(method(type, name), target);
+	}
+
+	/**
+	 * 为动态类的方法绑定调用目标，对该类的全部实例生效，已执行过的调用点同样生效
+	 * @param method		: 动态类的方法
+	 * @param target		: 调用目标
+	 */
+	public static void bind(Method method, MethodHandle target) {
+		Link link = link(method.getDeclaringClass(), method);
+		synchronized (link) {
+			link.site.setTarget(target.asType(link.site.type()));
+			link.bound = true;
+			MutableCallSite.syncAll(new MutableCallSite[] { link.site });
+		}
+	}
+
+	public static void unbind(Class<?> type, String name) {
+		unbind(method(type, name));
+	}
+
+	/**
+	 * 解除绑定，调用点恢复为通过实例上的回调调用
+	 * @param method		: 动态类的方法
+	 */
+	public static void unbind(Method method) {
+		Link link = link(method.getDeclaringClass(), method);
+		synchronized (link) {
+			link.site.setTarget(link.target(CALLBACKS.get(method.getDeclaringClass()).get()));
+			link.bound = false;
+			MutableCallSite.syncAll(new MutableCallSite[] { link.site });
+		}
+	}
+
+	private static Method method(Class<?> type, String name) {
+		Method found = null;
+		for (Method method : type.getDeclaredMethods()) {
+			if (method.getName().equals(name)) {
+				if (found != null) {
+					throw new IllegalArgumentException("Method " + name + " is overloaded in " + type.getName() + ", bind by Method instead");
+				}
+				found = method;
+			}
+		}
+		if (found == null) {
+			throw new IllegalArgumentException("No method " + name + " declared in " + type.getName());
+		}
+		return found;
+	}
+
+	private static Link link(Class<?> declaring, Method method) {
+		MethodType type = MethodType.methodType(method.getReturnType(), method.getParameterTypes())
+				.insertParameterTypes(0, EndpointApi.class);
+		String key = method.getName() + type.toMethodDescriptorString();
+		ConcurrentMap<String, Link> links = LINKS.get(declaring);
+		Link link = links.get(key);
+		if (link == null) {
+			Link created = new Link(method, fallback(method, EndpointInvocationHandler.UNKNOWN_OPERATION, type));
+			link = links.putIfAbsent(key, created);
+			if (link == null) {
+				link = created;
+			}
+		}
+		return link;
+	}
+
+	private static MethodHandle fallback(Method method, int ordinal, MethodType type) {
+		String key = key(method, type);
+		MethodHandle target;
+		if (EndpointShapes.isShape(method.getDeclaringClass())) {
+			// 形状类由多个接口共享，绑定数据按实例的实际类名读取
+			target = MethodHandles.insertArguments(DISPATCH_SHAPE, 0, method, ordinal, key);
+		} else {
+			EndpointBinding binding = EndpointBindings.get(method.getDeclaringClass(), key);
+			target = MethodHandles.insertArguments(DISPATCH, 0, method, ordinal, binding);
+		}
+		return target.asCollector(Object[].class, type.parameterCount() - 1)
+				.asType(type);
+	}
+
+	private static String key(Method method, MethodType type) {
+		return EndpointBindings.key(method.getName(), type.dropParameterTypes(0, 1).toMethodDescriptorString());
+	}
+
+	private static Object callback(EndpointApi api) {
+		return api.getInvoker() != null ? api.getInvoker() : api.getHandler();
+	}
+
+	private static boolean isCallback(Object callback, EndpointApi api) {
+		return callback(api) == callback;
+	}
+
+	/**
+	 * 未绑定目标时的调用逻辑，与 {@link EndpointDispatch#HANDLER} 模式一致
+	 */
+	private static Object dispatch(Method method, int ordinal, EndpointBinding binding, Object proxy, Object[] args) throws Throwable {
+		EndpointApi api = (EndpointApi) proxy;
+		if (api.getOperationHandler() != null) {
+			return api.getOperationHandler().invoke(proxy, ordinal, binding, method, args);
+		}
+		if (api.getHandler() != null) {
+			return api.getHandler().invoke(proxy, method, args);
+		}
+		if (api.getInvoker() != null) {
+			return api.getInvoker().invoke(proxy, ordinal, args);
+		}
+		// 基本类型返回值不能返回 null
+		Class<?> returnType = method.getReturnType();
+		return returnType.isPrimitive() && returnType != void.class ? Array.get(Array.newInstance(returnType, 1), 0) : null;
+	}
+
+	private static Object dispatchShape(Method method, int ordinal, String key, Object proxy, Object[] args) throws Throwable {
+		return dispatch(method, ordinal, EndpointBindings.get(proxy.getClass(), key), proxy, args);
+	}
+
+	/**
+	 * 单态目标的调用逻辑，回调为常量，类型判断可被 JIT 消除
+	 */
+	private static Object dispatchCallback(Object callback, Method method, int ordinal, EndpointBinding binding, Object proxy, Object[] args) throws Throwable {
+		if (callback instanceof EndpointInvoker) {
+			return ((EndpointInvoker) callback).invoke(proxy, ordinal, args);
+		}
+		if (callback instanceof EndpointInvocationHandler) {
+			return ((EndpointInvocationHandler) callback).invoke(proxy, ordinal, binding, method, args);
+		}
+		return ((InvocationHandler) callback).invoke(proxy, method, args);
+	}
+
+	private static final class Link {
+
+		private final MutableCallSite site;
+		private final Method method;
+		private volatile int ordinal = EndpointInvocationHandler.UNKNOWN_OPERATION;
+		private volatile MethodHandle fallback;
+		private volatile boolean bound;
+
+		private Link(Method method, MethodHandle fallback) {
+			this.site = new MutableCallSite(fallback);
+			this.method = method;
+			this.fallback = fallback;
+		}
+
+		/**
+		 * 未绑定时的调用目标：存在唯一回调时以回调是否相同为条件直接调用回调，否则为通用逻辑
+		 * @param callback	: 动态类当前的回调
+		 * @return 调用目标
+		 */
+		private MethodHandle target(Object callback) {
+			if (callback == null || callback == POLYMORPHIC || EndpointShapes.isShape(method.getDeclaringClass())) {
+				return fallback;
+			}
+			MethodType type = site.type();
+			EndpointBinding binding = EndpointBindings.get(method.getDeclaringClass(), key(method, type));
+			MethodHandle direct = MethodHandles.insertArguments(DISPATCH_CALLBACK, 0, callback, method, ordinal, binding)
+					.asCollector(Object[].class, type.parameterCount() - 1)
+					.asType(type);
+			return MethodHandles.guardWithTest(IS_CALLBACK.bindTo(callback), direct, fallback);
+		}
+
+	}
+
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.jws.WebParam;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.builder.Builder;
+import org.apache.cxf.endpoint.jaxrs.JaxrsEndpointApiCtClassBuilder;
+import org.apache.cxf.endpoint.jaxrs.definition.HttpMethodEnum;
+import org.apache.cxf.endpoint.jaxrs.definition.HttpParamEnum;
+import org.apache.cxf.endpoint.jaxrs.definition.RestBound;
+import org.apache.cxf.endpoint.jaxrs.definition.RestMethod;
+import org.apache.cxf.endpoint.jaxrs.definition.RestParam;
+import org.apache.cxf.endpoint.jaxws.JaxwsEndpointApiCtClassBuilder;
+import org.apache.cxf.endpoint.jaxws.definition.SoapBound;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.apache.cxf.endpoint.jaxws.definition.SoapService;
+import org.apache.cxf.endpoint.utils.JsonUtils;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+
+/**
+ * JSON 格式的接口定义目录，字段与 {@link SoapService}、{@link SoapMethod}、{@link SoapParam}、{@link SoapResult}、
+ * {@link RestMethod}、{@link RestParam} 及 {@link RestBound} 一一对应：
+ * <pre>
+ * {"endpoints": [
+ *   {"type": "jaxws", "class": "x.UserService", "dispatch": "HANDLER",
+ *    "service": {"name": "user", "targetNamespace": "http://x", "serviceName": "UserService"},
+ *    "bound": {"uid": "u1", "json": "{\"k\": 1}"},
+ *    "methods": [{"operationName": "find", "action": "", "exclude": false, "async": false, "asyncTimeout": 0,
+ *                 "result": {"type": "java.lang.String", "name": "user"},
+ *                 "params": [{"type": "long", "name": "id", "mode": "IN", "header": false}]}]},
+ *   {"type": "jaxrs", "class": "x.UserResource", "path": "/users", "produces": ["application/json"],
+ *    "methods": [{"method": "GET", "name": "find", "path": "{id}", "returnType": "java.lang.String",
+ *                 "params": [{"type": "java.lang.String", "name": "id", "from": "PATH"}]}]}
+ * ]}
+ * </pre>
+ * <p>根节点也可以直接是数组。布尔及数字字段必须是对应的 JSON 类型，<code>"true"</code> 等字符串视为定义错误。
+ * 类型名称支持基本类型及 <code>java.lang.String[]</code> 形式的数组；
+ * 设置 <code>"delegate"</code> 时以该类型为目标对象启用直接委托调用，<code>"delegateMethods"</code> 为方法名称映射。</p>
+ * <p>目录按数组元素逐个解析：每解析完一个接口即交给 {@link Visitor} 处理并丢弃已读取的内容，
+ * 数千个接口的目录也不会整体载入内存。</p>
+ */
+public final class EndpointCatalog {
+
+	public static final String TYPE_JAXWS = "jaxws";
+	public static final String TYPE_JAXRS = "jaxrs";
+
+	/**
+	 * 逐个处理目录中的接口
+	 * @param <T> 处理对象类型
+	 */
+	@FunctionalInterface
+	public interface Visitor<T> {
+
+		void visit(T value) throws Exception;
+
+	}
+
+	private EndpointCatalog() {
+	}
+
+	/**
+	 * 读取目录文件，为每个接口创建构建器
+	 * @param path			: 目录文件，UTF-8 编码
+	 * @param pool			: 构建器使用的 {@link ClassPool}
+	 * @param cache			: 构建器使用的字节码缓存，可为 null
+	 * @param visitor		: 构建器的处理逻辑，如 toClass 或 {@link EndpointClassGenerator#generate(Builder)}
+	 * @return 接口数量
+	 * @throws Exception 解析、构建或处理异常
+	 */
+	public static int load(final Path path, final ClassPool pool, final EndpointClassCache cache,
+			final Visitor<Builder<CtClass>> visitor) throws Exception {
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			return load(reader, pool, cache, visitor);
+		}
+	}
+
+	public static int load(final Reader reader, final ClassPool pool, final EndpointClassCache cache,
+			final Visitor<Builder<CtClass>> visitor) throws Exception {
+		return parse(reader, endpoint -> visitor.visit(toBuilder(pool, cache, endpoint)));
+	}
+
+	/**
+	 * 逐个解析目录中的接口定义，不创建构建器
+	 * @param reader		: 目录内容
+	 * @param visitor		: 接口定义的处理逻辑
+	 * @return 接口数量
+	 * @throws Exception 解析或处理异常
+	 */
+	public static int parse(final Reader reader, final Visitor<Map<String, Object>> visitor) throws Exception {
+		JsonUtils.Parser parser = new JsonUtils.Parser(reader);
+		int count = 0;
+		if (parser.peek() == '[') {
+			count = parseArray(parser, visitor);
+		} else {
+			parser.expect('{');
+			while (parser.peek() != '}') {
+				String key = parser.readString();
+				parser.expect(':');
+				if ("endpoints".equals(key)) {
+					count += parseArray(parser, visitor);
+				} else {
+					parser.readValue();
+				}
+				parser.release();
+				if (parser.peek() != ',') {
+					break;
+				}
+				parser.expect(',');
+			}
+			parser.expect('}');
+		}
+		if (parser.peek() != -1) {
+			throw parser.error("Unexpected trailing content");
+		}
+		return count;
+	}
+
+	private static int parseArray(final JsonUtils.Parser parser, final Visitor<Map<String, Object>> visitor) throws Exception {
+		int count = 0;
+		parser.expect('[');
+		while (parser.peek() != ']') {
+			Map<String, Object> endpoint = parser.readObject();
+			parser.release();
+			try {
+				visitor.visit(endpoint);
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Invalid endpoint #" + count + " (" + endpoint.get("class") + ") : " + e.getMessage(), e);
+			}
+			count++;
+			if (parser.peek() != ',') {
+				break;
+			}
+			parser.expect(',');
+		}
+		parser.expect(']');
+		return count;
+	}
+
+	/**
+	 * 根据接口定义创建构建器
+	 * @param pool			: 构建器使用的 {@link ClassPool}
+	 * @param cache			: 构建器使用的字节码缓存，可为 null
+	 * @param endpoint		: 接口定义
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} 或 {@link JaxrsEndpointApiCtClassBuilder} instance
+	 * @throws Exception 定义错误或构建异常
+	 */
+	public static Builder<CtClass> toBuilder(final ClassPool pool, final EndpointClassCache cache, final Map<String, Object> endpoint) throws Exception {
+		String type = string(endpoint, "type", TYPE_JAXWS);
+		if (TYPE_JAXWS.equalsIgnoreCase(type)) {
+			return jaxws(pool, cache, endpoint);
+		}
+		if (TYPE_JAXRS.equalsIgnoreCase(type)) {
+			return jaxrs(pool, cache, endpoint);
+		}
+		throw new IllegalArgumentException("Unknown endpoint type " + type);
+	}
+
+	private static JaxwsEndpointApiCtClassBuilder jaxws(final ClassPool pool, final EndpointClassCache cache, final Map<String, Object> endpoint) throws Exception {
+
+		JaxwsEndpointApiCtClassBuilder builder = new JaxwsEndpointApiCtClassBuilder(pool, required(endpoint, "class"));
+		if (cache != null) {
+			builder.cache(cache);
+		}
+		Map<String, Object> service = object(endpoint, "service");
+		if (service != null) {
+			builder.webService(new SoapService(required(service, "name"), required(service, "targetNamespace"),
+					string(service, "serviceName", null), string(service, "portName", null),
+					string(service, "wsdlLocation", null), string(service, "endpointInterface", null)));
+		}
+		Map<String, Object> bound = object(endpoint, "bound");
+		if (bound != null) {
+			builder.bind(new SoapBound(string(bound, "uid", ""), string(bound, "json", "")));
+		}
+		if (endpoint.containsKey("delegate")) {
+			builder.delegate(type(required(endpoint, "delegate")), strings(object(endpoint, "delegateMethods")));
+		} else if (endpoint.containsKey("dispatch")) {
+			builder.dispatch(EndpointDispatch.valueOf(required(endpoint, "dispatch")));
+		}
+
+		for (Map<String, Object> definition : objects(endpoint, "methods")) {
+
+			SoapMethod method = new SoapMethod(required(definition, "operationName"), string(definition, "action", ""),
+					bool(definition, "exclude", false));
+			method.setAsync(bool(definition, "async", false));
+			method.setAsyncTimeout(number(definition, "asyncTimeout", 0));
+
+			Map<String, Object> result = object(definition, "result");
+			SoapResult<?> soapResult = null;
+			if (result != null) {
+				soapResult = new SoapResult<>(type(required(result, "type")), string(result, "name", ""),
+						string(result, "targetNamespace", ""), bool(result, "header", false), string(result, "partName", ""));
+			}
+
+			List<Map<String, Object>> params = objects(definition, "params");
+			SoapParam<?>[] soapParams = new SoapParam<?>[params.size()];
+			for (int i = 0; i < soapParams.length; i++) {
+				Map<String, Object> param = params.get(i);
+				soapParams[i] = new SoapParam<>(type(required(param, "type")), required(param, "name"),
+						string(param, "partName", ""), string(param, "targetNamespace", ""),
+						WebParam.Mode.valueOf(string(param, "mode", WebParam.Mode.IN.name())), bool(param, "header", false));
+			}
+
+			Map<String, Object> methodBound = object(definition, "bound");
+			builder.newMethod(soapResult, method, methodBound != null ? new SoapBound(string(methodBound, "uid", ""),
+					string(methodBound, "json", "")) : null, soapParams);
+		}
+
+		return builder;
+	}
+
+	private static JaxrsEndpointApiCtClassBuilder jaxrs(final ClassPool pool, final EndpointClassCache cache, final Map<String, Object> endpoint) throws Exception {
+
+		JaxrsEndpointApiCtClassBuilder builder = new JaxrsEndpointApiCtClassBuilder(pool, required(endpoint, "class"));
+		if (cache != null) {
+			builder.cache(cache);
+		}
+		if (endpoint.containsKey("path")) {
+			builder.path(required(endpoint, "path"));
+		}
+		if (endpoint.containsKey("produces")) {
+			builder.produces(array(endpoint, "produces"));
+		}
+		Map<String, Object> bound = object(endpoint, "bound");
+		if (bound != null) {
+			builder.bind(new RestBound(string(bound, "uid", ""), string(bound, "json", "")));
+		}
+		if (endpoint.containsKey("delegate")) {
+			builder.delegate(type(required(endpoint, "delegate")), strings(object(endpoint, "delegateMethods")));
+		} else if (endpoint.containsKey("dispatch")) {
+			builder.dispatch(EndpointDispatch.valueOf(required(endpoint, "dispatch")));
+		}
+
+		for (Map<String, Object> definition : objects(endpoint, "methods")) {
+
+			RestMethod method = new RestMethod(HttpMethodEnum.valueOfIgnoreCase(string(definition, "method", HttpMethodEnum.GET.getKey())),
+					required(definition, "name"), string(definition, "path", ""), array(definition, "consumes"));
+			if (definition.containsKey("produces")) {
+				method.setMediaTypes(array(definition, "produces"));
+			}
+			method.setAsync(bool(definition, "async", false));
+
+			List<Map<String, Object>> params = objects(definition, "params");
+			RestParam<?>[] restParams = new RestParam<?>[params.size()];
+			for (int i = 0; i < restParams.length; i++) {
+				Map<String, Object> param = params.get(i);
+				restParams[i] = new RestParam<>(type(required(param, "type")), required(param, "name"), string(param, "def", null));
+				restParams[i].setFrom(HttpParamEnum.valueOf(string(param, "from", HttpParamEnum.QUERY.name())));
+			}
+
+			String returnType = string(definition, "returnType", null);
+			Map<String, Object> methodBound = object(definition, "bound");
+			builder.newMethod(returnType != null ? type(returnType) : null, method, methodBound != null
+					? new RestBound(string(methodBound, "uid", ""), string(methodBound, "json", "")) : null, restParams);
+		}
+
+		return builder;
+	}
+
+	private static Class<?> type(final String name) throws ClassNotFoundException {
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		return ClassUtils.getClass(loader != null ? loader : EndpointCatalog.class.getClassLoader(), name);
+	}
+
+	private static String required(final Map<String, Object> map, final String key) {
+		String value = string(map, key, null);
+		if (value == null || value.isEmpty()) {
+			throw new IllegalArgumentException("'" + key + "' is required");
+		}
+		return value;
+	}
+
+	private static String string(final Map<String, Object> map, final String key, final String def) {
+		Object value = map.get(key);
+		return value != null ? value.toString() : def;
+	}
+
+	private static boolean bool(final Map<String, Object> map, final String key, final boolean def) {
+		Object value = map.get(key);
+		if (value == null) {
+			return def;
+		}
+		if (!(value instanceof Boolean)) {
+			throw new IllegalArgumentException("'" + key + "' must be a boolean");
+		}
+		return (Boolean) value;
+	}
+
+	private static long number(final Map<String, Object> map, final String key, final long def) {
+		Object value = map.get(key);
+		if (value == null) {
+			return def;
+		}
+		if (!(value instanceof Number)) {
+			throw new IllegalArgumentException("'" + key + "' must be a number");
+		}
+		return ((Number) value).longValue();
+	}
+
+	private static String[] array(final Map<String, Object> map, final String key) {
+		Object value = map.get(key);
+		if (value == null) {
+			return new String[0];
+		}
+		if (!(value instanceof List)) {
+			return new String[] { value.toString() };
+		}
+		List<?> list = (List<?>) value;
+		String[] array = new String[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = String.valueOf(list.get(i));
+		}
+		return array;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> object(final Map<String, Object> map, final String key) {
+		Object value = map.get(key);
+		if (value != null && !(value instanceof Map)) {
+			throw new IllegalArgumentException("'" + key + "' must be an object");
+		}
+		return (Map<String, Object>) value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Map<String, Object>> objects(final Map<String, Object> map, final String key) {
+		Object value = map.get(key);
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		if (!(value instanceof List)) {
+			throw new IllegalArgumentException("'" + key + "' must be an array");
+		}
+		for (Object element : (List<?>) value) {
+			if (!(element instanceof Map)) {
+				throw new IllegalArgumentException("'" + key + "' must be an array of objects");
+			}
+		}
+		return (List<Map<String, Object>>) value;
+	}
+
+	private static Map<String, String> strings(final Map<String, Object> map) {
+		if (map == null) {
+			return null;
+		}
+		Map<String, String> strings = new LinkedHashMap<String, String>();
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			strings.put(entry.getKey(), String.valueOf(entry.getValue()));
+		}
+		return strings;
+	}
+
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javassist.CannotCompileException;
+
+/**
+ * 动态类字节码的磁盘缓存，以 {@link EndpointFingerprint} 的摘要为键。
+ * <p>定义不变时重启后直接从缓存定义类，不再编译方法体及构造注解。每个缓存文件包含魔数、格式版本、
+ * 字节码的 SHA-256 及字节码本身：先写入同目录的临时文件再原子替换，读取时校验失败的文件会被删除并按未命中处理。</p>
+ * <p>命中时更新文件的修改时间。总大小及文件数量在首次写入时统计一次，之后随写入及删除增量维护；
+ * 超出限制时才列出目录，按修改时间从旧到新淘汰到限制的 {@value #LOW_WATER_PERCENT}%，
+ * 留出余量避免随后的每次写入都重新列出目录。其他进程共用目录时统计值只是近似，每次淘汰都会按目录重新校准。
+ * 缓存的读写失败只记录日志，不影响动态类的构建。</p>
+ */
+public class EndpointClassCache {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(EndpointClassCache.class);
+
+	private static final int MAGIC = 0x43584645;
+	private static final String SUFFIX = ".bin";
+	private static final int LOW_WATER_PERCENT = 90;
+
+	private final Path directory;
+	private final long maxBytes;
+	private final int maxEntries;
+	// 缓存文件的总大小及数量，-1 表示尚未统计
+	private long totalBytes = -1;
+	private int entries = 0;
+
+	/**
+	 * @param directory		: 缓存目录，不存在时自动创建
+	 */
+	public EndpointClassCache(final Path directory) {
+		this(directory, 64L * 1024 * 1024, 4096);
+	}
+
+	/**
+	 * @param directory		: 缓存目录，不存在时自动创建
+	 * @param maxBytes		: 缓存文件的总大小上限，单位字节
+	 * @param maxEntries	: 缓存文件的数量上限
+	 */
+	public EndpointClassCache(final Path directory, final long maxBytes, final int maxEntries) {
+		if (maxBytes <= 0 || maxEntries <= 0) {
+			throw new IllegalArgumentException("maxBytes and maxEntries must be positive");
+		}
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * 读取缓存的字节码
+	 * @param key			: 定义摘要
+	 * @return 字节码，未命中或校验失败时返回 null
+	 */
+	public byte[] get(final String key) {
+		Path file = file(key);
+		byte[] bytes;
+		try (InputStream input = Files.newInputStream(file); DataInputStream data = new DataInputStream(input)) {
+			if (data.readInt() != MAGIC || data.readInt() != EndpointFingerprint.FORMAT_VERSION) {
+				throw new IOException("unexpected header");
+			}
+			byte[] checksum = new byte[32];
+			data.readFully(checksum);
+			int length = data.readInt();
+			if (length < 0 || length > maxBytes) {
+				throw new IOException("unexpected length " + length);
+			}
+			bytes = new byte[length];
+			data.readFully(bytes);
+			if (data.read() != -1 || !MessageDigest.isEqual(checksum, sha256(bytes))) {
+				throw new IOException("checksum mismatch");
+			}
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			LOG.warn("Discard corrupted endpoint class cache {} : {}", file, e.getMessage());
+			discard(file);
+			return null;
+		}
+		try {
+			// 以修改时间作为最近使用时间
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			LOG.debug("Touch endpoint class cache {} failed", file, e);
+		}
+		return bytes;
+	}
+
+	/**
+	 * 写入字节码，完成后按大小及数量淘汰最久未使用的缓存
+	 * @param key			: 定义摘要
+	 * @param bytes			: 字节码
+	 */
+	public void put(final String key, final byte[] bytes) {
+		Path file = file(key);
+		Path temp = null;
+		try {
+			Files.createDirectories(directory);
+			temp = Files.createTempFile(directory, key, ".tmp");
+			try (OutputStream output = Files.newOutputStream(temp); DataOutputStream data = new DataOutputStream(output)) {
+				data.writeInt(MAGIC);
+				data.writeInt(EndpointFingerprint.FORMAT_VERSION);
+				data.write(sha256(bytes));
+				data.writeInt(bytes.length);
+				data.write(bytes);
+			}
+			long replaced = Files.exists(file) ? size(file) : -1;
+			try {
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			temp = null;
+			// 覆盖已有文件时只计入大小的差值
+			if (this.account(size(file) - Math.max(replaced, 0), replaced < 0 ? 1 : 0)) {
+				this.evict();
+			}
+		} catch (IOException e) {
+			LOG.warn("Write endpoint class cache {} failed", file, e);
+		} finally {
+			if (temp != null) {
+				delete(temp);
+			}
+		}
+	}
+
+	/**
+	 * 删除缓存
+	 * @param key			: 定义摘要
+	 */
+	public void remove(final String key) {
+		discard(file(key));
+	}
+
+	/**
+	 * 通过线程上下文类加载器定义类
+	 * @param classname		: 类名称
+	 * @param bytes			: 字节码
+	 * @return The Class
+	 * @throws CannotCompileException if can't define the class
+	 */
+	public Class<?> define(final String classname, final byte[] bytes) throws CannotCompileException {
+		return EndpointClassDefiner.define(classname, bytes, EndpointLoading.SHARED, null);
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * 增量维护统计值
+	 * @param bytes			: 总大小的变化量
+	 * @param count			: 文件数量的变化量
+	 * @return 尚未统计或超出限制时返回 true，需要调用 {@link #evict()}
+	 */
+	protected synchronized boolean account(final long bytes, final int count) {
+		if (totalBytes < 0) {
+			return true;
+		}
+		totalBytes += bytes;
+		entries += count;
+		return totalBytes > maxBytes || entries > maxEntries;
+	}
+
+	/**
+	 * 列出目录校准统计值，超出限制时按修改时间从旧到新淘汰到限制的 {@value #LOW_WATER_PERCENT}%
+	 */
+	protected synchronized void evict() {
+		List<Path> files = new ArrayList<Path>();
+		long total = 0;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path file : stream) {
+				files.add(file);
+				total += size(file);
+			}
+		} catch (IOException e) {
+			LOG.warn("List endpoint class cache {} failed", directory, e);
+			return;
+		}
+		int count = files.size();
+		if (total > maxBytes || count > maxEntries) {
+			// 限制较小时至少保留一个文件
+			long bytesTarget = Math.max(1, (long) (maxBytes * (LOW_WATER_PERCENT / 100.0)));
+			int entriesTarget = Math.max(1, (int) (maxEntries * (LOW_WATER_PERCENT / 100.0)));
+			files.sort(Comparator.comparingLong(EndpointClassCache::lastModified));
+			for (int i = 0; i < files.size() && (total > bytesTarget || count > entriesTarget); i++) {
+				long size = size(files.get(i));
+				if (delete(files.get(i))) {
+					total -= size;
+					count--;
+				}
+			}
+		}
+		this.totalBytes = total;
+		this.entries = count;
+	}
+
+	/**
+	 * @return 当前统计的缓存文件数量，尚未统计时为 -1
+	 */
+	public synchronized int getEntries() {
+		return totalBytes < 0 ? -1 : entries;
+	}
+
+	/**
+	 * 删除缓存文件并更新统计值
+	 * @param file			: 缓存文件
+	 */
+	private void discard(final Path file) {
+		long size = size(file);
+		if (delete(file)) {
+			this.account(-size, -1);
+		}
+	}
+
+	private Path file(final String key) {
+		return directory.resolve(key + SUFFIX);
+	}
+
+	private static long size(final Path file) {
+		try {
+			return Files.size(file);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	private static long lastModified(final Path file) {
+		try {
+			return Files.getLastModifiedTime(file).toMillis();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	private static boolean delete(final Path file) {
+		try {
+			return Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOG.debug("Delete endpoint class cache {} failed", file, e);
+			return false;
+		}
+	}
+
+	private static byte[] sha256(final byte[] bytes) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(bytes);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.util.proxy.DefineClassHelper;
+
+/**
+ * 按 {@link EndpointLoading} 定义动态类。
+ * <p>{@link EndpointLoading#HIDDEN} 需要目标包中的完整权限 {@link MethodHandles.Lookup}：每个父加载器的每个包生成一个
+ * 宿主类，宿主类定义在独立的加载器中，由其上定义的隐藏类保持可达；隐藏类本身不在加载器中登记，不再被引用后即可卸载，
+ * 全部卸载后宿主类随之卸载，之后需要时重新生成。这里只弱引用宿主类的 Lookup，不会因此保留父加载器。
+ * 隐藏类的 {@link Class#getName()} 带有 <code>/0x...</code> 后缀，按类名登记的数据请通过 {@link #nameOf(Class)} 查找。</p>
+ * <p>类卸载的前提是没有其他强引用，服务下线时可调用 {@link #retire(String)} 清除按类名登记的绑定数据及异常接收对象。</p>
+ */
+public final class EndpointClassDefiner {
+
+	private static final String ANCHOR = "$EndpointAnchor";
+
+	// 父加载器 -> 包名 -> 宿主类的 Lookup；Lookup 经宿主类的加载器可达父加载器，只能弱引用
+	private static final Map<ClassLoader, Map<String, WeakReference<MethodHandles.Lookup>>> ANCHORS = new WeakHashMap<ClassLoader, Map<String, WeakReference<MethodHandles.Lookup>>>();
+
+	private EndpointClassDefiner() {
+	}
+
+	/**
+	 * 定义动态类
+	 * @param classname		: 类名称
+	 * @param bytecode		: 字节码
+	 * @param loading		: 定义方式
+	 * @param parent		: 父加载器，为 null 时使用线程上下文类加载器
+	 * @return The Class
+	 * @throws CannotCompileException if can't define the class
+	 */
+	public static Class<?> define(final String classname, final byte[] bytecode, final EndpointLoading loading,
+			final ClassLoader parent) throws CannotCompileException {
+		ClassLoader loader = parent != null ? parent : Thread.currentThread().getContextClassLoader();
+		loader = loader != null ? loader : EndpointClassDefiner.class.getClassLoader();
+		Class<?> type;
+		switch (loading) {
+			case ISOLATED:
+				type = new IsolatedClassLoader(loader).define(classname, bytecode);
+				break;
+			case HIDDEN:
+				try {
+					type = anchor(loader, classname).defineHiddenClass(bytecode, true).lookupClass();
+				} catch (IllegalAccessException e) {
+					throw new CannotCompileException(e);
+				}
+				break;
+			default:
+				type = DefineClassHelper.toClass(classname, null, loader, null, bytecode);
+		}
+		// 类定义后立即保存绑定数据快照，之后按类名修改登记不影响该类
+		EndpointBindings.attach(type);
+		return type;
+	}
+
+	/**
+	 * 动态类的类名，隐藏类去掉 <code>/0x...</code> 后缀
+	 * @param type			: 动态类
+	 * @return 生成时的类名
+	 */
+	public static String nameOf(final Class<?> type) {
+		String name = type.getName();
+		int index = type.isHidden() ? name.indexOf('/') : -1;
+		return index < 0 ? name : name.substring(0, index);
+	}
+
+	/**
+	 * 清除按类名登记的绑定数据及异常接收对象，服务下线后调用；已定义的类按 {@link Class} 保留各自的绑定数据，
+	 * 同名的新版本已上线时调用同样安全
+	 * @param classname		: 动态类名称
+	 */
+	public static void retire(final String classname) {
+		EndpointBindings.removeAll(classname);
+		EndpointFaults.register(classname, null);
+	}
+
+	private static MethodHandles.Lookup anchor(final ClassLoader loader, final String classname) throws CannotCompileException {
+		int index = classname.lastIndexOf('.');
+		String packageName = index < 0 ? "" : classname.substring(0, index);
+		synchronized (ANCHORS) {
+			Map<String, WeakReference<MethodHandles.Lookup>> anchors = ANCHORS.computeIfAbsent(loader,
+					key -> new ConcurrentHashMap<String, WeakReference<MethodHandles.Lookup>>());
+			WeakReference<MethodHandles.Lookup> reference = anchors.get(packageName);
+			MethodHandles.Lookup lookup = reference == null ? null : reference.get();
+			if (lookup == null) {
+				lookup = makeAnchor(loader, packageName.isEmpty() ? ANCHOR : packageName + "." + ANCHOR);
+				anchors.put(packageName, new WeakReference<MethodHandles.Lookup>(lookup));
+			}
+			return lookup;
+		}
+	}
+
+	/**
+	 * 生成宿主类，由宿主类自身调用 {@link MethodHandles#lookup()} 取得完整权限的 Lookup 并保存在静态字段中，
+	 * Lookup 与宿主类的生命周期一致
+	 */
+	private static MethodHandles.Lookup makeAnchor(final ClassLoader loader, final String name) throws CannotCompileException {
+		CtClass anchor = new ClassPool(true).makeClass(name);
+		try {
+			anchor.addField(CtField.make("public static final java.lang.invoke.MethodHandles$Lookup LOOKUP = "
+					+ "java.lang.invoke.MethodHandles.lookup();", anchor));
+			Class<?> type = new IsolatedClassLoader(loader).define(name, anchor.toBytecode());
+			return (MethodHandles.Lookup) type.getField("LOOKUP").get(null);
+		} catch (IOException | ReflectiveOperationException e) {
+			throw new CannotCompileException(e);
+		} finally {
+			anchor.detach();
+		}
+	}
+
+	private static final class IsolatedClassLoader extends ClassLoader {
+
+		static {
+			registerAsParallelCapable();
+		}
+
+		private IsolatedClassLoader(final ClassLoader parent) {
+			super(parent);
+		}
+
+		private Class<?> define(final String name, final byte[] bytecode) {
+			return defineClass(name, bytecode, 0, bytecode.length);
+		}
+
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import org.apache.commons.lang3.builder.Builder;
+import org.apache.cxf.endpoint.utils.EndpointApiUtils;
+
+import com.github.hiwepy.javassist.utils.ClassPoolFactory;
+
+import javassist.CannotCompileException;
+import javassist.CtClass;
+import javassist.NotFoundException;
+
+/**
+ * 构建期生成动态类：将构建器生成的类写入输出目录（如 target/classes），并登记到 {@link #INDEX} 索引文件中，
+ * 运行期通过 {@link PrebuiltEndpoints} 直接加载，不再经过 Javassist 编译。
+ * <p>可在 Maven 的 process-classes 阶段通过 exec-maven-plugin 调用 {@link #main(String[])}，参数为输出目录及可选的
+ * {@link EndpointCatalog} 目录文件，接口定义来自目录文件及 classpath 中的 {@link EndpointDefinitionProvider} 实现。</p>
+ */
+public class EndpointClassGenerator {
+
+	/**
+	 * 预先生成的动态类索引文件，每行一个类名
+	 */
+	public static final String INDEX = "META-INF/cxf-endpoints.idx";
+
+	private final File outputDir;
+	private final Set<String> classnames = new LinkedHashSet<String>();
+
+	public EndpointClassGenerator(File outputDir) {
+		this.outputDir = outputDir;
+	}
+
+	/**
+	 * 生成构建器对应的动态类
+	 * @param builder		: 动态类构建器
+	 * @return {@link EndpointClassGenerator} instance
+	 * @throws IOException if write failed
+	 * @throws CannotCompileException if can't compile
+	 * @throws NotFoundException  if not found
+	 */
+	public EndpointClassGenerator generate(Builder<CtClass> builder) throws IOException, CannotCompileException, NotFoundException {
+		return generate(builder.build());
+	}
+
+	/**
+	 * 写出动态类的 class 文件；父类为 {@link EndpointApi} 时补充回调接口参数的构造器
+	 * @param declaring		: {@link CtClass} instance
+	 * @return {@link EndpointClassGenerator} instance
+	 * @throws IOException if write failed
+	 * @throws CannotCompileException if can't compile
+	 * @throws NotFoundException  if not found
+	 */
+	public EndpointClassGenerator generate(CtClass declaring) throws IOException, CannotCompileException, NotFoundException {
+		try {
+			if (!declaring.isInterface() && EndpointApi.class.getName().equals(declaring.getSuperclass().getName())) {
+				EndpointApiUtils.makeConstructors(declaring);
+			}
+			declaring.writeFile(outputDir.getPath());
+			classnames.add(declaring.getName());
+		} finally {
+			// 将该class从ClassPool中删除
+			declaring.detach();
+		}
+		return this;
+	}
+
+	/**
+	 * 写出索引文件，与已有的索引合并
+	 * @throws IOException if write failed
+	 */
+	public void writeIndex() throws IOException {
+		File index = new File(outputDir, INDEX);
+		Set<String> lines = new LinkedHashSet<String>();
+		if (index.exists()) {
+			lines.addAll(Files.readAllLines(index.toPath(), StandardCharsets.UTF_8));
+		}
+		lines.addAll(classnames);
+		lines.remove("");
+		index.getParentFile().mkdirs();
+		Files.write(index.toPath(), lines, StandardCharsets.UTF_8);
+	}
+
+	public Set<String> getClassnames() {
+		return classnames;
+	}
+
+	/**
+	 * @param args			: 第一个参数为输出目录，其余参数为 {@link EndpointCatalog} 目录文件
+	 * @throws Exception 生成异常
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("Usage: EndpointClassGenerator <outputDir> [catalog.json ...]");
+			System.exit(1);
+		}
+		EndpointClassGenerator generator = new EndpointClassGenerator(new File(args[0]));
+		for (int i = 1; i < args.length; i++) {
+			EndpointCatalog.load(Paths.get(args[i]), ClassPoolFactory.getDefaultPool(), null, generator::generate);
+		}
+		for (EndpointDefinitionProvider provider : ServiceLoader.load(EndpointDefinitionProvider.class)) {
+			for (Builder<CtClass> builder : provider.getBuilders()) {
+				generator.generate(builder);
+			}
+		}
+		generator.writeIndex();
+		System.out.println("Generated " + generator.getClassnames().size() + " endpoint classes into " + args[0]);
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.util.Collection;
+
+import org.apache.commons.lang3.builder.Builder;
+
+import javassist.CtClass;
+
+/**
+ * 构建期生成动态类时的接口定义来源，通过 {@link java.util.ServiceLoader} 加载，
+ * 在 META-INF/services/org.apache.cxf.endpoint.EndpointDefinitionProvider 中声明实现类。
+ * <p>实现类使用与运行期相同的构建器定义接口，例如返回
+ * <code>new JaxwsEndpointApiCtClassBuilder("x.Api").webService(...).newMethod(...)</code>。</p>
+ */
+public interface EndpointDefinitionProvider {
+
+	/**
+	 * @return 需要预先生成的动态类构建器
+	 * @throws Exception 定义异常
+	 */
+	Collection<? extends Builder<CtClass>> getBuilders() throws Exception;
+
+}
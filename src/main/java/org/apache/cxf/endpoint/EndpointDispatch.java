@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.lang.reflect.InvocationHandler;
+
+/**
+ * 动态类方法体的调用方式
+ */
+public enum EndpointDispatch {
+
+	/**
+	 * 通过 {@link InvocationHandler} 调用，参数以数组传递
+	 */
+	HANDLER,
+	/**
+	 * 通过 {@link EndpointInvoker} 按操作序号调用，少量参数及单个基本类型参数无需构造数组和装箱
+	 */
+	INVOKER,
+	/**
+	 * 直接调用目标对象的方法，不经过回调接口及反射
+	 */
+	DELEGATE,
+	/**
+	 * 通过 invokedynamic 指令调用，调用点由 {@link EndpointCallSites} 管理，可在运行期重新绑定
+	 */
+	INDY;
+
+}
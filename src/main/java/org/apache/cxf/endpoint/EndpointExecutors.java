@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 执行处理逻辑的线程池工具，运行在 Java 21 及以上版本时使用虚拟线程，否则退化为有界的守护线程池。
+ * <p>编译目标为 Java 17，虚拟线程相关方法通过反射调用。</p>
+ * <p>平台线程不能像虚拟线程那样按任务创建：退化的线程池线程数及等待队列均有上限，
+ * 超出时拒绝任务（{@link RejectedExecutionException}），由调用方以异常完成 {@link java.util.concurrent.CompletionStage}。</p>
+ */
+public final class EndpointExecutors {
+
+	/**
+	 * 退化为平台线程时的默认线程数上限
+	 */
+	public static final int DEFAULT_MAX_THREADS = Math.max(16, Runtime.getRuntime().availableProcessors() * 8);
+	/**
+	 * 退化为平台线程时的默认等待队列长度
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private static final Method VIRTUAL_THREAD_EXECUTOR = virtualThreadMethod();
+	private static volatile ExecutorService shared;
+
+	private EndpointExecutors() {
+	}
+
+	/**
+	 * @return 当前运行环境是否支持虚拟线程
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	/**
+	 * 共享的虚拟线程执行器，每个任务一个虚拟线程，无需关闭
+	 * @return {@link ExecutorService} instance
+	 */
+	public static ExecutorService virtualThreadExecutor() {
+		ExecutorService executor = shared;
+		if (executor == null) {
+			synchronized (EndpointExecutors.class) {
+				executor = shared;
+				if (executor == null) {
+					executor = shared = newVirtualThreadExecutor();
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * 创建新的虚拟线程执行器，不支持虚拟线程时返回默认上限的有界守护线程池
+	 * @return {@link ExecutorService} instance
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		return newVirtualThreadExecutor(DEFAULT_MAX_THREADS, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * 创建新的虚拟线程执行器，不支持虚拟线程时返回有界的守护线程池，空闲线程 60 秒后回收
+	 * @param maxThreads		: 退化为平台线程时的线程数上限
+	 * @param queueCapacity		: 退化为平台线程时的等待队列长度，线程与队列均已满时拒绝任务
+	 * @return {@link ExecutorService} instance
+	 */
+	public static ExecutorService newVirtualThreadExecutor(int maxThreads, int queueCapacity) {
+		if (maxThreads <= 0 || queueCapacity < 0) {
+			throw new IllegalArgumentException("maxThreads must be positive, queueCapacity must not be negative");
+		}
+		if (VIRTUAL_THREAD_EXECUTOR != null) {
+			try {
+				return (ExecutorService) VIRTUAL_THREAD_EXECUTOR.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				// 退化为平台线程
+			}
+		}
+		AtomicInteger counter = new AtomicInteger();
+		BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<Runnable>() : new LinkedBlockingQueue<Runnable>(queueCapacity);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, queue, runnable -> {
+			Thread thread = new Thread(runnable, "endpoint-handler-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static Method virtualThreadMethod() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+}
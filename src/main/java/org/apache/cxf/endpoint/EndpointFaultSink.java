@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+/**
+ * 动态类方法异常的接收接口，由生成的 catch 代码在重新抛出异常之前调用。
+ * <p>实现需要保证不阻塞、不抛出异常，异常高峰时所有业务线程都会经过这里。</p>
+ */
+public interface EndpointFaultSink {
+
+	/**
+	 * 记录方法异常
+	 * @param classname		: 动态类名称，与注册接收对象时使用的名称一致
+	 * @param proxy			: 动态类实例
+	 * @param operation		: 操作序号，未知时为 {@link EndpointInvocationHandler#UNKNOWN_OPERATION}
+	 * @param method		: 方法名称
+	 * @param cause			: 异常对象
+	 */
+	void fault(String classname, Object proxy, int operation, String method, Throwable cause);
+
+}
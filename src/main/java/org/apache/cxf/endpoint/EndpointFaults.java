@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 动态类与 {@link EndpointFaultSink} 的对应关系，生成的 catch 代码通过类名查找接收对象，未单独指定时使用默认接收对象。
+ */
+public final class EndpointFaults {
+
+	private static final ConcurrentMap<String, EndpointFaultSink> SINKS = new ConcurrentHashMap<String, EndpointFaultSink>();
+	private static volatile EndpointFaultSink defaultSink = new RingBufferFaultSink();
+
+	private EndpointFaults() {
+	}
+
+	/**
+	 * 生成的 catch 代码调用的入口，接收对象自身的异常不会影响原异常的抛出
+	 * @param classname		: 动态类名称
+	 * @param proxy			: 动态类实例
+	 * @param operation		: 操作序号
+	 * @param method		: 方法名称
+	 * @param cause			: 异常对象
+	 */
+	public static void fault(String classname, Object proxy, int operation, String method, Throwable cause) {
+		try {
+			getSink(classname).fault(classname, proxy, operation, method, cause);
+		} catch (Exception ignore) {
+			// 接收对象的异常不能掩盖业务异常；Error 照常抛出
+		}
+	}
+
+	public static EndpointFaultSink getSink(String classname) {
+		EndpointFaultSink sink = SINKS.get(classname);
+		return sink != null ? sink : defaultSink;
+	}
+
+	/**
+	 * 为指定动态类设置异常接收对象
+	 * @param classname		: 动态类名称
+	 * @param sink			: {@link EndpointFaultSink} instance，为 null 时恢复为默认接收对象
+	 */
+	public static void register(String classname, EndpointFaultSink sink) {
+		if (sink == null) {
+			SINKS.remove(classname);
+		} else {
+			SINKS.put(classname, sink);
+		}
+	}
+
+	public static EndpointFaultSink getDefaultSink() {
+		return defaultSink;
+	}
+
+	public static void setDefaultSink(EndpointFaultSink sink) {
+		if (sink == null) {
+			throw new IllegalArgumentException("default sink must not be null");
+		}
+		defaultSink = sink;
+	}
+
+}
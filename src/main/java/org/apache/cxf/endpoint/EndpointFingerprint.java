@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javassist.CtClass;
+
+/**
+ * 动态类定义的摘要，作为 {@link EndpointClassCache} 的键。
+ * <p>构建器按调用顺序写入类名、注解、方法、参数及绑定数据，摘要相同即认为生成的字节码相同；
+ * 定义对象按字段名称排序后逐个写入，每个值都带类型标记和长度前缀，避免不同定义拼接后相同。</p>
+ * <p>类按名称及结构写入：非 JDK 的类同时写入父类、接口、字段及方法描述符，引用的类型变化后摘要随之变化。
+ * 每个摘要都以 {@link #GENERATOR_VERSION} 开头，该值由生成器自身的字节码及 javassist 版本计算，
+ * 升级本项目或 javassist 后旧的缓存自动失效，无需手动递增版本号。</p>
+ */
+public final class EndpointFingerprint {
+
+	/**
+	 * 缓存文件的格式版本，仅在 {@link EndpointClassCache} 的文件结构变化时递增
+	 */
+	public static final int FORMAT_VERSION = 6;
+
+	/**
+	 * 参与生成字节码的类，其字节码的摘要作为生成器版本
+	 */
+	private static final String[] GENERATORS = {
+			"org.apache.cxf.endpoint.EndpointFingerprint",
+			"org.apache.cxf.endpoint.EndpointShapes",
+			"org.apache.cxf.endpoint.EndpointTemplates",
+			"org.apache.cxf.endpoint.utils.EndpointApiUtils",
+			"org.apache.cxf.endpoint.utils.JaxwsEndpointApiUtils",
+			"org.apache.cxf.endpoint.utils.JaxrsEndpointApiUtils",
+			"org.apache.cxf.endpoint.jaxws.JaxwsEndpointApiCtClassBuilder",
+			"org.apache.cxf.endpoint.jaxws.JaxwsEndpointApiImplCtClassBuilder",
+			"org.apache.cxf.endpoint.jaxrs.JaxrsEndpointApiCtClassBuilder",
+			"org.apache.cxf.endpoint.jaxrs.JaxrsEndpointApiImplCtClassBuilder" };
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * 生成器版本：生成器类字节码及 javassist 版本的摘要
+	 */
+	public static final String GENERATOR_VERSION = generatorVersion();
+
+	// 类的结构描述，每个类只计算一次
+	private static final ClassValue<String> STRUCTURES = new ClassValue<String>() {
+		@Override
+		protected String computeValue(Class<?> type) {
+			return structure(type);
+		}
+	};
+
+	private final MessageDigest digest;
+	private final IdentityHashMap<Object, Boolean> visiting = new IdentityHashMap<Object, Boolean>();
+
+	public EndpointFingerprint() {
+		this(true);
+	}
+
+	private EndpointFingerprint(final boolean versioned) {
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		if (versioned) {
+			this.update(FORMAT_VERSION, GENERATOR_VERSION);
+		}
+	}
+
+	/**
+	 * 依次写入定义数据
+	 * @param values		: 定义数据
+	 * @return {@link EndpointFingerprint} instance
+	 */
+	public EndpointFingerprint update(final Object... values) {
+		if (values == null) {
+			write('N', "");
+			return this;
+		}
+		write('[', String.valueOf(values.length));
+		for (Object value : values) {
+			this.value(value);
+		}
+		return this;
+	}
+
+	/**
+	 * 当前摘要的十六进制表示，不影响后续写入
+	 * @return 64 位十六进制字符串
+	 */
+	public String toHex() {
+		byte[] bytes;
+		try {
+			bytes = ((MessageDigest) digest.clone()).digest();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	@Override
+	public String toString() {
+		return toHex();
+	}
+
+	private void value(final Object value) {
+		if (value == null) {
+			write('N', "");
+		} else if (value instanceof CharSequence) {
+			write('S', value.toString());
+		} else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+			write('P', value.getClass().getSimpleName() + ":" + value);
+		} else if (value instanceof Enum) {
+			write('E', ((Enum<?>) value).getDeclaringClass().getName() + "." + ((Enum<?>) value).name());
+		} else if (value instanceof Class) {
+			write('C', STRUCTURES.get((Class<?>) value));
+		} else if (visiting.containsKey(value)) {
+			// 循环引用只写入标记
+			write('R', value.getClass().getName());
+		} else {
+			visiting.put(value, Boolean.TRUE);
+			try {
+				composite(value);
+			} finally {
+				visiting.remove(value);
+			}
+		}
+	}
+
+	private void composite(final Object value) {
+		if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			write('[', String.valueOf(length));
+			for (int i = 0; i < length; i++) {
+				value(Array.get(value, i));
+			}
+		} else if (value instanceof Collection) {
+			write('[', String.valueOf(((Collection<?>) value).size()));
+			for (Object element : (Collection<?>) value) {
+				value(element);
+			}
+		} else if (value instanceof Map) {
+			// 按键的字符串形式排序，与 Map 的实现及插入顺序无关
+			Map<String, Object> sorted = new TreeMap<String, Object>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+			}
+			write('{', String.valueOf(sorted.size()));
+			for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+				write('K', entry.getKey());
+				value(entry.getValue());
+			}
+		} else {
+			write('O', value.getClass().getName());
+			for (Field field : fields(value.getClass())) {
+				write('K', field.getName());
+				try {
+					value(field.get(value));
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+	}
+
+	private static List<Field> fields(final Class<?> type) {
+		List<Field> fields = new ArrayList<Field>();
+		for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+			for (Field field : clazz.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+					continue;
+				}
+				field.setAccessible(true);
+				fields.add(field);
+			}
+		}
+		fields.sort(Comparator.comparing((Field field) -> field.getDeclaringClass().getName()).thenComparing(Field::getName));
+		return fields;
+	}
+
+	/**
+	 * 类的结构描述：JDK 的类及基本类型只有名称，其余类包含父类、接口、字段类型及方法描述符
+	 */
+	private static String structure(final Class<?> type) {
+		if (type.isArray()) {
+			return "[" + STRUCTURES.get(type.getComponentType());
+		}
+		if (type.isPrimitive() || type.getClassLoader() == null) {
+			return type.getName();
+		}
+		List<String> members = new ArrayList<String>();
+		for (Field field : type.getDeclaredFields()) {
+			if (!field.isSynthetic()) {
+				members.add(field.getName() + ":" + field.getType().getName());
+			}
+		}
+		for (Method method : type.getDeclaredMethods()) {
+			if (!method.isSynthetic()) {
+				members.add(method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString());
+			}
+		}
+		Collections.sort(members);
+		StringBuilder builder = new StringBuilder(type.getName());
+		builder.append(" extends ").append(type.getSuperclass() == null ? "" : type.getSuperclass().getName());
+		for (Class<?> face : type.getInterfaces()) {
+			builder.append(" ").append(face.getName());
+		}
+		for (String member : members) {
+			builder.append(";").append(member);
+		}
+		return builder.toString();
+	}
+
+	private static String generatorVersion() {
+		EndpointFingerprint fingerprint = new EndpointFingerprint(false);
+		fingerprint.update(CtClass.version);
+		ClassLoader loader = EndpointFingerprint.class.getClassLoader();
+		for (String generator : GENERATORS) {
+			fingerprint.write('G', generator);
+			try (InputStream input = loader.getResourceAsStream(generator.replace('.', '/') + ".class")) {
+				if (input != null) {
+					byte[] buffer = new byte[8192];
+					for (int read; (read = input.read(buffer)) > 0;) {
+						fingerprint.digest.update(buffer, 0, read);
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return fingerprint.toHex();
+	}
+
+	private void write(final char tag, final String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		digest.update((byte) tag);
+		int length = bytes.length;
+		digest.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length });
+		digest.update(bytes);
+	}
+
+}
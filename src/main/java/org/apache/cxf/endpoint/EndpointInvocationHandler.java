@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+/**
+ * 带操作序号的 {@link InvocationHandler}，动态类会将方法的操作序号一并传入，实现类无需再根据 {@link Method} 名称判断调用的是哪个操作
+ */
+public interface EndpointInvocationHandler extends InvocationHandler {
+
+	/**
+	 * 未知的操作序号
+	 */
+	int UNKNOWN_OPERATION = -1;
+
+	/**
+	 * @param proxy			: 动态类实例
+	 * @param operation		: 操作序号，按 newMethod 的调用顺序从 0 开始分配
+	 * @param method		: 被调用的方法；共享形状类时为形状类声明的方法，不带方法级别的 <code>@WebBound</code>
+	 * @param args			: 方法参数
+	 * @return 方法返回值
+	 * @throws Throwable 调用异常
+	 */
+	Object invoke(Object proxy, int operation, Method method, Object[] args) throws Throwable;
+
+	/**
+	 * 带绑定数据的调用入口，生成的方法体调用该方法；需要读取 <code>@WebBound</code> 数据的实现覆盖该方法即可
+	 * @param proxy			: 动态类实例
+	 * @param operation		: 操作序号
+	 * @param binding		: 生成动态类时解析的绑定数据，按实例所属的接口读取，共享形状类时同样准确；不会为 null
+	 * @param method		: 被调用的方法
+	 * @param args			: 方法参数
+	 * @return 方法返回值
+	 * @throws Throwable 调用异常
+	 */
+	default Object invoke(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) throws Throwable {
+		return invoke(proxy, operation, method, args);
+	}
+
+	@Override
+	default Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		return invoke(proxy, UNKNOWN_OPERATION, method, args);
+	}
+
+}
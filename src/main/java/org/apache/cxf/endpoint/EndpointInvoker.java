@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.lang.reflect.InvocationHandler;
+
+/**
+ * 按操作序号分发的调用接口，作为 {@link InvocationHandler} 之外的另一种回调方式。
+ * <p>动态类以 {@link EndpointDispatch#INVOKER} 模式构建时，生成的方法会根据参数个数与类型直接调用对应的重载方法：
+ * 不超过 3 个参数时不再构造参数数组，单个 int、long、double、boolean 参数时不再装箱；
+ * byte、short、char、float 参数按各自的包装类型传递给 {@link #invoke(Object, int, Object)}。</p>
+ * <p>除 {@link #invoke(Object, int, Object[])} 外，其余方法均有默认实现，按需覆盖即可。</p>
+ */
+public interface EndpointInvoker {
+
+	/**
+	 * 通用调用入口，参数超过 3 个时使用
+	 * @param proxy			: 动态类实例
+	 * @param operation		: 操作序号，按 newMethod 的调用顺序从 0 开始分配
+	 * @param args			: 方法参数
+	 * @return 方法返回值
+	 * @throws Throwable 调用异常
+	 */
+	Object invoke(Object proxy, int operation, Object[] args) throws Throwable;
+
+	default Object invoke(Object proxy, int operation) throws Throwable {
+		return invoke(proxy, operation, new Object[0]);
+	}
+
+	default Object invoke(Object proxy, int operation, Object arg0) throws Throwable {
+		return invoke(proxy, operation, new Object[] { arg0 });
+	}
+
+	default Object invoke(Object proxy, int operation, Object arg0, Object arg1) throws Throwable {
+		return invoke(proxy, operation, new Object[] { arg0, arg1 });
+	}
+
+	default Object invoke(Object proxy, int operation, Object arg0, Object arg1, Object arg2) throws Throwable {
+		return invoke(proxy, operation, new Object[] { arg0, arg1, arg2 });
+	}
+
+	/**
+	 * 单个 int 参数
+	 * @param proxy			: 动态类实例
+	 * @param operation		: 操作序号
+	 * @param arg0			: 方法参数
+	 * @return 方法返回值
+	 * @throws Throwable 调用异常
+	 */
+	default Object invoke(Object proxy, int operation, int arg0) throws Throwable {
+		return invoke(proxy, operation, new Object[] { arg0 });
+	}
+
+	default Object invoke(Object proxy, int operation, long arg0) throws Throwable {
+		return invoke(proxy, operation, new Object[] { arg0 });
+	}
+
+	/**
+	 * 单个 double 参数
+	 * @param proxy			: 动态类实例
+	 * @param operation		: 操作序号
+	 * @param arg0			: 方法参数
+	 * @return 方法返回值
+	 * @throws Throwable 调用异常
+	 */
+	default Object invoke(Object proxy, int operation, double arg0) throws Throwable {
+		return invoke(proxy, operation, new Object[] { arg0 });
+	}
+
+	default Object invoke(Object proxy, int operation, boolean arg0) throws Throwable {
+		return invoke(proxy, operation, new Object[] { arg0 });
+	}
+
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jakarta.xml.bind.JAXBException;
+
+import org.apache.cxf.common.jaxb.JAXBContextCache.CachedContextAndSchemas;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.jaxb.JAXBDataBinding;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.model.AbstractMessageContainer;
+import org.apache.cxf.service.model.FaultInfo;
+import org.apache.cxf.service.model.MessagePartInfo;
+import org.apache.cxf.service.model.OperationInfo;
+import org.apache.cxf.service.model.ServiceInfo;
+import org.apache.cxf.wsdl.service.factory.ReflectionServiceFactoryBean;
+
+/**
+ * 在 JAX-WS 服务之间共享 {@link jakarta.xml.bind.JAXBContext}。
+ * <p>CXF 为每个服务生成各自的包装类（<code>jaxws_asm</code> 包，每次都由新的类加载器定义），即使参数及返回值类型完全相同，
+ * 各服务的上下文类集合也互不相同，每个服务都会重新构造 {@link jakarta.xml.bind.JAXBContext} 及其 XML Schema。</p>
+ * <p>通过 {@link #dataBinding()} 创建的 {@link JAXBDataBinding} 在初始化时先把结构相同（类名、根元素及字段的名称、类型、注解均一致）
+ * 的包装类替换为第一次出现的包装类，再按上下文类集合及默认命名空间查找已构造的上下文：类型集合相同的服务共用同一个上下文及 Schema。
+ * {@link jakarta.xml.bind.JAXBContext} 是线程安全的；{@link JAXBDataBinding} 保存服务级别的状态，每个服务使用各自的实例。</p>
+ * <p>只有字段类型为同一个 {@link Class} 的包装类才会合并，不同类加载器中的同名参数类型各自使用自己的包装类及上下文。
+ * 包装类按弱引用登记，不再被任何服务或上下文引用时即可回收；缓存的上下文强引用其类集合，不再发布相应服务时请调用 {@link #clear()}。</p>
+ */
+public class EndpointJaxbContexts {
+
+	private final ConcurrentMap<String, WrapperReference> wrappers = new ConcurrentHashMap<String, WrapperReference>();
+	private final ReferenceQueue<Class<?>> collected = new ReferenceQueue<Class<?>>();
+	private final EndpointKeyedCache<List<Object>, CachedContextAndSchemas> contexts = new EndpointKeyedCache<List<Object>, CachedContextAndSchemas>();
+
+	/**
+	 * @return 使用共享上下文的 {@link JAXBDataBinding}，每个服务创建一个
+	 */
+	public JAXBDataBinding dataBinding() {
+		return new SharedJAXBDataBinding(this);
+	}
+
+	/**
+	 * 清除缓存的上下文及包装类，已发布的服务不受影响
+	 */
+	public void clear() {
+		contexts.clear();
+		wrappers.clear();
+	}
+
+	/**
+	 * @return 缓存的上下文数量
+	 */
+	public int size() {
+		return contexts.size();
+	}
+
+	/**
+	 * @return 复用已有上下文的次数
+	 */
+	public long getHits() {
+		return contexts.getHits();
+	}
+
+	/**
+	 * @return 构造上下文的次数
+	 */
+	public long getMisses() {
+		return contexts.getMisses();
+	}
+
+	/**
+	 * 把服务模型中 CXF 生成的包装类替换为结构相同的已有包装类
+	 * @param service		: 服务
+	 */
+	protected void canonicalize(final Service service) {
+		for (ServiceInfo info : service.getServiceInfos()) {
+			// CXF 生成的包装类同时记录在服务模型的附加类集合中
+			Set<Class<?>> extra = CastUtils.cast(info.getProperty(ReflectionServiceFactoryBean.EXTRA_CLASS, Set.class));
+			if (extra != null) {
+				Set<Class<?>> canonical = new LinkedHashSet<Class<?>>(extra.size());
+				for (Class<?> type : extra) {
+					canonical.add(this.canonicalize(type));
+				}
+				info.setProperty(ReflectionServiceFactoryBean.EXTRA_CLASS, canonical);
+			}
+			if (info.getInterface() == null) {
+				continue;
+			}
+			for (OperationInfo operation : info.getInterface().getOperations()) {
+				this.canonicalize(operation.getInput());
+				this.canonicalize(operation.getOutput());
+				for (FaultInfo fault : operation.getFaults()) {
+					this.canonicalize(fault);
+				}
+				if (operation.isUnwrappedCapable()) {
+					this.canonicalize(operation.getUnwrappedOperation().getInput());
+					this.canonicalize(operation.getUnwrappedOperation().getOutput());
+				}
+			}
+		}
+	}
+
+	private void canonicalize(final AbstractMessageContainer message) {
+		if (message == null) {
+			return;
+		}
+		for (MessagePartInfo part : message.getMessageParts()) {
+			if (part.getTypeClass() != null) {
+				part.setTypeClass(this.canonicalize(part.getTypeClass()));
+			}
+		}
+	}
+
+	private Class<?> canonicalize(final Class<?> type) {
+		if (!isGenerated(type)) {
+			return type;
+		}
+		this.expunge();
+		String signature = signature(type);
+		while (true) {
+			WrapperReference reference = wrappers.get(signature);
+			Class<?> canonical = reference == null ? null : reference.get();
+			if (canonical != null) {
+				// 同名参数类型来自不同的类加载器时不合并
+				return isSameFields(canonical, type) ? canonical : type;
+			}
+			WrapperReference created = new WrapperReference(signature, type, collected);
+			if (reference == null ? wrappers.putIfAbsent(signature, created) == null : wrappers.replace(signature, reference, created)) {
+				return type;
+			}
+		}
+	}
+
+	/**
+	 * 移除已回收的包装类
+	 */
+	private void expunge() {
+		Reference<? extends Class<?>> reference;
+		while ((reference = collected.poll()) != null) {
+			wrappers.remove(((WrapperReference) reference).signature, reference);
+		}
+	}
+
+	/**
+	 * 按上下文类集合及默认命名空间获取上下文，不存在时构造并缓存；不同类集合的上下文并发构造，相同类集合只构造一次
+	 * @param classes		: 上下文类集合
+	 * @param defaultNs		: 默认命名空间
+	 * @param creator		: 上下文构造逻辑
+	 * @return {@link CachedContextAndSchemas} instance
+	 * @throws JAXBException if context creation failed
+	 */
+	protected CachedContextAndSchemas resolve(final Set<Class<?>> classes, final String defaultNs, final Creator creator) throws JAXBException {
+		List<Object> key = Arrays.asList(new HashSet<Class<?>>(classes), defaultNs);
+		return contexts.get(key, creator::create);
+	}
+
+	/**
+	 * CXF 生成的包装类及异常 Bean 所在的包以 <code>jaxws_asm</code> 结尾
+	 */
+	private static boolean isGenerated(final Class<?> type) {
+		return type.getName().contains(".jaxws_asm");
+	}
+
+	/**
+	 * 包装类的结构签名：类名、类注解及按名称排序的字段名称、泛型类型及注解
+	 */
+	private static String signature(final Class<?> type) {
+		StringBuilder signature = new StringBuilder(type.getName());
+		annotations(signature, type.getAnnotations());
+		List<Field> fields = new ArrayList<Field>(Arrays.asList(type.getDeclaredFields()));
+		fields.sort(Comparator.comparing(Field::getName));
+		for (Field field : fields) {
+			signature.append(';').append(field.getName()).append(':').append(field.getGenericType().getTypeName());
+			annotations(signature, field.getAnnotations());
+		}
+		return signature.toString();
+	}
+
+	private static boolean isSameFields(final Class<?> canonical, final Class<?> type) {
+		Field[] fields = type.getDeclaredFields();
+		for (Field field : fields) {
+			try {
+				if (!canonical.getDeclaredField(field.getName()).getGenericType().equals(field.getGenericType())) {
+					return false;
+				}
+			} catch (NoSuchFieldException e) {
+				return false;
+			}
+		}
+		return fields.length == canonical.getDeclaredFields().length;
+	}
+
+	private static void annotations(final StringBuilder signature, final Annotation[] annotations) {
+		List<String> sorted = new ArrayList<String>(annotations.length);
+		for (Annotation annotation : annotations) {
+			sorted.add(annotation.toString());
+		}
+		sorted.sort(null);
+		signature.append(sorted);
+	}
+
+	/**
+	 * 包装类的弱引用，回收后按签名移除
+	 */
+	private static final class WrapperReference extends WeakReference<Class<?>> {
+
+		private final String signature;
+
+		private WrapperReference(final String signature, final Class<?> type, final ReferenceQueue<Class<?>> queue) {
+			super(type, queue);
+			this.signature = signature;
+		}
+
+	}
+
+	@FunctionalInterface
+	protected interface Creator {
+
+		CachedContextAndSchemas create() throws JAXBException;
+
+	}
+
+	/**
+	 * 初始化前替换包装类，并从共享缓存获取上下文；CXF 按类名是否以 JAXBDataBinding 结尾决定是否生成包装类，类名须保持该后缀
+	 */
+	private static final class SharedJAXBDataBinding extends JAXBDataBinding {
+
+		private final EndpointJaxbContexts contexts;
+
+		private SharedJAXBDataBinding(final EndpointJaxbContexts contexts) {
+			this.contexts = contexts;
+		}
+
+		@Override
+		public synchronized void initialize(final Service service) {
+			contexts.canonicalize(service);
+			super.initialize(service);
+		}
+
+		@Override
+		public CachedContextAndSchemas createJAXBContextAndSchemas(final Set<Class<?>> classes, final String defaultNs) throws JAXBException {
+			return contexts.resolve(classes, defaultNs, () -> super.createJAXBContextAndSchemas(classes, defaultNs));
+		}
+
+	}
+
+}
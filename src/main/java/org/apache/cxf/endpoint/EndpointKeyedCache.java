@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按键计算一次的缓存：同一个键只由首个调用方计算，并发的调用方等待同一个结果，不同的键互不阻塞。
+ * <p>每个键对应一个 {@link CompletableFuture}，计算在调用方线程中执行，不持有任何锁；
+ * 计算失败时移除该键，等待中的调用方收到同一个异常，之后的调用方重新计算。</p>
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class EndpointKeyedCache<K, V> {
+
+	/**
+	 * 计算键对应的值
+	 * @param <V> 值类型
+	 * @param <E> 计算异常类型
+	 */
+	@FunctionalInterface
+	public interface Loader<V, E extends Exception> {
+
+		V load() throws E;
+
+	}
+
+	private final ConcurrentMap<K, CompletableFuture<V>> values = new ConcurrentHashMap<K, CompletableFuture<V>>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * 获取键对应的值，不存在时计算；同一个键同一时间只计算一次
+	 * @param <E> 计算异常类型
+	 * @param key			: 键
+	 * @param loader		: 计算逻辑，不能返回 null
+	 * @return 键对应的值
+	 * @throws E 本次或并发的计算失败时抛出
+	 */
+	public <E extends Exception> V get(final K key, final Loader<V, ? extends E> loader) throws E {
+		CompletableFuture<V> future = values.get(key);
+		if (future == null) {
+			CompletableFuture<V> created = new CompletableFuture<V>();
+			future = values.putIfAbsent(key, created);
+			if (future == null) {
+				return this.load(key, created, loader);
+			}
+		}
+		hits.incrementAndGet();
+		return this.<E>join(future);
+	}
+
+	private <E extends Exception> V load(final K key, final CompletableFuture<V> future, final Loader<V, ? extends E> loader) throws E {
+		misses.incrementAndGet();
+		V value;
+		try {
+			value = loader.load();
+			if (value == null) {
+				throw new IllegalStateException("Loader returned null for " + key);
+			}
+		} catch (Exception | Error e) {
+			values.remove(key, future);
+			future.completeExceptionally(e);
+			throw e;
+		}
+		future.complete(value);
+		return value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <E extends Exception> V join(final CompletableFuture<V> future) throws E {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			// 只有计算逻辑声明的异常会走到这里
+			throw (E) cause;
+		}
+	}
+
+	/**
+	 * @param key			: 键
+	 * @return 已计算完成的值，不存在或仍在计算时返回 null
+	 */
+	public V getIfPresent(final K key) {
+		CompletableFuture<V> future = values.get(key);
+		return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+	}
+
+	/**
+	 * 移除键，之后的调用方重新计算；仍在计算的调用方不受影响
+	 * @param key			: 键
+	 * @return 已计算完成的值，不存在或仍在计算时返回 null
+	 */
+	public V remove(final K key) {
+		CompletableFuture<V> future = values.remove(key);
+		return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+	}
+
+	public void clear() {
+		values.clear();
+	}
+
+	/**
+	 * @return 键的数量，包括仍在计算的键
+	 */
+	public int size() {
+		return values.size();
+	}
+
+	/**
+	 * @return 复用已有值或等待并发计算结果的次数
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return 计算的次数
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+}
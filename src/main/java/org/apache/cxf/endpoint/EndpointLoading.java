@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+/**
+ * 动态类的定义方式，决定类能否在不再使用后被卸载
+ */
+public enum EndpointLoading {
+
+	/**
+	 * 通过线程上下文类加载器定义，类随该加载器常驻内存
+	 */
+	SHARED,
+	/**
+	 * 每个动态类使用独立的类加载器，服务销毁且实例不可达后类随加载器一起回收
+	 */
+	ISOLATED,
+	/**
+	 * 定义为隐藏类，不可通过类名加载，服务销毁且实例不可达后即可回收
+	 */
+	HIDDEN;
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * 按操作序号路由的 {@link EndpointInvocationHandler}：每个操作对应一个 {@link InvocationHandler}，
+ * 以数组保存，调用时只需一次数组下标访问；未注册的操作交给 fallback 处理。
+ * <p>注册采用写时复制，适合启动时集中注册、运行期高频读取的场景。</p>
+ * <p>注册的处理对象为 {@link EndpointInvocationHandler} 时同时传入操作序号及绑定数据。共享形状类（{@link EndpointShapes}）时
+ * {@link Method} 属于形状类、不带方法级别的 <code>@WebBound</code>，普通的 {@link InvocationHandler} 请通过
+ * {@link EndpointBindings#get(Object, Method)} 读取绑定数据。</p>
+ */
+public class EndpointOperationRegistry implements EndpointInvocationHandler {
+
+	private volatile InvocationHandler[] handlers = new InvocationHandler[0];
+	private final InvocationHandler fallback;
+
+	public EndpointOperationRegistry() {
+		this(null);
+	}
+
+	public EndpointOperationRegistry(InvocationHandler fallback) {
+		this.fallback = fallback;
+	}
+
+	/**
+	 * 注册操作对应的处理对象
+	 * @param operation		: 操作序号，可通过构建器的 getOrdinal 方法获取
+	 * @param handler		: 该操作的 {@link InvocationHandler}
+	 * @return {@link EndpointOperationRegistry} instance
+	 */
+	public synchronized EndpointOperationRegistry register(int operation, InvocationHandler handler) {
+		if (operation < 0) {
+			throw new IllegalArgumentException("operation must not be negative : " + operation);
+		}
+		InvocationHandler[] copy = Arrays.copyOf(handlers, Math.max(handlers.length, operation + 1));
+		copy[operation] = handler;
+		this.handlers = copy;
+		return this;
+	}
+
+	public synchronized EndpointOperationRegistry unregister(int operation) {
+		if (operation >= 0 && operation < handlers.length) {
+			InvocationHandler[] copy = handlers.clone();
+			copy[operation] = null;
+			this.handlers = copy;
+		}
+		return this;
+	}
+
+	public InvocationHandler getHandler(int operation) {
+		InvocationHandler[] current = handlers;
+		return operation >= 0 && operation < current.length ? current[operation] : null;
+	}
+
+	@Override
+	public Object invoke(Object proxy, int operation, Method method, Object[] args) throws Throwable {
+		return invoke(proxy, operation, null, method, args);
+	}
+
+	@Override
+	public Object invoke(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) throws Throwable {
+		InvocationHandler handler = getHandler(operation);
+		if (handler == null) {
+			handler = fallback;
+		}
+		if (handler == null) {
+			throw new UnsupportedOperationException("No handler registered for operation " + operation + " : " + method);
+		}
+		if (handler instanceof EndpointInvocationHandler) {
+			EndpointInvocationHandler target = (EndpointInvocationHandler) handler;
+			return binding != null ? target.invoke(proxy, operation, binding, method, args) : target.invoke(proxy, operation, method, args);
+		}
+		return handler.invoke(proxy, method, args);
+	}
+
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jakarta.jws.WebService;
+import jakarta.ws.rs.Path;
+import jakarta.xml.ws.WebServiceProvider;
+import jakarta.xml.ws.handler.Handler;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.endpoint.annotation.WebEndpoint;
+import org.apache.cxf.endpoint.jaxrs.JaxrsRouteTrie;
+import org.apache.cxf.feature.Feature;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.apache.cxf.message.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 读取动态类上的 {@link WebEndpoint} 注解，通过 {@link JaxWsServerFactoryBean} 或 {@link JAXRSServerFactoryBean} 发布服务。
+ * <p>带有 <code>@WebService</code>、<code>@WebServiceProvider</code> 注解的类按 JAX-WS 发布，带有 <code>@Path</code> 注解的类按 JAX-RS 发布；
+ * {@link WebEndpoint} 是 {@link java.lang.annotation.Inherited} 注解，可以声明在动态类的父类上。</p>
+ * <p>注解中的拦截器、特性及处理器均为类名，按动态类的类加载器解析，解析出的每个类只实例化一次（无参构造器），由全部服务共享，
+ * 因此这些类需要是线程安全的；不同类加载器中的同名类各自实例化。也可以通过 {@link #register(String, Object)} 预先登记已配置好的实例，
+ * 登记的实例不区分类加载器。JAX-RS 服务没有 JAX-WS 处理器链，
+ * <code>handlers</code> 作为 JAX-RS 的 Provider（过滤器、异常映射等）注册。</p>
+ */
+public class EndpointPublisher {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(EndpointPublisher.class);
+
+	private final Bus bus;
+	private final ConcurrentMap<String, Object> registered = new ConcurrentHashMap<String, Object>();
+	private final ConcurrentMap<Class<?>, Object> instances = new ConcurrentHashMap<Class<?>, Object>();
+	private EndpointJaxbContexts jaxbContexts = null;
+	private EndpointWsdlCache wsdlCache = null;
+
+	public EndpointPublisher() {
+		this(BusFactory.getDefaultBus());
+	}
+
+	/**
+	 * @param bus			: 发布服务使用的 {@link Bus}
+	 */
+	public EndpointPublisher(final Bus bus) {
+		this.bus = bus;
+	}
+
+	/**
+	 * 登记注解中类名对应的共享实例，替代按无参构造器创建的实例
+	 * @param classname		: 注解中引用的类名
+	 * @param instance		: 共享实例
+	 * @return this
+	 */
+	public EndpointPublisher register(final String classname, final Object instance) {
+		registered.put(classname, instance);
+		return this;
+	}
+
+	/**
+	 * 发布的 JAX-WS 服务之间共享 {@link jakarta.xml.bind.JAXBContext}，类型集合相同的服务只构造一次上下文
+	 * @param jaxbContexts	: 共享的上下文缓存
+	 * @return this
+	 */
+	public EndpointPublisher jaxbContexts(final EndpointJaxbContexts jaxbContexts) {
+		this.jaxbContexts = jaxbContexts;
+		return this;
+	}
+
+	/**
+	 * 发布的 JAX-WS 服务在发布时渲染 WSDL，之后的 WSDL 及 XSD 请求由文件缓存响应
+	 * @param wsdlCache		: WSDL 及 XSD 文档缓存
+	 * @return this
+	 */
+	public EndpointPublisher wsdlCache(final EndpointWsdlCache wsdlCache) {
+		this.wsdlCache = wsdlCache;
+		return this;
+	}
+
+	/**
+	 * 按实现对象的类型发布服务并启动
+	 * @param implementor	: 服务实现对象，通常为动态类实例
+	 * @return {@link Server} instance
+	 */
+	public Server publish(final Object implementor) {
+		Server server = this.create(implementor);
+		server.start();
+		return server;
+	}
+
+	/**
+	 * 批量发布：先为全部实现对象创建服务，全部成功后再依次启动；任一服务创建失败时销毁已创建的服务，不发布任何服务。
+	 * 同一类名的拦截器、特性及处理器在整批服务之间只实例化一次
+	 * @param implementors	: 服务实现对象
+	 * @return 与实现对象顺序一致的 {@link Server} 列表
+	 */
+	public List<Server> publishAll(final Collection<?> implementors) {
+		List<Server> servers = new ArrayList<Server>(implementors.size());
+		try {
+			for (Object implementor : implementors) {
+				servers.add(this.create(implementor));
+			}
+			for (Server server : servers) {
+				server.start();
+			}
+		} catch (RuntimeException e) {
+			for (Server server : servers) {
+				server.destroy();
+			}
+			throw e;
+		}
+		LOG.info("Published {} endpoints", servers.size());
+		return servers;
+	}
+
+	/**
+	 * 把全部 JAX-RS 资源发布到同一个服务：共用一个 {@link org.apache.cxf.transport.Destination}、拦截器链及 Provider，
+	 * 并把全部操作的路径模板编译为 {@link JaxrsRouteTrie}，匹配请求时不再逐个扫描全部资源类。
+	 * <p>拦截器链及 Provider 由全部资源共用，无法按资源区分，因此各资源类 {@link WebEndpoint} 注解中的拦截器、特性及处理器
+	 * 必须相同（不区分顺序），否则抛出 {@link IllegalArgumentException}；没有 {@link WebEndpoint} 注解的资源类视为未声明任何拦截器、特性及处理器。
+	 * 注解中的地址被忽略。</p>
+	 * @param address		: 服务地址
+	 * @param implementors	: 资源实现对象，类上需要带有 <code>@Path</code> 注解
+	 * @return 已启动的 {@link Server}
+	 * @throws IllegalArgumentException 资源类没有 <code>@Path</code> 注解，或声明的拦截器、特性及处理器与其他资源类不同时抛出
+	 */
+	public Server publishShared(final String address, final Collection<?> implementors) {
+		JAXRSServerFactoryBean factory = new JAXRSServerFactoryBean();
+		factory.setBus(bus);
+		factory.setAddress(address);
+		factory.setStart(false);
+		List<Class<?>> types = new ArrayList<Class<?>>(implementors.size());
+		WebEndpoint shared = null;
+		List<Set<String>> chain = null;
+		for (Object implementor : implementors) {
+			Class<?> type = implementor.getClass();
+			if (!type.isAnnotationPresent(Path.class)) {
+				throw new IllegalArgumentException(type.getName() + " is not a JAX-RS resource");
+			}
+			WebEndpoint endpoint = type.getAnnotation(WebEndpoint.class);
+			if (chain == null) {
+				shared = endpoint;
+				chain = chain(endpoint);
+			} else if (!chain.equals(chain(endpoint))) {
+				throw new IllegalArgumentException(type.getName() + " declares interceptors, features or handlers that differ from "
+						+ types.get(0).getName() + "; resources on a shared server must declare the same ones");
+			}
+			types.add(type);
+			factory.setResourceProvider(type, new SingletonResourceProvider(implementor));
+		}
+		factory.setResourceClasses(types);
+		if (shared != null) {
+			this.interceptors(factory, types.get(0), shared);
+			factory.getFeatures().addAll(this.resolve(types.get(0), shared.features(), Feature.class));
+			List<Object> providers = this.resolve(types.get(0), shared.handlers(), Object.class);
+			if (!providers.isEmpty()) {
+				factory.setProviders(providers);
+			}
+		}
+		Server server = factory.create();
+		JaxrsRouteTrie trie = JaxrsRouteTrie.install(server);
+		server.start();
+		LOG.info("Published {} resources with {} operations on {}", types.size(), trie.getRoutes(), address);
+		return server;
+	}
+
+	/**
+	 * 创建未启动的服务
+	 * @param implementor	: 服务实现对象
+	 * @return 未启动的 {@link Server}
+	 */
+	public Server create(final Object implementor) {
+		Class<?> type = implementor.getClass();
+		WebEndpoint endpoint = type.getAnnotation(WebEndpoint.class);
+		if (endpoint == null) {
+			throw new IllegalArgumentException(type.getName() + " is not annotated with @" + WebEndpoint.class.getSimpleName());
+		}
+		if (type.isAnnotationPresent(WebService.class) || type.isAnnotationPresent(WebServiceProvider.class)) {
+			return this.jaxws(type, implementor, endpoint);
+		}
+		if (type.isAnnotationPresent(Path.class)) {
+			return this.jaxrs(type, implementor, endpoint);
+		}
+		throw new IllegalArgumentException(type.getName() + " is neither a JAX-WS nor a JAX-RS endpoint");
+	}
+
+	protected Server jaxws(final Class<?> type, final Object implementor, final WebEndpoint endpoint) {
+		JaxWsServerFactoryBean factory = new JaxWsServerFactoryBean();
+		factory.setBus(bus);
+		factory.setServiceClass(type);
+		factory.setServiceBean(implementor);
+		factory.setAddress(endpoint.addr());
+		factory.setStart(false);
+		if (jaxbContexts != null) {
+			factory.setDataBinding(jaxbContexts.dataBinding());
+		}
+		this.interceptors(factory, type, endpoint);
+		factory.getFeatures().addAll(this.resolve(type, endpoint.features(), Feature.class));
+		@SuppressWarnings("rawtypes")
+		List<Handler> handlers = this.resolve(type, endpoint.handlers(), Handler.class);
+		if (!handlers.isEmpty()) {
+			factory.setHandlers(handlers);
+		}
+		Server server = factory.create();
+		return wsdlCache != null ? wsdlCache.install(server) : server;
+	}
+
+	protected Server jaxrs(final Class<?> type, final Object implementor, final WebEndpoint endpoint) {
+		JAXRSServerFactoryBean factory = new JAXRSServerFactoryBean();
+		factory.setBus(bus);
+		factory.setAddress(endpoint.addr());
+		factory.setResourceClasses(type);
+		factory.setResourceProvider(type, new SingletonResourceProvider(implementor));
+		factory.setStart(false);
+		this.interceptors(factory, type, endpoint);
+		factory.getFeatures().addAll(this.resolve(type, endpoint.features(), Feature.class));
+		List<Object> providers = this.resolve(type, endpoint.handlers(), Object.class);
+		if (!providers.isEmpty()) {
+			factory.setProviders(providers);
+		}
+		return factory.create();
+	}
+
+	protected void interceptors(final InterceptorProvider provider, final Class<?> type, final WebEndpoint endpoint) {
+		add(provider.getInInterceptors(), this.resolve(type, endpoint.inInterceptors(), Interceptor.class));
+		add(provider.getOutInterceptors(), this.resolve(type, endpoint.outInterceptors(), Interceptor.class));
+		add(provider.getInFaultInterceptors(), this.resolve(type, endpoint.inFaults(), Interceptor.class));
+		add(provider.getOutFaultInterceptors(), this.resolve(type, endpoint.outFaults(), Interceptor.class));
+	}
+
+	/**
+	 * 注解中声明的拦截器、特性及处理器类名，忽略空字符串及顺序
+	 * @param endpoint		: 注解，可为 null
+	 * @return 依次为输入拦截器、输出拦截器、输入异常拦截器、输出异常拦截器、特性及处理器的类名集合
+	 */
+	private static List<Set<String>> chain(final WebEndpoint endpoint) {
+		List<Set<String>> chain = new ArrayList<Set<String>>(6);
+		String[][] declared = endpoint == null ? new String[6][] : new String[][] { endpoint.inInterceptors(), endpoint.outInterceptors(),
+			endpoint.inFaults(), endpoint.outFaults(), endpoint.features(), endpoint.handlers() };
+		for (String[] classnames : declared) {
+			Set<String> names = new HashSet<String>();
+			if (classnames != null) {
+				for (String classname : classnames) {
+					if (StringUtils.isNotBlank(classname)) {
+						names.add(classname.trim());
+					}
+				}
+			}
+			chain.add(names);
+		}
+		return chain;
+	}
+
+	/**
+	 * 添加共享的拦截器，已添加的实例不再重复添加
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static void add(final List<Interceptor<? extends Message>> chain, final List<Interceptor> interceptors) {
+		for (Interceptor interceptor : interceptors) {
+			if (!chain.contains(interceptor)) {
+				chain.add(interceptor);
+			}
+		}
+	}
+
+	/**
+	 * 解析注解中的类名，忽略空字符串（注解的默认值）
+	 * @param type			: 动态类，使用其类加载器加载
+	 * @param classnames	: 类名
+	 * @param required		: 实例需要实现的类型
+	 * @return 共享实例
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> List<T> resolve(final Class<?> type, final String[] classnames, final Class<T> required) {
+		if (classnames == null || classnames.length == 0) {
+			return Collections.emptyList();
+		}
+		Map<String, T> resolved = new LinkedHashMap<String, T>();
+		for (String classname : classnames) {
+			if (StringUtils.isBlank(classname)) {
+				continue;
+			}
+			Object instance = registered.get(classname.trim());
+			if (instance == null) {
+				// 按解析出的类缓存，不同类加载器中的同名类各自实例化
+				instance = instances.computeIfAbsent(this.load(type, classname.trim()), key -> this.instantiate(type, key));
+			}
+			if (!required.isInstance(instance)) {
+				throw new IllegalArgumentException(classname + " is not a " + required.getName());
+			}
+			resolved.put(classname, (T) instance);
+		}
+		return new ArrayList<T>(resolved.values());
+	}
+
+	protected Class<?> load(final Class<?> type, final String classname) {
+		ClassLoader loader = type.getClassLoader() != null ? type.getClassLoader() : Thread.currentThread().getContextClassLoader();
+		try {
+			return ClassUtils.getClass(loader, classname);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("Can't load " + classname + " for " + type.getName(), e);
+		}
+	}
+
+	protected Object instantiate(final Class<?> type, final Class<?> instanceType) {
+		try {
+			return instanceType.getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Can't instantiate " + instanceType.getName() + " for " + type.getName(), e);
+		}
+	}
+
+	public Bus getBus() {
+		return bus;
+	}
+
+}
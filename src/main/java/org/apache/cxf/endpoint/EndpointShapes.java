@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import javassist.CannotCompileException;
+
+/**
+ * 结构相同的动态类共享同一个编译后的父类（形状类）。
+ * <p>多数接口之间只有 <code>@WebBound</code> 绑定数据、<code>@Path</code> 或命名空间等类级别信息不同，方法的签名、注解及方法体完全一致。
+ * 构建器设置 {@link EndpointShapes} 后，按不含这些信息的定义摘要查找形状类：形状类只编译、加载一次，JIT 也只需预热一次；
+ * 每个接口只生成一个带类注解、只有构造器的子类。</p>
+ * <p>形状类的方法体按实例的实际类名读取 {@link EndpointBindings} 中的绑定数据（缓存到实例字段），异常同样按实际类名交给
+ * {@link EndpointFaults}，因此各接口的绑定数据及异常接收对象互不影响。
+ * 形状类包含包名，不同包的接口不共享；{@link EndpointDispatch#INDY} 模式的调用点属于形状类，{@link EndpointCallSites#bind(java.lang.reflect.Method, java.lang.invoke.MethodHandle)}
+ * 对共享该形状的全部接口生效。</p>
+ * <p>生成的方法体缓存的是形状类声明的 {@link java.lang.reflect.Method}，传给 {@link java.lang.reflect.InvocationHandler} 的方法对象
+ * 不带方法级别的 <code>@WebBound</code> 等按接口区分的注解，其声明类也是形状类；按接口区分的绑定数据请使用
+ * {@link EndpointInvocationHandler} 的 binding 参数，或通过 {@link EndpointBindings#get(Object, java.lang.reflect.Method)} 按实例读取。</p>
+ * <p>不同形状并发编译，同一形状的并发调用方等待同一次编译，见 {@link EndpointKeyedCache}。</p>
+ */
+public class EndpointShapes {
+
+	/**
+	 * 形状类上保存定义摘要的静态常量字段名称，生成方法体时以此区分形状类
+	 */
+	public static final String FIELD = "_shape";
+
+	private static final String PREFIX = "EndpointShape$";
+
+	private final EndpointKeyedCache<String, Class<?>> shapes = new EndpointKeyedCache<String, Class<?>>();
+
+	/**
+	 * 编译并定义形状类
+	 */
+	@FunctionalInterface
+	public interface Compiler {
+
+		Class<?> compile() throws CannotCompileException;
+
+	}
+
+	/**
+	 * 形状类的类名，与接口在同一个包中
+	 * @param classname		: 接口的类名
+	 * @param key			: 形状的定义摘要
+	 * @return 形状类的类名
+	 */
+	public static String nameOf(final String classname, final String key) {
+		int index = classname.lastIndexOf('.');
+		return (index < 0 ? "" : classname.substring(0, index + 1)) + PREFIX + key.substring(0, Math.min(16, key.length()));
+	}
+
+	/**
+	 * @param type			: 动态类
+	 * @return 是否为形状类
+	 */
+	public static boolean isShape(final Class<?> type) {
+		try {
+			type.getDeclaredField(FIELD);
+			return true;
+		} catch (NoSuchFieldException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 获取形状类，不存在时编译；同一形状只编译一次
+	 * @param key			: 形状的定义摘要
+	 * @param compiler		: 编译形状类
+	 * @return 形状类
+	 * @throws CannotCompileException if can't compile
+	 */
+	public Class<?> resolve(final String key, final Compiler compiler) throws CannotCompileException {
+		return shapes.get(key, compiler::compile);
+	}
+
+	public Class<?> get(final String key) {
+		return shapes.getIfPresent(key);
+	}
+
+	/**
+	 * 移除形状类，已定义的接口类不受影响，之后的同结构接口重新编译
+	 * @param key			: 形状的定义摘要
+	 * @return 被移除的形状类，不存在时返回 null
+	 */
+	public Class<?> remove(final String key) {
+		return shapes.remove(key);
+	}
+
+	public void clear() {
+		shapes.clear();
+	}
+
+	/**
+	 * @return 形状类数量
+	 */
+	public int size() {
+		return shapes.size();
+	}
+
+	/**
+	 * @return 复用已有形状类的次数
+	 */
+	public long getHits() {
+		return shapes.getHits();
+	}
+
+	/**
+	 * @return 编译形状类的次数
+	 */
+	public long getMisses() {
+		return shapes.getMisses();
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import javassist.CannotCompileException;
+
+/**
+ * 按形状缓存已编译的模板类字节码，结构相同的接口复制模板生成各自独立的动态类。
+ * <p>生成方法体时按源码编译（{@link javassist.CtMethod#setBody(String)}）是构建动态类的主要开销，而结构相同的接口之间方法体完全一致。
+ * 构建器设置 {@link EndpointTemplates} 后，每个形状只编译一次模板，之后的接口复制模板的字节码，
+ * 只改写常量池中的类名并替换类注解（<code>@Path</code>、<code>@WebService</code> 等），不再编译任何方法体。
+ * 模板方法不带 <code>@WebBound</code> 注解，复制时按方法的登记键补充各接口自己的方法级 <code>@WebBound</code>，与类注解一样不受模板影响。</p>
+ * <p>与 {@link EndpointShapes} 不同，复制出的类不继承模板，互不共享调用点及类加载器，可按任意 {@link EndpointLoading} 定义；
+ * 模板只保存字节码，不定义为类。不同形状的模板并发编译，同一形状的并发调用方等待同一次编译，见 {@link EndpointKeyedCache}。</p>
+ */
+public class EndpointTemplates {
+
+	private final EndpointKeyedCache<String, byte[]> templates = new EndpointKeyedCache<String, byte[]>();
+
+	/**
+	 * 编译模板类的字节码
+	 */
+	@FunctionalInterface
+	public interface Compiler {
+
+		byte[] compile() throws CannotCompileException;
+
+	}
+
+	/**
+	 * 获取模板类的字节码，不存在时编译；同一形状只编译一次
+	 * @param key			: 形状的定义摘要
+	 * @param compiler		: 编译模板类
+	 * @return 模板类字节码，调用方不可修改
+	 * @throws CannotCompileException if can't compile
+	 */
+	public byte[] resolve(final String key, final Compiler compiler) throws CannotCompileException {
+		return templates.get(key, compiler::compile);
+	}
+
+	public byte[] get(final String key) {
+		return templates.getIfPresent(key);
+	}
+
+	/**
+	 * 移除模板，之后的同结构接口重新编译
+	 * @param key			: 形状的定义摘要
+	 * @return 被移除的模板字节码，不存在时返回 null
+	 */
+	public byte[] remove(final String key) {
+		return templates.remove(key);
+	}
+
+	public void clear() {
+		templates.clear();
+	}
+
+	/**
+	 * @return 模板数量
+	 */
+	public int size() {
+		return templates.size();
+	}
+
+	/**
+	 * @return 复制已有模板的次数
+	 */
+	public long getHits() {
+		return templates.getHits();
+	}
+
+	/**
+	 * @return 编译模板的次数
+	 */
+	public long getMisses() {
+		return templates.getMisses();
+	}
+
+}
@@ -0,0 +1,486 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.common.util.UrlUtils;
+import org.apache.cxf.frontend.WSDLGetInterceptor;
+import org.apache.cxf.frontend.WSDLGetUtils;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.apache.cxf.transport.Conduit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+/**
+ * JAX-WS 服务 WSDL 及 XSD 文档的文件缓存。
+ * <p>CXF 处理 <code>?wsdl</code>、<code>?xsd=</code> 请求时每次都会根据服务模型重新生成并序列化文档。
+ * {@link #install(Server)} 在发布时按服务地址渲染一次 WSDL，以其摘要作为服务定义的指纹，并在服务的输入拦截器链中
+ * {@link WSDLGetInterceptor} 之前加入拦截器：文档按（定义指纹、规范化的请求地址、<code>wsdl</code>/<code>xsd</code> 参数值）的摘要写入缓存目录，
+ * 之后的请求把内存映射的文件复制到响应的输出流，不再构造及序列化 DOM。CXF 按请求地址改写文档中的地址，因此请求地址是键的一部分；
+ * 其他查询参数不影响文档，不参与键。</p>
+ * <p>每个服务映射的文档数量不超过 <code>maxDocuments</code>，超出后（例如请求携带大量不同的主机名）按请求渲染，不再写入缓存。
+ * 传输层只提供 {@link OutputStream}，映射的内容经过分块复制写出，并非零拷贝。</p>
+ * <p>文件名即为 ETag，请求头 <code>If-None-Match</code> 匹配时返回 304。服务定义不变时重新发布或重启后沿用已有文件；
+ * 定义变化后指纹随之变化，旧文件不再被引用，可通过 {@link #clear()} 清理。服务停止时释放其映射的文件。</p>
+ */
+public class EndpointWsdlCache {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(EndpointWsdlCache.class);
+
+	private static final String SUFFIX = ".xml";
+	private static final String CONTENT_TYPE = "text/xml;charset=UTF-8";
+	/**
+	 * 每个服务默认映射的文档数量上限
+	 */
+	public static final int DEFAULT_MAX_DOCUMENTS = 64;
+
+	private final Bus bus;
+	private final Path directory;
+	private final int maxDocuments;
+	// 拦截器随服务的拦截器链一起回收
+	private final Set<WsdlInterceptor> interceptors = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<WsdlInterceptor, Boolean>()));
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param directory		: 缓存目录，不存在时自动创建
+	 */
+	public EndpointWsdlCache(final Path directory) {
+		this(BusFactory.getDefaultBus(), directory);
+	}
+
+	/**
+	 * @param bus			: 服务所在的 {@link Bus}，服务停止时释放缓存
+	 * @param directory		: 缓存目录，不存在时自动创建
+	 */
+	public EndpointWsdlCache(final Bus bus, final Path directory) {
+		this(bus, directory, DEFAULT_MAX_DOCUMENTS);
+	}
+
+	/**
+	 * @param bus			: 服务所在的 {@link Bus}，服务停止时释放缓存
+	 * @param directory		: 缓存目录，不存在时自动创建
+	 * @param maxDocuments	: 每个服务映射的文档数量上限
+	 */
+	public EndpointWsdlCache(final Bus bus, final Path directory, final int maxDocuments) {
+		if (maxDocuments < 1) {
+			throw new IllegalArgumentException("maxDocuments must be positive");
+		}
+		this.bus = bus;
+		this.directory = directory;
+		this.maxDocuments = maxDocuments;
+		ServerLifeCycleManager manager = bus.getExtension(ServerLifeCycleManager.class);
+		if (manager != null) {
+			manager.registerListener(new ServerLifeCycleListener() {
+
+				@Override
+				public void startServer(Server server) {
+				}
+
+				@Override
+				public void stopServer(Server server) {
+					EndpointWsdlCache.this.release(server);
+				}
+
+			});
+		}
+	}
+
+	/**
+	 * 为服务安装缓存：按服务地址渲染 WSDL 并计算定义指纹，之后的 WSDL 及 XSD 请求由缓存响应
+	 * @param server		: JAX-WS 服务
+	 * @return the server
+	 */
+	public Server install(final Server server) {
+		Endpoint endpoint = server.getEndpoint();
+		String address = normalize(endpoint.getEndpointInfo().getAddress());
+		Message message = new MessageImpl();
+		Exchange exchange = new ExchangeImpl();
+		exchange.put(Bus.class, bus);
+		exchange.put(Endpoint.class, endpoint);
+		exchange.put(Service.class, endpoint.getService());
+		exchange.setInMessage(message);
+		message.setExchange(exchange);
+		Map<String, String> params = Collections.singletonMap("wsdl", "");
+		byte[] wsdl = this.render(message, address, params, null);
+		WsdlInterceptor interceptor = new WsdlInterceptor(new EndpointFingerprint().update(wsdl).toHex());
+		this.uninstall(server);
+		interceptors.add(interceptor);
+		endpoint.getInInterceptors().add(interceptor);
+		// 按服务地址请求的 WSDL 在发布时写入缓存
+		interceptor.resolve(interceptor.key(address, params), () -> wsdl);
+		return server;
+	}
+
+	/**
+	 * 移除服务的缓存拦截器并释放其映射的文件，文件保留在缓存目录中
+	 * @param server		: JAX-WS 服务
+	 */
+	public void uninstall(final Server server) {
+		for (WsdlInterceptor interceptor : this.installed(server)) {
+			server.getEndpoint().getInInterceptors().remove(interceptor);
+			interceptors.remove(interceptor);
+			interceptor.documents.clear();
+		}
+	}
+
+	/**
+	 * 释放全部映射并删除缓存目录中的文件，已安装的服务在下次请求时重新渲染
+	 */
+	public void clear() {
+		synchronized (interceptors) {
+			for (WsdlInterceptor interceptor : interceptors) {
+				interceptor.documents.clear();
+			}
+		}
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path file : stream) {
+				delete(file);
+			}
+		} catch (NoSuchFileException e) {
+			// 尚未写入任何文档
+		} catch (IOException e) {
+			LOG.warn("Clear endpoint wsdl cache {} failed", directory, e);
+		}
+	}
+
+	/**
+	 * @return 映射中的文档数量
+	 */
+	public int size() {
+		int size = 0;
+		synchronized (interceptors) {
+			for (WsdlInterceptor interceptor : interceptors) {
+				size += interceptor.documents.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return 由缓存响应的请求次数
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return 渲染文档的次数
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * 释放服务映射的文件，拦截器保留在链中，服务重新启动后按需重新映射
+	 * @param server		: JAX-WS 服务
+	 */
+	protected void release(final Server server) {
+		for (WsdlInterceptor interceptor : this.installed(server)) {
+			interceptor.documents.clear();
+		}
+	}
+
+	private List<WsdlInterceptor> installed(final Server server) {
+		List<WsdlInterceptor> installed = new ArrayList<WsdlInterceptor>(1);
+		for (Interceptor<? extends Message> interceptor : server.getEndpoint().getInInterceptors()) {
+			if (interceptor instanceof WsdlInterceptor && interceptors.contains(interceptor)) {
+				installed.add((WsdlInterceptor) interceptor);
+			}
+		}
+		return installed;
+	}
+
+	/**
+	 * 通过 CXF 生成文档，地址改写及 XSD 引用的处理与 {@link WSDLGetInterceptor} 一致
+	 */
+	protected byte[] render(final Message message, final String base, final Map<String, String> params, final String ctx) {
+		Document document = new WSDLGetUtils().getDocument(message, base, params, ctx, message.getExchange().getEndpoint().getEndpointInfo());
+		ByteArrayOutputStream output = new ByteArrayOutputStream(8192);
+		try {
+			// 与 WSDLGetOutInterceptor 一致：写出 XML 声明，修复命名空间
+			XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(output, StandardCharsets.UTF_8.name());
+			StaxUtils.writeDocument(document, writer, true, true);
+			StaxUtils.close(writer);
+		} catch (XMLStreamException e) {
+			throw new Fault(e);
+		}
+		return output.toByteArray();
+	}
+
+	private Mapped write(final String key, final byte[] bytes) throws IOException {
+		Path file = directory.resolve(key + SUFFIX);
+		if (!Files.isRegularFile(file) || Files.size(file) != bytes.length) {
+			Files.createDirectories(directory);
+			Path temp = Files.createTempFile(directory, key, ".tmp");
+			try {
+				Files.write(temp, bytes);
+				try {
+					Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				delete(temp);
+			}
+		}
+		return map(key, file);
+	}
+
+	private static Mapped map(final String key, final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new Mapped("\"" + key + "\"", channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * 规范化请求地址：去掉查询参数及片段，协议及主机名转为小写，去掉默认端口；无法解析时只去掉查询参数
+	 */
+	private static String normalize(final String address) {
+		String base = StringUtils.substringBefore(StringUtils.substringBefore(address, "?"), "#");
+		try {
+			URI uri = new URI(base);
+			if (uri.getScheme() == null || uri.getHost() == null) {
+				return base;
+			}
+			String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+			int port = uri.getPort();
+			if ("http".equals(scheme) && port == 80 || "https".equals(scheme) && port == 443) {
+				port = -1;
+			}
+			return scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT) + (port < 0 ? "" : ":" + port) + StringUtils.defaultString(uri.getRawPath());
+		} catch (URISyntaxException e) {
+			return base;
+		}
+	}
+
+	private static void delete(final Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOG.debug("Delete endpoint wsdl cache {} failed", file, e);
+		}
+	}
+
+	/**
+	 * 请求头 If-None-Match 是否包含当前 ETag
+	 */
+	private static boolean matches(final Message message, final String etag) {
+		Map<String, List<String>> headers = CastUtils.cast((Map<?, ?>) message.get(Message.PROTOCOL_HEADERS));
+		if (headers == null) {
+			return false;
+		}
+		List<String> values = headers.get("If-None-Match");
+		if (values == null) {
+			return false;
+		}
+		for (String value : values) {
+			for (String tag : StringUtils.split(value, ',')) {
+				tag = StringUtils.removeStart(tag.trim(), "W/");
+				if ("*".equals(tag) || etag.equals(tag)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 映射的文档及其 ETag
+	 */
+	private static final class Mapped {
+
+		private final String etag;
+		private final MappedByteBuffer buffer;
+
+		private Mapped(final String etag, final MappedByteBuffer buffer) {
+			this.etag = etag;
+			this.buffer = buffer;
+		}
+
+	}
+
+	/**
+	 * 识别 WSDL 及 XSD 请求并由缓存响应，无法渲染的请求交由 {@link WSDLGetInterceptor} 处理
+	 */
+	private final class WsdlInterceptor extends AbstractPhaseInterceptor<Message> {
+
+		private final String definition;
+		private final ConcurrentMap<String, Mapped> documents = new ConcurrentHashMap<String, Mapped>();
+
+		private WsdlInterceptor(final String definition) {
+			super(Phase.READ);
+			addBefore(WSDLGetInterceptor.class.getName());
+			this.definition = definition;
+		}
+
+		@Override
+		public void handleMessage(final Message message) throws Fault {
+			String method = (String) message.get(Message.HTTP_REQUEST_METHOD);
+			String queryString = (String) message.get(Message.QUERY_STRING);
+			if (!"GET".equals(method) || StringUtils.isEmpty(queryString)) {
+				return;
+			}
+			Map<String, String> query = UrlUtils.parseQueryString(queryString);
+			// WSDLGetUtils 只读取 wsdl 及 xsd 参数
+			Map<String, String> params = new TreeMap<String, String>();
+			for (String name : new String[] { "wsdl", "xsd" }) {
+				if (query.containsKey(name)) {
+					params.put(name, query.get(name));
+				}
+			}
+			if (params.isEmpty()) {
+				return;
+			}
+			String base = normalize((String) message.get(Message.REQUEST_URL));
+			String ctx = (String) message.get(Message.PATH_INFO);
+			String key = this.key(base, params);
+			String etag = null;
+			ByteBuffer body;
+			try {
+				if (documents.containsKey(key) || documents.size() < maxDocuments) {
+					Mapped mapped = this.resolve(key, () -> render(message, base, params, ctx));
+					etag = mapped.etag;
+					body = mapped.buffer.duplicate();
+				} else {
+					// 超出上限的文档按请求渲染，不写入缓存
+					misses.incrementAndGet();
+					body = ByteBuffer.wrap(render(message, base, params, ctx));
+				}
+			} catch (RuntimeException e) {
+				LOG.debug("Render {} of {} failed, fallback to CXF", queryString, definition, e);
+				return;
+			}
+			try {
+				this.respond(message, etag, body);
+			} catch (IOException e) {
+				throw new Fault(e);
+			}
+			message.getInterceptorChain().abort();
+		}
+
+		private String key(final String base, final Map<String, String> params) {
+			return new EndpointFingerprint().update(definition, base, params.toString()).toHex();
+		}
+
+		private Mapped resolve(final String key, final Supplier<byte[]> renderer) {
+			Mapped mapped = documents.get(key);
+			if (mapped != null) {
+				hits.incrementAndGet();
+				return mapped;
+			}
+			Path file = directory.resolve(key + SUFFIX);
+			try {
+				if (Files.isRegularFile(file)) {
+					// 定义不变时沿用之前写入的文件
+					mapped = map(key, file);
+				} else {
+					misses.incrementAndGet();
+					mapped = write(key, renderer.get());
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			Mapped previous = documents.putIfAbsent(key, mapped);
+			return previous != null ? previous : mapped;
+		}
+
+		/**
+		 * @param etag			: 文档的 ETag，未缓存的文档为 null
+		 * @param body			: 文档内容
+		 */
+		private void respond(final Message message, final String etag, final ByteBuffer body) throws IOException {
+			boolean notModified = etag != null && matches(message, etag);
+			Exchange exchange = message.getExchange();
+			Message out = new MessageImpl();
+			out.setExchange(exchange);
+			exchange.setOutMessage(out);
+			Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+			if (etag != null) {
+				headers.put("ETag", Collections.singletonList(etag));
+			}
+			headers.put("Cache-Control", Collections.singletonList("no-cache"));
+			out.put(Message.PROTOCOL_HEADERS, headers);
+			out.put(Message.CONTENT_TYPE, CONTENT_TYPE);
+			out.put(Message.RESPONSE_CODE, notModified ? 304 : 200);
+			Conduit conduit = exchange.getDestination().getBackChannel(message);
+			conduit.prepare(out);
+			if (!notModified) {
+				OutputStream output = out.getContent(OutputStream.class);
+				// 不再经过 DOM 及 StAX；传输层只提供 OutputStream，通道适配器把映射的内容分块复制到堆内缓冲区后写出
+				WritableByteChannel channel = Channels.newChannel(output);
+				while (body.hasRemaining()) {
+					channel.write(body);
+				}
+				output.flush();
+			}
+			conduit.close(out);
+		}
+
+	}
+
+}
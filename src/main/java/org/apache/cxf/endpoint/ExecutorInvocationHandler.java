@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * 将异步操作交给 {@link Executor} 执行的 {@link InvocationHandler} 包装，可按方法名称指定不同的执行器。
+ * <p>只有异步操作（返回 {@link CompletionStage} 的方法及通过 continuation 挂起的 SOAP 操作，均经由 {@link #invokeAsync}）
+ * 交给执行器，调用线程随即释放；同步方法在调用线程上直接执行，转交执行器后再等待结果只会多占用一个线程。
+ * 未指定执行器的方法同样在调用线程上直接执行。</p>
+ */
+public class ExecutorInvocationHandler implements EndpointAsyncHandler {
+
+	private final InvocationHandler delegate;
+	private final Executor executor;
+	private final Map<String, Executor> executors;
+
+	public ExecutorInvocationHandler(InvocationHandler delegate, Executor executor) {
+		this(delegate, executor, Collections.<String, Executor>emptyMap());
+	}
+
+	/**
+	 * @param delegate		: 实际的处理对象
+	 * @param executor		: 默认执行器，为 null 时未单独指定的方法在调用线程上执行
+	 * @param executors		: 按方法名称指定的执行器
+	 */
+	public ExecutorInvocationHandler(InvocationHandler delegate, Executor executor, Map<String, Executor> executors) {
+		this.delegate = delegate;
+		this.executor = executor;
+		this.executors = executors == null || executors.isEmpty() ? Collections.<String, Executor>emptyMap()
+				: Collections.unmodifiableMap(new HashMap<String, Executor>(executors));
+	}
+
+	public InvocationHandler getDelegate() {
+		return delegate;
+	}
+
+	protected Executor getExecutor(Method method) {
+		Executor target = executors.get(method.getName());
+		return target != null ? target : executor;
+	}
+
+	@Override
+	public Object invoke(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) throws Throwable {
+		// 方法本身返回 CompletionStage 时交给执行器，调用方不等待
+		if (CompletionStage.class.isAssignableFrom(method.getReturnType())) {
+			return invokeAsync(proxy, operation, binding, method, args);
+		}
+		// 同步方法在调用线程上执行，不转交执行器后阻塞等待
+		return call(proxy, operation, binding, method, args);
+	}
+
+	@Override
+	public CompletionStage<?> invokeAsync(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) {
+		Executor target = getExecutor(method);
+		CompletableFuture<Object> future = new CompletableFuture<Object>();
+		Runnable task = () -> {
+			try {
+				if (delegate instanceof EndpointAsyncHandler) {
+					((EndpointAsyncHandler) delegate).invokeAsync(proxy, operation, binding, method, args).whenComplete((value, cause) -> {
+						if (cause != null) {
+							future.completeExceptionally(cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause);
+						} else {
+							future.complete(value);
+						}
+					});
+				} else {
+					future.complete(call(proxy, operation, binding, method, args));
+				}
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		};
+		if (target == null) {
+			task.run();
+		} else {
+			try {
+				target.execute(task);
+			} catch (RuntimeException e) {
+				// 执行器拒绝任务
+				future.completeExceptionally(e);
+			}
+		}
+		return future;
+	}
+
+	protected Object call(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) throws Throwable {
+		if (delegate instanceof EndpointInvocationHandler) {
+			return ((EndpointInvocationHandler) delegate).invoke(proxy, operation, binding, method, args);
+		}
+		return delegate.invoke(proxy, method, args);
+	}
+
+}
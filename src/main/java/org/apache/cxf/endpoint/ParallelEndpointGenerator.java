@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.commons.lang3.builder.Builder;
+import org.apache.cxf.endpoint.utils.EndpointApiUtils;
+
+import com.github.hiwepy.javassist.utils.ClassPoolFactory;
+
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.LoaderClassPath;
+
+/**
+ * 多线程并行生成动态类。
+ * <p>构建器会修改 {@link CtClass} 及 {@link javassist.bytecode.ConstPool}，共享的 {@link ClassPool} 无法并发使用：
+ * 这里每个工作线程使用独立的子 {@link ClassPool}（优先从自身的类路径加载，不共享可变的 {@link CtClass}），
+ * 在 {@link ForkJoinPool} 上并行编译为字节码，再按定义的顺序在同一把锁内逐个定义类。</p>
+ * <p>字节码只取决于接口定义本身，与执行的线程无关，返回结果的顺序与定义的顺序一致。
+ * 各定义之间不能相互引用，依赖其他动态类的定义（如实现类与接口类）请分批生成。</p>
+ * <p>每个定义都通过 {@link Builder#build()} 编译完整的类，构建器上设置的 {@link EndpointShapes} 及 {@link EndpointTemplates}
+ * 不生效：形状类须先于子类定义，模板由首个编译的线程在其 {@link ClassPool} 中生成，均与按线程隔离的编译方式冲突。
+ * 因此工作线程不会进入这两者的解析，也不会因其他形状的编译而等待；需要共享形状时在各线程中直接调用构建器的 toClass。</p>
+ */
+public class ParallelEndpointGenerator {
+
+	/**
+	 * 在工作线程的 {@link ClassPool} 上创建构建器
+	 */
+	@FunctionalInterface
+	public interface Definition {
+
+		Builder<CtClass> define(ClassPool pool) throws Exception;
+
+	}
+
+	// 定义类的操作串行执行
+	private static final Object DEFINE_LOCK = new Object();
+
+	private final ForkJoinPool executor;
+	private final ClassPool parent;
+	private final ClassLoader loader;
+	private EndpointLoading loading = EndpointLoading.SHARED;
+
+	public ParallelEndpointGenerator() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ParallelEndpointGenerator(final ForkJoinPool executor) {
+		this(executor, ClassPoolFactory.getDefaultPool(), Thread.currentThread().getContextClassLoader());
+	}
+
+	/**
+	 * @param executor		: 执行编译任务的线程池
+	 * @param parent		: 工作线程 {@link ClassPool} 的父级
+	 * @param loader		: 定义类及加载依赖类使用的类加载器
+	 */
+	public ParallelEndpointGenerator(final ForkJoinPool executor, final ClassPool parent, final ClassLoader loader) {
+		this.executor = executor;
+		this.parent = parent;
+		this.loader = loader != null ? loader : ParallelEndpointGenerator.class.getClassLoader();
+	}
+
+	/**
+	 * 设置动态类的定义方式
+	 * @param loading		: The {@link EndpointLoading} instance
+	 * @return {@link ParallelEndpointGenerator} instance
+	 */
+	public ParallelEndpointGenerator loading(final EndpointLoading loading) {
+		this.loading = loading;
+		return this;
+	}
+
+	/**
+	 * 并行编译并按顺序定义类
+	 * @param definitions	: 接口定义
+	 * @return 与定义顺序一致的类
+	 * @throws CannotCompileException if can't compile or define
+	 */
+	public List<Class<?>> generate(final List<? extends Definition> definitions) throws CannotCompileException {
+		return define(submit(definitions));
+	}
+
+	/**
+	 * 逐个读取 {@link EndpointCatalog} 目录中的接口，边读取边提交编译任务
+	 * @param catalog		: 目录内容
+	 * @return 与目录顺序一致的类
+	 * @throws Exception 解析、编译或定义异常
+	 */
+	public List<Class<?>> generate(final Reader catalog) throws Exception {
+		ConcurrentMap<Thread, ClassPool> pools = new ConcurrentHashMap<Thread, ClassPool>();
+		List<ForkJoinTask<Compiled>> tasks = new ArrayList<ForkJoinTask<Compiled>>();
+		try {
+			EndpointCatalog.parse(catalog, endpoint -> tasks.add(executor.submit(() -> compile(pools,
+					pool -> EndpointCatalog.toBuilder(pool, null, endpoint)))));
+		} catch (Exception e) {
+			cancel(tasks);
+			throw e;
+		}
+		return define(tasks);
+	}
+
+	/**
+	 * 并行编译，不定义类，可用于写出 class 文件
+	 * @param definitions	: 接口定义
+	 * @return 类名称与字节码，顺序与定义顺序一致
+	 * @throws CannotCompileException if can't compile
+	 */
+	public Map<String, byte[]> compile(final List<? extends Definition> definitions) throws CannotCompileException {
+		Map<String, byte[]> bytecodes = new LinkedHashMap<String, byte[]>();
+		List<ForkJoinTask<Compiled>> tasks = submit(definitions);
+		for (int i = 0; i < tasks.size(); i++) {
+			Compiled compiled = join(tasks, i);
+			bytecodes.put(compiled.classname, compiled.bytecode);
+		}
+		return bytecodes;
+	}
+
+	private List<ForkJoinTask<Compiled>> submit(final List<? extends Definition> definitions) {
+		ConcurrentMap<Thread, ClassPool> pools = new ConcurrentHashMap<Thread, ClassPool>();
+		List<ForkJoinTask<Compiled>> tasks = new ArrayList<ForkJoinTask<Compiled>>(definitions.size());
+		for (Definition definition : definitions) {
+			tasks.add(executor.submit(() -> compile(pools, definition)));
+		}
+		return tasks;
+	}
+
+	private List<Class<?>> define(final List<ForkJoinTask<Compiled>> tasks) throws CannotCompileException {
+		List<Class<?>> classes = new ArrayList<Class<?>>(tasks.size());
+		// 按定义顺序等待编译结果并定义类，后续任务仍在并行编译
+		for (int i = 0; i < tasks.size(); i++) {
+			Compiled compiled = join(tasks, i);
+			synchronized (DEFINE_LOCK) {
+				classes.add(EndpointClassDefiner.define(compiled.classname, compiled.bytecode, loading, loader));
+			}
+		}
+		return classes;
+	}
+
+	private Compiled compile(final ConcurrentMap<Thread, ClassPool> pools, final Definition definition) throws Exception {
+		ClassPool pool = pools.computeIfAbsent(Thread.currentThread(), thread -> this.newPool());
+		CtClass declaring = definition.define(pool).build();
+		try {
+			if (!declaring.isInterface() && EndpointApi.class.getName().equals(declaring.getSuperclass().getName())) {
+				EndpointApiUtils.makeConstructors(declaring);
+			}
+			return new Compiled(declaring.getName(), declaring.toBytecode());
+		} finally {
+			// 将该class从ClassPool中删除
+			declaring.detach();
+		}
+	}
+
+	/**
+	 * 创建工作线程的 {@link ClassPool}：优先从自身的类路径查找，只有父级中动态创建的类才从父级获取
+	 * @return {@link ClassPool} instance
+	 */
+	protected ClassPool newPool() {
+		ClassPool pool = new ClassPool(parent);
+		pool.childFirstLookup = true;
+		pool.appendClassPath(new LoaderClassPath(loader));
+		return pool;
+	}
+
+	private static Compiled join(final List<ForkJoinTask<Compiled>> tasks, final int index) throws CannotCompileException {
+		try {
+			return tasks.get(index).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancel(tasks);
+			throw new CannotCompileException(e);
+		} catch (ExecutionException e) {
+			cancel(tasks);
+			Throwable cause = e.getCause();
+			// ForkJoinTask 将受检异常包装为 RuntimeException，还原为定义抛出的异常
+			while (cause != null && cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof CannotCompileException) {
+				throw (CannotCompileException) cause;
+			}
+			throw new CannotCompileException(cause);
+		}
+	}
+
+	private static void cancel(final List<ForkJoinTask<Compiled>> tasks) {
+		for (ForkJoinTask<Compiled> task : tasks) {
+			task.cancel(false);
+		}
+	}
+
+	private static final class Compiled {
+
+		private final String classname;
+		private final byte[] bytecode;
+
+		private Compiled(final String classname, final byte[] bytecode) {
+			this.classname = classname;
+			this.bytecode = bytecode;
+		}
+
+	}
+
+}
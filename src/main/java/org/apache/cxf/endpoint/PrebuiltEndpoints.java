@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationHandler;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 加载构建期通过 {@link EndpointClassGenerator} 预先生成的动态类。
+ * <p>类加载后由 {@link EndpointBindings} 从 <code>@WebBound</code> 注解中读取一次绑定数据并按 {@link Class} 保存，
+ * 与运行期构建的类行为一致，调用时同样无需读取注解；不经过该类而直接加载的预生成类在首次调用时同样读取。</p>
+ */
+public final class PrebuiltEndpoints {
+
+	private PrebuiltEndpoints() {
+	}
+
+	/**
+	 * 读取 classpath 中全部索引文件登记的类名
+	 * @param loader		: {@link ClassLoader} instance
+	 * @return 类名列表
+	 * @throws IOException if read failed
+	 */
+	public static List<String> getClassnames(ClassLoader loader) throws IOException {
+		Set<String> classnames = new LinkedHashSet<String>();
+		Enumeration<URL> indexes = loader.getResources(EndpointClassGenerator.INDEX);
+		while (indexes.hasMoreElements()) {
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(indexes.nextElement().openStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (!line.trim().isEmpty()) {
+						classnames.add(line.trim());
+					}
+				}
+			}
+		}
+		return new ArrayList<String>(classnames);
+	}
+
+	/**
+	 * 判断是否存在预先生成的类
+	 * @param classname		: 动态类名称
+	 * @return true if prebuilt
+	 */
+	public static boolean isPrebuilt(String classname) {
+		return loader().getResource(classname.replace('.', '/') + ".class") != null;
+	}
+
+	public static Class<?> load(String classname) throws ClassNotFoundException {
+		return load(classname, loader());
+	}
+
+	/**
+	 * 通过指定的类加载器加载预先生成的类并读取绑定数据，不同类加载器中的同名类各自读取
+	 * @param classname		: 动态类名称
+	 * @param loader		: {@link ClassLoader} instance
+	 * @return the class
+	 * @throws ClassNotFoundException if not found
+	 */
+	public static Class<?> load(String classname, ClassLoader loader) throws ClassNotFoundException {
+		Class<?> type = Class.forName(classname, false, loader);
+		EndpointBindings.attach(type);
+		return type;
+	}
+
+	public static Object newInstance(String classname, InvocationHandler handler) throws ReflectiveOperationException {
+		return load(classname).getConstructor(InvocationHandler.class).newInstance(handler);
+	}
+
+	public static Object newInvokerInstance(String classname, EndpointInvoker invoker) throws ReflectiveOperationException {
+		return load(classname).getConstructor(EndpointInvoker.class).newInstance(invoker);
+	}
+
+	private static ClassLoader loader() {
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		return loader != null ? loader : PrebuiltEndpoints.class.getClassLoader();
+	}
+
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 默认的 {@link EndpointFaultSink}：业务线程只做计数和环形缓冲区写入，不加锁、不做 IO；
+ * 由后台线程定时读取缓冲区并输出日志，每个周期最多输出固定条数，其余只汇总数量，并输出本周期异常次数最多的操作。
+ * <p>缓冲区写满后覆盖最旧的记录，被覆盖的记录仍然计入操作计数；计数按生成代码传入的动态类名称及操作序号汇总，
+ * 重载方法各自计数，形状类等多个接口共享的类同样按各自的名称区分；操作序号未知的异常合并计入
+ * {@link EndpointInvocationHandler#UNKNOWN_OPERATION}。</p>
+ */
+public class RingBufferFaultSink implements EndpointFaultSink {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(RingBufferFaultSink.class);
+	// 每个周期输出的异常次数最多的操作数
+	private static final int TOP_COUNTS = 10;
+
+	private final AtomicReferenceArray<Fault> buffer;
+	private final int mask;
+	private final AtomicLong head = new AtomicLong();
+	// 仅由后台线程读写
+	private long tail = 0;
+	private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<String, Counters>();
+	private final long interval;
+	private final int maxLogs;
+	private final AtomicBoolean started = new AtomicBoolean(false);
+	private volatile ScheduledExecutorService executor;
+	// 仅由后台线程写入
+	private volatile long suppressed = 0;
+	private volatile long overwritten = 0;
+
+	public RingBufferFaultSink() {
+		this(1024, 1000, 10);
+	}
+
+	/**
+	 * @param capacity		: 缓冲区大小，向上取整为 2 的幂
+	 * @param interval		: 日志输出周期，单位毫秒
+	 * @param maxLogs		: 每个周期最多输出的日志条数
+	 */
+	public RingBufferFaultSink(int capacity, long interval, int maxLogs) {
+		if (capacity <= 0 || interval <= 0 || maxLogs < 0) {
+			throw new IllegalArgumentException("capacity and interval must be positive, maxLogs must not be negative");
+		}
+		int size = Integer.highestOneBit(capacity);
+		size = size < capacity ? size << 1 : size;
+		this.buffer = new AtomicReferenceArray<Fault>(size);
+		this.mask = size - 1;
+		this.interval = interval;
+		this.maxLogs = maxLogs;
+	}
+
+	@Override
+	public void fault(String classname, Object proxy, int operation, String method, Throwable cause) {
+		counters.computeIfAbsent(classname, Counters::new).get(operation, method).adder.increment();
+		long sequence = head.getAndIncrement();
+		buffer.lazySet((int) (sequence & mask), new Fault(sequence, classname, method, operation, cause));
+		if (!started.get() && started.compareAndSet(false, true)) {
+			start();
+		}
+	}
+
+	/**
+	 * 获取指定操作的异常次数
+	 * @param classname		: 动态类名称
+	 * @param operation		: 操作序号
+	 * @return 异常次数
+	 */
+	public long getCount(String classname, int operation) {
+		Counters current = counters.get(classname);
+		Counter counter = current == null ? null : current.find(operation);
+		return counter == null ? 0 : counter.adder.sum();
+	}
+
+	/**
+	 * @return 各操作异常次数的快照，键为 “类名#方法名(操作序号)”
+	 */
+	public Map<String, Long> getCounts() {
+		Map<String, Long> counts = new HashMap<String, Long>();
+		for (Counters current : counters.values()) {
+			for (Counter counter : current.all()) {
+				counts.put(counter.label, counter.adder.sum());
+			}
+		}
+		return Collections.unmodifiableMap(counts);
+	}
+
+	/**
+	 * @return 因超出每个周期的日志条数而未输出的记录总数
+	 */
+	public long getSuppressed() {
+		return suppressed;
+	}
+
+	/**
+	 * @return 输出日志之前已被新记录覆盖的记录总数
+	 */
+	public long getOverwritten() {
+		return overwritten;
+	}
+
+	public void shutdown() {
+		ScheduledExecutorService current = executor;
+		if (current != null) {
+			current.shutdown();
+		}
+	}
+
+	protected void start() {
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "endpoint-fault-sink");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::drain, interval, interval, TimeUnit.MILLISECONDS);
+		this.executor = scheduler;
+	}
+
+	/**
+	 * 读取上个周期以来的记录并输出日志
+	 */
+	protected void drain() {
+		long current = head.get();
+		if (current == tail) {
+			return;
+		}
+		// 已被覆盖的记录
+		long lost = Math.max(0, current - tail - buffer.length());
+		long sequence = tail + lost;
+		int logged = 0;
+		long suppressed = 0;
+		for (; sequence < current; sequence++) {
+			int index = (int) (sequence & mask);
+			Fault fault = buffer.get(index);
+			// 已分配序号但写入尚未完成，下个周期从这里继续读取；长期未完成的记录会随新记录超出缓冲区而计入覆盖数
+			if (fault == null || fault.sequence < sequence) {
+				break;
+			}
+			// 已被新记录覆盖
+			if (fault.sequence != sequence) {
+				lost++;
+				continue;
+			}
+			// 释放已读取的记录，异常的调用栈会引用动态类，避免阻止类卸载
+			buffer.compareAndSet(index, fault, null);
+			if (logged < maxLogs) {
+				LOG.warn("Endpoint fault on {}#{} (operation {})", fault.classname, fault.method, fault.operation, fault.cause);
+				logged++;
+			} else {
+				suppressed++;
+			}
+		}
+		tail = sequence;
+		this.suppressed += suppressed;
+		this.overwritten += lost;
+		// 每个周期都更新已报告的次数，输出的是本周期的增量
+		List<Counter> changed = deltas();
+		if (suppressed > 0 || lost > 0) {
+			StringBuilder top = new StringBuilder();
+			for (int i = 0; i < changed.size() && i < TOP_COUNTS; i++) {
+				Counter counter = changed.get(i);
+				top.append(i == 0 ? "" : ", ").append(counter.label).append('=').append(counter.delta);
+			}
+			LOG.warn("Endpoint faults suppressed : {}, overwritten : {}, top in period : [{}]", suppressed, lost, top);
+		}
+	}
+
+	/**
+	 * 计算各操作自上个周期以来的异常次数，按次数从多到少排列
+	 */
+	private List<Counter> deltas() {
+		List<Counter> changed = new ArrayList<Counter>();
+		for (Counters current : counters.values()) {
+			for (Counter counter : current.all()) {
+				long sum = counter.adder.sum();
+				counter.delta = sum - counter.reported;
+				counter.reported = sum;
+				if (counter.delta > 0) {
+					changed.add(counter);
+				}
+			}
+		}
+		changed.sort((a, b) -> Long.compare(b.delta, a.delta));
+		return changed;
+	}
+
+	/**
+	 * 单个动态类按操作序号排列的计数器，数组按需扩容（写时复制），读取不加锁
+	 */
+	private static final class Counters {
+
+		private static final Counter[] EMPTY = new Counter[0];
+
+		private final String classname;
+		private volatile Counter[] operations = EMPTY;
+		private volatile Counter unknown;
+
+		private Counters(String classname) {
+			this.classname = classname;
+		}
+
+		private Counter get(int operation, String method) {
+			Counter counter = find(operation);
+			return counter != null ? counter : create(operation, method);
+		}
+
+		private Counter find(int operation) {
+			if (operation < 0) {
+				return unknown;
+			}
+			Counter[] current = operations;
+			return operation < current.length ? current[operation] : null;
+		}
+
+		private synchronized Counter create(int operation, String method) {
+			Counter counter = find(operation);
+			if (counter != null) {
+				return counter;
+			}
+			if (operation < 0) {
+				counter = new Counter(classname + "#(" + EndpointInvocationHandler.UNKNOWN_OPERATION + ")");
+				unknown = counter;
+				return counter;
+			}
+			Counter[] current = operations;
+			Counter[] created = Arrays.copyOf(current, Math.max(current.length, operation + 1));
+			counter = new Counter(classname + "#" + method + "(" + operation + ")");
+			created[operation] = counter;
+			operations = created;
+			return counter;
+		}
+
+		private List<Counter> all() {
+			List<Counter> all = new ArrayList<Counter>();
+			for (Counter counter : operations) {
+				if (counter != null) {
+					all.add(counter);
+				}
+			}
+			Counter current = unknown;
+			if (current != null) {
+				all.add(current);
+			}
+			return all;
+		}
+
+	}
+
+	private static final class Counter {
+
+		private final String label;
+		private final LongAdder adder = new LongAdder();
+		// 仅由后台线程读写
+		private long reported;
+		private long delta;
+
+		private Counter(String label) {
+			this.label = label;
+		}
+
+	}
+
+	private static final class Fault {
+
+		private final long sequence;
+		private final String classname;
+		private final String method;
+		private final int operation;
+		private final Throwable cause;
+
+		private Fault(long sequence, String classname, String method, int operation, Throwable cause) {
+			this.sequence = sequence;
+			this.classname = classname;
+			this.method = method;
+			this.operation = operation;
+			this.cause = cause;
+		}
+
+	}
+
+}
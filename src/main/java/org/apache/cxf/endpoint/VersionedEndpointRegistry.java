@@ -0,0 +1,531 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.namespace.QName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.ChainInitiationObserver;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.Destination;
+import org.apache.cxf.transport.DestinationFactory;
+import org.apache.cxf.transport.DestinationFactoryManager;
+import org.apache.cxf.transport.MessageObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 按版本热替换已发布的服务。
+ * <p>同一地址的 {@link Destination} 由传输层复用，这里在 {@link Destination} 上放置固定的 {@link MessageObserver}，
+ * 由其把请求转交给当前版本的 {@link ChainInitiationObserver}；新版本在后台生成、创建并预热，
+ * 替换时只修改一个 volatile 引用，不会出现地址未注册的间隙。</p>
+ * <p>旧版本在进行中的请求全部结束（或等待超时）后才释放：执行 cleanup hooks 并从 {@link ServerRegistry} 注销，
+ * 不关闭共享的 {@link Destination}。挂起的异步请求（Continuation）在 onMessage 返回后不再计数，恢复后仍由旧版本的拦截器链处理。</p>
+ * <p>服务下线时仍在途的请求以 404 结束，按需发布的服务创建失败时以 503 结束，均通过 {@link Destination} 的回传通道直接写出，不进入拦截器链。</p>
+ * <p>{@link Deployer} 创建的 {@link Server} 必须使用同一 {@link Bus}、相同地址且不启动（如 <code>factory.setStart(false)</code>）。
+ * 新旧版本的类名可以相同（{@link EndpointLoading#ISOLATED} 或 {@link EndpointLoading#HIDDEN}），此时按类名登记的数据已由新版本覆盖；
+ * 类名不同时可在 {@link Version#released()} 完成后调用 {@link EndpointClassDefiner#retire(String)}。</p>
+ */
+public class VersionedEndpointRegistry {
+
+	/**
+	 * 创建新版本的服务，在后台线程执行
+	 */
+	@FunctionalInterface
+	public interface Deployer {
+
+		/**
+		 * @param version		: 版本号，同一名称下从 1 开始递增
+		 * @return 未启动的 {@link Server}
+		 * @throws Exception 生成或创建异常
+		 */
+		Server deploy(int version) throws Exception;
+
+	}
+
+	/**
+	 * 切换前预热新版本，如调用一次各操作以触发类初始化及 JIT 编译
+	 */
+	@FunctionalInterface
+	public interface Warmup {
+
+		void warm(Server server) throws Exception;
+
+	}
+
+	protected static final Logger LOG = LoggerFactory.getLogger(VersionedEndpointRegistry.class);
+
+	private final Bus bus;
+	private final Executor executor;
+	private final ConcurrentMap<String, Slot> slots = new ConcurrentHashMap<String, Slot>();
+	private long drainTimeout = TimeUnit.SECONDS.toMillis(30);
+
+	public VersionedEndpointRegistry() {
+		this(BusFactory.getDefaultBus());
+	}
+
+	public VersionedEndpointRegistry(final Bus bus) {
+		this(bus, EndpointExecutors.virtualThreadExecutor());
+	}
+
+	/**
+	 * @param bus			: 创建 {@link Server} 使用的 {@link Bus}
+	 * @param executor		: 生成新版本及等待旧版本结束的线程池
+	 */
+	public VersionedEndpointRegistry(final Bus bus, final Executor executor) {
+		this.bus = bus;
+		this.executor = executor;
+	}
+
+	/**
+	 * 设置等待旧版本请求结束的最长时间，超时后直接释放
+	 * @param timeout		: 等待时间
+	 * @param unit			: 时间单位
+	 * @return {@link VersionedEndpointRegistry} instance
+	 */
+	public VersionedEndpointRegistry drainTimeout(final long timeout, final TimeUnit unit) {
+		this.drainTimeout = unit.toMillis(timeout);
+		return this;
+	}
+
+	public CompletableFuture<Version> deploy(final String name, final Deployer deployer) {
+		return deploy(name, deployer, null);
+	}
+
+	/**
+	 * 在后台生成并发布新版本，已有版本时原子替换，旧版本在请求结束后释放
+	 * @param name			: 服务名称，同一名称的各版本必须发布在同一地址
+	 * @param deployer		: 创建新版本
+	 * @param warmup		: 预热新版本，可为 null
+	 * @return 新版本开始接收请求后完成；在此之前有更新的版本已发布时，以 {@link IllegalStateException} 结束
+	 */
+	public CompletableFuture<Version> deploy(final String name, final Deployer deployer, final Warmup warmup) {
+		final Slot slot = slots.computeIfAbsent(name, key -> new Slot());
+		final int number = slot.sequence.incrementAndGet();
+		return CompletableFuture.supplyAsync(() -> create(slot, name, number, deployer, warmup), executor);
+	}
+
+	/**
+	 * 按需发布：先在地址上挂载占位入口，不生成动态类也不创建 {@link Server}；首个请求到达或调用 {@link #warm(String)} 时才创建第一个版本，
+	 * 并发的首批请求等待同一次创建完成。创建失败时这批请求以异常结束，之后的请求重新尝试。
+	 * <p>占位入口的 {@link Destination} 由地址对应的 {@link DestinationFactory} 创建，之后创建的 {@link Server} 复用该 {@link Destination}。</p>
+	 * @param name			: 服务名称
+	 * @param address		: 发布地址，与 {@link Deployer} 创建的 {@link Server} 一致
+	 * @param deployer		: 创建版本
+	 * @param warmup		: 预热，可为 null
+	 * @throws IOException 无法创建 {@link Destination} 时抛出
+	 */
+	public void deployLazily(final String name, final String address, final Deployer deployer, final Warmup warmup) throws IOException {
+		DestinationFactoryManager manager = bus.getExtension(DestinationFactoryManager.class);
+		DestinationFactory factory = manager == null ? null : manager.getDestinationFactoryForUri(address);
+		if (factory == null) {
+			throw new IOException("No destination factory found for " + address);
+		}
+		EndpointInfo info = new EndpointInfo(null, factory.getTransportIds().get(0));
+		info.setName(new QName(address, name));
+		info.setAddress(address);
+		Destination destination = factory.getDestination(info, bus);
+		Slot slot = new Slot();
+		if (slots.putIfAbsent(name, slot) != null) {
+			throw new IllegalStateException(name + " has already been deployed");
+		}
+		synchronized (slot) {
+			slot.destination = destination;
+			slot.front.lazy = () -> materialize(slot, name, deployer, warmup);
+			destination.setMessageObserver(slot.front);
+		}
+	}
+
+	/**
+	 * 在后台创建按需发布的服务，已创建时直接完成
+	 * @param name			: 服务名称
+	 * @return 服务开始接收请求后完成，服务不存在时返回 null
+	 */
+	public CompletableFuture<Version> warm(final String name) {
+		Slot slot = slots.get(name);
+		if (slot == null) {
+			return null;
+		}
+		Version current = slot.front.current;
+		Callable<Version> lazy = slot.front.lazy;
+		if (current != null || lazy == null) {
+			return CompletableFuture.completedFuture(current);
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return lazy.call();
+			} catch (Exception e) {
+				throw e instanceof IllegalStateException ? (IllegalStateException) e : new IllegalStateException(e);
+			}
+		}, executor);
+	}
+
+	private Version create(final Slot slot, final String name, final int number, final Deployer deployer, final Warmup warmup) {
+		Server server;
+		try {
+			server = deployer.deploy(number);
+		} catch (Exception e) {
+			throw new IllegalStateException("Deploy " + name + " version " + number + " failed", e);
+		}
+		Version version = new Version(name, number, server, new ChainInitiationObserver(server.getEndpoint(), bus));
+		try {
+			if (warmup != null) {
+				warmup.warm(server);
+			}
+			return publish(slot, version);
+		} catch (Exception e) {
+			version.release(bus, slot.destination == null);
+			throw e instanceof IllegalStateException ? (IllegalStateException) e
+					: new IllegalStateException("Warm up " + name + " version " + number + " failed", e);
+		}
+	}
+
+	/**
+	 * 创建按需发布的服务，同一时间只有一个调用方执行创建，其余调用方等待其结果
+	 */
+	private Version materialize(final Slot slot, final String name, final Deployer deployer, final Warmup warmup) throws Exception {
+		FutureTask<Version> task;
+		boolean owner = false;
+		synchronized (slot) {
+			if (slot.front.current != null) {
+				return slot.front.current;
+			}
+			task = slot.materializing;
+			if (task == null) {
+				task = slot.materializing = new FutureTask<Version>(() -> create(slot, name, slot.sequence.incrementAndGet(), deployer, warmup));
+				owner = true;
+			}
+		}
+		if (owner) {
+			LOG.info("Materializing {} on demand", name);
+			task.run();
+		}
+		try {
+			return task.get();
+		} catch (ExecutionException e) {
+			synchronized (slot) {
+				// 允许之后的请求重新创建
+				if (slot.materializing == task) {
+					slot.materializing = null;
+				}
+			}
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+	}
+
+	/**
+	 * 下线服务，进行中的请求结束后关闭 {@link Destination}
+	 * @param name			: 服务名称
+	 * @return 旧版本释放后完成，服务不存在时返回 null
+	 */
+	public CompletableFuture<Version> undeploy(final String name) {
+		Slot slot = slots.remove(name);
+		if (slot == null) {
+			return null;
+		}
+		Version current;
+		synchronized (slot) {
+			current = slot.front.current;
+			slot.front.current = null;
+			slot.front.lazy = null;
+			if (slot.destination != null && slot.destination.getMessageObserver() == slot.front) {
+				slot.destination.setMessageObserver(null);
+			}
+		}
+		if (current == null && slot.destination != null) {
+			// 按需发布且尚未创建，只需关闭占位入口
+			slot.destination.shutdown();
+		}
+		return current == null ? null : retire(current, true);
+	}
+
+	/**
+	 * @param name			: 服务名称
+	 * @return 当前接收请求的版本，不存在时返回 null
+	 */
+	public Version getVersion(final String name) {
+		Slot slot = slots.get(name);
+		return slot == null ? null : slot.front.current;
+	}
+
+	private Version publish(final Slot slot, final Version version) {
+		Version previous;
+		synchronized (slot) {
+			if (slots.get(version.name) != slot) {
+				throw new IllegalStateException(version.name + " has been undeployed, discard version " + version.number);
+			}
+			previous = slot.front.current;
+			if (previous != null && previous.number > version.number) {
+				throw new IllegalStateException("Version " + previous.number + " of " + version.name
+						+ " already published, discard version " + version.number);
+			}
+			Destination destination = version.server.getDestination();
+			if (slot.destination != null && slot.destination != destination) {
+				throw new IllegalStateException("Version " + version.number + " of " + version.name
+						+ " is not bound to the published address " + slot.destination.getAddress().getAddress().getValue());
+			}
+			ServerLifeCycleManager manager = bus.getExtension(ServerLifeCycleManager.class);
+			if (manager != null) {
+				manager.startServer(version.server);
+			}
+			ServerRegistry registry = bus.getExtension(ServerRegistry.class);
+			if (registry != null) {
+				registry.register(version.server);
+			}
+			// 先切换版本再挂载，首个版本挂载前已可接收请求
+			slot.front.current = version;
+			if (destination.getMessageObserver() != slot.front) {
+				destination.setMessageObserver(slot.front);
+			}
+			slot.destination = destination;
+		}
+		LOG.info("Published {} version {}", version.name, version.number);
+		if (previous != null) {
+			retire(previous, false);
+		}
+		return version;
+	}
+
+	private CompletableFuture<Version> retire(final Version version, final boolean shutdown) {
+		CompletableFuture.runAsync(() -> {
+			if (!version.drain(drainTimeout)) {
+				LOG.warn("Release {} version {} with {} requests in flight after {} ms", version.name, version.number,
+						version.getInFlight(), drainTimeout);
+			}
+			version.release(bus, shutdown);
+		}, executor).whenComplete((result, e) -> {
+			if (e != null) {
+				LOG.warn("Release {} version {} failed", version.name, version.number, e);
+			}
+			version.released.complete(version);
+		});
+		return version.released;
+	}
+
+	private static final class Slot {
+
+		private final AtomicInteger sequence = new AtomicInteger();
+		private final Front front = new Front(this);
+		private volatile Destination destination;
+		private FutureTask<Version> materializing;
+
+	}
+
+	/**
+	 * 挂载在 {@link Destination} 上的固定入口，按需发布时作为占位入口
+	 */
+	private static final class Front implements MessageObserver {
+
+		private final Slot slot;
+		private volatile Version current;
+		private volatile Callable<Version> lazy;
+
+		private Front(final Slot slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public void onMessage(final Message message) {
+			Version version;
+			while (true) {
+				version = current;
+				if (version == null) {
+					Callable<Version> creator = lazy;
+					if (creator == null) {
+						// 已下线
+						abort(message, 404);
+						return;
+					}
+					try {
+						creator.call();
+					} catch (Exception e) {
+						LOG.warn("Materialize endpoint failed", e);
+						abort(message, 503);
+						return;
+					}
+					continue;
+				}
+				version.inFlight.incrementAndGet();
+				// 计数后再次确认，保证旧版本等到 0 之后不会再有请求进入
+				if (version == current) {
+					break;
+				}
+				version.exit();
+			}
+			try {
+				version.observer.onMessage(message);
+			} finally {
+				version.exit();
+			}
+		}
+
+		/**
+		 * 通过回传通道以指定状态码结束请求，不写出响应内容
+		 * @param message		: 请求消息
+		 * @param status		: 响应状态码
+		 */
+		private void abort(final Message message, final int status) {
+			Destination destination = slot.destination;
+			try {
+				Conduit conduit = destination == null ? null : destination.getBackChannel(message);
+				if (conduit == null) {
+					LOG.warn("No back channel to abort request with status {}", status);
+					return;
+				}
+				Exchange exchange = message.getExchange();
+				if (exchange == null) {
+					exchange = new ExchangeImpl();
+					exchange.setInMessage(message);
+					message.setExchange(exchange);
+				}
+				Message response = new MessageImpl();
+				response.setExchange(exchange);
+				exchange.setOutMessage(response);
+				response.put(Message.RESPONSE_CODE, status);
+				conduit.prepare(response);
+				OutputStream output = response.getContent(OutputStream.class);
+				if (output != null) {
+					output.close();
+				}
+				conduit.close(response);
+			} catch (IOException e) {
+				LOG.warn("Abort request with status {} failed", status, e);
+			}
+		}
+
+	}
+
+	/**
+	 * 服务的一个版本
+	 */
+	public static final class Version {
+
+		private final String name;
+		private final int number;
+		private final Server server;
+		private final MessageObserver observer;
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final CompletableFuture<Version> released = new CompletableFuture<Version>();
+		private volatile boolean retired;
+
+		private Version(final String name, final int number, final Server server, final MessageObserver observer) {
+			this.name = name;
+			this.number = number;
+			this.server = server;
+			this.observer = observer;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getNumber() {
+			return number;
+		}
+
+		public Server getServer() {
+			return server;
+		}
+
+		/**
+		 * @return 正在处理的请求数
+		 */
+		public int getInFlight() {
+			return inFlight.get();
+		}
+
+		/**
+		 * @return 进行中的请求结束且资源释放后完成
+		 */
+		public CompletableFuture<Version> released() {
+			return released;
+		}
+
+		private void exit() {
+			if (inFlight.decrementAndGet() == 0 && retired) {
+				synchronized (this) {
+					notifyAll();
+				}
+			}
+		}
+
+		private boolean drain(final long timeout) {
+			retired = true;
+			long deadline = System.currentTimeMillis() + timeout;
+			synchronized (this) {
+				while (inFlight.get() > 0) {
+					long remaining = deadline - System.currentTimeMillis();
+					if (remaining <= 0) {
+						return false;
+					}
+					try {
+						wait(remaining);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * 与 {@link Server#stop()} 相同的释放步骤，{@link Destination} 仍有其他版本使用时不修改其 {@link MessageObserver}
+		 */
+		private void release(final Bus bus, final boolean shutdown) {
+			if (shutdown && server.getDestination().getMessageObserver() == null) {
+				server.destroy();
+				return;
+			}
+			for (Closeable hook : server.getEndpoint().getCleanupHooks()) {
+				try {
+					hook.close();
+				} catch (IOException e) {
+					LOG.debug("Close cleanup hook of {} version {} failed", name, number, e);
+				}
+			}
+			ServerLifeCycleManager manager = bus.getExtension(ServerLifeCycleManager.class);
+			if (manager != null) {
+				manager.stopServer(server);
+			}
+			ServerRegistry registry = bus.getExtension(ServerRegistry.class);
+			if (registry != null) {
+				registry.unregister(server);
+			}
+		}
+
+	}
+
+}
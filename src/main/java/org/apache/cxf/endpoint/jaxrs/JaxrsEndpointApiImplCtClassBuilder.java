@@ -4,9 +4,13 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 
 import org.apache.commons.lang3.builder.Builder;
+import org.apache.cxf.endpoint.EndpointBinding;
+import org.apache.cxf.endpoint.EndpointBindings;
+import org.apache.cxf.endpoint.EndpointInvoker;
 import org.apache.cxf.endpoint.jaxrs.definition.RestBound;
 import org.apache.cxf.endpoint.jaxrs.definition.RestMethod;
 import org.apache.cxf.endpoint.jaxrs.definition.RestParam;
+import org.apache.cxf.endpoint.utils.EndpointApiUtils;
 import org.apache.cxf.endpoint.utils.JaxrsEndpointApiUtils;
 
 import com.github.hiwepy.javassist.utils.ClassPoolFactory;
@@ -42,6 +46,8 @@ public class JaxrsEndpointApiImplCtClassBuilder extends JaxrsEndpointApiCtClassB
 		super(pool, classname + "." + IMPL_CLASSNAME_PREFIX);
 		
 		this.classBuilder = new JaxrsEndpointApiInterfaceCtClassBuilder(pool, classname);
+		// 实现类与接口类分别构建，不经过定义摘要，不使用字节码缓存
+		this.cacheable = false;
 		
 	}
 	
@@ -82,6 +88,7 @@ public class JaxrsEndpointApiImplCtClassBuilder extends JaxrsEndpointApiCtClassB
 	 */
 	public JaxrsEndpointApiCtClassBuilder bind(final RestBound bound) {
 		this.classBuilder.bind(bound);
+		EndpointBindings.register(declaring.getName(), EndpointBinding.parse(bound.getUid(), bound.getJson()));
 		return this;
 	}
 	
@@ -103,7 +110,7 @@ public class JaxrsEndpointApiImplCtClassBuilder extends JaxrsEndpointApiCtClassB
 		this.classBuilder.abstractMethod(rtClass, method, bound, params);
 		
 		// 创建抽象方法
-		CtClass returnType = rtClass != null ? pool.get(rtClass.getName()) : CtClass.voidType;
+		CtClass returnType = JaxrsEndpointApiUtils.makeReturnType(pool, rtClass, method);
 		CtMethod ctMethod = null;
 		// 方法参数
 		CtClass[] parameters = JaxrsEndpointApiUtils.makeParams(pool, params);
@@ -115,10 +122,14 @@ public class JaxrsEndpointApiImplCtClassBuilder extends JaxrsEndpointApiCtClassB
 		else {
 			ctMethod = new CtMethod(returnType, method.getName() , null, declaring);
 		}
-        // 设置方法体
-        JaxrsEndpointApiUtils.methodBody(ctMethod, method);
-        // 设置方法异常捕获逻辑
-        JaxrsEndpointApiUtils.methodCatch(pool, ctMethod);
+		// 异步方法的泛型签名
+		JaxrsEndpointApiUtils.asyncSignature(ctMethod, rtClass, method);
+        // 设置方法体及异常捕获逻辑
+        this.methodBody(ctMethod, method);
+        // 解析并登记方法绑定数据，调用时不再读取注解
+        if (bound != null) {
+        	EndpointApiUtils.methodBinding(ctMethod, bound.getUid(), bound.getJson());
+        }
         
         //新增方法
         declaring.addMethod(ctMethod);
@@ -149,7 +160,7 @@ public class JaxrsEndpointApiImplCtClassBuilder extends JaxrsEndpointApiCtClassB
         	// 设置接口
    			declaring.setSuperclass(classBuilder.build());
         	// 通过类加载器加载该CtClass
-			return declaring.toClass();
+			return EndpointApiUtils.toClass(declaring);
 		} finally {
 			// 将该class从ClassPool中删除
 			declaring.detach();
@@ -158,16 +169,55 @@ public class JaxrsEndpointApiImplCtClassBuilder extends JaxrsEndpointApiCtClassB
 	
 	public Object toInstance(final InvocationHandler handler) throws CannotCompileException, NotFoundException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
         try {
+        	// 在定义类之前检查执行器的设置
+        	InvocationHandler target = decorate(handler);
         	// 设置接口
         	declaring.setSuperclass(classBuilder.build());
         	// 设置InvocationHandler参数构造器
 			declaring.addConstructor(JaxrsEndpointApiUtils.makeConstructor(pool, declaring));
 			// 通过类加载器加载该CtClass，并通过构造器初始化对象
-			return declaring.toClass().getConstructor(InvocationHandler.class).newInstance(handler);
+			return EndpointApiUtils.toClass(declaring).getConstructor(InvocationHandler.class).newInstance(target);
 		} finally {
 			// 将该class从ClassPool中删除
 			declaring.detach();
 		} 
 	}
 
-}
\ No newline at end of file
+	
+	/**
+	 * 以 {@link EndpointInvoker} 为回调初始化对象
+	 * @param invoker			: The {@link EndpointInvoker} instance
+	 * @return The instance
+	 */
+	public Object toInvokerInstance(final EndpointInvoker invoker) throws CannotCompileException, NotFoundException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+        try {
+        	// 设置接口
+        	declaring.setSuperclass(classBuilder.build());
+        	// 设置EndpointInvoker参数构造器
+			declaring.addConstructor(JaxrsEndpointApiUtils.makeConstructor(pool, declaring, EndpointInvoker.class));
+			// 通过类加载器加载该CtClass，并通过构造器初始化对象
+			return EndpointApiUtils.toClass(declaring).getConstructor(EndpointInvoker.class).newInstance(invoker);
+		} finally {
+			// 将该class从ClassPool中删除
+			declaring.detach();
+		} 
+	}
+
+	
+	@Override
+	public Object toDelegateInstance(final Object target) throws CannotCompileException, InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+		if (delegateType == null) {
+			throw new IllegalStateException("delegate mode is not enabled, call delegate(Class) first.");
+		}
+        try {
+        	// 设置接口
+        	declaring.setSuperclass(classBuilder.build());
+        	// 通过类加载器加载该CtClass，并通过构造器初始化对象
+			return EndpointApiUtils.toClass(declaring).getConstructor(delegateType).newInstance(target);
+		} finally {
+			// 将该class从ClassPool中删除
+			declaring.detach();
+		} 
+	}
+
+}
@@ -181,7 +181,7 @@ public class JaxrsEndpointApiInterfaceCtClassBuilder implements Builder<CtClass>
 		ConstPool constPool = this.ccFile.getConstPool();
 		
 		// 创建抽象方法
-		CtClass returnType = rtClass != null ? pool.get(rtClass.getName()) : CtClass.voidType;
+		CtClass returnType = JaxrsEndpointApiUtils.makeReturnType(pool, rtClass, method);
 		CtClass[] exceptions = new CtClass[] { pool.get("java.lang.Exception") };
 		// 方法参数
 		CtClass[] parameters = JaxrsEndpointApiUtils.makeParams(pool, params);
@@ -194,6 +194,8 @@ public class JaxrsEndpointApiInterfaceCtClassBuilder implements Builder<CtClass>
 		else {
 			ctMethod = CtNewMethod.abstractMethod(returnType, method.getName(), null , exceptions, declaring);
 		}
+		// 异步方法的泛型签名
+		JaxrsEndpointApiUtils.asyncSignature(ctMethod, rtClass, method);
 		
 		// 为方法添加 @HttpMethod、 @GET、 @POST、 @PUT、 @DELETE、 @PATCH、 @HEAD、 @OPTIONS、@Path、、@Consumes、@Produces、@RestBound、@RestParam 注解
         JaxrsEndpointApiUtils.methodAnnotations(ctMethod, constPool, method, bound, params);
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint.jaxrs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxrs.JAXRSServiceImpl;
+import org.apache.cxf.jaxrs.interceptor.JAXRSInInterceptor;
+import org.apache.cxf.jaxrs.model.ClassResourceInfo;
+import org.apache.cxf.jaxrs.utils.HttpUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.service.Service;
+
+/**
+ * 按类级别 <code>@Path</code> 的字面前缀索引同一服务上的全部资源类。
+ * <p>CXF 为每个请求逐个匹配全部根资源的 URI 模板，资源类数量达到数千个时匹配开销随之线性增长。
+ * 这里在 {@link JAXRSInInterceptor} 之前按请求路径找到前缀最长的索引项，把交换对象中的 {@link Service}
+ * 临时替换为只包含候选资源的服务，{@link JAXRSInInterceptor} 执行后立即恢复，之后的调用及异常处理不受影响。</p>
+ * <p>候选资源为字面前缀是请求路径前缀的资源类，以及 <code>@Path</code> 以模板变量开头、无法索引的资源类，
+ * 与 CXF 的匹配结果一致；候选资源保持原有顺序。</p>
+ */
+public class JaxrsResourceIndex extends AbstractPhaseInterceptor<Message> {
+
+	private static final String ORIGINAL = JaxrsResourceIndex.class.getName() + ".ORIGINAL";
+
+	private final Map<String, JAXRSServiceImpl> index;
+	private final JAXRSServiceImpl fallback;
+	private final Restore restore = new Restore();
+
+	/**
+	 * @param service		: 包含全部资源类的服务
+	 */
+	public JaxrsResourceIndex(final JAXRSServiceImpl service) {
+		super(Phase.UNMARSHAL);
+		addBefore(JAXRSInInterceptor.class.getName());
+		
+		List<ClassResourceInfo> resources = service.getClassResourceInfos();
+		Map<String, List<ClassResourceInfo>> prefixes = new HashMap<String, List<ClassResourceInfo>>();
+		List<ClassResourceInfo> wildcards = new ArrayList<ClassResourceInfo>();
+		for (ClassResourceInfo resource : resources) {
+			String prefix = prefix(resource);
+			if (prefix.isEmpty()) {
+				wildcards.add(resource);
+			} else {
+				prefixes.computeIfAbsent(prefix, key -> new ArrayList<ClassResourceInfo>()).add(resource);
+			}
+		}
+		// 每个索引项预先合并更短的前缀及无法索引的资源类
+		Map<String, JAXRSServiceImpl> index = new HashMap<String, JAXRSServiceImpl>();
+		for (String prefix : prefixes.keySet()) {
+			List<ClassResourceInfo> candidates = new ArrayList<ClassResourceInfo>();
+			for (ClassResourceInfo resource : resources) {
+				String other = prefix(resource);
+				if (other.isEmpty() || prefix.equals(other) || prefix.startsWith(other + "/")) {
+					candidates.add(resource);
+				}
+			}
+			index.put(prefix, subset(service, candidates));
+		}
+		this.index = index;
+		this.fallback = subset(service, wildcards);
+	}
+
+	/**
+	 * 为服务创建索引并添加到其拦截器链
+	 * @param server		: JAX-RS 服务
+	 * @return {@link JaxrsResourceIndex} instance
+	 */
+	public static JaxrsResourceIndex install(final Server server) {
+		JaxrsResourceIndex index = new JaxrsResourceIndex((JAXRSServiceImpl) server.getEndpoint().getService());
+		index.attach(server.getEndpoint());
+		return index;
+	}
+
+	/**
+	 * 添加到服务端点的拦截器链
+	 * @param endpoint		: 服务端点
+	 */
+	protected void attach(final Endpoint endpoint) {
+		endpoint.getInInterceptors().add(this);
+		endpoint.getInInterceptors().add(restore);
+	}
+
+	@Override
+	public void handleMessage(final Message message) {
+		Exchange exchange = message.getExchange();
+		Service service = exchange.getService();
+		if (!(service instanceof JAXRSServiceImpl)) {
+			return;
+		}
+		exchange.put(ORIGINAL, service);
+		exchange.put(Service.class, this.lookup(HttpUtils.getPathToMatch(message, true)));
+	}
+
+	@Override
+	public void handleFault(final Message message) {
+		restore(message);
+	}
+
+	/**
+	 * 查找前缀最长的索引项
+	 * @param path			: 相对于服务地址的请求路径
+	 * @return 只包含候选资源的服务
+	 */
+	protected JAXRSServiceImpl lookup(final String path) {
+		String rest = StringUtils.strip(path, "/");
+		while (!rest.isEmpty()) {
+			JAXRSServiceImpl candidates = index.get(rest);
+			if (candidates != null) {
+				return candidates;
+			}
+			int slash = rest.lastIndexOf('/');
+			rest = slash < 0 ? "" : rest.substring(0, slash);
+		}
+		return fallback;
+	}
+
+	/**
+	 * @return 索引项数量
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * 类级别 <code>@Path</code> 中第一个模板变量之前的完整路径段
+	 */
+	private static String prefix(final ClassResourceInfo resource) {
+		String value = resource.getURITemplate() == null ? "" : resource.getURITemplate().getValue();
+		StringBuilder prefix = new StringBuilder();
+		for (String segment : StringUtils.split(value, '/')) {
+			if (segment.indexOf('{') >= 0 || segment.indexOf(';') >= 0) {
+				break;
+			}
+			prefix.append(prefix.length() > 0 ? "/" : "").append(segment);
+		}
+		return prefix.toString();
+	}
+
+	protected static JAXRSServiceImpl subset(final JAXRSServiceImpl service, final List<ClassResourceInfo> resources) {
+		JAXRSServiceImpl subset = new JAXRSServiceImpl(Collections.unmodifiableList(resources), service.getName());
+		subset.setInvoker(service.getInvoker());
+		subset.setExecutor(service.getExecutor());
+		return subset;
+	}
+
+	private static void restore(final Message message) {
+		Exchange exchange = message.getExchange();
+		Object original = exchange.remove(ORIGINAL);
+		if (original != null) {
+			exchange.put(Service.class, (Service) original);
+		}
+	}
+
+	/**
+	 * {@link JAXRSInInterceptor} 执行后恢复原有的服务
+	 */
+	private static final class Restore extends AbstractPhaseInterceptor<Message> {
+
+		private Restore() {
+			super(Phase.UNMARSHAL);
+			addAfter(JAXRSInInterceptor.class.getName());
+		}
+
+		@Override
+		public void handleMessage(final Message message) {
+			restore(message);
+		}
+
+	}
+
+}
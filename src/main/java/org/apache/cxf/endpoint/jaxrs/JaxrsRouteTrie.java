@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint.jaxrs;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxrs.JAXRSServiceImpl;
+import org.apache.cxf.jaxrs.model.ClassResourceInfo;
+import org.apache.cxf.jaxrs.model.OperationResourceInfo;
+import org.apache.cxf.jaxrs.model.URITemplate;
+
+/**
+ * 把同一服务上资源类的路径模板编译为按路径段分支的前缀树，查找时按请求的路径段逐层下行，开销只取决于路径深度，与资源类数量无关。
+ * <p>CXF 先按类级别 <code>@Path</code> 选出匹配请求且优先级最高的一组资源类（模板优先级相同），只在这一组资源类中查找操作；
+ * 因此这里分两步查找，保证候选资源交给 CXF 后的匹配结果与扫描全部资源类时一致：</p>
+ * <ol>
+ * <li>类级别模板的前缀树：模板匹配请求路径前缀的资源类都是候选资源，是 CXF 所选资源类的超集；</li>
+ * <li>候选资源的类级别模板优先级全部相同时，CXF 会在全部候选资源中查找操作，这时再按完整路径模板（类级别加方法级别 <code>@Path</code>）
+ * 的前缀树排除不可能有操作匹配的资源类；全部被排除时保留原有候选资源，由 CXF 返回与原来一致的 404 或 405 响应。</li>
+ * </ol>
+ * <p>字面量路径段为精确匹配的分支（请求路径段未命中时再按解码后的值匹配），<code>{id}</code> 形式的模板变量为匹配任意单个路径段的分支；
+ * 带自定义正则的变量、包含 ';' 的路径段及子资源定位方法可能跨越多个路径段，作为匹配剩余全部路径段的分支。矩阵参数不参与匹配。
+ * 最终仍由 CXF 按 URI 模板及 HTTP 方法校验。</p>
+ * <p>前缀树没有匹配项时退回 {@link JaxrsResourceIndex} 的前缀索引。</p>
+ */
+public class JaxrsRouteTrie extends JaxrsResourceIndex {
+
+	/**
+	 * 缓存的候选资源组合数量上限，超出后按请求创建，不再缓存
+	 */
+	public static final int MAX_SUBSETS = 1024;
+
+	private final Node classes = new Node();
+	private final Node operations = new Node();
+	private final JAXRSServiceImpl service;
+	private final Map<ClassResourceInfo, Integer> ordinals = new IdentityHashMap<ClassResourceInfo, Integer>();
+	private final Map<ClassResourceInfo, Integer> groups = new IdentityHashMap<ClassResourceInfo, Integer>();
+	private final ConcurrentMap<List<ClassResourceInfo>, JAXRSServiceImpl> subsets = new ConcurrentHashMap<List<ClassResourceInfo>, JAXRSServiceImpl>();
+	private int routes;
+
+	/**
+	 * @param service		: 包含全部资源类的服务
+	 */
+	public JaxrsRouteTrie(final JAXRSServiceImpl service) {
+		super(service);
+		this.service = service;
+		Map<String, Integer> priorities = new HashMap<String, Integer>();
+		for (ClassResourceInfo resource : service.getClassResourceInfos()) {
+			ordinals.put(resource, ordinals.size());
+			groups.put(resource, priorities.computeIfAbsent(priority(resource.getURITemplate()), key -> priorities.size()));
+			List<String> prefix = segments(resource.getURITemplate());
+			// 类级别模板之后可以是任意路径
+			insert(classes, prefix, resource, true);
+			for (OperationResourceInfo operation : resource.getMethodDispatcher().getOperationResourceInfos()) {
+				List<String> template = new ArrayList<String>(prefix);
+				template.addAll(segments(operation.getURITemplate()));
+				insert(operations, template, resource, operation.isSubResourceLocator());
+				routes++;
+			}
+		}
+	}
+
+	/**
+	 * 为服务创建前缀树并添加到其拦截器链
+	 * @param server		: JAX-RS 服务
+	 * @return {@link JaxrsRouteTrie} instance
+	 */
+	public static JaxrsRouteTrie install(final Server server) {
+		JaxrsRouteTrie trie = new JaxrsRouteTrie((JAXRSServiceImpl) server.getEndpoint().getService());
+		trie.attach(server.getEndpoint());
+		return trie;
+	}
+
+	@Override
+	protected JAXRSServiceImpl lookup(final String path) {
+		List<ClassResourceInfo> matched = this.match(path);
+		if (matched.isEmpty()) {
+			return super.lookup(path);
+		}
+		JAXRSServiceImpl subset = subsets.get(matched);
+		if (subset == null) {
+			subset = subset(service, matched);
+			if (subsets.size() < MAX_SUBSETS) {
+				subsets.putIfAbsent(matched, subset);
+			}
+		}
+		return subset;
+	}
+
+	/**
+	 * 查找可能匹配请求路径的资源类
+	 * @param path			: 相对于服务地址的请求路径
+	 * @return 按原有顺序排列的资源类，包含 CXF 扫描全部资源类时会选中的资源类；没有匹配项时为空
+	 */
+	public List<ClassResourceInfo> match(final String path) {
+		String[] segments = StringUtils.split(path, '/');
+		for (int i = 0; i < segments.length; i++) {
+			// 矩阵参数不参与路径匹配
+			int semicolon = segments[i].indexOf(';');
+			if (semicolon >= 0) {
+				segments[i] = segments[i].substring(0, semicolon);
+			}
+		}
+		List<ClassResourceInfo> candidates = this.collect(classes, segments);
+		if (candidates.size() > 1 && this.isSameGroup(candidates)) {
+			List<ClassResourceInfo> narrowed = this.collect(operations, segments);
+			narrowed.retainAll(candidates);
+			if (!narrowed.isEmpty()) {
+				return narrowed;
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * @return 编译的操作数量
+	 */
+	public int getRoutes() {
+		return routes;
+	}
+
+	/**
+	 * @return 缓存的候选资源组合数量
+	 */
+	public int getSubsets() {
+		return subsets.size();
+	}
+
+	private List<ClassResourceInfo> collect(final Node root, final String[] segments) {
+		Set<ClassResourceInfo> matched = new LinkedHashSet<ClassResourceInfo>();
+		walk(root, segments, 0, matched);
+		List<ClassResourceInfo> sorted = new ArrayList<ClassResourceInfo>(matched);
+		if (sorted.size() > 1) {
+			sorted.sort((a, b) -> Integer.compare(ordinals.get(a), ordinals.get(b)));
+		}
+		return sorted;
+	}
+
+	private boolean isSameGroup(final List<ClassResourceInfo> candidates) {
+		Integer group = groups.get(candidates.get(0));
+		for (ClassResourceInfo candidate : candidates) {
+			if (!group.equals(groups.get(candidate))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void walk(final Node node, final String[] segments, final int depth, final Set<ClassResourceInfo> matched) {
+		if (node.tails != null) {
+			matched.addAll(node.tails);
+		}
+		if (depth == segments.length) {
+			if (node.leaves != null) {
+				matched.addAll(node.leaves);
+			}
+			return;
+		}
+		if (node.literals != null) {
+			Node next = node.literals.get(segments[depth]);
+			if (next == null && segments[depth].indexOf('%') >= 0) {
+				// 模板中的字面量可能未编码
+				next = node.literals.get(decode(segments[depth]));
+			}
+			if (next != null) {
+				walk(next, segments, depth + 1, matched);
+			}
+		}
+		if (node.param != null) {
+			walk(node.param, segments, depth + 1, matched);
+		}
+	}
+
+	private static void insert(final Node root, final List<String> template, final ClassResourceInfo resource, final boolean tail) {
+		Node node = root;
+		for (String segment : template) {
+			if (segment.indexOf('{') < 0 && segment.indexOf(';') < 0) {
+				node = node.literal(segment);
+			} else if (isSingleSegment(segment)) {
+				node = node.param();
+			} else {
+				node.tail(resource);
+				return;
+			}
+		}
+		if (tail) {
+			// 类级别模板及子资源定位方法匹配剩余的任意路径
+			node.tail(resource);
+		} else {
+			node.leaf(resource);
+		}
+	}
+
+	/**
+	 * 没有自定义正则的模板变量只匹配单个路径段；自定义正则可能匹配 '/'，包含 ';' 的路径段可能与矩阵参数重叠，按跨越多个路径段处理
+	 */
+	private static boolean isSingleSegment(final String segment) {
+		if (segment.indexOf(';') >= 0) {
+			return false;
+		}
+		int depth = 0;
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c == '{') {
+				depth++;
+			} else if (c == '}') {
+				depth--;
+			} else if (c == ':' && depth > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 与 {@link URITemplate#compareTemplates(URITemplate, URITemplate)} 比较的内容相同，相等时两个模板优先级相同
+	 */
+	private static String priority(final URITemplate template) {
+		if (template == null) {
+			return "";
+		}
+		return template.getLiteralChars().length() + ":" + template.getVariables().size() + ":"
+				+ template.getCustomVariables().size() + ":" + template.getPatternValue();
+	}
+
+	private static List<String> segments(final URITemplate template) {
+		List<String> segments = new ArrayList<String>();
+		if (template != null) {
+			for (String segment : StringUtils.split(template.getValue(), '/')) {
+				segments.add(segment);
+			}
+		}
+		return segments;
+	}
+
+	private static String decode(final String segment) {
+		try {
+			// 路径中的 '+' 不表示空格
+			return URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			return segment;
+		}
+	}
+
+	/**
+	 * 前缀树节点
+	 */
+	private static final class Node {
+
+		private Map<String, Node> literals;
+		private Node param;
+		private List<ClassResourceInfo> leaves;
+		private List<ClassResourceInfo> tails;
+
+		private Node literal(final String segment) {
+			if (literals == null) {
+				literals = new HashMap<String, Node>();
+			}
+			return literals.computeIfAbsent(segment, key -> new Node());
+		}
+
+		private Node param() {
+			if (param == null) {
+				param = new Node();
+			}
+			return param;
+		}
+
+		private void leaf(final ClassResourceInfo resource) {
+			if (leaves == null) {
+				leaves = new ArrayList<ClassResourceInfo>(1);
+			}
+			if (!leaves.contains(resource)) {
+				leaves.add(resource);
+			}
+		}
+
+		private void tail(final ClassResourceInfo resource) {
+			if (tails == null) {
+				tails = new ArrayList<ClassResourceInfo>(1);
+			}
+			if (!tails.contains(resource)) {
+				tails.add(resource);
+			}
+		}
+
+	}
+
+}
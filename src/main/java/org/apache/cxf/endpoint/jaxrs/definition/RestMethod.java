@@ -71,6 +71,12 @@ public class RestMethod {
 	 * @see jakarta.ws.rs.Consumes
 	 */
 	private String[] consumes;
+	
+	/**
+	 * 是否为异步方法：异步方法的返回值为 {@link java.util.concurrent.CompletionStage}，
+	 * 由 {@link org.apache.cxf.endpoint.EndpointAsyncHandler} 完成，不占用传输线程
+	 */
+	private boolean async = false;
 
 	public RestMethod(HttpMethodEnum method, String name, String path) {
 		this.method = method;
@@ -113,4 +119,12 @@ public class RestMethod {
 		return path;
 	}
 
+	public boolean isAsync() {
+		return async;
+	}
+
+	public void setAsync(boolean async) {
+		this.async = async;
+	}
+
 }
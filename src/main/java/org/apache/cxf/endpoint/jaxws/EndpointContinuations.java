@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint.jaxws;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+import jakarta.xml.ws.WebServiceException;
+
+import org.apache.cxf.continuations.Continuation;
+import org.apache.cxf.continuations.ContinuationProvider;
+import org.apache.cxf.endpoint.EndpointApi;
+import org.apache.cxf.endpoint.EndpointAsyncHandler;
+import org.apache.cxf.endpoint.EndpointBinding;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+
+/**
+ * 异步 SOAP 操作的调用逻辑，由生成的方法体调用。
+ * <p>首次进入时通过 {@link EndpointAsyncHandler} 发起调用并挂起当前请求，容器线程随即释放；
+ * {@link CompletionStage} 完成后恢复请求，CXF 会再次调用该方法，此时直接返回结果或抛出异常。</p>
+ * <p>当前请求不支持 continuation（如非 CXF 传输或直接调用）时退化为同步等待。</p>
+ */
+public class EndpointContinuations {
+
+	/**
+	 * @param proxy			: 动态类实例
+	 * @param operation		: 操作序号
+	 * @param binding		: 绑定数据
+	 * @param method		: 被调用的方法
+	 * @param args			: 方法参数
+	 * @param timeout		: 挂起的超时时间，单位毫秒，0 表示不超时
+	 * @return 方法返回值，挂起时为返回类型的默认值
+	 * @throws Throwable 调用异常
+	 */
+	public static Object invoke(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args, long timeout) throws Throwable {
+		
+		EndpointAsyncHandler handler = ((EndpointApi) proxy).getAsyncHandler();
+		Continuation continuation = getContinuation();
+		if (continuation == null) {
+			return result(handler.invokeAsync(proxy, operation, binding, method, args));
+		}
+		
+		synchronized (continuation) {
+			// 首次调用：发起异步处理并挂起请求
+			if (continuation.isNew()) {
+				CompletionStage<?> stage = handler.invokeAsync(proxy, operation, binding, method, args);
+				continuation.setObject(stage);
+				continuation.suspend(timeout);
+				stage.whenComplete((value, cause) -> {
+					synchronized (continuation) {
+						if (continuation.isPending()) {
+							continuation.resume();
+						}
+					}
+				});
+				return defaultValue(method.getReturnType());
+			}
+			// 恢复后再次调用：返回处理结果
+			if (continuation.isResumed()) {
+				CompletionStage<?> stage = (CompletionStage<?>) continuation.getObject();
+				continuation.reset();
+				return result(stage);
+			}
+			// 超时
+			CompletionStage<?> stage = (CompletionStage<?>) continuation.getObject();
+			continuation.reset();
+			if (stage != null) {
+				stage.toCompletableFuture().cancel(false);
+			}
+			throw new WebServiceException("Asynchronous operation " + method.getName() + " timed out after " + timeout + " ms");
+		}
+	}
+	
+	protected static Continuation getContinuation() {
+		Message message = PhaseInterceptorChain.getCurrentMessage();
+		if (message == null) {
+			return null;
+		}
+		ContinuationProvider provider = (ContinuationProvider) message.get(ContinuationProvider.class.getName());
+		return provider == null ? null : provider.getContinuation();
+	}
+	
+	protected static Object result(CompletionStage<?> stage) throws Throwable {
+		CompletableFuture<?> future = stage.toCompletableFuture();
+		try {
+			return future.get();
+		} catch (ExecutionException | CompletionException e) {
+			throw e.getCause() != null ? e.getCause() : e;
+		}
+	}
+	
+	protected static Object defaultValue(Class<?> type) {
+		// 基本类型返回值不能返回 null
+		return type.isPrimitive() && type != void.class ? Array.get(Array.newInstance(type, 1), 0) : null;
+	}
+
+}
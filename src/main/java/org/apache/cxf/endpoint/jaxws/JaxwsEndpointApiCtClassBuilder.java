@@ -1,18 +1,48 @@
 package org.apache.cxf.endpoint.jaxws;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import jakarta.xml.ws.Service;
 import jakarta.xml.ws.soap.AddressingFeature.Responses;
 
+import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.builder.Builder;
 import org.apache.cxf.endpoint.EndpointApi;
+import org.apache.cxf.endpoint.EndpointBinding;
+import org.apache.cxf.endpoint.EndpointBindings;
+import org.apache.cxf.endpoint.EndpointClassCache;
+import org.apache.cxf.endpoint.EndpointClassDefiner;
+import org.apache.cxf.endpoint.EndpointDispatch;
+import org.apache.cxf.endpoint.EndpointExecutors;
+import org.apache.cxf.endpoint.EndpointFaultSink;
+import org.apache.cxf.endpoint.EndpointFaults;
+import org.apache.cxf.endpoint.EndpointFingerprint;
+import org.apache.cxf.endpoint.EndpointInvocationHandler;
+import org.apache.cxf.endpoint.EndpointInvoker;
+import org.apache.cxf.endpoint.EndpointLoading;
+import org.apache.cxf.endpoint.EndpointOperationRegistry;
+import org.apache.cxf.endpoint.EndpointPublisher;
+import org.apache.cxf.endpoint.EndpointShapes;
+import org.apache.cxf.endpoint.EndpointTemplates;
+import org.apache.cxf.endpoint.ExecutorInvocationHandler;
 import org.apache.cxf.endpoint.jaxws.definition.SoapBound;
 import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
 import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
 import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
 import org.apache.cxf.endpoint.jaxws.definition.SoapService;
+import org.apache.cxf.endpoint.utils.EndpointApiUtils;
 import org.apache.cxf.endpoint.utils.JaxwsEndpointApiUtils;
 
 import com.github.hiwepy.javassist.bytecode.CtFieldBuilder;
@@ -44,6 +74,33 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 	protected ClassPool pool = null;
 	protected CtClass declaring  = null;
 	protected ClassFile classFile = null;
+	// 方法体的调用方式及操作序号
+	protected EndpointDispatch dispatch = EndpointDispatch.HANDLER;
+	protected int ordinal = 0;
+	protected Map<String, Integer> operations = new LinkedHashMap<String, Integer>();
+	// 直接委托调用的目标对象类型及方法映射
+	protected Class<?> delegateType = null;
+	protected Map<String, String> delegateMethods = new HashMap<String, String>();
+	// 执行处理逻辑的执行器
+	protected Executor executor = null;
+	protected Map<String, Executor> executors = new HashMap<String, Executor>();
+	// 异步方法的名称，执行器只作用于这些方法
+	protected Set<String> asyncMethods = new HashSet<String>();
+	// 字节码缓存及定义摘要；设置缓存后定义步骤先记录下来，缓存未命中时才执行
+	protected EndpointClassCache cache = null;
+	protected EndpointFingerprint fingerprint = new EndpointFingerprint();
+	protected boolean cacheable = true;
+	protected List<EndpointApiUtils.Step> pending = new ArrayList<EndpointApiUtils.Step>();
+	// 共享形状类：形状的定义摘要不含类注解及绑定数据，类注解记录下来添加到子类上
+	protected EndpointShapes shapes = null;
+	// 复制模板：以形状类方式编译一次模板，结构相同的接口复制其字节码
+	protected EndpointTemplates templates = null;
+	protected EndpointFingerprint shape = new EndpointFingerprint();
+	protected List<Function<ConstPool, Annotation>> annotations = new ArrayList<Function<ConstPool, Annotation>>();
+	// 复制模板时按方法的登记键补充的 @WebBound 方法注解
+	protected Map<String, Function<ConstPool, Annotation>> methodAnnotations = new HashMap<String, Function<ConstPool, Annotation>>();
+	// 动态类的定义方式
+	protected EndpointLoading loading = EndpointLoading.SHARED;
 	//private Loader loader = new Loader(pool);
 	
 	public JaxwsEndpointApiCtClassBuilder(final String classname) throws CannotCompileException, NotFoundException  {
@@ -55,6 +112,8 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 		this.pool = pool;
 		this.declaring = JaxwsEndpointApiUtils.makeClass(pool, classname);
 		this.declaring.defrost();
+		// 清除同名类此前未完成的构建遗留的绑定登记
+		EndpointBindings.removeAll(classname);
 		
 		/* 获得 JaxwsHandler 类作为动态类的父类 */
 		CtClass superclass = pool.get(EndpointApi.class.getName());
@@ -64,6 +123,8 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 		declaring.addConstructor(CtNewConstructor.defaultConstructor(declaring));
 		
 		this.classFile = this.declaring.getClassFile();
+		this.fingerprint.update(getClass().getName(), classname);
+		this.shape.update(getClass().getName(), ClassUtils.getPackageName(classname));
 	}
 	
 	/**
@@ -102,9 +163,8 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 	 */
 	public JaxwsEndpointApiCtClassBuilder webService(final SoapService service) {
 
-		ConstPool constPool = this.classFile.getConstPool();
-		Annotation annot = JaxwsEndpointApiUtils.annotWebService(constPool, service);
-		JavassistUtils.addClassAnnotation(declaring, annot);
+		this.fingerprint.update("webService", service);
+		this.classAnnotation(constPool -> JaxwsEndpointApiUtils.annotWebService(constPool, service));
 		
 		return this;
 	}
@@ -120,10 +180,9 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 	public JaxwsEndpointApiCtClassBuilder webServiceProvider(String wsdlLocation, String serviceName,
 			String targetNamespace, String portName) {
 
-		ConstPool constPool = this.classFile.getConstPool();
-		Annotation annot = JaxwsEndpointApiUtils.annotWebServiceProvider(constPool, wsdlLocation, serviceName,
-				targetNamespace, portName);
-		JavassistUtils.addClassAnnotation(declaring, annot);
+		this.fingerprint.update("webServiceProvider", wsdlLocation, serviceName, targetNamespace, portName);
+		this.classAnnotation(constPool -> JaxwsEndpointApiUtils.annotWebServiceProvider(constPool, wsdlLocation, serviceName,
+				targetNamespace, portName));
 
 		return this;
 	}
@@ -138,9 +197,8 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 	public JaxwsEndpointApiCtClassBuilder addressing(final boolean enabled, final boolean required,
 			final Responses responses) {
 		
-		ConstPool constPool = this.classFile.getConstPool();
-		Annotation annot = JaxwsEndpointApiUtils.annotAddressing(constPool, enabled, required, responses);
-		JavassistUtils.addClassAnnotation(declaring, annot);
+		this.fingerprint.update("addressing", enabled, required, responses);
+		this.classAnnotation(constPool -> JaxwsEndpointApiUtils.annotAddressing(constPool, enabled, required, responses));
         
 		return this;
 	}
@@ -152,13 +210,42 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 	 */
 	public JaxwsEndpointApiCtClassBuilder serviceMode(final Service.Mode mode) {
 		
-		ConstPool constPool = this.classFile.getConstPool();
-		Annotation annot = JaxwsEndpointApiUtils.annotServiceMode(constPool, mode);
-		JavassistUtils.addClassAnnotation(declaring, annot);
+		this.fingerprint.update("serviceMode", mode);
+		this.classAnnotation(constPool -> JaxwsEndpointApiUtils.annotServiceMode(constPool, mode));
         
 		return this;
 	}
 	
+	/**
+	 * 添加类注解 @WebEndpoint，由 {@link EndpointPublisher} 按注解发布服务
+	 * @param addr				: 发布地址
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder webEndpoint(final String addr) {
+		return this.webEndpoint(addr, null, null, null, null, null, null);
+	}
+	
+	/**
+	 * 添加类注解 @WebEndpoint，由 {@link EndpointPublisher} 按注解发布服务；拦截器、特性及处理器均为类名
+	 * @param addr				: 发布地址
+	 * @param inInterceptors	: 输入拦截器类名
+	 * @param outInterceptors	: 输出拦截器类名
+	 * @param inFaults			: 输入异常拦截器类名
+	 * @param outFaults			: 输出异常拦截器类名
+	 * @param features			: 特性类名
+	 * @param handlers			: 处理器类名
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder webEndpoint(final String addr, final String[] inInterceptors, final String[] outInterceptors,
+			final String[] inFaults, final String[] outFaults, final String[] features, final String[] handlers) {
+		
+		this.fingerprint.update("webEndpoint", addr, inInterceptors, outInterceptors, inFaults, outFaults, features, handlers);
+		this.classAnnotation(constPool -> EndpointApiUtils.annotWebEndpoint(constPool, addr, inInterceptors, outInterceptors,
+				inFaults, outFaults, features, handlers));
+		
+		return this;
+	}
+	
 	/**
 	 * 通过给动态类增加 <code>@WebBound</code>注解实现，数据的绑定
 	 * @param uid			: The value of uid
@@ -176,13 +263,177 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 	 */
 	public JaxwsEndpointApiCtClassBuilder bind(final SoapBound bound) {
 
-		ConstPool constPool = this.classFile.getConstPool();
-		Annotation annot = JaxwsEndpointApiUtils.annotWebBound(constPool, bound);
-		JavassistUtils.addClassAnnotation(declaring, annot);
+		// 解析并登记类级别的绑定数据
+		EndpointBindings.register(declaring.getName(), EndpointBinding.parse(bound.getUid(), bound.getJson()));
+
+		this.fingerprint.update("bind", bound);
+		this.classAnnotation(constPool -> JaxwsEndpointApiUtils.annotWebBound(constPool, bound));
 		
 		return this;
 	}
 	
+	/**
+	 * 设置方法体的调用方式，对之后通过 newMethod 构造的方法生效
+	 * @param dispatch			: The {@link EndpointDispatch} instance
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder dispatch(final EndpointDispatch dispatch) {
+		this.fingerprint.update("dispatch", dispatch);
+		this.shape.update("dispatch", dispatch);
+		this.dispatch = dispatch;
+		return this;
+	}
+	
+	/**
+	 * 设置执行异步操作的执行器，同步方法仍在调用线程上执行；接口没有异步方法时创建实例会抛出 {@link IllegalStateException}
+	 * @param executor			: The {@link Executor} instance
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder executor(final Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+	
+	/**
+	 * 为指定方法设置执行异步操作的执行器，该方法须为异步方法
+	 * @param methodName		: 方法名称
+	 * @param executor			: The {@link Executor} instance
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder executor(final String methodName, final Executor executor) {
+		this.executors.put(methodName, executor);
+		return this;
+	}
+	
+	/**
+	 * 在虚拟线程上执行异步操作，运行环境不支持虚拟线程时使用有界的守护线程池
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder virtualThreads() {
+		return executor(EndpointExecutors.virtualThreadExecutor());
+	}
+	
+	/**
+	 * 设置字节码缓存：定义不变时直接从缓存定义类，跳过方法体编译及注解构造；需在定义注解及方法之前设置
+	 * @param cache				: The {@link EndpointClassCache} instance
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder cache(final EndpointClassCache cache) {
+		this.cache = cache;
+		return this;
+	}
+	
+	/**
+	 * 共享结构相同的形状类：方法签名、注解及方法体相同的接口只编译一次，每个接口只生成带类注解的子类；需在定义注解及方法之前设置，
+	 * 只对 toClass 生效，{@link #build()} 及 {@link org.apache.cxf.endpoint.ParallelEndpointGenerator} 仍编译完整的类
+	 * @param shapes			: The {@link EndpointShapes} instance
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder share(final EndpointShapes shapes) {
+		this.shapes = shapes;
+		return this;
+	}
+	
+	/**
+	 * 复制结构相同的模板类：方法签名、注解及方法体相同的接口只编译一次模板，之后只改写类名及类注解；需在定义注解及方法之前设置，
+	 * 同时设置了 {@link #share(EndpointShapes)} 时以复制模板为准；与 {@link #share(EndpointShapes)} 相同，只对 toClass 生效
+	 * @param templates			: The {@link EndpointTemplates} instance
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder template(final EndpointTemplates templates) {
+		this.templates = templates;
+		return this;
+	}
+	
+	/**
+	 * 设置动态类的定义方式，{@link EndpointLoading#ISOLATED} 及 {@link EndpointLoading#HIDDEN} 定义的类在服务销毁且实例不可达后可被回收
+	 * @param loading			: The {@link EndpointLoading} instance
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder loading(final EndpointLoading loading) {
+		this.loading = loading;
+		return this;
+	}
+	
+	/**
+	 * 设置动态类方法异常的接收对象，未设置时使用 {@link EndpointFaults#getDefaultSink()}
+	 * @param sink				: The {@link EndpointFaultSink} instance
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 */
+	public JaxwsEndpointApiCtClassBuilder faultSink(final EndpointFaultSink sink) {
+		EndpointFaults.register(declaring.getName(), sink);
+		return this;
+	}
+	
+	/**
+	 * 直接委托调用模式：生成的方法直接调用目标对象的同名方法，不再经过 {@link InvocationHandler} 及反射调用
+	 * @param targetType	: 目标对象类型
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 * @throws CannotCompileException if can't compile
+	 * @throws NotFoundException  if not found
+	 */
+	public JaxwsEndpointApiCtClassBuilder delegate(final Class<?> targetType) throws CannotCompileException, NotFoundException {
+		return this.delegate(targetType, null);
+	}
+	
+	/**
+	 * 直接委托调用模式：生成的方法直接调用目标对象的方法，不再经过 {@link InvocationHandler} 及反射调用；
+	 * 同时生成以目标对象为参数的构造器，对之后通过 newMethod 构造的方法生效
+	 * @param targetType	: 目标对象类型
+	 * @param mapping		: 方法名称与目标对象方法名称的映射，未映射的方法调用目标对象的同名方法
+	 * @return {@link JaxwsEndpointApiCtClassBuilder} instance
+	 * @throws CannotCompileException if can't compile
+	 * @throws NotFoundException  if not found
+	 */
+	public JaxwsEndpointApiCtClassBuilder delegate(final Class<?> targetType, final Map<String, String> mapping) throws CannotCompileException, NotFoundException {
+		
+		this.fingerprint.update("delegate", targetType, mapping);
+		this.shape.update("delegate", targetType, mapping);
+		this.dispatch = EndpointDispatch.DELEGATE;
+		this.delegateType = targetType;
+		if (mapping != null) {
+			this.delegateMethods.putAll(mapping);
+		}
+		// 添加目标对象字段及构造器
+		this.define(() -> EndpointApiUtils.makeDelegate(declaring, pool.get(targetType.getName())));
+		
+		return this;
+	}
+	
+	/**
+	 * 获取方法对应的操作序号，可用于 {@link EndpointOperationRegistry} 注册；方法存在重载时须通过方法描述符区分
+	 * @param methodName	：方法名称
+	 * @return 操作序号，方法不存在时返回 {@link EndpointInvocationHandler#UNKNOWN_OPERATION}
+	 * @throws IllegalStateException 方法存在重载时
+	 */
+	public int getOrdinal(final String methodName) {
+		int operation = EndpointInvocationHandler.UNKNOWN_OPERATION;
+		for (Map.Entry<String, Integer> entry : operations.entrySet()) {
+			if (entry.getKey().startsWith(methodName + "(")) {
+				if (operation != EndpointInvocationHandler.UNKNOWN_OPERATION) {
+					throw new IllegalStateException("Method " + methodName + " is overloaded, use getOrdinal(methodName, descriptor) instead");
+				}
+				operation = entry.getValue();
+			}
+		}
+		return operation;
+	}
+	
+	/**
+	 * 获取方法对应的操作序号，与 {@link EndpointBindings#key(String, String)} 的键一致
+	 * @param methodName	：方法名称
+	 * @param descriptor	：方法描述符，如 <code>(Ljava/lang/String;)V</code>
+	 * @return 操作序号，方法不存在时返回 {@link EndpointInvocationHandler#UNKNOWN_OPERATION}
+	 */
+	public int getOrdinal(final String methodName, final String descriptor) {
+		Integer operation = operations.get(EndpointBindings.key(methodName, descriptor));
+		return operation != null ? operation : EndpointInvocationHandler.UNKNOWN_OPERATION;
+	}
+	
+	public Map<String, Integer> getOperations() {
+		return Collections.unmodifiableMap(operations);
+	}
+	
 	/**
      * Compiles the given source code and creates a field.
      * Examples of the source code are:
@@ -200,17 +451,28 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
      */
 	public JaxwsEndpointApiCtClassBuilder makeField(final String src) throws CannotCompileException {
 		//创建属性
+		try {
+			this.uncacheable();
+		} catch (NotFoundException e) {
+			throw new CannotCompileException(e);
+		}
         declaring.addField(CtField.make(src, declaring));
 		return this;
 	}
 	
 	public <T> JaxwsEndpointApiCtClassBuilder newField(final Class<T> fieldClass, final String fieldName, final String fieldValue) throws CannotCompileException, NotFoundException {
+		this.uncacheable();
 		CtFieldBuilder.create(declaring, this.pool.get(fieldClass.getName()), fieldName, fieldValue);
 		return this;	
 	}
 	
 	public <T> JaxwsEndpointApiCtClassBuilder removeField(final String fieldName) throws NotFoundException {
 		
+		try {
+			this.uncacheable();
+		} catch (CannotCompileException e) {
+			throw new NotFoundException(e.getMessage(), e);
+		}
 		// 检查字段是否已经定义
 		if(!JavassistUtils.hasField(declaring, fieldName)) {
 			return this;
@@ -235,6 +497,11 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
      */
 	public JaxwsEndpointApiCtClassBuilder makeMethod(final String src) throws CannotCompileException {
 		//创建方法 
+		try {
+			this.uncacheable();
+		} catch (NotFoundException e) {
+			throw new CannotCompileException(e);
+		}
 		declaring.addMethod(CtMethod.make(src, declaring));
 		return this;
 	}
@@ -280,7 +547,8 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 	 */ 
 	public <T> JaxwsEndpointApiCtClassBuilder newMethod(final SoapResult<T> result, final SoapMethod method, final SoapBound bound, SoapParam<?>... params) throws CannotCompileException, NotFoundException {
 	       
-		ConstPool constPool = this.classFile.getConstPool();
+		this.fingerprint.update("newMethod", result, method, bound, params);
+		this.shape.update("newMethod", result, method, params);
 		
 		CtClass returnType = result != null ? pool.get(result.getRtClass().getName()) : CtClass.voidType;
 		CtMethod ctMethod = null;
@@ -294,21 +562,86 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 		else {
 			ctMethod = new CtMethod(returnType, method.getOperationName() , null, declaring);
 		}
-        // 设置方法体
-        JaxwsEndpointApiUtils.methodBody(ctMethod, method);
-        // 设置方法异常捕获逻辑
-        JaxwsEndpointApiUtils.methodCatch(pool, ctMethod);
-        // 为方法添加 @WebMethod、 @WebResult、@WebBound、@WebParam 注解
-        JaxwsEndpointApiUtils.methodAnnotations(ctMethod, constPool, result, method, bound, params);
-        
-        //新增方法
-        declaring.addMethod(ctMethod);
+        // 分配操作序号
+        final CtMethod declared = ctMethod;
+        final EndpointDispatch mode = this.dispatch;
+        final int operation = this.nextOrdinal(ctMethod, method);
+        // 解析并登记方法绑定数据，调用时不再读取注解
+        if (bound != null) {
+        	EndpointApiUtils.methodBinding(ctMethod, bound.getUid(), bound.getJson());
+        	methodAnnotations.put(EndpointApiUtils.bindingKey(ctMethod), constPool -> JaxwsEndpointApiUtils.annotWebBound(constPool, bound));
+        }
+        this.define(() -> {
+        	// 设置方法体及异常捕获逻辑
+        	this.methodBody(declared, method, mode, operation);
+        	// 为方法添加 @WebMethod、 @WebResult、@WebBound、@WebParam 注解；形状类的方法由多个接口共享，不添加 @WebBound 注解
+        	JaxwsEndpointApiUtils.methodAnnotations(declared, classFile.getConstPool(), result, method, this.isSharing() ? null : bound, params);
+        	//新增方法
+        	declaring.addMethod(declared);
+        });
         
         return this;
 	}
 	
+	/**
+	 * 分配操作序号，并按调用方式设置方法体及异常捕获逻辑
+	 * @param ctMethod		: {@link CtMethod} instance
+	 * @param method		: {@link SoapMethod} instance
+	 * @return 操作序号
+	 * @throws CannotCompileException if can't compile
+	 * @throws NotFoundException  if not found
+	 */
+	protected int methodBody(final CtMethod ctMethod, final SoapMethod method) throws CannotCompileException, NotFoundException {
+		int operation = this.nextOrdinal(ctMethod, method);
+		this.methodBody(ctMethod, method, dispatch, operation);
+		return operation;
+	}
+	
+	/**
+	 * 分配操作序号，以方法名称及描述符为键登记，重载方法各自拥有独立的序号
+	 * @param ctMethod		: {@link CtMethod} instance
+	 * @param method		: {@link SoapMethod} instance
+	 * @return 操作序号
+	 */
+	protected int nextOrdinal(final CtMethod ctMethod, final SoapMethod method) {
+		int operation = ordinal++;
+		operations.put(EndpointBindings.key(ctMethod.getName(), ctMethod.getSignature()), operation);
+		if (method.isAsync()) {
+			asyncMethods.add(ctMethod.getName());
+		}
+		return operation;
+	}
+	
+	/**
+	 * 按调用方式设置方法体及异常捕获逻辑
+	 * @param ctMethod		: {@link CtMethod} instance
+	 * @param method		: {@link SoapMethod} instance
+	 * @param mode			: 定义方法时的调用方式
+	 * @param operation		: 操作序号
+	 * @throws CannotCompileException if can't compile
+	 * @throws NotFoundException  if not found
+	 */
+	protected void methodBody(final CtMethod ctMethod, final SoapMethod method, final EndpointDispatch mode, final int operation) throws CannotCompileException, NotFoundException {
+		
+		// 设置方法体
+		if (EndpointDispatch.DELEGATE == mode) {
+			String target = delegateMethods.containsKey(ctMethod.getName()) ? delegateMethods.get(ctMethod.getName()) : ctMethod.getName();
+			ctMethod.setBody(EndpointApiUtils.delegateBody(ctMethod, target));
+		} else {
+			JaxwsEndpointApiUtils.methodBody(ctMethod, method, mode, operation);
+		}
+		// 设置方法异常捕获逻辑
+		JaxwsEndpointApiUtils.methodCatch(pool, ctMethod, operation);
+		
+	}
+	
 	public <T> JaxwsEndpointApiCtClassBuilder removeMethod(final String methodName, SoapParam<?>... params) throws NotFoundException {
 		
+		try {
+			this.uncacheable();
+		} catch (CannotCompileException e) {
+			throw new NotFoundException(e.getMessage(), e);
+		}
 		// 有参方法
 		if(params != null && params.length > 0) {
 			
@@ -320,7 +653,11 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 				return this;
 			}
 			
-			declaring.removeMethod(declaring.getDeclaredMethod(methodName, parameters));
+			CtMethod ctMethod = declaring.getDeclaredMethod(methodName, parameters);
+			// 删除方法对应的 Method 缓存字段
+			EndpointApiUtils.removeMethodField(ctMethod);
+			declaring.removeMethod(ctMethod);
+			operations.remove(EndpointBindings.key(ctMethod.getName(), ctMethod.getSignature()));
 			
 		}
 		else {
@@ -330,7 +667,11 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 				return this;
 			}
 			
-			declaring.removeMethod(declaring.getDeclaredMethod(methodName));
+			CtMethod ctMethod = declaring.getDeclaredMethod(methodName);
+			// 删除方法对应的 Method 缓存字段
+			EndpointApiUtils.removeMethodField(ctMethod);
+			declaring.removeMethod(ctMethod);
+			operations.remove(EndpointBindings.key(ctMethod.getName(), ctMethod.getSignature()));
 			
 		}
 		
@@ -339,6 +680,12 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 	
 	@Override
 	public CtClass build() {
+		try {
+			EndpointApiUtils.applySteps(pending);
+			this.applyAnnotations();
+		} catch (CannotCompileException | NotFoundException e) {
+			throw new IllegalStateException(e);
+		}
         return declaring;
 	}
 	
@@ -351,24 +698,307 @@ public class JaxwsEndpointApiCtClassBuilder implements Builder<CtClass> {
 	 */
 	public Class<?> toClass() throws CannotCompileException {
         try {
+        	// 设置了缓存或形状类时不直接加载动态类
+        	if (this.isDeferred()) {
+        		return this.deferredClass();
+        	}
         	// 通过类加载器加载该CtClass
-			return declaring.toClass();
+			return this.defineClass();
 		} finally {
 			// 将该class从ClassPool中删除
 			declaring.detach();
 		} 
 	}
 	
+	/**
+	 * @return 是否通过 {@link EndpointClassCache} 定义类
+	 */
+	protected boolean isCaching() {
+		return cache != null && cacheable;
+	}
+	
+	/**
+	 * @return 是否以形状类方式编译，即共享 {@link EndpointShapes} 中的形状类或复制 {@link EndpointTemplates} 中的模板
+	 */
+	protected boolean isSharing() {
+		return (shapes != null || templates != null) && cacheable;
+	}
+	
+	/**
+	 * @return 是否记录定义步骤，推迟到定义类时执行
+	 */
+	protected boolean isDeferred() {
+		return this.isCaching() || this.isSharing();
+	}
+	
+	/**
+	 * 复制模板时定义模板的副本，共享形状类时定义子类，否则从缓存定义类
+	 * @return The Class
+	 * @throws CannotCompileException if can't compile
+	 */
+	protected Class<?> deferredClass() throws CannotCompileException {
+		if (this.isSharing()) {
+			return templates != null ? this.templatedClass() : this.sharedClass();
+		}
+		return this.cachedClass();
+	}
+	
+	/**
+	 * 按形状的定义摘要查找或编译模板，复制其字节码并改写类名、类注解及方法的 @WebBound 注解后定义类
+	 * @return The Class
+	 * @throws CannotCompileException if can't compile
+	 */
+	protected Class<?> templatedClass() throws CannotCompileException {
+		final String classname = declaring.getName();
+		final String key = shape.toHex();
+		final String name = EndpointShapes.nameOf(classname, key);
+		byte[] template = templates.resolve(key, () -> this.shapeBytecode(name, key));
+		byte[] bytecode = EndpointApiUtils.makeClone(template, name, classname, annotations, methodAnnotations);
+		return EndpointClassDefiner.define(classname, bytecode, loading, null);
+	}
+	
+	/**
+	 * 按形状的定义摘要查找或编译形状类，再定义只包含类注解及构造器的子类
+	 * @return The Class
+	 * @throws CannotCompileException if can't compile
+	 */
+	protected Class<?> sharedClass() throws CannotCompileException {
+		final String classname = declaring.getName();
+		final String key = shape.toHex();
+		Class<?> type = shapes.resolve(key, () -> this.shapeClass(classname, key));
+		byte[] bytecode = EndpointApiUtils.makeSubclass(classname, type, annotations);
+		// 子类由形状类的加载器或其子加载器定义
+		return EndpointClassDefiner.define(classname, bytecode, loading, type.getClassLoader());
+	}
+	
+	/**
+	 * 以形状类的类名编译记录的定义步骤并定义形状类
+	 * @param classname		: 接口的类名
+	 * @param key			: 形状的定义摘要
+	 * @return 形状类
+	 * @throws CannotCompileException if can't compile
+	 */
+	protected Class<?> shapeClass(final String classname, final String key) throws CannotCompileException {
+		String name = EndpointShapes.nameOf(classname, key);
+		byte[] bytecode = this.shapeBytecode(name, key);
+		// 隐藏类不能作为父类，形状类至多使用独立的加载器
+		return EndpointClassDefiner.define(name, bytecode, EndpointLoading.SHARED == loading ? loading : EndpointLoading.ISOLATED, null);
+	}
+	
+	/**
+	 * 以形状类的类名编译记录的定义步骤，设置了缓存时形状类的字节码同样缓存
+	 * @param name			: 形状类的类名
+	 * @param key			: 形状的定义摘要
+	 * @return 形状类字节码
+	 * @throws CannotCompileException if can't compile
+	 */
+	protected byte[] shapeBytecode(final String name, final String key) throws CannotCompileException {
+		byte[] bytecode = cache != null ? cache.get(key) : null;
+		if (bytecode == null) {
+			try {
+				declaring.setName(name);
+				EndpointApiUtils.makeShape(declaring, key);
+				// CXF 只把声明类带有 @WebService 注解的方法作为操作
+				JavassistUtils.addClassAnnotation(declaring, JaxwsEndpointApiUtils.annotWebService(declaring.getClassFile().getConstPool()));
+				EndpointApiUtils.applySteps(pending);
+				EndpointApiUtils.makeConstructors(declaring);
+				bytecode = declaring.toBytecode();
+			} catch (NotFoundException | IOException e) {
+				throw new CannotCompileException(e);
+			}
+			if (cache != null) {
+				cache.put(key, bytecode);
+			}
+		}
+		return bytecode;
+	}
+	
+	/**
+	 * 记录或直接执行定义步骤
+	 * @param step			: 定义步骤
+	 * @throws CannotCompileException if can't compile
+	 * @throws NotFoundException  if not found
+	 */
+	protected void define(final EndpointApiUtils.Step step) throws CannotCompileException, NotFoundException {
+		if (this.isDeferred()) {
+			pending.add(step);
+		} else {
+			step.apply();
+		}
+	}
+	
+	/**
+	 * 记录或直接添加类注解
+	 * @param annotation	: 根据常量池构造注解
+	 */
+	protected void classAnnotation(final Function<ConstPool, Annotation> annotation) {
+		// 共享形状类时添加到子类上
+		if (this.isSharing()) {
+			annotations.add(annotation);
+			return;
+		}
+		EndpointApiUtils.Step step = () -> JavassistUtils.addClassAnnotation(declaring, annotation.apply(declaring.getClassFile().getConstPool()));
+		if (this.isDeferred()) {
+			pending.add(step);
+		} else {
+			try {
+				step.apply();
+			} catch (CannotCompileException | NotFoundException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+	
+	/**
+	 * 直接修改动态类的操作无法纳入定义摘要：执行已记录的定义步骤，之后不再使用缓存
+	 * @throws CannotCompileException if can't compile
+	 * @throws NotFoundException  if not found
+	 */
+	protected void uncacheable() throws CannotCompileException, NotFoundException {
+		this.cacheable = false;
+		EndpointApiUtils.applySteps(pending);
+		this.applyAnnotations();
+	}
+	
+	/**
+	 * 将记录的类注解添加到动态类上
+	 * @throws CannotCompileException if can't compile
+	 * @throws NotFoundException  if not found
+	 */
+	protected void applyAnnotations() throws CannotCompileException, NotFoundException {
+		for (Function<ConstPool, Annotation> annotation : annotations) {
+			JavassistUtils.addClassAnnotation(declaring, annotation.apply(declaring.getClassFile().getConstPool()));
+		}
+		annotations.clear();
+	}
+	
+	/**
+	 * 根据定义摘要读取缓存的字节码；未命中时执行记录的定义步骤并生成全部构造器，写入缓存后定义类
+	 * @return The Class
+	 * @throws CannotCompileException if can't compile
+	 */
+	protected Class<?> cachedClass() throws CannotCompileException {
+		String key = fingerprint.toHex();
+		byte[] bytecode = cache.get(key);
+		if (bytecode == null) {
+			try {
+				EndpointApiUtils.applySteps(pending);
+				EndpointApiUtils.makeConstructors(declaring);
+				bytecode = declaring.toBytecode();
+			} catch (NotFoundException | IOException e) {
+				throw new CannotCompileException(e);
+			}
+			cache.put(key, bytecode);
+		}
+		return EndpointClassDefiner.define(declaring.getName(), bytecode, loading, null);
+	}
+	
+	/**
+	 * 按定义方式加载动态类
+	 * @return The Class
+	 * @throws CannotCompileException if can't compile
+	 */
+	protected Class<?> defineClass() throws CannotCompileException {
+		if (EndpointLoading.SHARED == loading) {
+			return EndpointApiUtils.toClass(declaring);
+		}
+		try {
+			return EndpointClassDefiner.define(declaring.getName(), declaring.toBytecode(), loading, null);
+		} catch (IOException e) {
+			throw new CannotCompileException(e);
+		}
+	}
+	
+	/**
+	 * 设置了执行器时，以 {@link ExecutorInvocationHandler} 包装回调接口；执行器只作用于通过 continuation 挂起的异步操作，
+	 * 没有异步方法或为同步方法单独设置执行器时抛出 {@link IllegalStateException}，避免执行器被静默忽略
+	 * @param handler			: The {@link InvocationHandler} instance
+	 * @return the handler to install
+	 */
+	protected InvocationHandler decorate(final InvocationHandler handler) {
+		if (handler == null || (executor == null && executors.isEmpty())) {
+			return handler;
+		}
+		if (asyncMethods.isEmpty()) {
+			throw new IllegalStateException("executor is set but " + declaring.getName() + " has no async method, executors only run async operations.");
+		}
+		for (String methodName : executors.keySet()) {
+			if (!asyncMethods.contains(methodName)) {
+				throw new IllegalStateException("executor is set for method " + methodName + " of " + declaring.getName() + ", which is not async.");
+			}
+		}
+		return new ExecutorInvocationHandler(handler, executor, executors);
+	}
+	
 	public Object toInstance(final InvocationHandler handler) throws CannotCompileException, NotFoundException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		if (delegateType != null) {
+			throw new IllegalStateException("delegate mode is enabled, call toDelegateInstance(Object) instead.");
+		}
         try {
+        	// 在定义类之前检查执行器的设置
+        	InvocationHandler target = decorate(handler);
+        	// 缓存的字节码及形状类已包含全部构造器
+        	if (this.isDeferred()) {
+        		return this.deferredClass().getConstructor(InvocationHandler.class).newInstance(target);
+        	}
         	// 设置InvocationHandler参数构造器
 			declaring.addConstructor(JaxwsEndpointApiUtils.makeConstructor(pool, declaring));
 			// 通过类加载器加载该CtClass，并通过构造器初始化对象
-			return declaring.toClass().getConstructor(InvocationHandler.class).newInstance(handler);
+			return this.defineClass().getConstructor(InvocationHandler.class).newInstance(target);
+		} finally {
+			// 将该class从ClassPool中删除
+			declaring.detach();
+		} 
+	}
+
+	
+	/**
+	 * 以 {@link EndpointInvoker} 为回调初始化对象，方法名区别于 {@link #toInstance(InvocationHandler)}，避免 lambda 参数产生歧义
+	 * @param invoker			: The {@link EndpointInvoker} instance
+	 * @return The instance
+	 */
+	public Object toInvokerInstance(final EndpointInvoker invoker) throws CannotCompileException, NotFoundException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		if (delegateType != null) {
+			throw new IllegalStateException("delegate mode is enabled, call toDelegateInstance(Object) instead.");
+		}
+        try {
+        	// 缓存的字节码及形状类已包含全部构造器
+        	if (this.isDeferred()) {
+        		return this.deferredClass().getConstructor(EndpointInvoker.class).newInstance(invoker);
+        	}
+        	// 设置EndpointInvoker参数构造器
+			declaring.addConstructor(JaxwsEndpointApiUtils.makeConstructor(pool, declaring, EndpointInvoker.class));
+			// 通过类加载器加载该CtClass，并通过构造器初始化对象
+			return this.defineClass().getConstructor(EndpointInvoker.class).newInstance(invoker);
+		} finally {
+			// 将该class从ClassPool中删除
+			declaring.detach();
+		} 
+	}
+
+	
+	/**
+	 * 直接委托调用模式下，通过以目标对象为参数的构造器初始化对象
+	 * @param target		: 目标对象
+	 * @return The instance
+	 * @throws CannotCompileException if can't compile
+	 * @throws InstantiationException if the class is abstract
+	 * @throws IllegalAccessException if the constructor is not accessible
+	 * @throws InvocationTargetException if the constructor throws an exception
+	 * @throws NoSuchMethodException if the constructor is not found
+	 */
+	public Object toDelegateInstance(final Object target) throws CannotCompileException, InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+		if (delegateType == null) {
+			throw new IllegalStateException("delegate mode is not enabled, call delegate(Class) first.");
+		}
+        try {
+        	// 通过类加载器加载该CtClass，并通过构造器初始化对象
+        	Class<?> type = this.isDeferred() ? this.deferredClass() : this.defineClass();
+			return type.getConstructor(delegateType).newInstance(target);
 		} finally {
 			// 将该class从ClassPool中删除
 			declaring.detach();
 		} 
 	}
 
-}
\ No newline at end of file
+}
@@ -7,11 +7,15 @@ import jakarta.xml.ws.Service;
 import jakarta.xml.ws.soap.AddressingFeature.Responses;
 
 import org.apache.commons.lang3.builder.Builder;
+import org.apache.cxf.endpoint.EndpointBinding;
+import org.apache.cxf.endpoint.EndpointBindings;
+import org.apache.cxf.endpoint.EndpointInvoker;
 import org.apache.cxf.endpoint.jaxws.definition.SoapBound;
 import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
 import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
 import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
 import org.apache.cxf.endpoint.jaxws.definition.SoapService;
+import org.apache.cxf.endpoint.utils.EndpointApiUtils;
 import org.apache.cxf.endpoint.utils.JaxwsEndpointApiUtils;
 
 import com.github.hiwepy.javassist.utils.ClassPoolFactory;
@@ -47,6 +51,8 @@ public class JaxwsEndpointApiImplCtClassBuilder extends JaxwsEndpointApiCtClassB
 		super(pool, classname + "." + IMPL_CLASSNAME_PREFIX);
 		
 		this.classBuilder = new JaxwsEndpointApiInterfaceCtClassBuilder(pool, classname);
+		// 实现类与接口类分别构建，不经过定义摘要，不使用字节码缓存
+		this.cacheable = false;
 		
 	}
 	
@@ -139,6 +145,7 @@ public class JaxwsEndpointApiImplCtClassBuilder extends JaxwsEndpointApiCtClassB
 	 */
 	public JaxwsEndpointApiImplCtClassBuilder bind(final SoapBound bound) {
 		this.classBuilder.bind(bound);
+		EndpointBindings.register(declaring.getName(), EndpointBinding.parse(bound.getUid(), bound.getJson()));
 		return this;
 	}
 	
@@ -168,10 +175,12 @@ public class JaxwsEndpointApiImplCtClassBuilder extends JaxwsEndpointApiCtClassB
 		else {
 			ctMethod = new CtMethod(returnType, method.getOperationName() , null, declaring);
 		}
-        // 设置方法体
-        JaxwsEndpointApiUtils.methodBody(ctMethod, method);
-        // 设置方法异常捕获逻辑
-        JaxwsEndpointApiUtils.methodCatch(pool, ctMethod);
+        // 设置方法体及异常捕获逻辑
+        this.methodBody(ctMethod, method);
+        // 解析并登记方法绑定数据，调用时不再读取注解
+        if (bound != null) {
+        	EndpointApiUtils.methodBinding(ctMethod, bound.getUid(), bound.getJson());
+        }
         
         //新增方法
         declaring.addMethod(ctMethod);
@@ -202,7 +211,7 @@ public class JaxwsEndpointApiImplCtClassBuilder extends JaxwsEndpointApiCtClassB
         	// 设置接口
    			declaring.setSuperclass(classBuilder.build());
         	// 通过类加载器加载该CtClass
-			return declaring.toClass();
+			return EndpointApiUtils.toClass(declaring);
 		} finally {
 			// 将该class从ClassPool中删除
 			declaring.detach();
@@ -211,16 +220,55 @@ public class JaxwsEndpointApiImplCtClassBuilder extends JaxwsEndpointApiCtClassB
 	
 	public Object toInstance(final InvocationHandler handler) throws CannotCompileException, NotFoundException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
         try {
+        	// 在定义类之前检查执行器的设置
+        	InvocationHandler target = decorate(handler);
         	// 设置接口
         	declaring.setSuperclass(classBuilder.build());
         	// 设置InvocationHandler参数构造器
 			declaring.addConstructor(JaxwsEndpointApiUtils.makeConstructor(pool, declaring));
 			// 通过类加载器加载该CtClass，并通过构造器初始化对象
-			return declaring.toClass().getConstructor(InvocationHandler.class).newInstance(handler);
+			return EndpointApiUtils.toClass(declaring).getConstructor(InvocationHandler.class).newInstance(target);
 		} finally {
 			// 将该class从ClassPool中删除
 			declaring.detach();
 		} 
 	}
 
-}
\ No newline at end of file
+	
+	/**
+	 * 以 {@link EndpointInvoker} 为回调初始化对象
+	 * @param invoker			: The {@link EndpointInvoker} instance
+	 * @return The instance
+	 */
+	public Object toInvokerInstance(final EndpointInvoker invoker) throws CannotCompileException, NotFoundException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+        try {
+        	// 设置接口
+        	declaring.setSuperclass(classBuilder.build());
+        	// 设置EndpointInvoker参数构造器
+			declaring.addConstructor(JaxwsEndpointApiUtils.makeConstructor(pool, declaring, EndpointInvoker.class));
+			// 通过类加载器加载该CtClass，并通过构造器初始化对象
+			return EndpointApiUtils.toClass(declaring).getConstructor(EndpointInvoker.class).newInstance(invoker);
+		} finally {
+			// 将该class从ClassPool中删除
+			declaring.detach();
+		} 
+	}
+
+	
+	@Override
+	public Object toDelegateInstance(final Object target) throws CannotCompileException, InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+		if (delegateType == null) {
+			throw new IllegalStateException("delegate mode is not enabled, call delegate(Class) first.");
+		}
+        try {
+        	// 设置接口
+        	declaring.setSuperclass(classBuilder.build());
+        	// 通过类加载器加载该CtClass，并通过构造器初始化对象
+			return EndpointApiUtils.toClass(declaring).getConstructor(delegateType).newInstance(target);
+		} finally {
+			// 将该class从ClassPool中删除
+			declaring.detach();
+		} 
+	}
+
+}
@@ -49,6 +49,16 @@ public class SoapMethod {
 	 * 3、exclude：指定是否从 Web Service 中排除某一方法。缺省值为 false。（布尔值）  
 	 */
 	private boolean exclude = false;
+	
+	/**
+	 * 4、async：是否为异步操作，异步操作通过 CXF 的 ContinuationProvider 挂起请求，处理完成后恢复，不占用容器线程。缺省值为 false。（布尔值）
+	 */
+	private boolean async = false;
+	
+	/**
+	 * 5、asyncTimeout：异步操作挂起的超时时间，单位毫秒，0 表示不超时。缺省值为 0。（长整型）
+	 */
+	private long asyncTimeout = 0;
 
 	public String getOperationName() {
 		return operationName;
@@ -74,4 +84,20 @@ public class SoapMethod {
 		this.exclude = exclude;
 	}
 
+	public boolean isAsync() {
+		return async;
+	}
+
+	public void setAsync(boolean async) {
+		this.async = async;
+	}
+
+	public long getAsyncTimeout() {
+		return asyncTimeout;
+	}
+
+	public void setAsyncTimeout(long asyncTimeout) {
+		this.asyncTimeout = asyncTimeout;
+	}
+
 }
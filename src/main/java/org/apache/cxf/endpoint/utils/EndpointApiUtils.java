@@ -0,0 +1,784 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.cxf.endpoint.EndpointApi;
+import org.apache.cxf.endpoint.EndpointAsyncHandler;
+import org.apache.cxf.endpoint.EndpointBinding;
+import org.apache.cxf.endpoint.EndpointBindings;
+import org.apache.cxf.endpoint.EndpointCallSites;
+import org.apache.cxf.endpoint.EndpointClassDefiner;
+import org.apache.cxf.endpoint.EndpointFaults;
+import org.apache.cxf.endpoint.EndpointInvocationHandler;
+import org.apache.cxf.endpoint.EndpointInvoker;
+import org.apache.cxf.endpoint.EndpointShapes;
+import org.apache.cxf.endpoint.annotation.WebEndpoint;
+import org.apache.cxf.endpoint.jaxws.EndpointContinuations;
+
+import com.github.hiwepy.javassist.bytecode.CtAnnotationBuilder;
+import com.github.hiwepy.javassist.utils.JavassistUtils;
+
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.Modifier;
+import javassist.NotFoundException;
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.BootstrapMethodsAttribute;
+import javassist.bytecode.BootstrapMethodsAttribute.BootstrapMethod;
+import javassist.bytecode.BadBytecode;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.Descriptor;
+import javassist.bytecode.MethodInfo;
+import javassist.bytecode.annotation.Annotation;
+
+/**
+ * JAX-WS、JAX-RS 动态类共用的方法体构造工具
+ */
+public class EndpointApiUtils {
+	
+	/**
+	 * 直接委托调用模式下目标对象的字段名称
+	 */
+	public static final String DELEGATE_FIELD = "_delegate";
+
+	/**
+	 * 方法对应的 {@link Method} 静态缓存字段名称
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @return the field name
+	 */
+	public static String methodFieldName(final CtMethod ctMethod) {
+		return "_" + ctMethod.getName() + "_" + Integer.toHexString(ctMethod.getSignature().hashCode());
+	}
+
+	/**
+	 * 为方法添加 {@link Method} 静态缓存字段，首次调用时解析一次，避免每次调用时执行 getDeclaredMethod
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @return the field name
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static String methodField(final CtMethod ctMethod) throws NotFoundException, CannotCompileException {
+
+		CtClass declaring = ctMethod.getDeclaringClass();
+		String fieldName = methodFieldName(ctMethod);
+
+		// 检查字段是否已经定义
+		if(JavassistUtils.hasField(declaring, fieldName)) {
+			return fieldName;
+		}
+
+		/*
+		 * 这里不使用字段初始化表达式：Javassist 删除字段时不会同步删除其静态初始化代码，
+		 * 调用 removeMethod 之后类初始化会失败；Method 的成员均为 final，并发下重复解析也是安全的。
+		 */
+		CtField field = new CtField(declaring.getClassPool().get(Method.class.getName()), fieldName, declaring);
+		field.setModifiers(Modifier.PRIVATE | Modifier.STATIC);
+
+		//新增Field
+		declaring.addField(field);
+
+		return fieldName;
+	}
+
+	/**
+	 * 为方法添加 {@link EndpointBinding} 静态缓存字段，首次调用时从 {@link EndpointBindings} 读取一次
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @return the field name
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static String bindingField(final CtMethod ctMethod) throws NotFoundException, CannotCompileException {
+
+		CtClass declaring = ctMethod.getDeclaringClass();
+		String fieldName = methodFieldName(ctMethod) + "_bound";
+
+		// 检查字段是否已经定义
+		if(JavassistUtils.hasField(declaring, fieldName)) {
+			return fieldName;
+		}
+
+		// 与 Method 缓存字段相同，不使用字段初始化表达式；形状类的绑定数据按实例区分
+		CtField field = new CtField(declaring.getClassPool().get(EndpointBinding.class.getName()), fieldName, declaring);
+		field.setModifiers(isShape(declaring) ? Modifier.PRIVATE | Modifier.TRANSIENT : Modifier.PRIVATE | Modifier.STATIC);
+		declaring.addField(field);
+
+		return fieldName;
+	}
+
+	/**
+	 * 构造读取 {@link EndpointBinding} 缓存字段的代码
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param fieldName			: the field name
+	 * @return the source text
+	 */
+	public static String bindingLookup(final CtMethod ctMethod, final String fieldName) {
+		return "if(" + fieldName + " == null){\n" + fieldName + " = " + EndpointBindings.class.getName() + ".get("
+				+ classOf(ctMethod) + ", \"" + bindingKey(ctMethod) + "\");\n}\n";
+	}
+
+	/**
+	 * 以 {@link CtClass#toClass()} 加载动态类，并保存绑定数据快照
+	 * @param declaring			: {@link CtClass} instance
+	 * @return The Class
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static Class<?> toClass(final CtClass declaring) throws CannotCompileException {
+		Class<?> type = declaring.toClass();
+		EndpointBindings.attach(type);
+		return type;
+	}
+
+	/**
+	 * 构造读取绑定数据时使用的类表达式：形状类取实例的实际类，否则为声明类本身，同名的不同版本各自取得自己的绑定数据
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @return the source text
+	 */
+	public static String classOf(final CtMethod ctMethod) {
+		CtClass declaring = ctMethod.getDeclaringClass();
+		return isShape(declaring) ? "getClass()" : declaring.getName() + ".class";
+	}
+
+	/**
+	 * 构造查找异常接收对象时使用的类名表达式：形状类取实例的实际类名，否则为声明类的类名常量
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @return the source text
+	 */
+	public static String classnameOf(final CtMethod ctMethod) {
+		CtClass declaring = ctMethod.getDeclaringClass();
+		if (isShape(declaring)) {
+			return EndpointClassDefiner.class.getName() + ".nameOf(getClass())";
+		}
+		return "\"" + declaring.getName() + "\"";
+	}
+
+	/**
+	 * 方法在 {@link EndpointBindings} 中的登记键
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @return the key
+	 */
+	public static String bindingKey(final CtMethod ctMethod) {
+		return EndpointBindings.key(ctMethod.getName(), ctMethod.getSignature());
+	}
+
+	/**
+	 * 在生成动态类时解析并登记方法的绑定数据
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param uid				: 绑定数据主键
+	 * @param json				: 绑定数据 JSON
+	 */
+	public static void methodBinding(final CtMethod ctMethod, final String uid, final String json) {
+		EndpointBindings.register(ctMethod.getDeclaringClass().getName(), bindingKey(ctMethod), EndpointBinding.parse(uid, json));
+	}
+
+	/**
+	 * 构造读取 {@link Method} 静态缓存字段的代码，字段为空时通过声明类解析
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param fieldName			: the field name
+	 * @return the source text
+	 * @throws NotFoundException  if not found
+	 */
+	public static String methodLookup(final CtMethod ctMethod, final String fieldName) throws NotFoundException {
+
+		// 构造参数类型数组
+		StringBuilder types = new StringBuilder("new Class[]{");
+		CtClass[] parameters = ctMethod.getParameterTypes();
+		for (int i = 0; i < parameters.length; i++) {
+			types.append(i > 0 ? ", " : "").append(parameters[i].getName()).append(".class");
+		}
+		types.append("}");
+
+		return "if(" + fieldName + " == null){\n" + fieldName + " = " + ctMethod.getDeclaringClass().getName()
+				+ ".class.getDeclaredMethod(\"" + ctMethod.getName() + "\", " + types + ");\n}\n";
+	}
+
+	/**
+	 * 构造 {@link InvocationHandler} 调用方式的方法体；回调接口为 {@link EndpointInvocationHandler} 时同时传入操作序号及绑定数据
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param ordinal			: 操作序号
+	 * @return the source text
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static String handlerBody(final CtMethod ctMethod, final int ordinal) throws NotFoundException, CannotCompileException {
+		
+		// 方法对象及绑定数据只解析一次并缓存到静态字段
+		String field = methodField(ctMethod);
+		String binding = bindingField(ctMethod);
+		
+		// 构造方法体
+		StringBuilder body = new StringBuilder(); 
+        body.append("{\n");
+        	body.append("if(getHandler() != null){\n");
+        		body.append(methodLookup(ctMethod, field));
+        		body.append("if(getOperationHandler() != null){\n");
+        			body.append(bindingLookup(ctMethod, binding));
+        			body.append("return ($r)getOperationHandler().invoke($0, " + ordinal + ", " + binding + ", " + field + ", $args);");
+        		body.append("}\n"); 
+        		body.append("return ($r)getHandler().invoke($0, " + field + ", $args);");
+        	body.append("}\n"); 
+	        body.append(defaultReturn(ctMethod));
+        body.append("}"); 
+        return body.toString();
+        
+	}
+	
+	/**
+	 * 构造异步方法的方法体：优先通过 {@link EndpointAsyncHandler} 返回 {@link CompletionStage}，
+	 * 否则以 {@link java.lang.reflect.InvocationHandler} 或 {@link EndpointInvoker} 同步调用的结果构造已完成的 {@link CompletionStage}，
+	 * 各调用方式共用
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param ordinal			: 操作序号
+	 * @return the source text
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static String asyncBody(final CtMethod ctMethod, final int ordinal) throws NotFoundException, CannotCompileException {
+		
+		// 方法对象及绑定数据只解析一次并缓存到静态字段
+		String field = methodField(ctMethod);
+		String binding = bindingField(ctMethod);
+		String future = CompletableFuture.class.getName();
+		
+		// 构造方法体
+		StringBuilder body = new StringBuilder(); 
+        body.append("{\n");
+        	body.append(methodLookup(ctMethod, field));
+        	body.append("if(getAsyncHandler() != null){\n");
+        		body.append(bindingLookup(ctMethod, binding));
+        		body.append("return ($r)getAsyncHandler().invokeAsync($0, " + ordinal + ", " + binding + ", " + field + ", $args);");
+        	body.append("}\n"); 
+        	body.append("if(getHandler() != null){\n");
+        		body.append("return ($r)" + future + ".completedFuture(getHandler().invoke($0, " + field + ", $args));");
+        	body.append("}\n"); 
+        	body.append("if(getInvoker() != null){\n");
+        		body.append("return ($r)" + future + ".completedFuture(getInvoker().invoke($0, " + ordinal + ", $args));");
+        	body.append("}\n"); 
+	        body.append("return ($r)" + future + ".completedFuture(null);\n");
+        body.append("}"); 
+        return body.toString();
+        
+	}
+	
+	/**
+	 * 构造异步 SOAP 操作的方法体：存在 {@link EndpointAsyncHandler} 时通过 CXF continuation 挂起请求，否则与同步方法一致
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param ordinal			: 操作序号
+	 * @param timeout			: 挂起的超时时间，单位毫秒
+	 * @return the source text
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static String continuationBody(final CtMethod ctMethod, final int ordinal, final long timeout) throws NotFoundException, CannotCompileException {
+		return continuationBody(ctMethod, ordinal, timeout, handlerBody(ctMethod, ordinal));
+	}
+	
+	/**
+	 * 构造异步 SOAP 操作的方法体：存在 {@link EndpointAsyncHandler} 时通过 CXF continuation 挂起请求，否则执行给定的同步方法体
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param ordinal			: 操作序号
+	 * @param timeout			: 挂起的超时时间，单位毫秒
+	 * @param sync				: 同步调用的方法体，如 {@link #handlerBody(CtMethod, int)} 或 {@link #invokerBody(CtMethod, int)}
+	 * @return the source text
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static String continuationBody(final CtMethod ctMethod, final int ordinal, final long timeout, final String sync) throws NotFoundException, CannotCompileException {
+		
+		String field = methodField(ctMethod);
+		String binding = bindingField(ctMethod);
+		
+		// 构造方法体，同步调用部分为给定的方法体
+		StringBuilder body = new StringBuilder(); 
+        body.append("{\n");
+        	body.append("if(getAsyncHandler() != null){\n");
+	        	body.append(methodLookup(ctMethod, field));
+        		body.append(bindingLookup(ctMethod, binding));
+        		body.append("return ($r)" + EndpointContinuations.class.getName() + ".invoke($0, " + ordinal + ", " + binding + ", " + field + ", $args, " + timeout + "L);");
+        	body.append("}\n"); 
+        	body.append(sync.substring(1, sync.length() - 1));
+        body.append("}"); 
+        return body.toString();
+        
+	}
+	
+	/**
+	 * 构造 {@link EndpointInvoker} 调用方式的方法体
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param ordinal			: 操作序号
+	 * @return the source text
+	 * @throws NotFoundException  if not found
+	 */
+	public static String invokerBody(final CtMethod ctMethod, final int ordinal) throws NotFoundException {
+		
+		// 构造方法体
+		StringBuilder body = new StringBuilder(); 
+        body.append("{\n");
+        	body.append("if(getInvoker() != null){\n");
+        		body.append("return ($r)getInvoker().invoke($0, " + ordinal + invokerArgs(ctMethod) + ");");
+        	body.append("}\n"); 
+	        body.append(defaultReturn(ctMethod));
+        body.append("}"); 
+        return body.toString();
+        
+	}
+	
+	/**
+	 * 根据参数个数与类型选择 {@link EndpointInvoker} 的重载方法：单个 int、long、double、boolean 参数直接传值，
+	 * 其余基本类型按各自的包装类型装箱，不超过 3 个参数逐个传递，否则传递参数数组
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @return the source text
+	 * @throws NotFoundException  if not found
+	 */
+	public static String invokerArgs(final CtMethod ctMethod) throws NotFoundException {
+		
+		CtClass[] parameters = ctMethod.getParameterTypes();
+		// 单个基本类型参数；byte、short、char、float 没有对应的重载，拓宽后处理器无法还原原始类型，按包装类型传递
+		if (parameters.length == 1 && (parameters[0] == CtClass.intType || parameters[0] == CtClass.longType
+				|| parameters[0] == CtClass.doubleType || parameters[0] == CtClass.booleanType)) {
+			return ", $1";
+		}
+		// 参数超过 3 个
+		if (parameters.length > 3) {
+			return ", $args";
+		}
+		StringBuilder args = new StringBuilder();
+		for (int i = 1; i <= parameters.length; i++) {
+			args.append(", (Object)($w)$").append(i);
+		}
+		return args.toString();
+	}
+
+	/**
+	 * 以 invokedynamic 指令构造方法体：加载 this 及全部参数后调用 {@link EndpointCallSites#bootstrap} 链接的调用点
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param ordinal			: 操作序号，作为引导方法的静态参数
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static void indyBody(final CtMethod ctMethod, final int ordinal) throws NotFoundException, CannotCompileException {
+		
+		CtClass declaring = ctMethod.getDeclaringClass();
+		ClassFile classFile = declaring.getClassFile();
+		ConstPool constPool = classFile.getConstPool();
+		
+		// 登记引导方法
+		int bootstrap = constPool.addMethodHandleInfo(ConstPool.REF_invokeStatic, constPool.addMethodrefInfo(
+				constPool.addClassInfo(EndpointCallSites.class.getName()), "bootstrap", EndpointCallSites.BOOTSTRAP_DESCRIPTOR));
+		int index = bootstrapMethod(classFile, bootstrap, constPool.addIntegerInfo(ordinal));
+		// 标记类包含 invokedynamic 调用点，只有这样的类在构造实例时登记回调
+		if (!JavassistUtils.hasField(declaring, EndpointCallSites.INDY_MARKER)) {
+			CtField marker = new CtField(CtClass.booleanType, EndpointCallSites.INDY_MARKER, declaring);
+			marker.getFieldInfo().setAccessFlags(AccessFlag.PRIVATE | AccessFlag.STATIC | AccessFlag.FINAL | AccessFlag.SYNTHETIC);
+			declaring.addField(marker);
+		}
+		
+		// 调用点类型：第一个参数为父类 EndpointApi，隐藏类不能出现在描述符中
+		CtClass[] parameters = ctMethod.getParameterTypes();
+		CtClass[] siteParameters = new CtClass[parameters.length + 1];
+		siteParameters[0] = declaring.getClassPool().get(EndpointApi.class.getName());
+		System.arraycopy(parameters, 0, siteParameters, 1, parameters.length);
+		CtClass returnType = ctMethod.getReturnType();
+		
+		// 构造方法体
+		Bytecode code = new Bytecode(constPool);
+		code.addAload(0);
+		int locals = code.addLoadParameters(parameters, 1) + 1;
+		code.addInvokedynamic(index, ctMethod.getName(), Descriptor.ofMethod(returnType, siteParameters));
+		code.addReturn(returnType == CtClass.voidType ? null : returnType);
+		code.setMaxLocals(locals);
+		
+		MethodInfo methodInfo = ctMethod.getMethodInfo();
+		methodInfo.setCodeAttribute(code.toCodeAttribute());
+		ctMethod.setModifiers(ctMethod.getModifiers() & ~Modifier.ABSTRACT);
+		try {
+			methodInfo.rebuildStackMapIf6(declaring.getClassPool(), classFile);
+		} catch (BadBytecode e) {
+			throw new CannotCompileException(e);
+		}
+		
+	}
+	
+	/**
+	 * 在类的 BootstrapMethods 属性中追加引导方法
+	 * @param classFile			: {@link ClassFile} instance
+	 * @param bootstrap			: 引导方法的 MethodHandle 常量索引
+	 * @param argument			: 静态参数的常量索引
+	 * @return 引导方法在属性中的序号
+	 */
+	public static int bootstrapMethod(final ClassFile classFile, final int bootstrap, final int argument) {
+		
+		BootstrapMethodsAttribute attribute = (BootstrapMethodsAttribute) classFile.getAttribute(BootstrapMethodsAttribute.tag);
+		BootstrapMethod[] methods = attribute == null ? new BootstrapMethod[0] : attribute.getMethods();
+		BootstrapMethod[] merged = Arrays.copyOf(methods, methods.length + 1);
+		merged[methods.length] = new BootstrapMethod(bootstrap, new int[] { argument });
+		// 同名属性会被替换
+		classFile.addAttribute(new BootstrapMethodsAttribute(classFile.getConstPool(), merged));
+		return methods.length;
+	}
+
+	/**
+	 * 为动态类添加 {@link InvocationHandler}、{@link EndpointInvoker} 参数的构造器（已存在时跳过），用于预先生成的类
+	 * @param declaring			: {@link CtClass} instance
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static void makeConstructors(final CtClass declaring) throws NotFoundException, CannotCompileException {
+		
+		ClassPool pool = declaring.getClassPool();
+		CtClass[] exceptions = new CtClass[] { pool.get("java.lang.Exception") };
+		for (Class<?> callback : new Class<?>[] { InvocationHandler.class, EndpointInvoker.class }) {
+			CtClass[] parameters = new CtClass[] { pool.get(callback.getName()) };
+			try {
+				declaring.getDeclaredConstructor(parameters);
+			} catch (NotFoundException e) {
+				// 添加有参构造器，注入回调接口
+				declaring.addConstructor(CtNewConstructor.make(parameters, exceptions, superCall(callback), declaring));
+			}
+		}
+		
+	}
+	
+	/**
+	 * 回调接口参数构造器的方法体，{@link EndpointInvoker} 通过 {@link EndpointApi} 的双参数构造器传入
+	 * @param callback			: 回调接口类型
+	 * @return the source text
+	 */
+	public static String superCall(final Class<?> callback) {
+		if (EndpointInvoker.class.equals(callback)) {
+			return "{super((" + InvocationHandler.class.getName() + ") null, $1);}";
+		}
+		return "{super($1);}";
+	}
+	
+	/**
+	 * 为动态类添加委托目标对象字段，以及以目标对象为参数的构造器
+	 * @param declaring			: {@link CtClass} instance
+	 * @param targetType		: 目标对象类型
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static void makeDelegate(final CtClass declaring, final CtClass targetType) throws CannotCompileException {
+		
+		// 检查字段是否已经定义
+		if(JavassistUtils.hasField(declaring, DELEGATE_FIELD)) {
+			return;
+		}
+		
+		CtField field = new CtField(targetType, DELEGATE_FIELD, declaring);
+		field.setModifiers(Modifier.PRIVATE);
+		declaring.addField(field);
+		
+		// 添加有参构造器，注入目标对象
+		declaring.addConstructor(CtNewConstructor.make(new CtClass[] { targetType }, new CtClass[0],
+				"{super(); " + DELEGATE_FIELD + " = $1;}", declaring));
+		
+	}
+	
+	/**
+	 * 构造直接调用目标对象方法的方法体；未设置目标对象（例如通过回调接口构造器创建的实例）时抛出 {@link IllegalStateException}
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param target			: 目标对象的方法名称
+	 * @return the source text
+	 * @throws NotFoundException  if not found
+	 */
+	public static String delegateBody(final CtMethod ctMethod, final String target) throws NotFoundException {
+		
+		// 构造方法体
+		StringBuilder body = new StringBuilder(); 
+        body.append("{\n");
+        	body.append("if(" + DELEGATE_FIELD + " == null){\n");
+        		body.append("throw new " + IllegalStateException.class.getName() + "(\"Delegate target of \" + getClass().getName() + \" is not set, create the instance with toDelegateInstance\");\n");
+        	body.append("}\n"); 
+        	if (ctMethod.getReturnType() == CtClass.voidType) {
+        		body.append(DELEGATE_FIELD + "." + target + "($$);\n");
+        	} else {
+        		body.append("return ($r)" + DELEGATE_FIELD + "." + target + "($$);\n");
+        	}
+        body.append("}"); 
+        return body.toString();
+        
+	}
+	
+	/**
+	 * 构造异常处理代码：通过 {@link EndpointFaults} 记录异常后重新抛出，不在业务线程上输出日志
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param ordinal			: 操作序号
+	 * @return the source text
+	 */
+	public static String catchBody(final CtMethod ctMethod, final int ordinal) {
+		return "{ " + EndpointFaults.class.getName() + ".fault(" + classnameOf(ctMethod) + ", $0, "
+				+ ordinal + ", \"" + ctMethod.getName() + "\", $e); throw $e; }";
+	}
+	
+	/**
+	 * 未设置回调接口时的默认返回语句，基本类型返回值不能直接返回 null
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @return the source text
+	 * @throws NotFoundException  if not found
+	 */
+	public static String defaultReturn(final CtMethod ctMethod) throws NotFoundException {
+		
+		CtClass returnType = ctMethod.getReturnType();
+		if (returnType == CtClass.voidType) {
+			return "return;\n";
+		}
+		if (returnType == CtClass.booleanType) {
+			return "return false;\n";
+		}
+		if (returnType.isPrimitive()) {
+			return "return ($r)0;\n";
+		}
+		return "return null;\n";
+	}
+
+	/**
+	 * 删除方法对应的 {@link Method}、{@link EndpointBinding} 静态缓存字段及绑定数据登记信息
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @throws NotFoundException  if not found
+	 */
+	public static void removeMethodField(final CtMethod ctMethod) throws NotFoundException {
+
+		CtClass declaring = ctMethod.getDeclaringClass();
+		String fieldName = methodFieldName(ctMethod);
+
+		// 检查字段是否已经定义
+		if(JavassistUtils.hasField(declaring, fieldName)) {
+			declaring.removeField(declaring.getDeclaredField(fieldName));
+		}
+		
+		// 绑定数据缓存字段及登记信息
+		if(JavassistUtils.hasField(declaring, fieldName + "_bound")) {
+			declaring.removeField(declaring.getDeclaredField(fieldName + "_bound"));
+		}
+		EndpointBindings.remove(declaring.getName(), bindingKey(ctMethod));
+	}
+
+	/**
+	 * 构造 @WebEndpoint 注解，由 {@link org.apache.cxf.endpoint.EndpointPublisher} 读取并发布服务
+	 * @param constPool			: {@link ConstPool} instance
+	 * @param addr				: 发布地址
+	 * @param inInterceptors	: 输入拦截器类名
+	 * @param outInterceptors	: 输出拦截器类名
+	 * @param inFaults			: 输入异常拦截器类名
+	 * @param outFaults			: 输出异常拦截器类名
+	 * @param features			: 特性类名
+	 * @param handlers			: 处理器类名，JAX-RS 服务作为 Provider 注册
+	 * @return {@link Annotation} instance
+	 */
+	public static Annotation annotWebEndpoint(final ConstPool constPool, final String addr, final String[] inInterceptors,
+			final String[] outInterceptors, final String[] inFaults, final String[] outFaults, final String[] features, final String[] handlers) {
+		
+		CtAnnotationBuilder builder = CtAnnotationBuilder.create(WebEndpoint.class, constPool).addStringMember("addr", addr);
+		if (ArrayUtils.isNotEmpty(inInterceptors)) {
+			builder.addStringMember("inInterceptors", inInterceptors);
+		}
+		if (ArrayUtils.isNotEmpty(outInterceptors)) {
+			builder.addStringMember("outInterceptors", outInterceptors);
+		}
+		if (ArrayUtils.isNotEmpty(inFaults)) {
+			builder.addStringMember("inFaults", inFaults);
+		}
+		if (ArrayUtils.isNotEmpty(outFaults)) {
+			builder.addStringMember("outFaults", outFaults);
+		}
+		if (ArrayUtils.isNotEmpty(features)) {
+			builder.addStringMember("features", features);
+		}
+		if (ArrayUtils.isNotEmpty(handlers)) {
+			builder.addStringMember("handlers", handlers);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * 将动态类标记为 {@link EndpointShapes} 的形状类，需在生成方法体之前调用
+	 * @param declaring			: {@link CtClass} instance
+	 * @param key				: 形状的定义摘要
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static void makeShape(final CtClass declaring, final String key) throws CannotCompileException {
+		
+		// 检查字段是否已经定义
+		if(isShape(declaring)) {
+			return;
+		}
+		
+		CtField field = CtField.make("public static final String " + EndpointShapes.FIELD + " = \"" + key + "\";", declaring);
+		declaring.addField(field, CtField.Initializer.constant(key));
+	}
+
+	/**
+	 * @param declaring			: {@link CtClass} instance
+	 * @return 是否为形状类
+	 */
+	public static boolean isShape(final CtClass declaring) {
+		return JavassistUtils.hasField(declaring, EndpointShapes.FIELD);
+	}
+
+	/**
+	 * 生成形状类的子类：只包含类注解，以及与形状类的公共构造器一一对应、直接调用父类的构造器
+	 * @param classname			: 子类类名
+	 * @param shape				: 形状类
+	 * @param annotations		: 根据常量池构造类注解
+	 * @return 子类字节码
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static byte[] makeSubclass(final String classname, final Class<?> shape, final List<Function<ConstPool, Annotation>> annotations) throws CannotCompileException {
+		
+		ClassFile classFile = new ClassFile(false, classname, shape.getName());
+		classFile.setAccessFlags(AccessFlag.PUBLIC);
+		ConstPool constPool = classFile.getConstPool();
+		
+		for (Constructor<?> constructor : shape.getConstructors()) {
+			Class<?>[] types = constructor.getParameterTypes();
+			String descriptor = MethodType.methodType(void.class, types).toMethodDescriptorString();
+			Bytecode code = new Bytecode(constPool, types.length + 1, types.length + 1);
+			code.addAload(0);
+			for (int i = 0; i < types.length; i++) {
+				// 动态类的构造器参数均为回调接口或委托对象
+				if (types[i].isPrimitive()) {
+					throw new CannotCompileException("Unsupported constructor of shape " + shape.getName() + " : " + descriptor);
+				}
+				code.addAload(i + 1);
+			}
+			code.addInvokespecial(shape.getName(), MethodInfo.nameInit, descriptor);
+			code.addReturn(null);
+			MethodInfo methodInfo = new MethodInfo(constPool, MethodInfo.nameInit, descriptor);
+			methodInfo.setAccessFlags(AccessFlag.PUBLIC);
+			methodInfo.setCodeAttribute(code.toCodeAttribute());
+			classFile.addMethod(methodInfo);
+		}
+		
+		AnnotationsAttribute attribute = new AnnotationsAttribute(constPool, AnnotationsAttribute.visibleTag);
+		for (Function<ConstPool, Annotation> annotation : annotations) {
+			attribute.addAnnotation(annotation.apply(constPool));
+		}
+		if (attribute.numAnnotations() > 0) {
+			classFile.addAttribute(attribute);
+		}
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			classFile.write(out);
+		} catch (IOException e) {
+			throw new CannotCompileException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * 复制模板类的字节码生成独立的动态类：只改写常量池中的类名，去掉形状标记字段，并以给定的类注解替换模板的类注解；
+	 * 模板方法不带 <code>@WebBound</code> 注解，按方法的登记键补充各接口自己的方法注解；方法体、其余方法注解及构造器原样复制，不再编译
+	 * @param template			: 模板类字节码，以形状类方式编译
+	 * @param templateName		: 模板类类名
+	 * @param classname			: 动态类类名
+	 * @param annotations		: 根据常量池构造类注解
+	 * @param methodAnnotations	: 按 {@link EndpointBindings#key(String, String)} 登记键根据常量池构造方法注解
+	 * @return 动态类字节码
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static byte[] makeClone(final byte[] template, final String templateName, final String classname, final List<Function<ConstPool, Annotation>> annotations,
+			final Map<String, Function<ConstPool, Annotation>> methodAnnotations) throws CannotCompileException {
+		
+		ClassFile classFile;
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(template))) {
+			classFile = new ClassFile(in);
+		} catch (IOException e) {
+			throw new CannotCompileException(e);
+		}
+		classFile.renameClass(templateName, classname);
+		// 复制出的类不再由多个接口共享，绑定数据同样按实际类名读取
+		classFile.getFields().removeIf(field -> EndpointShapes.FIELD.equals(field.getName()));
+		ConstPool constPool = classFile.getConstPool();
+		
+		AnnotationsAttribute attribute = new AnnotationsAttribute(constPool, AnnotationsAttribute.visibleTag);
+		for (Function<ConstPool, Annotation> annotation : annotations) {
+			attribute.addAnnotation(annotation.apply(constPool));
+		}
+		if (attribute.numAnnotations() > 0) {
+			classFile.addAttribute(attribute);
+		} else {
+			classFile.removeAttribute(AnnotationsAttribute.visibleTag);
+		}
+		
+		for (MethodInfo methodInfo : classFile.getMethods()) {
+			Function<ConstPool, Annotation> annotation = methodAnnotations.get(EndpointBindings.key(methodInfo.getName(), methodInfo.getDescriptor()));
+			if (annotation == null) {
+				continue;
+			}
+			AnnotationsAttribute methodAttr = (AnnotationsAttribute) methodInfo.getAttribute(AnnotationsAttribute.visibleTag);
+			if (methodAttr == null) {
+				methodAttr = new AnnotationsAttribute(constPool, AnnotationsAttribute.visibleTag);
+				methodInfo.addAttribute(methodAttr);
+			}
+			methodAttr.addAnnotation(annotation.apply(constPool));
+		}
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(template.length + 256);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			classFile.write(out);
+		} catch (IOException e) {
+			throw new CannotCompileException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * 设置了 {@link org.apache.cxf.endpoint.EndpointClassCache} 时，构建器记录的定义步骤；缓存未命中才依次执行
+	 */
+	@FunctionalInterface
+	public interface Step {
+
+		void apply() throws CannotCompileException, NotFoundException;
+
+	}
+
+	/**
+	 * 依次执行并清空记录的定义步骤
+	 * @param steps				: 定义步骤
+	 * @throws CannotCompileException if can't compile
+	 * @throws NotFoundException  if not found
+	 */
+	public static void applySteps(final List<Step> steps) throws CannotCompileException, NotFoundException {
+		while (!steps.isEmpty()) {
+			steps.remove(0).apply();
+		}
+	}
+
+}
@@ -16,6 +16,7 @@
 package org.apache.cxf.endpoint.utils;
 
 import java.lang.reflect.InvocationHandler;
+import java.util.concurrent.CompletionStage;
 
 import jakarta.ws.rs.BeanParam;
 import jakarta.ws.rs.Consumes;
@@ -38,7 +39,11 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.cxf.endpoint.EndpointDispatch;
+import org.apache.cxf.endpoint.EndpointFaultSink;
+import org.apache.cxf.endpoint.EndpointInvocationHandler;
 import org.apache.cxf.endpoint.annotation.WebBound;
 import org.apache.cxf.endpoint.jaxrs.definition.HttpParamEnum;
 import org.apache.cxf.endpoint.jaxrs.definition.RestBound;
@@ -88,11 +93,15 @@ public class JaxrsEndpointApiUtils {
 	}
 	
 	public static CtConstructor makeConstructor(final ClassPool pool, final CtClass declaring) throws NotFoundException, CannotCompileException  {
+		return makeConstructor(pool, declaring, InvocationHandler.class);
+	}
+	
+	public static CtConstructor makeConstructor(final ClassPool pool, final CtClass declaring, final Class<?> callback) throws NotFoundException, CannotCompileException  {
 
 		// 添加有参构造器，注入回调接口
-    	CtClass[] parameters = new CtClass[] {pool.get(InvocationHandler.class.getName())};
+    	CtClass[] parameters = new CtClass[] {pool.get(callback.getName())};
     	CtClass[] exceptions = new CtClass[] { pool.get("java.lang.Exception") };
-    	return CtNewConstructor.make(parameters, exceptions, "{super($1);}", declaring);
+    	return CtNewConstructor.make(parameters, exceptions, EndpointApiUtils.superCall(callback), declaring);
     	
 	}
 
@@ -121,6 +130,40 @@ public class JaxrsEndpointApiUtils {
 
 	}
 	
+	/**
+	 * 方法返回值类型，异步方法统一返回 {@link CompletionStage}
+	 * @param pool				: {@link ClassPool} instance
+	 * @param rtClass			: 返回对象类型
+	 * @param method			: {@link RestMethod} instance
+	 * @param <T> 	   			: 参数泛型
+	 * @return {@link CtClass} instance
+	 * @throws NotFoundException  if not found
+	 */
+	public static <T> CtClass makeReturnType(final ClassPool pool, final Class<T> rtClass, final RestMethod method) throws NotFoundException {
+		if (method.isAsync()) {
+			return pool.get(CompletionStage.class.getName());
+		}
+		return rtClass != null ? pool.get(rtClass.getName()) : CtClass.voidType;
+	}
+	
+	/**
+	 * 为异步方法设置泛型签名 CompletionStage&lt;T&gt;，使 JAX-RS 运行时能够得知实际的返回对象类型
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param rtClass			: 返回对象类型
+	 * @param method			: {@link RestMethod} instance
+	 * @param <T> 	   			: 参数泛型
+	 */
+	public static <T> void asyncSignature(final CtMethod ctMethod, final Class<T> rtClass, final RestMethod method) {
+		if (!method.isAsync()) {
+			return;
+		}
+		Class<?> type = rtClass == null ? Void.class : ClassUtils.primitiveToWrapper(rtClass);
+		String argument = type.isArray() ? type.getName().replace('.', '/') : "L" + type.getName().replace('.', '/') + ";";
+		String signature = ctMethod.getSignature();
+		ctMethod.setGenericSignature(signature.substring(0, signature.indexOf(')') + 1) + "L"
+				+ CompletionStage.class.getName().replace('.', '/') + "<" + argument + ">;");
+	}
+	
 	public static CtClass[] makeParams(final ClassPool pool, RestParam<?>... params) throws NotFoundException {
 		// 无参
 		if(params == null || params.length == 0) {
@@ -218,25 +261,47 @@ public class JaxrsEndpointApiUtils {
         
 	}
 	
+	/**
+	 * 按调用方式设置方法体；异步方法在各调用方式下都返回 {@link CompletionStage}，方法体与调用方式无关
+	 * @param ctMethod {@link CtMethod} instance
+	 * @param method {@link RestMethod} instance 
+	 * @param dispatch {@link EndpointDispatch} 调用方式
+	 * @param ordinal 操作序号
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException  if can't compile
+	 */
+	public static void methodBody(final CtMethod ctMethod, final RestMethod method, final EndpointDispatch dispatch, final int ordinal) throws NotFoundException, CannotCompileException {
+		
+		// 异步方法返回 CompletionStage，不等待处理完成
+		if (method.isAsync()) {
+			ctMethod.setBody(EndpointApiUtils.asyncBody(ctMethod, ordinal));
+			return;
+		}
+		switch (dispatch) {
+			case INVOKER:{
+				ctMethod.setBody(EndpointApiUtils.invokerBody(ctMethod, ordinal));
+			};break;
+			case INDY:{
+				EndpointApiUtils.indyBody(ctMethod, ordinal);
+			};break;
+			default:{
+				ctMethod.setBody(EndpointApiUtils.handlerBody(ctMethod, ordinal));
+			};break;
+		}
+		
+	}
+	
 	/**
 	 * 设置方法体
 	 * @param ctMethod {@link CtMethod} instance
 	 * @param method {@link RestMethod} instance 
+	 * @throws NotFoundException  if not found
 	 * @throws CannotCompileException  if can't compile
 	 */
-	public static void methodBody(final CtMethod ctMethod, final RestMethod method) throws CannotCompileException {
+	public static void methodBody(final CtMethod ctMethod, final RestMethod method) throws NotFoundException, CannotCompileException {
 		
-		// 构造方法体
-		StringBuilder body = new StringBuilder(); 
-        body.append("{\n");
-        	body.append("if(getHandler() != null){\n");
-        		body.append("Method method = this.getClass().getDeclaredMethod(\"" + method.getName() + "\", $sig);");
-        		body.append("return ($r)getHandler().invoke($0, method, $args);");
-        	body.append("}\n"); 
-	        body.append("return null;\n");
-        body.append("}"); 
-        // 将方法的内容设置为要写入的代码，当方法被 abstract修饰时，该修饰符被移除。
-        ctMethod.setBody(body.toString());
+		// 将方法的内容设置为要写入的代码，当方法被 abstract修饰时，该修饰符被移除。
+        ctMethod.setBody(EndpointApiUtils.handlerBody(ctMethod, EndpointInvocationHandler.UNKNOWN_OPERATION));
         
 	}
 	
@@ -248,10 +313,22 @@ public class JaxrsEndpointApiUtils {
 	 * @throws CannotCompileException   if can't compile
 	 */
 	public static void methodCatch(final ClassPool pool, final CtMethod ctMethod) throws NotFoundException, CannotCompileException {
+		methodCatch(pool, ctMethod, EndpointInvocationHandler.UNKNOWN_OPERATION);
+	}
+	
+	/**
+	 * 设置方法异常捕获逻辑：异常交给 {@link EndpointFaultSink} 记录后重新抛出
+	 * @param pool				: {@link ClassPool} instance
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param ordinal			: 操作序号
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static void methodCatch(final ClassPool pool, final CtMethod ctMethod, final int ordinal) throws NotFoundException, CannotCompileException {
 		
 		// 构造异常处理逻辑
         CtClass etype = pool.get("java.lang.Exception");
-        ctMethod.addCatch("{ System.out.println($e); throw $e; }", etype);
+        ctMethod.addCatch(EndpointApiUtils.catchBody(ctMethod, ordinal), etype);
         
 	}
 	
@@ -29,6 +29,9 @@ import jakarta.xml.ws.soap.Addressing;
 import jakarta.xml.ws.soap.AddressingFeature.Responses;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.cxf.endpoint.EndpointDispatch;
+import org.apache.cxf.endpoint.EndpointFaultSink;
+import org.apache.cxf.endpoint.EndpointInvocationHandler;
 import org.apache.cxf.endpoint.annotation.WebBound;
 import org.apache.cxf.endpoint.jaxws.definition.SoapBound;
 import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
@@ -80,11 +83,15 @@ public class JaxwsEndpointApiUtils {
 	}
 	
 	public static CtConstructor makeConstructor(final ClassPool pool, final CtClass declaring) throws NotFoundException, CannotCompileException  {
+		return makeConstructor(pool, declaring, InvocationHandler.class);
+	}
+	
+	public static CtConstructor makeConstructor(final ClassPool pool, final CtClass declaring, final Class<?> callback) throws NotFoundException, CannotCompileException  {
 
 		// 添加有参构造器，注入回调接口
-    	CtClass[] parameters = new CtClass[] {pool.get(InvocationHandler.class.getName())};
+    	CtClass[] parameters = new CtClass[] {pool.get(callback.getName())};
     	CtClass[] exceptions = new CtClass[] { pool.get("java.lang.Exception") };
-    	return CtNewConstructor.make(parameters, exceptions, "{super($1);}", declaring);
+    	return CtNewConstructor.make(parameters, exceptions, EndpointApiUtils.superCall(callback), declaring);
     	
 	}
 
@@ -151,6 +158,15 @@ public class JaxwsEndpointApiUtils {
 
 	}
 	
+	/**
+	 * 构造不带属性的 @WebService 注解，用于 {@link org.apache.cxf.endpoint.EndpointShapes} 的形状类
+	 * @param constPool			: {@link ConstPool} instance
+	 * @return {@link Annotation} instance
+	 */
+	public static Annotation annotWebService(final ConstPool constPool) {
+		return CtAnnotationBuilder.create(WebService.class, constPool).build();
+	}
+	
 	/**
 	 * 构造 @WebService 注解
 	 * @param constPool			: {@link ConstPool} instance
@@ -273,25 +289,50 @@ public class JaxwsEndpointApiUtils {
         
 	}
 	
+	/**
+	 * 按调用方式设置方法体；异步操作在各调用方式下都通过 CXF continuation 挂起请求，
+	 * 没有 {@link org.apache.cxf.endpoint.EndpointAsyncHandler} 时的同步部分：INVOKER 方式通过 {@link org.apache.cxf.endpoint.EndpointInvoker} 调用，
+	 * 其余与 HANDLER 方式一致（异步操作不经过 invokedynamic 调用点）
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param method			: {@link SoapMethod} instance
+	 * @param dispatch			: {@link EndpointDispatch} 调用方式
+	 * @param ordinal			: 操作序号
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile 
+	 */
+	public static void methodBody(final CtMethod ctMethod, final SoapMethod method, final EndpointDispatch dispatch, final int ordinal) throws NotFoundException, CannotCompileException {
+		
+		// 异步操作通过 CXF continuation 挂起请求
+		if (method.isAsync()) {
+			String sync = EndpointDispatch.INVOKER == dispatch ? EndpointApiUtils.invokerBody(ctMethod, ordinal) : EndpointApiUtils.handlerBody(ctMethod, ordinal);
+			ctMethod.setBody(EndpointApiUtils.continuationBody(ctMethod, ordinal, method.getAsyncTimeout(), sync));
+			return;
+		}
+		switch (dispatch) {
+			case INVOKER:{
+				ctMethod.setBody(EndpointApiUtils.invokerBody(ctMethod, ordinal));
+			};break;
+			case INDY:{
+				EndpointApiUtils.indyBody(ctMethod, ordinal);
+			};break;
+			default:{
+				ctMethod.setBody(EndpointApiUtils.handlerBody(ctMethod, ordinal));
+			};break;
+		}
+		
+	}
+	
 	/**
 	 * 设置方法体
 	 * @param ctMethod			: {@link CtMethod} instance
 	 * @param method			: {@link SoapMethod} instance
+	 * @throws NotFoundException  if not found
 	 * @throws CannotCompileException if can't compile 
 	 */
-	public static void methodBody(final CtMethod ctMethod, final SoapMethod method) throws CannotCompileException {
+	public static void methodBody(final CtMethod ctMethod, final SoapMethod method) throws NotFoundException, CannotCompileException {
 		
-		// 构造方法体
-		StringBuilder body = new StringBuilder(); 
-        body.append("{\n");
-        	body.append("if(getHandler() != null){\n");
-        		body.append("Method method = this.getClass().getDeclaredMethod(\"" + method.getOperationName() + "\", $sig);");
-        		body.append("return ($r)getHandler().invoke($0, method, $args);");
-        	body.append("}\n"); 
-	        body.append("return null;\n");
-        body.append("}"); 
-        // 将方法的内容设置为要写入的代码，当方法被 abstract修饰时，该修饰符被移除。
-        ctMethod.setBody(body.toString());
+		// 将方法的内容设置为要写入的代码，当方法被 abstract修饰时，该修饰符被移除。
+        ctMethod.setBody(EndpointApiUtils.handlerBody(ctMethod, EndpointInvocationHandler.UNKNOWN_OPERATION));
         
 	}
 	
@@ -303,10 +344,22 @@ public class JaxwsEndpointApiUtils {
 	 * @throws CannotCompileException if can't compile
 	 */
 	public static void methodCatch(final ClassPool pool, final CtMethod ctMethod) throws NotFoundException, CannotCompileException {
+		methodCatch(pool, ctMethod, EndpointInvocationHandler.UNKNOWN_OPERATION);
+	}
+	
+	/**
+	 * 设置方法异常捕获逻辑：异常交给 {@link EndpointFaultSink} 记录后重新抛出
+	 * @param pool				: {@link ClassPool} instance
+	 * @param ctMethod			: {@link CtMethod} instance
+	 * @param ordinal			: 操作序号
+	 * @throws NotFoundException  if not found
+	 * @throws CannotCompileException if can't compile
+	 */
+	public static void methodCatch(final ClassPool pool, final CtMethod ctMethod, final int ordinal) throws NotFoundException, CannotCompileException {
 		
 		// 构造异常处理逻辑
         CtClass etype = pool.get("java.lang.Exception");
-        ctMethod.addCatch("{ System.out.println($e); throw $e; }", etype);
+        ctMethod.addCatch(EndpointApiUtils.catchBody(ctMethod, ordinal), etype);
         
 	}
 	
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.cxf.endpoint.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 简单的 JSON 解析工具，仅用于生成动态类时解析绑定数据，不引入额外依赖。
+ * <p>对象解析为不可修改的 {@link Map}（保留字段顺序），数组解析为不可修改的 {@link List}，
+ * 整数解析为 {@link Long}，超出范围或带小数的数字解析为 {@link BigDecimal}。</p>
+ */
+public class JsonUtils {
+
+	/**
+	 * 解析 JSON 文本
+	 * @param json			: JSON 文本
+	 * @return 解析结果
+	 * @throws IllegalArgumentException 格式错误时抛出
+	 */
+	public static Object parse(final String json) {
+		Parser parser = new Parser(json);
+		parser.skipWhitespace();
+		Object value = parser.readValue();
+		if (parser.peek() != -1) {
+			throw parser.error("Unexpected trailing content");
+		}
+		return value;
+	}
+	
+	/**
+	 * 解析 JSON 对象文本，空白文本视为空对象
+	 * @param json			: JSON 文本
+	 * @return 解析结果
+	 * @throws IllegalArgumentException 格式错误或不是对象时抛出
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> parseObject(final String json) {
+		if (json == null || json.trim().isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Object value = parse(json);
+		if (!(value instanceof Map)) {
+			throw new IllegalArgumentException("JSON object expected : " + json);
+		}
+		return (Map<String, Object>) value;
+	}
+	
+	/**
+	 * 游标式解析器，每次读取一个完整的值。
+	 * <p>以 {@link Reader} 构造时按需分块读取，已读取的内容在调用 {@link #release()} 后丢弃，
+	 * 可用于逐个读取大文件中的数组元素而不必整体载入内存。</p>
+	 */
+	public static class Parser {
+
+		private static final int CHUNK = 8192;
+
+		private final CharSequence text;
+		private final Reader reader;
+		private final StringBuilder buffer;
+		// 已丢弃的字符数，游标为全文中的绝对位置
+		private int offset = 0;
+		private int index = 0;
+		private boolean eof = false;
+
+		public Parser(final CharSequence text) {
+			this.text = text;
+			this.reader = null;
+			this.buffer = null;
+		}
+
+		public Parser(final Reader reader) {
+			this.buffer = new StringBuilder(CHUNK);
+			this.text = buffer;
+			this.reader = reader;
+		}
+		
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * 丢弃游标之前已读取的内容
+		 */
+		public void release() {
+			if (buffer != null) {
+				buffer.delete(0, index - offset);
+				offset = index;
+			}
+		}
+
+		public void skipWhitespace() {
+			while (has(index) && Character.isWhitespace(charAt(index))) {
+				index++;
+			}
+		}
+
+		/**
+		 * 指定位置是否有字符，以 {@link Reader} 构造时按需读取
+		 */
+		private boolean has(final int position) {
+			while (position - offset >= text.length()) {
+				if (eof || reader == null) {
+					return false;
+				}
+				try {
+					char[] chunk = new char[CHUNK];
+					int read = reader.read(chunk);
+					if (read < 0) {
+						eof = true;
+					} else {
+						buffer.append(chunk, 0, read);
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return true;
+		}
+
+		private char charAt(final int position) {
+			return text.charAt(position - offset);
+		}
+
+		private String substring(final int start, final int end) {
+			return text.subSequence(start - offset, end - offset).toString();
+		}
+		
+		/**
+		 * 读取当前位置的字符但不移动游标，已到结尾时返回 -1
+		 * @return the char
+		 */
+		public int peek() {
+			skipWhitespace();
+			return has(index) ? charAt(index) : -1;
+		}
+		
+		/**
+		 * 读取指定字符，否则抛出异常
+		 * @param expected		: 期望的字符
+		 */
+		public void expect(final char expected) {
+			skipWhitespace();
+			if (!has(index) || charAt(index) != expected) {
+				throw error("'" + expected + "' expected");
+			}
+			index++;
+		}
+
+		public Object readValue() {
+			int c = peek();
+			switch (c) {
+				case '{':
+					return readObject();
+				case '[':
+					return readArray();
+				case '"':
+					return readString();
+				case 't':
+					return readLiteral("true", Boolean.TRUE);
+				case 'f':
+					return readLiteral("false", Boolean.FALSE);
+				case 'n':
+					return readLiteral("null", null);
+				default:
+					if (c == '-' || (c >= '0' && c <= '9')) {
+						return readNumber();
+					}
+					throw error("Unexpected character");
+			}
+		}
+
+		public Map<String, Object> readObject() {
+			expect('{');
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			if (peek() == '}') {
+				index++;
+				return Collections.unmodifiableMap(map);
+			}
+			while (true) {
+				skipWhitespace();
+				String key = readString();
+				expect(':');
+				map.put(key, readValue());
+				if (peek() == ',') {
+					index++;
+					continue;
+				}
+				expect('}');
+				return Collections.unmodifiableMap(map);
+			}
+		}
+
+		public List<Object> readArray() {
+			expect('[');
+			List<Object> list = new ArrayList<Object>();
+			if (peek() == ']') {
+				index++;
+				return Collections.unmodifiableList(list);
+			}
+			while (true) {
+				list.add(readValue());
+				if (peek() == ',') {
+					index++;
+					continue;
+				}
+				expect(']');
+				return Collections.unmodifiableList(list);
+			}
+		}
+
+		public String readString() {
+			expect('"');
+			StringBuilder builder = new StringBuilder();
+			while (has(index)) {
+				char c = charAt(index++);
+				if (c == '"') {
+					return builder.toString();
+				}
+				if (c != '\\') {
+					builder.append(c);
+					continue;
+				}
+				if (!has(index)) {
+					break;
+				}
+				char escape = charAt(index++);
+				switch (escape) {
+					case 'b': builder.append('\b'); break;
+					case 'f': builder.append('\f'); break;
+					case 'n': builder.append('\n'); break;
+					case 'r': builder.append('\r'); break;
+					case 't': builder.append('\t'); break;
+					case 'u': {
+						if (!has(index + 3)) {
+							throw error("Invalid unicode escape");
+						}
+						try {
+							builder.append((char) Integer.parseInt(substring(index, index + 4), 16));
+						} catch (NumberFormatException e) {
+							throw error("Invalid unicode escape");
+						}
+						index += 4;
+					};break;
+					case '"':
+					case '\\':
+					case '/': builder.append(escape); break;
+					default: throw error("Invalid escape \\" + escape);
+				}
+			}
+			throw error("Unterminated string");
+		}
+
+		private Object readNumber() {
+			int start = index;
+			boolean decimal = false;
+			while (has(index)) {
+				char c = charAt(index);
+				if (c == '.' || c == 'e' || c == 'E') {
+					decimal = true;
+				} else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+					break;
+				}
+				index++;
+			}
+			String number = substring(start, index);
+			try {
+				if (!decimal) {
+					try {
+						return Long.valueOf(number);
+					} catch (NumberFormatException e) {
+						// 超出 long 范围
+					}
+				}
+				return new BigDecimal(number);
+			} catch (NumberFormatException e) {
+				throw error("Invalid number " + number);
+			}
+		}
+
+		private Object readLiteral(final String literal, final Object value) {
+			if (!has(index + literal.length() - 1)
+					|| !literal.equals(substring(index, index + literal.length()))) {
+				throw error("Unexpected character");
+			}
+			index += literal.length();
+			return value;
+		}
+
+		public IllegalArgumentException error(final String message) {
+			return new IllegalArgumentException(message + " at position " + index);
+		}
+
+	}
+
+}
@@ -0,0 +1,81 @@
+package org.apache.cxf.endpoint;
+
+import org.apache.cxf.endpoint.jaxws.JaxwsEndpointApiCtClassBuilder;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+
+public class BoundedClassPool_Test {
+
+	/**
+	 * 构建并生成字节码，不从 {@link ClassPool} 中删除，与只构建不加载的用法相同
+	 */
+	private static CtClass build(ClassPool pool, String classname) throws Exception {
+		CtClass declaring = new JaxwsEndpointApiCtClassBuilder(pool, classname)
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("echo"), null, new SoapParam<String>(String.class, "text"))
+				.build();
+		declaring.toBytecode();
+		return declaring;
+	}
+
+	@Test
+	public void testBoundedEntries() throws Exception {
+
+		ClassPool unbounded = new ClassPool(true);
+		BoundedClassPool bounded = new BoundedClassPool(64, Long.MAX_VALUE);
+		for (int i = 0; i < 300; i++) {
+			build(unbounded, "org.apache.cxf.spring.boot.PoolCaseV" + i);
+			build(bounded, "org.apache.cxf.spring.boot.PoolCaseV" + i);
+		}
+		// 普通的 ClassPool 持有全部生成的类
+		for (int i = 0; i < 300; i++) {
+			assertNotNull(unbounded.getOrNull("org.apache.cxf.spring.boot.PoolCaseV" + i));
+		}
+		// 已冻结的类按最近使用顺序淘汰，缓存数量不超过限制
+		assertTrue("resident " + bounded.getResidentEntries(), bounded.getResidentEntries() <= 64);
+		assertTrue(bounded.getEvictions() >= 300 - 64);
+		assertNotNull(bounded.getOrNull("org.apache.cxf.spring.boot.PoolCaseV299"));
+	}
+
+	@Test
+	public void testBoundedBytes() throws Exception {
+
+		BoundedClassPool bounded = new BoundedClassPool(Integer.MAX_VALUE, 64 * 1024);
+		for (int i = 0; i < 300; i++) {
+			build(bounded, "org.apache.cxf.spring.boot.BytesCaseV" + i);
+		}
+		bounded.trim();
+		assertTrue("resident " + bounded.getResidentBytes(), bounded.getResidentBytes() <= 64 * 1024);
+		assertTrue(bounded.getEvictions() > 0);
+
+		// 删除的类同时扣除估算的字节数
+		long before = bounded.getResidentBytes();
+		int entries = bounded.getResidentEntries();
+		CtClass last = bounded.get("org.apache.cxf.spring.boot.BytesCaseV299");
+		last.detach();
+		assertEquals(entries - 1, bounded.getResidentEntries());
+		assertTrue(bounded.getResidentBytes() < before);
+	}
+
+	@Test
+	public void testBuilding() throws Exception {
+
+		BoundedClassPool bounded = new BoundedClassPool(4, Long.MAX_VALUE);
+		// 正在构建的类不会被淘汰
+		CtClass building = bounded.makeClass("org.apache.cxf.spring.boot.BuildingCase");
+		for (int i = 0; i < 20; i++) {
+			build(bounded, "org.apache.cxf.spring.boot.BuildingCaseV" + i);
+		}
+		assertEquals(building, bounded.getOrNull("org.apache.cxf.spring.boot.BuildingCase"));
+	}
+
+}
@@ -0,0 +1,104 @@
+package org.apache.cxf.endpoint;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.builder.Builder;
+import org.apache.cxf.endpoint.jaxrs.JaxrsEndpointApiCtClassBuilder;
+import org.apache.cxf.endpoint.jaxws.JaxwsEndpointApiCtClassBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+
+public class EndpointCatalog_Test {
+
+	private static final String CATALOG = "{\"version\": 1, \"endpoints\": ["
+			+ "{\"type\": \"jaxws\", \"class\": \"org.apache.cxf.spring.boot.CatalogCaseV1\","
+			+ " \"service\": {\"name\": \"user\", \"targetNamespace\": \"http://ws.cxf.com\", \"serviceName\": \"UserService\"},"
+			+ " \"methods\": [{\"operationName\": \"find\", \"exclude\": false, \"async\": false,"
+			+ "   \"result\": {\"type\": \"java.lang.String\", \"name\": \"user\"},"
+			+ "   \"params\": [{\"type\": \"long\", \"name\": \"id\", \"mode\": \"IN\", \"header\": false}]}]},"
+			+ "{\"type\": \"jaxrs\", \"class\": \"org.apache.cxf.spring.boot.CatalogCaseV2\", \"path\": \"/users\", \"produces\": [\"application/json\"],"
+			+ " \"methods\": [{\"method\": \"GET\", \"name\": \"find\", \"path\": \"{id}\", \"returnType\": \"java.lang.String\","
+			+ "   \"params\": [{\"type\": \"java.lang.String\", \"name\": \"id\", \"from\": \"PATH\"}]}]}"
+			+ "], \"comment\": \"trailing\"}";
+
+	private static String jaxws(String method) {
+		return "[{\"class\": \"org.apache.cxf.spring.boot.CatalogCaseV3\","
+				+ " \"service\": {\"name\": \"user\", \"targetNamespace\": \"http://ws.cxf.com\"},"
+				+ " \"methods\": [" + method + "]}]";
+	}
+
+	private static void invalid(String json, String message) throws Exception {
+		try {
+			EndpointCatalog.load(new StringReader(json), new ClassPool(true), null, builder -> builder.build());
+			fail("invalid catalog must be rejected : " + json);
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(message));
+		}
+	}
+
+	@Test
+	public void testParse() throws Exception {
+
+		List<Map<String, Object>> endpoints = new ArrayList<Map<String, Object>>();
+		assertEquals(2, EndpointCatalog.parse(new StringReader(CATALOG), endpoints::add));
+		assertEquals("org.apache.cxf.spring.boot.CatalogCaseV1", endpoints.get(0).get("class"));
+		assertEquals("jaxrs", endpoints.get(1).get("type"));
+
+		// 根节点为数组
+		endpoints.clear();
+		assertEquals(1, EndpointCatalog.parse(new StringReader(jaxws("")), endpoints::add));
+		assertEquals(0, EndpointCatalog.parse(new StringReader("{\"endpoints\": []}"), endpoints::add));
+	}
+
+	@Test
+	public void testLoad() throws Exception {
+
+		final List<Builder<CtClass>> builders = new ArrayList<Builder<CtClass>>();
+		final List<CtClass> classes = new ArrayList<CtClass>();
+		assertEquals(2, EndpointCatalog.load(new StringReader(CATALOG), ClassPool.getDefault(), null, builder -> {
+			builders.add(builder);
+			classes.add(builder.build());
+		}));
+		assertTrue(builders.get(0) instanceof JaxwsEndpointApiCtClassBuilder);
+		assertTrue(builders.get(1) instanceof JaxrsEndpointApiCtClassBuilder);
+
+		CtClass jaxws = classes.get(0);
+		assertEquals("org.apache.cxf.spring.boot.CatalogCaseV1", jaxws.getName());
+		assertNotNull(jaxws.getAnnotation(jakarta.jws.WebService.class));
+		assertNotNull(jaxws.getDeclaredMethod("find").getAnnotation(jakarta.jws.WebMethod.class));
+		assertEquals("(J)Ljava/lang/String;", jaxws.getDeclaredMethod("find").getSignature());
+
+		CtClass jaxrs = classes.get(1);
+		assertEquals("/users", ((jakarta.ws.rs.Path) jaxrs.getAnnotation(jakarta.ws.rs.Path.class)).value());
+		assertNotNull(jaxrs.getDeclaredMethod("find").getAnnotation(jakarta.ws.rs.GET.class));
+	}
+
+	@Test
+	public void testInvalid() throws Exception {
+
+		// 布尔字段只接受 JSON 布尔值
+		invalid(jaxws("{\"operationName\": \"find\", \"exclude\": \"yes\"}"), "'exclude' must be a boolean");
+		invalid(jaxws("{\"operationName\": \"find\", \"async\": \"true\"}"), "'async' must be a boolean");
+		invalid(jaxws("{\"operationName\": \"find\", \"asyncTimeout\": \"10\"}"), "'asyncTimeout' must be a number");
+		invalid(jaxws("{\"exclude\": false}"), "'operationName' is required");
+		invalid(jaxws("{\"operationName\": \"find\", \"params\": {}}"), "'params' must be an array");
+		invalid("[{\"type\": \"soap\", \"class\": \"x.Y\"}]", "Unknown endpoint type soap");
+		// 错误信息包含出错的接口序号及类名
+		invalid("[" + jaxws("").substring(1, jaxws("").length() - 1) + ", {\"class\": \"x.Bad\", \"methods\": [{\"operationName\": \"a\", \"exclude\": 1}]}]",
+				"Invalid endpoint #1 (x.Bad)");
+		// JSON 格式错误
+		invalid("{\"endpoints\": [}", "at position");
+		invalid("[] []", "Unexpected trailing content");
+	}
+
+}
@@ -0,0 +1,127 @@
+package org.apache.cxf.endpoint;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointClassCache_Test {
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("endpoint-cache");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		List<Path> files = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		}
+		for (Path file : files) {
+			Files.deleteIfExists(file);
+		}
+		Files.deleteIfExists(directory);
+	}
+
+	private static String key(Object... values) {
+		return new EndpointFingerprint().update(values).toHex();
+	}
+
+	private List<Path> files() throws IOException {
+		List<Path> files = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.bin")) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		}
+		files.sort(Comparator.comparing(Path::toString));
+		return files;
+	}
+
+	@Test
+	public void testHitAndMiss() {
+
+		EndpointClassCache cache = new EndpointClassCache(directory);
+		String key = key("org.apache.cxf.spring.boot.CacheCase", "hello");
+		assertNull(cache.get(key));
+
+		byte[] bytes = { 1, 2, 3, 4 };
+		cache.put(key, bytes);
+		assertArrayEquals(bytes, cache.get(key));
+		// 定义不同时摘要不同
+		assertNull(cache.get(key("org.apache.cxf.spring.boot.CacheCase", "hello2")));
+		assertNotEquals(key, key("org.apache.cxf.spring.boot.CacheCase", String.class));
+
+		cache.remove(key);
+		assertNull(cache.get(key));
+	}
+
+	@Test
+	public void testCorruption() throws IOException {
+
+		EndpointClassCache cache = new EndpointClassCache(directory);
+		String key = key("org.apache.cxf.spring.boot.CacheCase", "corrupt");
+		cache.put(key, new byte[] { 1, 2, 3, 4 });
+		assertEquals(1, cache.getEntries());
+
+		Path file = files().get(0);
+		byte[] content = Files.readAllBytes(file);
+		content[content.length - 1] ^= 0x7F;
+		Files.write(file, content);
+
+		// 校验失败的文件按未命中处理并删除
+		assertNull(cache.get(key));
+		assertFalse(Files.exists(file));
+		assertEquals(0, cache.getEntries());
+	}
+
+	@Test
+	public void testEviction() throws IOException {
+
+		EndpointClassCache cache = new EndpointClassCache(directory, 1024 * 1024, 10);
+		List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < 10; i++) {
+			String key = key("org.apache.cxf.spring.boot.CacheCase", i);
+			keys.add(key);
+			cache.put(key, new byte[] { (byte) i });
+			Files.setLastModifiedTime(directory.resolve(key + ".bin"), FileTime.fromMillis(1000L * (i + 1)));
+		}
+		assertEquals(10, files().size());
+		assertEquals(10, cache.getEntries());
+
+		// 命中的文件最近使用，不会被淘汰
+		assertArrayEquals(new byte[] { 0 }, cache.get(keys.get(0)));
+
+		// 超出数量限制后淘汰到限制的 90%
+		cache.put(key("org.apache.cxf.spring.boot.CacheCase", 10), new byte[] { 10 });
+		assertEquals(9, files().size());
+		assertEquals(9, cache.getEntries());
+		assertTrue(Files.exists(directory.resolve(keys.get(0) + ".bin")));
+		for (String evicted : Arrays.asList(keys.get(1), keys.get(2))) {
+			assertNull(cache.get(evicted));
+		}
+		assertArrayEquals(new byte[] { 3 }, cache.get(keys.get(3)));
+	}
+
+}
@@ -0,0 +1,125 @@
+package org.apache.cxf.endpoint;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javassist.ClassPool;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.EndpointTestTransport.Reply;
+import org.apache.cxf.endpoint.jaxws.JaxwsEndpointApiCtClassBuilder;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointClassDefiner_Test {
+
+	private static final InvocationHandler HANDLER = (proxy, method, args) -> "echo:" + args[0];
+
+	private static Object instance(ClassPool pool, String classname, EndpointLoading loading) throws Exception {
+		return new JaxwsEndpointApiCtClassBuilder(pool, classname)
+				.loading(loading)
+				.webService("echo", "http://ws.cxf.com", "echo")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("echo"), null, new SoapParam<String>(String.class, "text"))
+				.toInstance(HANDLER);
+	}
+
+	/**
+	 * 在独立的父加载器下定义动态类并调用一次，返回类、类的加载器及父加载器的弱引用；
+	 * ClassPool 在切换上下文加载器之前创建，避免共享的默认 ClassPool 引用即将回收的加载器
+	 */
+	private static WeakReference<?>[] define(String classname, EndpointLoading loading) throws Exception {
+		ClassPool pool = new ClassPool(true);
+		ClassLoader context = Thread.currentThread().getContextClassLoader();
+		URLClassLoader parent = new URLClassLoader(new URL[0], EndpointClassDefiner_Test.class.getClassLoader());
+		Thread.currentThread().setContextClassLoader(parent);
+		try {
+			Object instance = instance(pool, classname, loading);
+			Class<?> type = instance.getClass();
+			assertEquals("echo:a", type.getMethod("echo", String.class).invoke(instance, "a"));
+			assertEquals(parent, type.getClassLoader().getParent());
+			return new WeakReference<?>[] { new WeakReference<Class<?>>(type), new WeakReference<ClassLoader>(type.getClassLoader()),
+				new WeakReference<ClassLoader>(parent) };
+		} finally {
+			Thread.currentThread().setContextClassLoader(context);
+		}
+	}
+
+	private static void awaitCleared(WeakReference<?>... references) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			boolean cleared = true;
+			for (WeakReference<?> reference : references) {
+				cleared &= reference.get() == null;
+			}
+			if (cleared) {
+				return;
+			}
+			System.gc();
+			Thread.sleep(20);
+		}
+		for (WeakReference<?> reference : references) {
+			assertNull(reference.get());
+		}
+	}
+
+	@Test
+	public void testUnloadHidden() throws Exception {
+
+		WeakReference<?>[] references = define("org.apache.cxf.spring.boot.DefinerCaseV1", EndpointLoading.HIDDEN);
+		// 隐藏类、宿主类的加载器及父加载器均可回收
+		awaitCleared(references);
+
+		// 宿主类卸载后按需重新生成
+		references = define("org.apache.cxf.spring.boot.DefinerCaseV1", EndpointLoading.HIDDEN);
+		awaitCleared(references);
+	}
+
+	@Test
+	public void testUnloadIsolated() throws Exception {
+
+		WeakReference<?>[] references = define("org.apache.cxf.spring.boot.DefinerCaseV2", EndpointLoading.ISOLATED);
+		awaitCleared(references);
+	}
+
+	@Test
+	public void testPublishHidden() throws Exception {
+
+		Object implementor = instance(new ClassPool(true), "org.apache.cxf.spring.boot.DefinerCaseV3", EndpointLoading.HIDDEN);
+		// 隐藏类的类名带有 /0x... 后缀
+		assertTrue(implementor.getClass().isHidden());
+		assertNotEquals("org.apache.cxf.spring.boot.DefinerCaseV3", implementor.getClass().getName());
+		assertEquals("org.apache.cxf.spring.boot.DefinerCaseV3", EndpointClassDefiner.nameOf(implementor.getClass()));
+
+		Bus bus = EndpointTestTransport.newBus();
+		try {
+			JaxWsServerFactoryBean factory = new JaxWsServerFactoryBean();
+			factory.setBus(bus);
+			factory.setServiceClass(implementor.getClass());
+			factory.setServiceBean(implementor);
+			factory.setAddress("test://hidden");
+			factory.create();
+
+			Reply wsdl = EndpointTestTransport.send(bus, "test://hidden", "GET", "?wsdl", null);
+			assertEquals(200, wsdl.getStatus());
+			assertTrue(wsdl.getBody(), wsdl.getBody().contains("definitions"));
+
+			Reply reply = EndpointTestTransport.send(bus, "test://hidden", "POST", "",
+					"<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+					+ "<ns:echo xmlns:ns=\"http://ws.cxf.com\"><text>a</text></ns:echo></soap:Body></soap:Envelope>");
+			assertEquals(reply.getBody(), 200, reply.getStatus());
+			assertTrue(reply.getBody(), reply.getBody().contains("echo:a"));
+		} finally {
+			bus.shutdown(true);
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package org.apache.cxf.endpoint;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EndpointExecutors_Test {
+
+	@Test
+	public void testShared() throws Exception {
+
+		assertSame(EndpointExecutors.virtualThreadExecutor(), EndpointExecutors.virtualThreadExecutor());
+		assertEquals("ok", EndpointExecutors.virtualThreadExecutor().submit(() -> "ok").get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testArguments() throws Exception {
+
+		try {
+			EndpointExecutors.newVirtualThreadExecutor(0, 1);
+			fail("maxThreads must be positive");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			EndpointExecutors.newVirtualThreadExecutor(1, -1);
+			fail("queueCapacity must not be negative");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testBounded() throws Exception {
+
+		// 退化为平台线程时才有上限
+		Assume.assumeFalse(EndpointExecutors.isVirtualThreadSupported());
+
+		ExecutorService executor = EndpointExecutors.newVirtualThreadExecutor(1, 1);
+		final CountDownLatch running = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		try {
+			assertTrue(executor instanceof ThreadPoolExecutor);
+			Future<Boolean> first = executor.submit(() -> {
+				running.countDown();
+				release.await();
+				return Thread.currentThread().isDaemon() && Thread.currentThread().getName().startsWith("endpoint-handler-");
+			});
+			assertTrue(running.await(10, TimeUnit.SECONDS));
+			// 唯一的线程忙碌时任务进入队列
+			Future<String> second = executor.submit(() -> "second");
+			// 线程与队列均已满时拒绝任务
+			try {
+				executor.submit(() -> "third");
+				fail("task must be rejected");
+			} catch (RejectedExecutionException e) {
+				// expected
+			}
+			release.countDown();
+			assertTrue(first.get(10, TimeUnit.SECONDS));
+			assertEquals("second", second.get(10, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.apache.cxf.endpoint;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class EndpointKeyedCache_Test {
+
+	@Test
+	public void testConcurrent() throws Exception {
+
+		final EndpointKeyedCache<String, String> cache = new EndpointKeyedCache<String, String>();
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger loads = new AtomicInteger();
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			Future<String> slow = executor.submit(() -> cache.get("slow", () -> {
+				loads.incrementAndGet();
+				loading.countDown();
+				release.await();
+				return "slow";
+			}));
+			loading.await(10, TimeUnit.SECONDS);
+			Future<String> waiting = executor.submit(() -> cache.<Exception>get("slow", () -> {
+				loads.incrementAndGet();
+				return "again";
+			}));
+
+			// 其他键不等待正在计算的键
+			assertEquals("fast", executor.submit(() -> cache.get("fast", () -> "fast")).get(10, TimeUnit.SECONDS));
+			assertNull(cache.getIfPresent("slow"));
+			assertFalse(waiting.isDone());
+
+			release.countDown();
+			assertEquals("slow", slow.get(10, TimeUnit.SECONDS));
+			// 并发的调用方取得同一次计算的结果
+			assertEquals("slow", waiting.get(10, TimeUnit.SECONDS));
+			assertEquals(1, loads.get());
+			assertEquals("slow", cache.getIfPresent("slow"));
+			assertEquals(2, cache.getMisses());
+			assertEquals(1, cache.getHits());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+
+		EndpointKeyedCache<String, String> cache = new EndpointKeyedCache<String, String>();
+		final IOException failure = new IOException("failed");
+		try {
+			cache.<IOException>get("key", () -> {
+				throw failure;
+			});
+			fail("load failure must be propagated");
+		} catch (IOException e) {
+			assertSame(failure, e);
+		}
+		// 失败的键被移除，之后重新计算
+		assertEquals(0, cache.size());
+		assertEquals("value", cache.get("key", () -> "value"));
+		assertEquals("value", cache.remove("key"));
+		assertNull(cache.getIfPresent("key"));
+	}
+
+}
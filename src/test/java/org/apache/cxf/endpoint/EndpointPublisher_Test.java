@@ -0,0 +1,203 @@
+package org.apache.cxf.endpoint;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.annotation.WebEndpoint;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EndpointPublisher_Test {
+
+	public static class CountingInterceptor extends AbstractPhaseInterceptor<Message> {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public CountingInterceptor() {
+			super(Phase.RECEIVE);
+		}
+
+		@Override
+		public void handleMessage(Message message) {
+			count.incrementAndGet();
+		}
+
+	}
+
+	@Path("/")
+	@WebEndpoint(addr = "test://first", inInterceptors = "org.apache.cxf.endpoint.EndpointPublisher_Test$CountingInterceptor")
+	public static class FirstResource {
+
+		@GET
+		@Path("name")
+		@Produces("text/plain")
+		public String name() {
+			return "first";
+		}
+
+	}
+
+	@Path("/")
+	@WebEndpoint(addr = "test://second", inInterceptors = "org.apache.cxf.endpoint.EndpointPublisher_Test$CountingInterceptor")
+	public static class SecondResource {
+
+		@GET
+		@Path("name")
+		@Produces("text/plain")
+		public String name() {
+			return "second";
+		}
+
+	}
+
+	@Path("/")
+	public static class PlainResource {
+
+	}
+
+	@Path("/users")
+	@WebEndpoint(addr = "ignored", inInterceptors = "org.apache.cxf.endpoint.EndpointPublisher_Test$CountingInterceptor")
+	public static class UserResource {
+
+		@GET
+		@Path("{id}")
+		@Produces("text/plain")
+		public String user(@PathParam("id") String id) {
+			return "user " + id;
+		}
+
+	}
+
+	@Path("/orders")
+	@WebEndpoint(addr = "ignored", inInterceptors = { "", " org.apache.cxf.endpoint.EndpointPublisher_Test$CountingInterceptor" })
+	public static class OrderResource {
+
+		@GET
+		@Path("{id}")
+		@Produces("text/plain")
+		public String order(@PathParam("id") String id) {
+			return "order " + id;
+		}
+
+	}
+
+	@Path("/items")
+	public static class ItemResource {
+
+		@GET
+		@Path("{id}")
+		@Produces("text/plain")
+		public String item(@PathParam("id") String id) {
+			return "item " + id;
+		}
+
+	}
+
+	private Bus bus;
+
+	@Before
+	public void setUp() {
+		bus = EndpointTestTransport.newBus();
+	}
+
+	@After
+	public void tearDown() {
+		bus.shutdown(true);
+	}
+
+	private static CountingInterceptor counting(Server server) {
+		for (Interceptor<? extends Message> interceptor : server.getEndpoint().getInInterceptors()) {
+			if (interceptor instanceof CountingInterceptor) {
+				return (CountingInterceptor) interceptor;
+			}
+		}
+		throw new AssertionError("CountingInterceptor not installed");
+	}
+
+	@Test
+	public void testPublishAll() throws Exception {
+
+		List<Server> servers = new EndpointPublisher(bus).publishAll(Arrays.asList(new FirstResource(), new SecondResource()));
+		assertEquals(2, servers.size());
+		assertEquals("first", EndpointTestTransport.send(bus, "test://first", "GET", "/name", null).getBody());
+		assertEquals("second", EndpointTestTransport.send(bus, "test://second", "GET", "/name", null).getBody());
+
+		// 同一类名的拦截器在整批服务之间只实例化一次
+		CountingInterceptor shared = counting(servers.get(0));
+		assertSame(shared, counting(servers.get(1)));
+		assertEquals(2, shared.count.get());
+	}
+
+	@Test
+	public void testRegistered() throws Exception {
+
+		CountingInterceptor registered = new CountingInterceptor();
+		EndpointPublisher publisher = new EndpointPublisher(bus)
+				.register(CountingInterceptor.class.getName(), registered);
+		Server server = publisher.publish(new FirstResource());
+		assertSame(registered, counting(server));
+		assertEquals(200, EndpointTestTransport.send(bus, "test://first", "GET", "/name", null).getStatus());
+		assertEquals(1, registered.count.get());
+	}
+
+	@Test
+	public void testPublishAllFailure() throws Exception {
+
+		EndpointPublisher publisher = new EndpointPublisher(bus);
+		try {
+			publisher.publishAll(Arrays.asList(new FirstResource(), new PlainResource()));
+			fail("resource without @WebEndpoint must be rejected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains(PlainResource.class.getName()));
+		}
+		// 任一服务创建失败时不启动任何服务
+		assertEquals(404, EndpointTestTransport.send(bus, "test://first", "GET", "/name", null).getStatus());
+
+		// 之后可以在同一地址重新发布
+		List<Server> servers = publisher.publishAll(Arrays.asList(new FirstResource()));
+		assertEquals("first", EndpointTestTransport.send(bus, "test://first", "GET", "/name", null).getBody());
+		servers.get(0).destroy();
+		assertEquals(404, EndpointTestTransport.send(bus, "test://first", "GET", "/name", null).getStatus());
+	}
+
+	@Test
+	public void testPublishShared() throws Exception {
+
+		Server server = new EndpointPublisher(bus).publishShared("test://shared", Arrays.asList(new UserResource(), new OrderResource()));
+		assertEquals("user 1", EndpointTestTransport.send(bus, "test://shared", "GET", "/users/1", null).getBody());
+		assertEquals("order 2", EndpointTestTransport.send(bus, "test://shared", "GET", "/orders/2", null).getBody());
+		assertEquals(404, EndpointTestTransport.send(bus, "test://shared", "GET", "/items/3", null).getStatus());
+		// 声明相同的拦截器只添加一次，每个请求只经过一次
+		assertEquals(3, counting(server).count.get());
+	}
+
+	@Test
+	public void testPublishSharedDifferentChains() throws Exception {
+
+		try {
+			new EndpointPublisher(bus).publishShared("test://shared", Arrays.asList(new UserResource(), new ItemResource()));
+			fail("resources declaring different interceptors must be rejected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains(ItemResource.class.getName()));
+		}
+		assertEquals(404, EndpointTestTransport.send(bus, "test://shared", "GET", "/users/1", null).getStatus());
+	}
+
+}
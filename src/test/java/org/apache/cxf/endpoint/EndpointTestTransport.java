@@ -0,0 +1,330 @@
+package org.apache.cxf.endpoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.continuations.Continuation;
+import org.apache.cxf.continuations.ContinuationCallback;
+import org.apache.cxf.continuations.ContinuationProvider;
+import org.apache.cxf.continuations.SuspendedInvocationException;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.AbstractConduit;
+import org.apache.cxf.transport.AbstractDestination;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.Destination;
+import org.apache.cxf.transport.DestinationFactory;
+import org.apache.cxf.transport.DestinationFactoryManager;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+import org.apache.cxf.ws.addressing.EndpointReferenceUtils;
+
+/**
+ * 测试用的进程内传输：地址以 <code>test://</code> 开头，请求直接交给 {@link Destination} 的 {@link org.apache.cxf.transport.MessageObserver}，
+ * 响应由回传通道记录在 {@link Reply} 中
+ * <p>与 Servlet 异步请求相同，请求可以通过 {@link Continuation} 挂起，此时 {@link #send} 返回的响应状态为 -1，
+ * 恢复时在调用 {@link Continuation#resume()} 的线程上继续执行拦截器链并写出响应。</p>
+ */
+public class EndpointTestTransport implements DestinationFactory {
+
+	public static final String TRANSPORT_ID = "http://cxf.apache.org/transports/endpoint-test";
+	public static final String PREFIX = "test://";
+
+	private static final Logger LOG = Logger.getLogger(EndpointTestTransport.class.getName());
+
+	private final ConcurrentMap<String, TestDestination> destinations = new ConcurrentHashMap<String, TestDestination>();
+
+	/**
+	 * 创建注册了该传输的 {@link Bus}
+	 * @return The Bus
+	 */
+	public static Bus newBus() {
+		Bus bus = BusFactory.newInstance().createBus();
+		bus.getExtension(DestinationFactoryManager.class).registerDestinationFactory(TRANSPORT_ID, new EndpointTestTransport());
+		return bus;
+	}
+
+	/**
+	 * 向地址发送请求
+	 * @param bus			: 注册了该传输的 {@link Bus}
+	 * @param address		: 服务地址，如 <code>test://users</code>
+	 * @param method		: HTTP 方法
+	 * @param path			: 地址之后的路径，可包含查询参数
+	 * @param body			: 请求内容，可为 null
+	 * @return 响应，未写出响应时状态为 -1
+	 */
+	public static Reply send(final Bus bus, final String address, final String method, final String path, final String body) {
+		return send(bus, address, null, method, path, body);
+	}
+
+	/**
+	 * 把请求交给指定的 {@link MessageObserver}，用于模拟取得入口后地址才被注销的请求
+	 * @param bus			: 注册了该传输的 {@link Bus}
+	 * @param address		: 服务地址
+	 * @param observer		: 处理请求的入口，为 null 时使用地址当前的入口
+	 * @param method		: HTTP 方法
+	 * @param path			: 地址之后的路径，可包含查询参数
+	 * @param body			: 请求内容，可为 null
+	 * @return 响应，未写出响应时状态为 -1
+	 */
+	public static Reply send(final Bus bus, final String address, final MessageObserver observer, final String method,
+			final String path, final String body) {
+		TestDestination destination = (TestDestination) destination(bus, address);
+		MessageObserver target = observer != null ? observer : destination == null ? null : destination.getMessageObserver();
+		if (target == null) {
+			return new Reply(404);
+		}
+		int index = path.indexOf('?');
+		String pathInfo = index < 0 ? path : path.substring(0, index);
+		String query = index < 0 ? null : path.substring(index + 1);
+
+		Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+		headers.put("Accept", Collections.singletonList("*/*"));
+		MessageImpl message = new MessageImpl();
+		message.put(Message.HTTP_REQUEST_METHOD, method);
+		message.put(Message.REQUEST_URL, address + pathInfo);
+		// 与 Servlet 相同，REQUEST_URI 及 PATH_INFO 只包含路径
+		message.put(Message.REQUEST_URI, pathInfo);
+		message.put(Message.PATH_INFO, pathInfo);
+		message.put(Message.QUERY_STRING, query);
+		message.put(Message.ACCEPT_CONTENT_TYPE, "*/*");
+		if (body != null) {
+			message.put(Message.CONTENT_TYPE, "text/plain");
+			headers.put("Content-Type", Collections.singletonList("text/plain"));
+		}
+		message.put(Message.PROTOCOL_HEADERS, headers);
+		message.setContent(InputStream.class, new ByteArrayInputStream(body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8)));
+
+		Reply reply = new Reply(-1);
+		message.put(Reply.class, reply);
+		message.put(ContinuationProvider.class.getName(), new TestContinuation(message));
+		ExchangeImpl exchange = new ExchangeImpl();
+		exchange.setInMessage(message);
+		exchange.setDestination(destination);
+		message.setExchange(exchange);
+		try {
+			target.onMessage(message);
+		} catch (SuspendedInvocationException e) {
+			// 请求已挂起，恢复后写出响应
+		}
+		return reply;
+	}
+
+	/**
+	 * @param bus			: 注册了该传输的 {@link Bus}
+	 * @param address		: 服务地址
+	 * @return 地址对应的 {@link Destination}，尚未创建时返回 null
+	 */
+	public static Destination destination(final Bus bus, final String address) {
+		EndpointTestTransport transport = (EndpointTestTransport) bus.getExtension(DestinationFactoryManager.class).getDestinationFactoryForUri(address);
+		return transport.destinations.get(address);
+	}
+
+	@Override
+	public Destination getDestination(final EndpointInfo info, final Bus bus) throws IOException {
+		return destinations.computeIfAbsent(info.getAddress(), address -> new TestDestination(bus, EndpointReferenceUtils.getEndpointReference(address), info));
+	}
+
+	@Override
+	public Set<String> getUriPrefixes() {
+		return Collections.singleton(PREFIX);
+	}
+
+	@Override
+	public List<String> getTransportIds() {
+		return Arrays.asList(TRANSPORT_ID);
+	}
+
+	/**
+	 * 回传通道记录的响应
+	 */
+	public static final class Reply {
+
+		private volatile int status;
+		private volatile String body;
+
+		private Reply(final int status) {
+			this.status = status;
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+		public String getBody() {
+			return body;
+		}
+
+	}
+
+	private static final class TestContinuation implements ContinuationProvider, Continuation {
+
+		private final Message message;
+		private volatile boolean isNew = true;
+		private volatile boolean pending;
+		private volatile boolean resumed;
+		private volatile Object object;
+
+		private TestContinuation(final Message message) {
+			this.message = message;
+		}
+
+		@Override
+		public Continuation getContinuation() {
+			return this;
+		}
+
+		@Override
+		public void complete() {
+			ContinuationCallback callback = message.getExchange().get(ContinuationCallback.class);
+			if (callback != null) {
+				callback.onComplete();
+			}
+		}
+
+		@Override
+		public synchronized boolean suspend(long timeout) {
+			if (pending) {
+				return false;
+			}
+			isNew = false;
+			pending = true;
+			resumed = false;
+			message.getInterceptorChain().suspend();
+			return true;
+		}
+
+		@Override
+		public void resume() {
+			synchronized (this) {
+				resumed = true;
+				if (!pending) {
+					return;
+				}
+				pending = false;
+			}
+			message.getInterceptorChain().resume();
+		}
+
+		@Override
+		public void reset() {
+			pending = false;
+			resumed = false;
+			isNew = false;
+			object = null;
+		}
+
+		@Override
+		public boolean isNew() {
+			return isNew;
+		}
+
+		@Override
+		public boolean isPending() {
+			return pending;
+		}
+
+		@Override
+		public boolean isResumed() {
+			return resumed;
+		}
+
+		@Override
+		public boolean isTimeout() {
+			return false;
+		}
+
+		@Override
+		public Object getObject() {
+			return object;
+		}
+
+		@Override
+		public void setObject(Object o) {
+			this.object = o;
+		}
+
+		@Override
+		public boolean isReadyForWrite() {
+			return true;
+		}
+
+	}
+
+	private static final class TestDestination extends AbstractDestination {
+
+		private TestDestination(final Bus bus, final EndpointReferenceType reference, final EndpointInfo info) {
+			super(bus, reference, info);
+		}
+
+		@Override
+		protected Conduit getInbuiltBackChannel(final Message inMessage) {
+			return new BackChannel(inMessage.get(Reply.class));
+		}
+
+		@Override
+		protected Logger getLogger() {
+			return LOG;
+		}
+
+	}
+
+	private static final class BackChannel extends AbstractConduit {
+
+		private final Reply reply;
+
+		private BackChannel(final Reply reply) {
+			super(EndpointReferenceUtils.getAnonymousEndpointReference());
+			this.reply = reply;
+		}
+
+		@Override
+		public void prepare(final Message message) throws IOException {
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			message.setContent(OutputStream.class, new OutputStream() {
+
+				@Override
+				public void write(int b) {
+					buffer.write(b);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+					buffer.write(b, off, len);
+				}
+
+				@Override
+				public void close() {
+					Integer code = (Integer) message.get(Message.RESPONSE_CODE);
+					reply.body = new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+					reply.status = code == null ? 200 : code;
+				}
+
+			});
+		}
+
+		@Override
+		protected Logger getLogger() {
+			return LOG;
+		}
+
+	}
+
+}
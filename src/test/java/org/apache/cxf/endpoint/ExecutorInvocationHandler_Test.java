@@ -0,0 +1,188 @@
+package org.apache.cxf.endpoint;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.endpoint.jaxrs.JaxrsEndpointApiCtClassBuilder;
+import org.apache.cxf.endpoint.jaxrs.definition.HttpMethodEnum;
+import org.apache.cxf.endpoint.jaxrs.definition.RestMethod;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ExecutorInvocationHandler_Test {
+
+	public interface Api {
+
+		CompletionStage<String> find(String id);
+
+		CompletionStage<String> slow(String id);
+
+		String name();
+
+	}
+
+	/**
+	 * 记录执行次数的执行器，任务在新线程上执行
+	 */
+	private static final class CountingExecutor implements Executor {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public void execute(Runnable command) {
+			count.incrementAndGet();
+			new Thread(command).start();
+		}
+
+	}
+
+	private static Method method(String name) throws Exception {
+		for (Method method : Api.class.getMethods()) {
+			if (method.getName().equals(name)) {
+				return method;
+			}
+		}
+		throw new NoSuchMethodException(name);
+	}
+
+	private static Object get(CompletionStage<?> stage) throws Exception {
+		return stage.toCompletableFuture().get(10, TimeUnit.SECONDS);
+	}
+
+	private static Throwable failure(CompletionStage<?> stage) throws Exception {
+		try {
+			get(stage);
+			fail("stage must complete exceptionally");
+			return null;
+		} catch (ExecutionException e) {
+			return e.getCause();
+		}
+	}
+
+	@Test
+	public void testExecutors() throws Throwable {
+
+		final Thread caller = Thread.currentThread();
+		InvocationHandler delegate = (proxy, method, args) -> method.getName() + ":" + (Thread.currentThread() == caller);
+		CountingExecutor executor = new CountingExecutor();
+		CountingExecutor slow = new CountingExecutor();
+		ExecutorInvocationHandler handler = new ExecutorInvocationHandler(delegate, executor, Collections.<String, Executor>singletonMap("slow", slow));
+
+		// 异步方法交给执行器，按方法名称单独指定的执行器优先
+		assertEquals("find:false", get((CompletionStage<?>) handler.invoke(null, 0, EndpointBinding.EMPTY, method("find"), new Object[] { "a" })));
+		assertEquals("slow:false", get((CompletionStage<?>) handler.invoke(null, 1, EndpointBinding.EMPTY, method("slow"), new Object[] { "a" })));
+		assertEquals(1, executor.count.get());
+		assertEquals(1, slow.count.get());
+
+		// 同步方法在调用线程上执行
+		assertEquals("name:true", handler.invoke(null, 2, EndpointBinding.EMPTY, method("name"), null));
+		assertEquals(1, executor.count.get());
+
+		// 未指定执行器的方法在调用线程上执行
+		ExecutorInvocationHandler partial = new ExecutorInvocationHandler(delegate, null, Collections.<String, Executor>singletonMap("slow", slow));
+		CompletionStage<?> stage = partial.invokeAsync(null, 0, EndpointBinding.EMPTY, method("find"), new Object[] { "a" });
+		assertTrue(stage.toCompletableFuture().isDone());
+		assertEquals("find:true", get(stage));
+		assertEquals(1, slow.count.get());
+	}
+
+	@Test
+	public void testRejected() throws Exception {
+
+		final RejectedExecutionException rejected = new RejectedExecutionException("full");
+		AtomicInteger calls = new AtomicInteger();
+		InvocationHandler delegate = (proxy, method, args) -> calls.incrementAndGet();
+		ExecutorInvocationHandler handler = new ExecutorInvocationHandler(delegate, command -> {
+			throw rejected;
+		});
+
+		// 执行器拒绝任务时以异常完成，不在调用线程上执行，也不向调用方抛出
+		CompletionStage<?> stage = handler.invokeAsync(null, 0, EndpointBinding.EMPTY, method("find"), new Object[] { "a" });
+		assertSame(rejected, failure(stage));
+		assertEquals(0, calls.get());
+	}
+
+	@Test
+	public void testFailures() throws Exception {
+
+		final IllegalStateException cause = new IllegalStateException("failed");
+		Executor inline = Runnable::run;
+
+		// 异步处理器以 CompletionException 包装的异常完成时，返回原始异常
+		EndpointAsyncHandler async = (proxy, operation, binding, method, args) -> {
+			CompletableFuture<Object> future = new CompletableFuture<Object>();
+			future.completeExceptionally(new CompletionException(cause));
+			return future;
+		};
+		ExecutorInvocationHandler handler = new ExecutorInvocationHandler(async, inline);
+		assertSame(cause, failure(handler.invokeAsync(null, 0, EndpointBinding.EMPTY, method("find"), new Object[] { "a" })));
+
+		// 处理对象直接抛出的异常同样以异常完成
+		handler = new ExecutorInvocationHandler((proxy, method, args) -> {
+			throw cause;
+		}, inline);
+		assertSame(cause, failure(handler.invokeAsync(null, 0, EndpointBinding.EMPTY, method("find"), new Object[] { "a" })));
+
+		// 处理器返回的结果原样传递
+		handler = new ExecutorInvocationHandler((EndpointAsyncHandler) (proxy, operation, binding, method, args) -> CompletableFuture.completedFuture(operation), inline);
+		assertEquals(3, get(handler.invokeAsync(null, 3, EndpointBinding.EMPTY, method("find"), new Object[] { "a" })));
+	}
+
+	@Test
+	public void testBuilder() throws Exception {
+
+		InvocationHandler delegate = (proxy, method, args) -> "r";
+		RestMethod async = new RestMethod(HttpMethodEnum.GET, "find", "find");
+		async.setAsync(true);
+
+		// 没有异步方法时设置执行器是配置错误
+		try {
+			new JaxrsEndpointApiCtClassBuilder("org.apache.cxf.spring.boot.ExecutorCaseV1")
+					.path("/executor")
+					.newMethod(String.class, new RestMethod(HttpMethodEnum.GET, "name", "name"))
+					.executor(Runnable::run)
+					.toInstance(delegate);
+			fail("executor without async method must be rejected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		// 为同步方法单独设置执行器同样是配置错误
+		try {
+			new JaxrsEndpointApiCtClassBuilder("org.apache.cxf.spring.boot.ExecutorCaseV2")
+					.path("/executor")
+					.newMethod(String.class, async)
+					.newMethod(String.class, new RestMethod(HttpMethodEnum.GET, "name", "name"))
+					.executor("name", Runnable::run)
+					.toInstance(delegate);
+			fail("executor for a sync method must be rejected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		CountingExecutor executor = new CountingExecutor();
+		Object instance = new JaxrsEndpointApiCtClassBuilder("org.apache.cxf.spring.boot.ExecutorCaseV3")
+				.path("/executor")
+				.newMethod(String.class, async)
+				.newMethod(String.class, new RestMethod(HttpMethodEnum.GET, "name", "name"))
+				.executor("find", executor)
+				.toInstance(delegate);
+		assertEquals("r", get((CompletionStage<?>) instance.getClass().getMethod("find").invoke(instance)));
+		assertEquals("r", instance.getClass().getMethod("name").invoke(instance));
+		assertEquals(1, executor.count.get());
+	}
+
+}
@@ -0,0 +1,143 @@
+package org.apache.cxf.endpoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.endpoint.jaxws.JaxwsEndpointApiCtClassBuilder;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+
+public class ParallelEndpointGenerator_Test {
+
+	private static ParallelEndpointGenerator generator(ForkJoinPool executor) {
+		return new ParallelEndpointGenerator(executor, ClassPool.getDefault(), ParallelEndpointGenerator_Test.class.getClassLoader());
+	}
+
+	private static ParallelEndpointGenerator.Definition definition(final String classname, final long delay) {
+		return pool -> {
+			if (delay > 0) {
+				Thread.sleep(delay);
+			}
+			return new JaxwsEndpointApiCtClassBuilder(pool, classname)
+					.webService("get", "http://ws.cxf.com", "getxx")
+					.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("echo"), null, new SoapParam<String>(String.class, "text"));
+		};
+	}
+
+	@Test
+	public void testOrder() throws Exception {
+
+		ForkJoinPool executor = new ForkJoinPool(4);
+		try {
+			List<ParallelEndpointGenerator.Definition> definitions = new ArrayList<ParallelEndpointGenerator.Definition>();
+			for (int i = 0; i < 8; i++) {
+				// 靠前的定义编译得更慢，结果仍按定义顺序返回
+				definitions.add(definition("org.apache.cxf.spring.boot.ParallelCaseV" + i, (8 - i) * 20L));
+			}
+			List<Class<?>> classes = generator(executor).generate(definitions);
+			assertEquals(8, classes.size());
+			for (int i = 0; i < 8; i++) {
+				assertEquals("org.apache.cxf.spring.boot.ParallelCaseV" + i, classes.get(i).getName());
+				assertTrue(classes.get(i).isAnnotationPresent(jakarta.jws.WebService.class));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testDeterministic() throws Exception {
+
+		ForkJoinPool executor = new ForkJoinPool(4);
+		try {
+			List<ParallelEndpointGenerator.Definition> definitions = new ArrayList<ParallelEndpointGenerator.Definition>();
+			for (int i = 0; i < 6; i++) {
+				definitions.add(definition("org.apache.cxf.spring.boot.CompileCaseV" + i, i % 2 == 0 ? 10L : 0L));
+			}
+			Map<String, byte[]> first = generator(executor).compile(definitions);
+			List<ParallelEndpointGenerator.Definition> reversed = new ArrayList<ParallelEndpointGenerator.Definition>(definitions);
+			Collections.reverse(reversed);
+			Map<String, byte[]> second = generator(executor).compile(reversed);
+
+			assertEquals(Arrays.asList("org.apache.cxf.spring.boot.CompileCaseV0", "org.apache.cxf.spring.boot.CompileCaseV1",
+					"org.apache.cxf.spring.boot.CompileCaseV2", "org.apache.cxf.spring.boot.CompileCaseV3",
+					"org.apache.cxf.spring.boot.CompileCaseV4", "org.apache.cxf.spring.boot.CompileCaseV5"), new ArrayList<String>(first.keySet()));
+			// 字节码与执行的线程及顺序无关
+			for (Map.Entry<String, byte[]> entry : first.entrySet()) {
+				assertArrayEquals(entry.getKey(), entry.getValue(), second.get(entry.getKey()));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+
+		ForkJoinPool executor = new ForkJoinPool(1);
+		try {
+			final CannotCompileException failure = new CannotCompileException("broken");
+			final CountDownLatch blocked = new CountDownLatch(1);
+			final AtomicInteger started = new AtomicInteger();
+			List<ParallelEndpointGenerator.Definition> definitions = new ArrayList<ParallelEndpointGenerator.Definition>();
+			definitions.add(pool -> {
+				started.incrementAndGet();
+				throw failure;
+			});
+			definitions.add(pool -> {
+				started.incrementAndGet();
+				blocked.await();
+				return definition("org.apache.cxf.spring.boot.FailureCaseV1", 0).define(pool);
+			});
+			for (int i = 2; i < 10; i++) {
+				final ParallelEndpointGenerator.Definition definition = definition("org.apache.cxf.spring.boot.FailureCaseV" + i, 0);
+				definitions.add(pool -> {
+					started.incrementAndGet();
+					return definition.define(pool);
+				});
+			}
+			try {
+				generator(executor).generate(definitions);
+				fail("compile failure must be propagated");
+			} catch (CannotCompileException e) {
+				// 原样抛出首个失败的异常
+				assertSame(failure, e);
+			}
+			blocked.countDown();
+			assertTrue(executor.awaitQuiescence(10, TimeUnit.SECONDS));
+			// 失败后尚未开始的编译任务被取消
+			assertTrue("started " + started.get(), started.get() < definitions.size());
+
+			// 其他异常包装为 CannotCompileException
+			try {
+				generator(executor).generate(Arrays.asList((ParallelEndpointGenerator.Definition) pool -> {
+					throw new IllegalStateException("invalid");
+				}));
+				fail("compile failure must be propagated");
+			} catch (CannotCompileException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+package org.apache.cxf.endpoint;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.apache.cxf.endpoint.jaxws.JaxwsEndpointApiCtClassBuilder;
+import org.apache.cxf.endpoint.jaxws.definition.SoapBound;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class PrebuiltEndpoints_Test {
+
+	private static final String CLASSNAME = "org.apache.cxf.spring.boot.PrebuiltCaseV1";
+
+	private static final EndpointInvocationHandler HANDLER = new EndpointInvocationHandler() {
+
+		@Override
+		public Object invoke(Object proxy, int operation, Method method, Object[] args) throws Throwable {
+			return null;
+		}
+
+		@Override
+		public Object invoke(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) throws Throwable {
+			return binding.getUid() + ":" + binding.getString("v") + ":" + args[0];
+		}
+
+	};
+
+	private static File dir;
+
+	@BeforeClass
+	public static void generate() throws Exception {
+
+		dir = Files.createTempDirectory("prebuilt").toFile();
+		EndpointClassGenerator generator = new EndpointClassGenerator(dir);
+		generator.generate(new JaxwsEndpointApiCtClassBuilder(CLASSNAME)
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.bind("class", "{\"v\":\"c\"}")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("bound"), new SoapBound("method", "{\"v\":\"m\"}"), new SoapParam<String>(String.class, "text"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("plain"), null, new SoapParam<String>(String.class, "text")));
+		generator.writeIndex();
+		// 与新启动的进程一样，没有构建期登记的绑定数据
+		EndpointBindings.removeAll(CLASSNAME);
+	}
+
+	@AfterClass
+	public static void clean() throws Exception {
+		try (Stream<Path> paths = Files.walk(dir.toPath())) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	private static URLClassLoader loader() throws Exception {
+		return new URLClassLoader(new URL[] { dir.toURI().toURL() }, PrebuiltEndpoints_Test.class.getClassLoader());
+	}
+
+	private static Object call(Object instance, String method) throws Exception {
+		return instance.getClass().getMethod(method, String.class).invoke(instance, "x");
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+
+		try (URLClassLoader loader = loader()) {
+			assertTrue(PrebuiltEndpoints.getClassnames(loader).contains(CLASSNAME));
+
+			Class<?> type = PrebuiltEndpoints.load(CLASSNAME, loader);
+			Object instance = type.getConstructor(InvocationHandler.class).newInstance(HANDLER);
+			// 绑定数据从注解中读取，方法未单独绑定时使用类级别的绑定
+			assertEquals("method:m:x", call(instance, "bound"));
+			assertEquals("class:c:x", call(instance, "plain"));
+		}
+	}
+
+	@Test
+	public void testLoaders() throws Exception {
+
+		try (URLClassLoader first = loader(); URLClassLoader second = loader()) {
+			// 不同类加载器中的同名类互不干扰
+			Class<?> one = PrebuiltEndpoints.load(CLASSNAME, first);
+			Class<?> other = PrebuiltEndpoints.load(CLASSNAME, second);
+			assertNotSame(one, other);
+			assertEquals(first, one.getClassLoader());
+			assertEquals(second, other.getClassLoader());
+			assertEquals("method:m:x", call(other.getConstructor(InvocationHandler.class).newInstance(HANDLER), "bound"));
+		}
+	}
+
+	@Test
+	public void testDirect() throws Exception {
+
+		try (URLClassLoader loader = loader()) {
+			// 不经过 PrebuiltEndpoints 加载的类在首次调用时读取注解
+			Class<?> type = Class.forName(CLASSNAME, true, loader);
+			Object instance = type.getConstructor(InvocationHandler.class).newInstance(HANDLER);
+			assertEquals("method:m:x", call(instance, "bound"));
+			assertEquals("class:c:x", call(instance, "plain"));
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+package org.apache.cxf.endpoint;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class RingBufferFaultSink_Test {
+
+	private static final String CLASSNAME = "org.apache.cxf.spring.boot.FaultCaseV1";
+
+	// 后台线程在测试期间不会运行，drain 由测试线程直接调用
+	private static RingBufferFaultSink sink(int capacity, int maxLogs) {
+		return new RingBufferFaultSink(capacity, TimeUnit.HOURS.toMillis(1), maxLogs);
+	}
+
+	@Test
+	public void testCounts() throws Exception {
+
+		RingBufferFaultSink sink = sink(16, 10);
+		try {
+			RuntimeException cause = new RuntimeException("fault");
+			// 重载方法按操作序号分别计数
+			sink.fault(CLASSNAME, null, 0, "echo", cause);
+			sink.fault(CLASSNAME, null, 0, "echo", cause);
+			sink.fault(CLASSNAME, null, 1, "echo", cause);
+			sink.fault(CLASSNAME, null, EndpointInvocationHandler.UNKNOWN_OPERATION, "other", cause);
+			sink.fault(CLASSNAME, null, EndpointInvocationHandler.UNKNOWN_OPERATION, "another", cause);
+
+			assertEquals(2, sink.getCount(CLASSNAME, 0));
+			assertEquals(1, sink.getCount(CLASSNAME, 1));
+			assertEquals(0, sink.getCount(CLASSNAME, 2));
+			assertEquals(2, sink.getCount(CLASSNAME, EndpointInvocationHandler.UNKNOWN_OPERATION));
+			assertEquals(0, sink.getCount("org.apache.cxf.spring.boot.Missing", 0));
+
+			Map<String, Long> counts = sink.getCounts();
+			assertEquals(3, counts.size());
+			assertEquals(Long.valueOf(2), counts.get(CLASSNAME + "#echo(0)"));
+			assertEquals(Long.valueOf(1), counts.get(CLASSNAME + "#echo(1)"));
+
+			// 输出日志不影响累计次数
+			sink.drain();
+			sink.fault(CLASSNAME, null, 0, "echo", cause);
+			sink.drain();
+			assertEquals(3, sink.getCount(CLASSNAME, 0));
+			assertEquals(0, sink.getSuppressed());
+			assertEquals(0, sink.getOverwritten());
+		} finally {
+			sink.shutdown();
+		}
+	}
+
+	@Test
+	public void testSuppressed() throws Exception {
+
+		RingBufferFaultSink sink = sink(16, 2);
+		try {
+			for (int i = 0; i < 5; i++) {
+				sink.fault(CLASSNAME, null, 0, "echo", new RuntimeException("fault " + i));
+			}
+			sink.drain();
+			// 每个周期最多输出 2 条
+			assertEquals(3, sink.getSuppressed());
+			assertEquals(0, sink.getOverwritten());
+
+			// 下个周期重新计算输出条数
+			sink.fault(CLASSNAME, null, 0, "echo", new RuntimeException("fault"));
+			sink.fault(CLASSNAME, null, 0, "echo", new RuntimeException("fault"));
+			sink.drain();
+			assertEquals(3, sink.getSuppressed());
+			assertEquals(7, sink.getCount(CLASSNAME, 0));
+		} finally {
+			sink.shutdown();
+		}
+	}
+
+	@Test
+	public void testOverwritten() throws Exception {
+
+		// 容量向上取整为 4
+		RingBufferFaultSink sink = sink(3, 10);
+		try {
+			for (int i = 0; i < 10; i++) {
+				sink.fault(CLASSNAME, null, i % 2, "echo", new RuntimeException("fault " + i));
+			}
+			sink.drain();
+			assertEquals(6, sink.getOverwritten());
+			assertEquals(0, sink.getSuppressed());
+			// 被覆盖的记录仍然计入操作计数
+			assertEquals(5, sink.getCount(CLASSNAME, 0));
+			assertEquals(5, sink.getCount(CLASSNAME, 1));
+
+			// 读取后的记录不会重复计入
+			sink.drain();
+			assertEquals(6, sink.getOverwritten());
+		} finally {
+			sink.shutdown();
+		}
+	}
+
+	@Test
+	public void testSinkFailure() throws Exception {
+
+		String classname = "org.apache.cxf.spring.boot.FaultCaseV2";
+		EndpointFaults.register(classname, (name, proxy, operation, method, cause) -> {
+			throw new IllegalStateException("sink failure");
+		});
+		try {
+			// 接收对象的异常被忽略
+			EndpointFaults.fault(classname, null, 0, "echo", new RuntimeException("fault"));
+
+			final Error error = new AssertionError("sink error");
+			EndpointFaults.register(classname, (name, proxy, operation, method, cause) -> {
+				throw error;
+			});
+			try {
+				EndpointFaults.fault(classname, null, 0, "echo", new RuntimeException("fault"));
+				fail("error must not be swallowed");
+			} catch (AssertionError e) {
+				assertSame(error, e);
+			}
+		} finally {
+			EndpointFaults.register(classname, null);
+		}
+	}
+
+}
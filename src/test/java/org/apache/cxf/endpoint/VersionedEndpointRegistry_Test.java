@@ -0,0 +1,202 @@
+package org.apache.cxf.endpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.EndpointTestTransport.Reply;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.cxf.transport.MessageObserver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VersionedEndpointRegistry_Test {
+
+	@Path("/")
+	public static class VersionResource {
+
+		private final int version;
+		private final CountDownLatch entered;
+		private final CountDownLatch release;
+
+		public VersionResource(int version, CountDownLatch entered, CountDownLatch release) {
+			this.version = version;
+			this.entered = entered;
+			this.release = release;
+		}
+
+		@GET
+		@Path("version")
+		@Produces("text/plain")
+		public String version() throws InterruptedException {
+			if (entered != null) {
+				entered.countDown();
+				release.await();
+			}
+			return "v" + version;
+		}
+
+	}
+
+	private Bus bus;
+	private ExecutorService executor;
+	private VersionedEndpointRegistry registry;
+
+	@Before
+	public void setUp() {
+		bus = EndpointTestTransport.newBus();
+		executor = Executors.newCachedThreadPool();
+		registry = new VersionedEndpointRegistry(bus, executor);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+		bus.shutdown(true);
+	}
+
+	private VersionedEndpointRegistry.Deployer deployer(final String address, final CountDownLatch entered, final CountDownLatch release) {
+		return version -> {
+			JAXRSServerFactoryBean factory = new JAXRSServerFactoryBean();
+			factory.setBus(bus);
+			factory.setAddress(address);
+			factory.setResourceClasses(VersionResource.class);
+			factory.setResourceProvider(VersionResource.class,
+					new SingletonResourceProvider(new VersionResource(version, version == 1 ? entered : null, release)));
+			factory.setStart(false);
+			return factory.create();
+		};
+	}
+
+	private String get(String address) {
+		Reply reply = EndpointTestTransport.send(bus, address, "GET", "/version", null);
+		assertEquals(200, reply.getStatus());
+		return reply.getBody();
+	}
+
+	@Test
+	public void testSwap() throws Exception {
+
+		String address = "test://swap";
+		VersionedEndpointRegistry.Version first = registry.deploy("swap", deployer(address, null, null)).get(10, TimeUnit.SECONDS);
+		assertEquals("v1", get(address));
+
+		VersionedEndpointRegistry.Version second = registry.deploy("swap", deployer(address, null, null)).get(10, TimeUnit.SECONDS);
+		assertEquals(2, second.getNumber());
+		assertEquals("v2", get(address));
+		// 没有进行中的请求，旧版本立即释放
+		first.released().get(10, TimeUnit.SECONDS);
+		assertEquals(second, registry.getVersion("swap"));
+	}
+
+	@Test
+	public void testDrain() throws Exception {
+
+		final String address = "test://drain";
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		VersionedEndpointRegistry.Version first = registry.deploy("drain", deployer(address, entered, release)).get(10, TimeUnit.SECONDS);
+		Future<String> pending = executor.submit(() -> get(address));
+		assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+		registry.deploy("drain", deployer(address, entered, release)).get(10, TimeUnit.SECONDS);
+		// 新请求由新版本处理，旧版本等待进行中的请求结束
+		assertEquals("v2", get(address));
+		assertEquals(1, first.getInFlight());
+		Thread.sleep(100);
+		assertFalse(first.released().isDone());
+
+		release.countDown();
+		assertEquals("v1", pending.get(10, TimeUnit.SECONDS));
+		first.released().get(10, TimeUnit.SECONDS);
+		assertEquals(0, first.getInFlight());
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+
+		final String address = "test://timeout";
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		registry.drainTimeout(100, TimeUnit.MILLISECONDS);
+		VersionedEndpointRegistry.Version first = registry.deploy("timeout", deployer(address, entered, release)).get(10, TimeUnit.SECONDS);
+		Future<String> pending = executor.submit(() -> get(address));
+		assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+		registry.deploy("timeout", deployer(address, entered, release)).get(10, TimeUnit.SECONDS);
+		// 等待超时后直接释放
+		first.released().get(10, TimeUnit.SECONDS);
+		assertEquals(1, first.getInFlight());
+
+		release.countDown();
+		assertEquals("v1", pending.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testLazy() throws Exception {
+
+		final String address = "test://lazy";
+		final AtomicInteger deploys = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final VersionedEndpointRegistry.Deployer deployer = deployer(address, null, null);
+		registry.deployLazily("lazy", address, version -> {
+			// 第一次创建失败，之后的请求重新创建
+			if (deploys.incrementAndGet() == 1) {
+				throw new IllegalStateException("unavailable");
+			}
+			Thread.sleep(100);
+			return deployer.deploy(version);
+		}, null);
+		assertNull(registry.getVersion("lazy"));
+
+		assertEquals(503, EndpointTestTransport.send(bus, address, "GET", "/version", null).getStatus());
+		assertEquals(1, deploys.get());
+
+		// 并发的首批请求等待同一次创建
+		List<Future<String>> replies = new ArrayList<Future<String>>();
+		for (int i = 0; i < 8; i++) {
+			replies.add(executor.submit(() -> {
+				start.await();
+				return get(address);
+			}));
+		}
+		start.countDown();
+		for (Future<String> reply : replies) {
+			assertEquals("v2", reply.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(2, deploys.get());
+		assertEquals(2, registry.getVersion("lazy").getNumber());
+	}
+
+	@Test
+	public void testUndeploy() throws Exception {
+
+		String address = "test://undeploy";
+		registry.deploy("undeploy", deployer(address, null, null)).get(10, TimeUnit.SECONDS);
+		MessageObserver front = EndpointTestTransport.destination(bus, address).getMessageObserver();
+		assertEquals("v1", get(address));
+
+		registry.undeploy("undeploy").get(10, TimeUnit.SECONDS);
+		assertNull(registry.getVersion("undeploy"));
+		// 下线前已取得入口的请求以 404 结束
+		assertEquals(404, EndpointTestTransport.send(bus, address, front, "GET", "/version", null).getStatus());
+	}
+
+}
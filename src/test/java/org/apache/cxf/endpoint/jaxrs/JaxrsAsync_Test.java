@@ -0,0 +1,155 @@
+package org.apache.cxf.endpoint.jaxrs;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.EndpointAsyncHandler;
+import org.apache.cxf.endpoint.EndpointBinding;
+import org.apache.cxf.endpoint.EndpointInvoker;
+import org.apache.cxf.endpoint.EndpointTestTransport;
+import org.apache.cxf.endpoint.EndpointTestTransport.Reply;
+import org.apache.cxf.endpoint.jaxrs.definition.HttpMethodEnum;
+import org.apache.cxf.endpoint.jaxrs.definition.HttpParamEnum;
+import org.apache.cxf.endpoint.jaxrs.definition.RestBound;
+import org.apache.cxf.endpoint.jaxrs.definition.RestMethod;
+import org.apache.cxf.endpoint.jaxrs.definition.RestParam;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JaxrsAsync_Test {
+
+	private static RestMethod async(String name, String path) {
+		RestMethod method = new RestMethod(HttpMethodEnum.GET, name, path);
+		method.setAsync(true);
+		method.setMediaTypes(new String[] { "text/plain" });
+		return method;
+	}
+
+	private static JaxrsEndpointApiCtClassBuilder builder(String classname) throws Exception {
+		return new JaxrsEndpointApiCtClassBuilder(classname)
+				.path("/async")
+				.newMethod(String.class, async("find", "{id}"), new RestBound("find", "{}"), new RestParam<String>(String.class, "id", HttpParamEnum.PATH))
+				.newMethod(int.class, async("count", "count"))
+				.newMethod(async("touch", "touch"));
+	}
+
+	private static Type argument(Method method) {
+		Type type = method.getGenericReturnType();
+		assertTrue(type instanceof ParameterizedType);
+		assertSame(CompletionStage.class, ((ParameterizedType) type).getRawType());
+		return ((ParameterizedType) type).getActualTypeArguments()[0];
+	}
+
+	@Test
+	public void testSignature() throws Exception {
+
+		Class<?> type = builder("org.apache.cxf.spring.boot.RestAsyncCaseV1").toClass();
+		// 异步方法返回 CompletionStage<T>，基本类型及 void 使用包装类型
+		assertSame(CompletionStage.class, type.getMethod("find", String.class).getReturnType());
+		assertSame(String.class, argument(type.getMethod("find", String.class)));
+		assertSame(Integer.class, argument(type.getMethod("count")));
+		assertSame(Void.class, argument(type.getMethod("touch")));
+	}
+
+	@Test
+	public void testAsyncHandler() throws Exception {
+
+		final CompletableFuture<Object> pending = new CompletableFuture<Object>();
+		final EndpointBinding[] bindings = new EndpointBinding[1];
+		Object instance = builder("org.apache.cxf.spring.boot.RestAsyncCaseV2").toInstance(new EndpointAsyncHandler() {
+
+			@Override
+			public CompletionStage<?> invokeAsync(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) {
+				bindings[0] = binding;
+				return operation == 0 ? pending : CompletableFuture.completedFuture(operation);
+			}
+
+		});
+
+		// 方法直接返回处理器给出的 CompletionStage，不等待完成
+		CompletionStage<?> stage = (CompletionStage<?>) instance.getClass().getMethod("find", String.class).invoke(instance, "a");
+		assertSame(pending, stage);
+		assertFalse(stage.toCompletableFuture().isDone());
+		assertEquals("find", bindings[0].getUid());
+		pending.complete("found a");
+		assertEquals("found a", stage.toCompletableFuture().get(10, TimeUnit.SECONDS));
+
+		stage = (CompletionStage<?>) instance.getClass().getMethod("count").invoke(instance);
+		assertEquals(1, stage.toCompletableFuture().get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testFallback() throws Exception {
+
+		// 普通 InvocationHandler 同步处理，结果包装为已完成的 CompletionStage
+		InvocationHandler handler = (proxy, method, args) -> method.getName() + (args == null || args.length == 0 ? "" : ":" + args[0]);
+		Object instance = builder("org.apache.cxf.spring.boot.RestAsyncCaseV3").toInstance(handler);
+		CompletionStage<?> stage = (CompletionStage<?>) instance.getClass().getMethod("find", String.class).invoke(instance, "a");
+		assertTrue(stage.toCompletableFuture().isDone());
+		assertEquals("find:a", stage.toCompletableFuture().get());
+
+		// EndpointInvoker 按操作序号处理
+		Object invoked = builder("org.apache.cxf.spring.boot.RestAsyncCaseV4").toInvokerInstance(new EndpointInvoker() {
+
+			@Override
+			public Object invoke(Object proxy, int operation, Object[] args) throws Throwable {
+				return operation == 1 ? (Object) 7 : null;
+			}
+
+		});
+		stage = (CompletionStage<?>) invoked.getClass().getMethod("count").invoke(invoked);
+		assertEquals(7, stage.toCompletableFuture().get());
+		stage = (CompletionStage<?>) invoked.getClass().getMethod("touch").invoke(invoked);
+		assertEquals(null, stage.toCompletableFuture().get());
+	}
+
+	@Test
+	public void testServer() throws Exception {
+
+		final CompletableFuture<Object> pending = new CompletableFuture<Object>();
+		Object instance = builder("org.apache.cxf.spring.boot.RestAsyncCaseV5").toInstance(new EndpointAsyncHandler() {
+
+			@Override
+			public CompletionStage<?> invokeAsync(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) {
+				return operation == 0 ? pending : CompletableFuture.completedFuture(42);
+			}
+
+		});
+
+		Bus bus = EndpointTestTransport.newBus();
+		try {
+			JAXRSServerFactoryBean factory = new JAXRSServerFactoryBean();
+			factory.setBus(bus);
+			factory.setAddress("test://async");
+			factory.setServiceBeans(Collections.singletonList(instance));
+			factory.create();
+
+			// 已完成的 CompletionStage 直接写出响应
+			Reply reply = EndpointTestTransport.send(bus, "test://async", "GET", "/async/count", null);
+			assertEquals(200, reply.getStatus());
+			assertEquals("42", reply.getBody());
+
+			// 未完成时请求挂起，传输线程返回；完成后写出响应
+			reply = EndpointTestTransport.send(bus, "test://async", "GET", "/async/a", null);
+			assertEquals(-1, reply.getStatus());
+			pending.complete("found a");
+			assertEquals(200, reply.getStatus());
+			assertEquals("found a", reply.getBody());
+		} finally {
+			bus.shutdown(true);
+		}
+	}
+
+}
@@ -0,0 +1,244 @@
+package org.apache.cxf.endpoint.jaxrs;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.MatrixParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.EndpointTestTransport;
+import org.apache.cxf.endpoint.EndpointTestTransport.Reply;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.model.ClassResourceInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaxrsRouteTrie_Test {
+
+	@Path("/users")
+	public static class UserResource {
+
+		@GET
+		@Path("me")
+		@Produces("text/plain")
+		public String me() {
+			return "users me";
+		}
+
+		@GET
+		@Path("{id}")
+		@Produces("text/plain")
+		public String user(@PathParam("id") String id) {
+			return "user " + id;
+		}
+
+	}
+
+	@Path("/{section}")
+	public static class SectionResource {
+
+		@GET
+		@Path("list")
+		@Produces("text/plain")
+		public String list(@PathParam("section") String section) {
+			return "section " + section + " list";
+		}
+
+		@GET
+		@Path("{x}/b")
+		@Produces("text/plain")
+		public String b(@PathParam("section") String section, @PathParam("x") String x) {
+			return "section " + section + " " + x + "/b";
+		}
+
+	}
+
+	@Path("/{tenant}")
+	public static class TenantResource {
+
+		@GET
+		@Path("orders")
+		@Produces("text/plain")
+		public String orders(@PathParam("tenant") String tenant) {
+			return "tenant " + tenant + " orders";
+		}
+
+	}
+
+	@Path("/files")
+	public static class FileResource {
+
+		@GET
+		@Path("{path: .+}")
+		@Produces("text/plain")
+		public String file(@PathParam("path") String path) {
+			return "file " + path;
+		}
+
+	}
+
+	@Path("/shops")
+	public static class ShopResource {
+
+		@Path("{id}")
+		public ItemResource shop(@PathParam("id") String id) {
+			return new ItemResource(id);
+		}
+
+	}
+
+	public static class ItemResource {
+
+		private final String shop;
+
+		public ItemResource(String shop) {
+			this.shop = shop;
+		}
+
+		@GET
+		@Path("items/{item}")
+		@Produces("text/plain")
+		public String item(@PathParam("item") String item) {
+			return "shop " + shop + " item " + item;
+		}
+
+	}
+
+	@Path("/docs")
+	public static class DocResource {
+
+		@GET
+		@Path("hello world")
+		@Produces("text/plain")
+		public String hello() {
+			return "docs hello";
+		}
+
+	}
+
+	@Path("/cars")
+	public static class CarResource {
+
+		@GET
+		@Path("search")
+		@Produces("text/plain")
+		public String search(@MatrixParam("color") String color) {
+			return "cars " + color;
+		}
+
+	}
+
+	private static final Class<?>[] RESOURCES = { UserResource.class, SectionResource.class, TenantResource.class, FileResource.class,
+		ShopResource.class, DocResource.class, CarResource.class };
+
+	private static final List<String> PATHS = Arrays.asList(
+			// 字面量与模板变量的优先级
+			"/users/me", "/users/42", "/users/list", "/users/a/b", "/news/list", "/news/orders", "/news/a/b", "/news/none", "/users",
+			// 自定义正则跨越多个路径段
+			"/files/a", "/files/a/b/c", "/files/a%2Fb", "/files",
+			// 子资源定位方法
+			"/shops/7/items/9", "/shops/7/items", "/shops/7/other/9",
+			// 编码的字面量
+			"/docs/hello%20world", "/docs/hello%20there", "/docs/hello+world",
+			// 矩阵参数
+			"/users;v=1/me", "/users/me;v=1", "/cars/search;color=red", "/cars;x=1/search;color=blue", "/news;a=1/orders",
+			// 未匹配
+			"/", "/a/b/c/d");
+
+	private Bus bus;
+	private JaxrsRouteTrie trie;
+
+	@Before
+	public void setUp() {
+		bus = EndpointTestTransport.newBus();
+		this.server("test://plain", false);
+		trie = this.server("test://trie", true);
+	}
+
+	@After
+	public void tearDown() {
+		bus.shutdown(true);
+	}
+
+	private JaxrsRouteTrie server(String address, boolean routed) {
+		JAXRSServerFactoryBean factory = new JAXRSServerFactoryBean();
+		factory.setBus(bus);
+		factory.setAddress(address);
+		factory.setResourceClasses(RESOURCES);
+		factory.setStart(false);
+		Server server = factory.create();
+		JaxrsRouteTrie installed = routed ? JaxrsRouteTrie.install(server) : null;
+		server.start();
+		return installed;
+	}
+
+	/**
+	 * 候选资源的类名，按类名排序
+	 */
+	private static String names(List<ClassResourceInfo> resources) {
+		Set<String> names = new TreeSet<String>();
+		for (ClassResourceInfo resource : resources) {
+			names.add(resource.getServiceClass().getSimpleName());
+		}
+		return String.join(",", names);
+	}
+
+	@Test
+	public void testSameAsCxf() throws Exception {
+
+		for (String path : PATHS) {
+			Reply plain = EndpointTestTransport.send(bus, "test://plain", "GET", path, null);
+			Reply routed = EndpointTestTransport.send(bus, "test://trie", "GET", path, null);
+			// 与扫描全部资源类时的响应一致
+			assertEquals(path, plain.getStatus(), routed.getStatus());
+			assertEquals(path, plain.getBody(), routed.getBody());
+		}
+		assertEquals("user list", EndpointTestTransport.send(bus, "test://trie", "GET", "/users/list", null).getBody());
+		assertEquals("file a/b/c", EndpointTestTransport.send(bus, "test://trie", "GET", "/files/a/b/c", null).getBody());
+		assertEquals("shop 7 item 9", EndpointTestTransport.send(bus, "test://trie", "GET", "/shops/7/items/9", null).getBody());
+		assertEquals("docs hello", EndpointTestTransport.send(bus, "test://trie", "GET", "/docs/hello%20world", null).getBody());
+		assertEquals("cars red", EndpointTestTransport.send(bus, "test://trie", "GET", "/cars/search;color=red", null).getBody());
+		// CXF 只在类级别模板优先级最高的资源类中查找操作，不会退回到 SectionResource
+		assertEquals(404, EndpointTestTransport.send(bus, "test://trie", "GET", "/users/a/b", null).getStatus());
+	}
+
+	@Test
+	public void testCandidates() throws Exception {
+
+		// 类级别模板优先级不同，全部交给 CXF 排序
+		assertEquals("SectionResource,TenantResource,UserResource", names(trie.match("/users/list")));
+		// 类级别模板优先级相同，按完整模板排除
+		assertEquals("TenantResource", names(trie.match("/news/orders")));
+		assertEquals("SectionResource", names(trie.match("/news;a=1/a/b")));
+		// 完整模板全部不匹配时保留原有候选资源
+		assertEquals("SectionResource,TenantResource", names(trie.match("/news/none")));
+		assertEquals("FileResource,SectionResource,TenantResource", names(trie.match("/files/a/b/c")));
+		assertEquals("DocResource,SectionResource,TenantResource", names(trie.match("/docs/hello%20world")));
+		// 前缀索引：users、files、shops、docs、cars
+		assertEquals(5, trie.size());
+	}
+
+	@Test
+	public void testBoundedSubsets() throws Exception {
+
+		for (int i = 0; i < 500; i++) {
+			assertEquals(200, EndpointTestTransport.send(bus, "test://trie", "GET", "/users/" + i, null).getStatus());
+			assertEquals(200, EndpointTestTransport.send(bus, "test://trie", "GET", "/t" + i + "/orders", null).getStatus());
+		}
+		// 按候选资源组合缓存，与请求路径的数量无关
+		assertTrue("subsets " + trie.getSubsets(), trie.getSubsets() <= 2);
+		assertTrue(trie.getSubsets() <= JaxrsRouteTrie.MAX_SUBSETS);
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.apache.cxf.endpoint.jaxrs;
+
+import java.lang.reflect.Method;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+
+import org.apache.cxf.endpoint.EndpointApi;
+import org.apache.cxf.endpoint.EndpointBinding;
+import org.apache.cxf.endpoint.EndpointInvocationHandler;
+import org.apache.cxf.endpoint.EndpointShapes;
+import org.apache.cxf.endpoint.EndpointTemplates;
+import org.apache.cxf.endpoint.annotation.WebBound;
+import org.apache.cxf.endpoint.jaxrs.definition.HttpMethodEnum;
+import org.apache.cxf.endpoint.jaxrs.definition.HttpParamEnum;
+import org.apache.cxf.endpoint.jaxrs.definition.RestBound;
+import org.apache.cxf.endpoint.jaxrs.definition.RestMethod;
+import org.apache.cxf.endpoint.jaxrs.definition.RestParam;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class JaxrsTemplates_Test {
+
+	private static final EndpointInvocationHandler HANDLER = new EndpointInvocationHandler() {
+
+		@Override
+		public Object invoke(Object proxy, int operation, Method method, Object[] args) throws Throwable {
+			return null;
+		}
+
+		@Override
+		public Object invoke(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) throws Throwable {
+			return binding.getUid() + ":" + args[0];
+		}
+
+	};
+
+	private static Object instance(EndpointTemplates templates, String classname, String path, String uid) throws Exception {
+		return new JaxrsEndpointApiCtClassBuilder(classname)
+				.template(templates)
+				.path(path)
+				.bind(new RestBound(uid, "{}"))
+				.newMethod(String.class, new RestMethod(HttpMethodEnum.GET, "find", "{id}"), new RestParam<String>(String.class, "id", HttpParamEnum.PATH))
+				.newMethod(String.class, new RestMethod(HttpMethodEnum.GET, "list", "list/{id}"), new RestBound(uid + "-list", "{}"), new RestParam<String>(String.class, "id", HttpParamEnum.PATH))
+				.toInstance(HANDLER);
+	}
+
+	@Test
+	public void testClone() throws Exception {
+
+		EndpointTemplates templates = new EndpointTemplates();
+		Object first = instance(templates, "org.apache.cxf.spring.boot.TemplateCaseV1", "/first", "u1");
+		Object second = instance(templates, "org.apache.cxf.spring.boot.TemplateCaseV2", "/second", "u2");
+
+		// 第二个接口复制第一个接口编译的模板
+		assertEquals(1, templates.size());
+		assertEquals(1, templates.getMisses());
+		assertEquals(1, templates.getHits());
+
+		for (Object instance : new Object[] { first, second }) {
+			Class<?> type = instance.getClass();
+			// 复制出的类不继承模板，也不带形状类标记
+			assertSame(EndpointApi.class, type.getSuperclass());
+			assertFalse(EndpointShapes.isShape(type));
+			Method find = type.getMethod("find", String.class);
+			assertNotNull(find.getAnnotation(GET.class));
+			assertEquals("{id}", find.getAnnotation(Path.class).value());
+			assertSame(type, find.getDeclaringClass());
+			// 未单独绑定的方法不带 @WebBound 注解
+			assertNull(find.getAnnotation(WebBound.class));
+		}
+
+		// 类名及类注解按各自的定义改写
+		assertEquals("org.apache.cxf.spring.boot.TemplateCaseV1", first.getClass().getName());
+		assertEquals("org.apache.cxf.spring.boot.TemplateCaseV2", second.getClass().getName());
+		assertEquals("/first", first.getClass().getAnnotation(Path.class).value());
+		assertEquals("/second", second.getClass().getAnnotation(Path.class).value());
+		assertEquals("u1", first.getClass().getAnnotation(WebBound.class).uid());
+		assertEquals("u2", second.getClass().getAnnotation(WebBound.class).uid());
+		// 方法的 @WebBound 注解同样按各自的定义改写
+		assertEquals("u1-list", first.getClass().getMethod("list", String.class).getAnnotation(WebBound.class).uid());
+		assertEquals("u2-list", second.getClass().getMethod("list", String.class).getAnnotation(WebBound.class).uid());
+
+		// 绑定数据按各自的类名读取
+		assertEquals("u1:a", first.getClass().getMethod("find", String.class).invoke(first, "a"));
+		assertEquals("u2:b", second.getClass().getMethod("find", String.class).invoke(second, "b"));
+		assertEquals("u1-list:a", first.getClass().getMethod("list", String.class).invoke(first, "a"));
+		assertEquals("u2-list:b", second.getClass().getMethod("list", String.class).invoke(second, "b"));
+	}
+
+}
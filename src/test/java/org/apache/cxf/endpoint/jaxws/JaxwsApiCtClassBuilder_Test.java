@@ -6,18 +6,27 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 import jakarta.jws.WebParam;
 
 import org.apache.commons.beanutils.ConstructorUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.cxf.endpoint.EndpointDispatch;
+import org.apache.cxf.endpoint.EndpointInvocationHandler;
+import org.apache.cxf.endpoint.EndpointInvoker;
 import org.apache.cxf.endpoint.jaxws.definition.SoapBound;
 import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
 import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
 import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
 import javassist.CtClass;
 
 @SuppressWarnings({ "rawtypes", "unchecked" })
@@ -127,4 +136,117 @@ public class JaxwsApiCtClassBuilder_Test {
 		sayHello2.invoke(ctObject,  " hi Hello2 " );
 	}
 
+	@Test
+	public void testInvoker() throws Exception{
+		
+		final List<String> calls = new ArrayList<String>();
+		EndpointInvoker invoker = new EndpointInvoker() {
+			
+			@Override
+			public Object invoke(Object proxy, int operation, Object[] args) throws Throwable {
+				calls.add(operation + ":array:" + Arrays.toString(args));
+				return operation == 6 ? (Object) Integer.valueOf(42) : "array";
+			}
+			
+			@Override
+			public Object invoke(Object proxy, int operation, Object arg0) throws Throwable {
+				calls.add(operation + ":object:" + arg0.getClass().getSimpleName() + "=" + arg0);
+				return "object";
+			}
+			
+			@Override
+			public Object invoke(Object proxy, int operation, Object arg0, Object arg1) throws Throwable {
+				calls.add(operation + ":two:" + arg0 + "," + arg1);
+				return "two";
+			}
+			
+			@Override
+			public Object invoke(Object proxy, int operation, int arg0) throws Throwable {
+				calls.add(operation + ":int:" + arg0);
+				return "int";
+			}
+			
+			@Override
+			public Object invoke(Object proxy, int operation, long arg0) throws Throwable {
+				calls.add(operation + ":long:" + arg0);
+				return Long.valueOf(arg0 * 2);
+			}
+			
+			@Override
+			public Object invoke(Object proxy, int operation, double arg0) throws Throwable {
+				calls.add(operation + ":double:" + arg0);
+				return Double.valueOf(arg0 / 2);
+			}
+			
+			@Override
+			public Object invoke(Object proxy, int operation, boolean arg0) throws Throwable {
+				calls.add(operation + ":boolean:" + arg0);
+				return Boolean.valueOf(!arg0);
+			}
+			
+		};
+
+		Object ctObject = new JaxwsEndpointApiCtClassBuilder("org.apache.cxf.spring.boot.FirstCaseV3")
+				.dispatch(EndpointDispatch.INVOKER)
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("text"), null, new SoapParam<String>(String.class, "text"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("id"), null, new SoapParam<Integer>(int.class, "id"))
+				.newMethod(new SoapResult<Long>(long.class, "r"), new SoapMethod("twice"), null, new SoapParam<Long>(long.class, "value"))
+				.newMethod(new SoapResult<Double>(double.class, "r"), new SoapMethod("half"), null, new SoapParam<Double>(double.class, "value"))
+				.newMethod(new SoapResult<Boolean>(boolean.class, "r"), new SoapMethod("not"), null, new SoapParam<Boolean>(boolean.class, "value"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("pair"), null, new SoapParam<Integer>(int.class, "id"), new SoapParam<String>(String.class, "text"))
+				.newMethod(new SoapResult<Integer>(int.class, "r"), new SoapMethod("many"), null, new SoapParam<String>(String.class, "a"),
+						new SoapParam<Integer>(int.class, "b"), new SoapParam<Character>(char.class, "c"), new SoapParam<Float>(float.class, "d"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("letter"), null, new SoapParam<Character>(char.class, "c"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("ratio"), null, new SoapParam<Float>(float.class, "f"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("small"), null, new SoapParam<Short>(short.class, "s"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("octet"), null, new SoapParam<Byte>(byte.class, "b"))
+				.toInvokerInstance(invoker);
+		
+		Class clazz = ctObject.getClass();
+		
+		// 引用类型参数走 Object 重载，基本类型参数走对应的基本类型重载
+		assertEquals("object", clazz.getMethod("text", String.class).invoke(ctObject, "hi"));
+		assertEquals("int", clazz.getMethod("id", int.class).invoke(ctObject, 7));
+		// 返回值按方法的基本类型拆箱
+		assertEquals(Long.valueOf(10L), clazz.getMethod("twice", long.class).invoke(ctObject, 5L));
+		assertEquals(Double.valueOf(1.25d), clazz.getMethod("half", double.class).invoke(ctObject, 2.5d));
+		assertEquals(Boolean.FALSE, clazz.getMethod("not", boolean.class).invoke(ctObject, true));
+		assertEquals(long.class, clazz.getMethod("twice", long.class).getReturnType());
+		// 2 个参数逐个传递，超过 3 个参数通过 $args 传递
+		assertEquals("two", clazz.getMethod("pair", int.class, String.class).invoke(ctObject, 1, "x"));
+		assertEquals(Integer.valueOf(42), clazz.getMethod("many", String.class, int.class, char.class, float.class).invoke(ctObject, "a", 2, 'c', 1.5f));
+		// char、float、short、byte 按各自的包装类型传递，不拓宽
+		assertEquals("object", clazz.getMethod("letter", char.class).invoke(ctObject, 'A'));
+		assertEquals("object", clazz.getMethod("ratio", float.class).invoke(ctObject, 1.5f));
+		assertEquals("object", clazz.getMethod("small", short.class).invoke(ctObject, (short) 3));
+		assertEquals("object", clazz.getMethod("octet", byte.class).invoke(ctObject, (byte) 4));
+		
+		assertEquals(Arrays.asList("0:object:String=hi", "1:int:7", "2:long:5", "3:double:2.5", "4:boolean:true", "5:two:1,x",
+				"6:array:[a, 2, c, 1.5]", "7:object:Character=A", "8:object:Float=1.5", "9:object:Short=3", "10:object:Byte=4"), calls);
+	}
+
+	@Test
+	public void testOrdinal() throws Exception{
+		
+		JaxwsEndpointApiCtClassBuilder builder = new JaxwsEndpointApiCtClassBuilder("org.apache.cxf.spring.boot.FirstCaseV4")
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("echo"), null, new SoapParam<String>(String.class, "text"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("echo"), null, new SoapParam<Integer>(int.class, "id"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("single"), null, new SoapParam<String>(String.class, "text"));
+		
+		// 重载方法按方法描述符各自分配序号
+		assertEquals(0, builder.getOrdinal("echo", "(Ljava/lang/String;)Ljava/lang/String;"));
+		assertEquals(1, builder.getOrdinal("echo", "(I)Ljava/lang/String;"));
+		assertEquals(2, builder.getOrdinal("single"));
+		assertEquals(3, builder.getOperations().size());
+		assertEquals(EndpointInvocationHandler.UNKNOWN_OPERATION, builder.getOrdinal("absent"));
+		try {
+			builder.getOrdinal("echo");
+			fail("overloaded method name must be rejected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
 }
@@ -0,0 +1,118 @@
+package org.apache.cxf.endpoint.jaxws;
+
+import java.lang.reflect.Method;
+
+import javassist.ClassPool;
+
+import org.apache.cxf.endpoint.EndpointBinding;
+import org.apache.cxf.endpoint.EndpointClassDefiner;
+import org.apache.cxf.endpoint.EndpointInvocationHandler;
+import org.apache.cxf.endpoint.EndpointLoading;
+import org.apache.cxf.endpoint.jaxws.definition.SoapBound;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JaxwsBindings_Test {
+
+	private static final EndpointInvocationHandler HANDLER = new EndpointInvocationHandler() {
+
+		@Override
+		public Object invoke(Object proxy, int operation, Method method, Object[] args) throws Throwable {
+			return null;
+		}
+
+		@Override
+		public Object invoke(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) throws Throwable {
+			return binding.getJson();
+		}
+
+	};
+
+	private static Object instance(String classname, String json) throws Exception {
+		return new JaxwsEndpointApiCtClassBuilder(classname)
+				.loading(EndpointLoading.ISOLATED)
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("bound"), new SoapBound("uid", json), new SoapParam<String>(String.class, "text"))
+				.toInstance(HANDLER);
+	}
+
+	private static Object call(Object instance) throws Exception {
+		return instance.getClass().getMethod("bound", String.class).invoke(instance, "x");
+	}
+
+	@Test
+	public void testLenient() throws Exception {
+
+		// 绑定数据不要求是 JSON 对象
+		EndpointBinding array = EndpointBinding.parse("uid", "[1,2]");
+		assertEquals("[1,2]", array.getJson());
+		assertTrue(array.getValues().isEmpty());
+
+		EndpointBinding scalar = EndpointBinding.parse("uid", "\"hello\"");
+		assertEquals("\"hello\"", scalar.getJson());
+		assertTrue(scalar.getValues().isEmpty());
+		assertTrue(EndpointBinding.parse("uid", " ").getValues().isEmpty());
+
+		EndpointBinding object = EndpointBinding.parse("uid", "{\"a\":1,\"b\":true}");
+		assertEquals(Long.valueOf(1), object.get("a"));
+		assertTrue(object.getBoolean("b"));
+
+		assertEquals("[1,2]", call(instance("org.apache.cxf.spring.boot.BoundCaseV1", "[1,2]")));
+	}
+
+	@Test
+	public void testMalformed() throws Exception {
+
+		// 格式错误的 JSON 在构建时报错
+		try {
+			EndpointBinding.parse("uid", "hello");
+			fail("malformed json must be rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			instance("org.apache.cxf.spring.boot.BoundCaseV4", "{\"a\":");
+			fail("malformed json must be rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testStale() throws Exception {
+
+		String classname = "org.apache.cxf.spring.boot.BoundCaseV3";
+		// 另一个 ClassPool 中未完成的构建登记了绑定数据
+		new JaxwsEndpointApiCtClassBuilder(new ClassPool(true), classname)
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("bound"), new SoapBound("uid", "{\"v\":1}"), new SoapParam<String>(String.class, "text"));
+
+		// 同名类重新构建时不读取遗留的登记
+		Object instance = new JaxwsEndpointApiCtClassBuilder(classname)
+				.loading(EndpointLoading.ISOLATED)
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("bound"), null, new SoapParam<String>(String.class, "text"))
+				.toInstance(HANDLER);
+		assertEquals(EndpointBinding.EMPTY.getJson(), call(instance));
+	}
+
+	@Test
+	public void testVersions() throws Exception {
+
+		String classname = "org.apache.cxf.spring.boot.BoundCaseV2";
+		Object previous = instance(classname, "{\"v\":1}");
+		Object current = instance(classname, "{\"v\":2}");
+
+		// 旧版本下线时按类名清除登记，仍在服务的类不受影响
+		EndpointClassDefiner.retire(classname);
+		assertEquals("{\"v\":1}", call(previous));
+		assertEquals("{\"v\":2}", call(current));
+	}
+
+}
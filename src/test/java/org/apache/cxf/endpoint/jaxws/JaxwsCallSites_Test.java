@@ -0,0 +1,120 @@
+package org.apache.cxf.endpoint.jaxws;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+import org.apache.cxf.endpoint.EndpointCallSites;
+import org.apache.cxf.endpoint.EndpointDispatch;
+import org.apache.cxf.endpoint.EndpointInvoker;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class JaxwsCallSites_Test {
+
+	private static JaxwsEndpointApiCtClassBuilder builder(String classname) throws Exception {
+		return new JaxwsEndpointApiCtClassBuilder(classname)
+				.dispatch(EndpointDispatch.INDY)
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("echo"), null, new SoapParam<String>(String.class, "text"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("echo"), null, new SoapParam<Integer>(int.class, "id"));
+	}
+
+	private static InvocationHandler handler(final String name) {
+		return (proxy, method, args) -> name + ":" + args[0];
+	}
+
+	public static String bound(Object proxy, String text) {
+		return "bound:" + text;
+	}
+
+	@Test
+	public void testFallback() throws Exception {
+
+		Object first = builder("org.apache.cxf.spring.boot.IndyCaseV1").toInstance(handler("first"));
+		Method echo = first.getClass().getMethod("echo", String.class);
+		assertEquals("first:a", echo.invoke(first, "a"));
+
+		// 同一类的第二个实例使用不同的回调，调用点不能继续直接调用第一个回调
+		Object second = first.getClass().getConstructor(InvocationHandler.class).newInstance(handler("second"));
+		assertEquals("second:b", echo.invoke(second, "b"));
+		assertEquals("first:c", echo.invoke(first, "c"));
+	}
+
+	@Test
+	public void testInvoker() throws Exception {
+
+		Object instance = builder("org.apache.cxf.spring.boot.IndyCaseV2").toInvokerInstance(new EndpointInvoker() {
+
+			@Override
+			public Object invoke(Object proxy, int operation, Object[] args) throws Throwable {
+				return operation + ":" + args[0];
+			}
+
+		});
+		// 未设置 InvocationHandler 时由 EndpointInvoker 处理
+		assertEquals("0:a", instance.getClass().getMethod("echo", String.class).invoke(instance, "a"));
+		assertEquals("1:7", instance.getClass().getMethod("echo", int.class).invoke(instance, 7));
+	}
+
+	@Test
+	public void testBind() throws Exception {
+
+		Object instance = builder("org.apache.cxf.spring.boot.IndyCaseV3").toInstance(handler("handler"));
+		Method echo = instance.getClass().getMethod("echo", String.class);
+		Method echoInt = instance.getClass().getMethod("echo", int.class);
+		assertEquals("handler:a", echo.invoke(instance, "a"));
+
+		MethodHandle target = MethodHandles.lookup().findStatic(JaxwsCallSites_Test.class, "bound",
+				MethodType.methodType(String.class, Object.class, String.class));
+		EndpointCallSites.bind(echo, target);
+		assertEquals("bound:b", echo.invoke(instance, "b"));
+		// 绑定只作用于对应的重载方法
+		assertEquals("handler:1", echoInt.invoke(instance, 1));
+
+		EndpointCallSites.unbind(echo);
+		assertEquals("handler:c", echo.invoke(instance, "c"));
+
+		try {
+			EndpointCallSites.bind(instance.getClass(), "echo", target);
+			fail("overloaded method name must be rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testHandlerNotPinned() throws Exception {
+
+		InvocationHandler handler = handler("first");
+		Object instance = new JaxwsEndpointApiCtClassBuilder("org.apache.cxf.spring.boot.IndyCaseV4")
+				.dispatch(EndpointDispatch.HANDLER)
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("echo"), null, new SoapParam<String>(String.class, "text"))
+				.toInstance(handler);
+		Class<?> type = instance.getClass();
+		assertEquals("first:a", type.getMethod("echo", String.class).invoke(instance, "a"));
+
+		// 没有 invokedynamic 调用点的类不登记回调，实例释放后回调可以被回收
+		WeakReference<InvocationHandler> reference = new WeakReference<InvocationHandler>(handler);
+		handler = null;
+		instance = null;
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		// 动态类仍然可用
+		assertNull(reference.get());
+		assertEquals("second:b", type.getMethod("echo", String.class).invoke(type.getConstructor(InvocationHandler.class).newInstance(handler("second")), "b"));
+	}
+
+}
@@ -0,0 +1,222 @@
+package org.apache.cxf.endpoint.jaxws;
+
+import java.lang.reflect.Method;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import jakarta.xml.ws.WebServiceException;
+
+import org.apache.cxf.continuations.Continuation;
+import org.apache.cxf.continuations.ContinuationProvider;
+import org.apache.cxf.endpoint.EndpointAsyncHandler;
+import org.apache.cxf.endpoint.EndpointBinding;
+import org.apache.cxf.endpoint.EndpointDispatch;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JaxwsContinuations_Test {
+
+	/**
+	 * 按 CXF 的状态约定模拟 continuation，超时由测试主动触发
+	 */
+	private static final class TestContinuation implements Continuation {
+
+		private boolean fresh = true;
+		private boolean pending;
+		private boolean resumed;
+		private boolean timeout;
+		private Object object;
+
+		@Override
+		public boolean suspend(long timeout) {
+			this.fresh = false;
+			this.pending = true;
+			return true;
+		}
+
+		@Override
+		public void resume() {
+			this.pending = false;
+			this.resumed = true;
+		}
+
+		@Override
+		public void reset() {
+			this.pending = false;
+			this.resumed = false;
+			this.timeout = false;
+			this.object = null;
+		}
+
+		public synchronized void expire() {
+			this.pending = false;
+			this.timeout = true;
+		}
+
+		@Override
+		public boolean isNew() {
+			return fresh;
+		}
+
+		@Override
+		public boolean isPending() {
+			return pending;
+		}
+
+		@Override
+		public boolean isResumed() {
+			return resumed;
+		}
+
+		@Override
+		public boolean isTimeout() {
+			return timeout;
+		}
+
+		@Override
+		public Object getObject() {
+			return object;
+		}
+
+		@Override
+		public void setObject(Object object) {
+			this.object = object;
+		}
+
+		@Override
+		public boolean isReadyForWrite() {
+			return true;
+		}
+
+	}
+
+	private static final class StageHandler implements EndpointAsyncHandler {
+
+		private final CompletableFuture<Object> stage = new CompletableFuture<Object>();
+		private int calls;
+
+		@Override
+		public CompletionStage<?> invokeAsync(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) {
+			calls++;
+			return stage;
+		}
+
+	}
+
+	private static Object instance(String classname, StageHandler handler) throws Exception {
+		SoapMethod method = new SoapMethod("slow");
+		method.setAsync(true);
+		method.setAsyncTimeout(100);
+		// 非默认的调用方式同样通过 continuation 挂起请求
+		return new JaxwsEndpointApiCtClassBuilder(classname)
+				.dispatch(EndpointDispatch.INDY)
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.newMethod(new SoapResult<String>(String.class, "r"), method, null, new SoapParam<String>(String.class, "text"))
+				.toInstance(handler);
+	}
+
+	/**
+	 * 在拦截器链中调用，使 {@link PhaseInterceptorChain#getCurrentMessage()} 返回携带 continuation 的消息
+	 */
+	private static Object call(final Object instance, final TestContinuation continuation) throws Throwable {
+		final Object[] result = new Object[1];
+		final Throwable[] error = new Throwable[1];
+		SortedSet<Phase> phases = new TreeSet<Phase>();
+		phases.add(new Phase(Phase.INVOKE, 1));
+		PhaseInterceptorChain chain = new PhaseInterceptorChain(phases);
+		chain.add(new AbstractPhaseInterceptor<Message>(Phase.INVOKE) {
+			@Override
+			public void handleMessage(Message message) {
+				try {
+					result[0] = instance.getClass().getMethod("slow", String.class).invoke(instance, "x");
+				} catch (Throwable e) {
+					error[0] = e.getCause() != null ? e.getCause() : e;
+				}
+			}
+		});
+		Message message = new MessageImpl();
+		message.put(ContinuationProvider.class.getName(), new ContinuationProvider() {
+
+			@Override
+			public Continuation getContinuation() {
+				return continuation;
+			}
+
+			@Override
+			public void complete() {
+			}
+
+		});
+		chain.doIntercept(message);
+		if (error[0] != null) {
+			throw error[0];
+		}
+		return result[0];
+	}
+
+	@Test
+	public void testResume() throws Throwable {
+
+		StageHandler handler = new StageHandler();
+		Object instance = instance("org.apache.cxf.spring.boot.AsyncCaseV1", handler);
+		TestContinuation continuation = new TestContinuation();
+
+		// 首次调用挂起请求，立即返回
+		assertNull(call(instance, continuation));
+		assertTrue(continuation.isPending());
+
+		handler.stage.complete("done");
+		assertTrue(continuation.isResumed());
+		// 恢复后再次调用返回处理结果，不再发起异步处理
+		assertEquals("done", call(instance, continuation));
+		assertEquals(1, handler.calls);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testFailure() throws Throwable {
+
+		StageHandler handler = new StageHandler();
+		Object instance = instance("org.apache.cxf.spring.boot.AsyncCaseV2", handler);
+		TestContinuation continuation = new TestContinuation();
+
+		assertNull(call(instance, continuation));
+		handler.stage.completeExceptionally(new IllegalStateException("failed"));
+		// 异步处理的异常在恢复后原样抛出
+		call(instance, continuation);
+	}
+
+	@Test
+	public void testTimeout() throws Throwable {
+
+		StageHandler handler = new StageHandler();
+		Object instance = instance("org.apache.cxf.spring.boot.AsyncCaseV3", handler);
+		TestContinuation continuation = new TestContinuation();
+
+		assertNull(call(instance, continuation));
+		continuation.expire();
+		try {
+			call(instance, continuation);
+		} catch (WebServiceException e) {
+			// 超时后取消异步处理
+			assertTrue(handler.stage.isCancelled());
+			assertFalse(continuation.isPending());
+			return;
+		}
+		throw new AssertionError("timeout must raise WebServiceException");
+	}
+
+}
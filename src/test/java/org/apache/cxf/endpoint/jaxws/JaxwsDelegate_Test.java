@@ -0,0 +1,102 @@
+package org.apache.cxf.endpoint.jaxws;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class JaxwsDelegate_Test {
+
+	public static class Target {
+
+		private final List<String> recorded = new ArrayList<String>();
+
+		public String echo(String text) {
+			return "echo " + text;
+		}
+
+		public String upper(String text) {
+			return text.toUpperCase();
+		}
+
+		public void record(String text) {
+			recorded.add(text);
+		}
+
+		public int add(int a, int b) {
+			return a + b;
+		}
+
+	}
+
+	private static JaxwsEndpointApiCtClassBuilder builder(String classname) throws Exception {
+		return new JaxwsEndpointApiCtClassBuilder(classname)
+				.webService("delegate", "http://ws.cxf.com", "delegate")
+				.delegate(Target.class, Collections.singletonMap("shout", "upper"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("echo"), null, new SoapParam<String>(String.class, "text"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("shout"), null, new SoapParam<String>(String.class, "text"))
+				.newMethod("record", new SoapParam<String>(String.class, "text"))
+				.newMethod(new SoapResult<Integer>(int.class, "r"), new SoapMethod("add"), null,
+						new SoapParam<Integer>(int.class, "a"), new SoapParam<Integer>(int.class, "b"));
+	}
+
+	@Test
+	public void testDelegate() throws Exception {
+
+		Target target = new Target();
+		Object instance = builder("org.apache.cxf.spring.boot.DelegateCaseV1").toDelegateInstance(target);
+		Class<?> type = instance.getClass();
+
+		// 同名方法直接调用目标对象
+		assertEquals("echo a", type.getMethod("echo", String.class).invoke(instance, "a"));
+		// 映射的方法调用目标对象的另一个方法
+		assertEquals("B", type.getMethod("shout", String.class).invoke(instance, "b"));
+		// 无返回值的方法
+		assertSame(void.class, type.getMethod("record", String.class).getReturnType());
+		type.getMethod("record", String.class).invoke(instance, "c");
+		assertEquals(Collections.singletonList("c"), target.recorded);
+		// 基本类型返回值
+		assertSame(int.class, type.getMethod("add", int.class, int.class).getReturnType());
+		assertEquals(5, type.getMethod("add", int.class, int.class).invoke(instance, 2, 3));
+	}
+
+	@Test
+	public void testCallbackInstanceRejected() throws Exception {
+
+		try {
+			builder("org.apache.cxf.spring.boot.DelegateCaseV2").toInstance((proxy, method, args) -> null);
+			fail("toInstance must be rejected in delegate mode");
+		} catch (IllegalStateException e) {
+			assertEquals("delegate mode is enabled, call toDelegateInstance(Object) instead.", e.getMessage());
+		}
+		try {
+			builder("org.apache.cxf.spring.boot.DelegateCaseV3").toInvokerInstance((proxy, operation, args) -> null);
+			fail("toInvokerInstance must be rejected in delegate mode");
+		} catch (IllegalStateException e) {
+			assertEquals("delegate mode is enabled, call toDelegateInstance(Object) instead.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testMissingTarget() throws Exception {
+
+		// 没有目标对象时（例如通过回调接口构造器创建的实例）调用抛出异常，而不是返回默认值
+		Object instance = builder("org.apache.cxf.spring.boot.DelegateCaseV4").toDelegateInstance(null);
+		try {
+			instance.getClass().getMethod("add", int.class, int.class).invoke(instance, 2, 3);
+			fail("missing delegate target must be reported");
+		} catch (InvocationTargetException e) {
+			assertSame(IllegalStateException.class, e.getCause().getClass());
+		}
+	}
+
+}
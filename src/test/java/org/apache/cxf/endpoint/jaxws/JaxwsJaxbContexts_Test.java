@@ -0,0 +1,82 @@
+package org.apache.cxf.endpoint.jaxws;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.EndpointJaxbContexts;
+import org.apache.cxf.endpoint.EndpointTestTransport;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.apache.cxf.jaxb.JAXBDataBinding;
+import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class JaxwsJaxbContexts_Test {
+
+	public static class Order {
+
+		public String id;
+		public int amount;
+
+	}
+
+	private Bus bus;
+
+	@Before
+	public void setUp() {
+		bus = EndpointTestTransport.newBus();
+	}
+
+	@After
+	public void tearDown() {
+		bus.shutdown(true);
+	}
+
+	private <T> Server server(EndpointJaxbContexts contexts, String classname, Class<T> type) throws Exception {
+		Object implementor = new JaxwsEndpointApiCtClassBuilder(classname)
+				.webService("orders", "http://ws.cxf.com", "orders")
+				.newMethod(new SoapResult<T>(type, "r"), new SoapMethod("place"), null, new SoapParam<T>(type, "order"))
+				.toInstance((proxy, method, args) -> args[0]);
+		JaxWsServerFactoryBean factory = new JaxWsServerFactoryBean();
+		factory.setBus(bus);
+		factory.setServiceClass(implementor.getClass());
+		factory.setServiceBean(implementor);
+		factory.setAddress(EndpointTestTransport.PREFIX + classname);
+		factory.setDataBinding(contexts.dataBinding());
+		factory.setStart(false);
+		return factory.create();
+	}
+
+	private static Object context(Server server) {
+		return ((JAXBDataBinding) server.getEndpoint().getService().getDataBinding()).getContext();
+	}
+
+	@Test
+	public void testShared() throws Exception {
+
+		EndpointJaxbContexts contexts = new EndpointJaxbContexts();
+		Server first = this.server(contexts, "org.apache.cxf.spring.boot.JaxbCaseV1", Order.class);
+		Server second = this.server(contexts, "org.apache.cxf.spring.boot.JaxbCaseV2", Order.class);
+
+		// 参数类型相同的两个服务共用同一个上下文
+		assertEquals(1, contexts.size());
+		assertEquals(1, contexts.getMisses());
+		assertEquals(1, contexts.getHits());
+		assertSame(context(first), context(second));
+
+		// 参数类型不同的服务使用各自的上下文
+		Server third = this.server(contexts, "org.apache.cxf.spring.boot.JaxbCaseV3", String.class);
+		assertEquals(2, contexts.size());
+		assertNotSame(context(first), context(third));
+
+		contexts.clear();
+		assertEquals(0, contexts.size());
+	}
+
+}
@@ -0,0 +1,75 @@
+package org.apache.cxf.endpoint.jaxws;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+import org.apache.cxf.endpoint.EndpointBinding;
+import org.apache.cxf.endpoint.EndpointBindings;
+import org.apache.cxf.endpoint.EndpointInvocationHandler;
+import org.apache.cxf.endpoint.EndpointOperationRegistry;
+import org.apache.cxf.endpoint.EndpointShapes;
+import org.apache.cxf.endpoint.jaxws.definition.SoapBound;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JaxwsShapes_Test {
+
+	private static Object instance(EndpointShapes shapes, String classname, String json, InvocationHandler handler) throws Exception {
+		return new JaxwsEndpointApiCtClassBuilder(classname)
+				.share(shapes)
+				.webService("get", "http://ws.cxf.com", "getxx")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("bound"), new SoapBound("uid", json), new SoapParam<String>(String.class, "text"))
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("plain"), new SoapBound("uid", json), new SoapParam<String>(String.class, "text"))
+				.toInstance(handler);
+	}
+
+	private static Object call(Object instance, String method) throws Exception {
+		return instance.getClass().getMethod(method, String.class).invoke(instance, "x");
+	}
+
+	@Test
+	public void testBindings() throws Exception {
+
+		EndpointOperationRegistry registry = new EndpointOperationRegistry()
+				.register(0, new EndpointInvocationHandler() {
+
+					@Override
+					public Object invoke(Object proxy, int operation, Method method, Object[] args) throws Throwable {
+						return null;
+					}
+
+					@Override
+					public Object invoke(Object proxy, int operation, EndpointBinding binding, Method method, Object[] args) throws Throwable {
+						return operation + ":" + binding.getJson();
+					}
+
+				})
+				// 只收到 Method 的处理对象按实例读取绑定数据
+				.register(1, (proxy, method, args) -> EndpointBindings.get(proxy, method).getJson());
+
+		EndpointShapes shapes = new EndpointShapes();
+		Object first = instance(shapes, "org.apache.cxf.spring.boot.ShapeCaseV1", "{\"v\":1}", registry);
+		Object second = instance(shapes, "org.apache.cxf.spring.boot.ShapeCaseV2", "{\"v\":2}", registry);
+
+		// 两个接口共享同一个形状类
+		assertNotSame(first.getClass(), second.getClass());
+		assertSame(first.getClass().getSuperclass(), second.getClass().getSuperclass());
+		assertTrue(EndpointShapes.isShape(first.getClass().getSuperclass()));
+		assertEquals(1, shapes.size());
+		assertEquals(1, shapes.getMisses());
+		assertEquals(1, shapes.getHits());
+
+		assertEquals("0:{\"v\":1}", call(first, "bound"));
+		assertEquals("0:{\"v\":2}", call(second, "bound"));
+		assertEquals("{\"v\":1}", call(first, "plain"));
+		assertEquals("{\"v\":2}", call(second, "plain"));
+	}
+
+}
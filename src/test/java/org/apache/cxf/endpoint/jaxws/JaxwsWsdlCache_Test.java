@@ -0,0 +1,100 @@
+package org.apache.cxf.endpoint.jaxws;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.EndpointTestTransport;
+import org.apache.cxf.endpoint.EndpointTestTransport.Reply;
+import org.apache.cxf.endpoint.EndpointWsdlCache;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.endpoint.jaxws.definition.SoapMethod;
+import org.apache.cxf.endpoint.jaxws.definition.SoapParam;
+import org.apache.cxf.endpoint.jaxws.definition.SoapResult;
+import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaxwsWsdlCache_Test {
+
+	private static final String ADDRESS = "test://wsdl";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Object implementor;
+
+	private Bus bus;
+	private EndpointWsdlCache cache;
+
+	@BeforeClass
+	public static void define() throws Exception {
+		implementor = new JaxwsEndpointApiCtClassBuilder("org.apache.cxf.spring.boot.WsdlCaseV1")
+				.webService("echo", "http://ws.cxf.com", "echo")
+				.newMethod(new SoapResult<String>(String.class, "r"), new SoapMethod("echo"), null, new SoapParam<String>(String.class, "text"))
+				.toInstance((proxy, method, args) -> args[0]);
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		bus = EndpointTestTransport.newBus();
+		cache = new EndpointWsdlCache(bus, folder.getRoot().toPath(), 3);
+		JaxWsServerFactoryBean factory = new JaxWsServerFactoryBean();
+		factory.setBus(bus);
+		factory.setServiceClass(implementor.getClass());
+		factory.setServiceBean(implementor);
+		factory.setAddress(ADDRESS);
+		factory.setStart(false);
+		Server server = cache.install(factory.create());
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		bus.shutdown(true);
+	}
+
+	@Test
+	public void testQueryParameters() throws Exception {
+
+		// 发布时写入按服务地址请求的 WSDL
+		assertEquals(1, cache.size());
+		Reply reply = EndpointTestTransport.send(bus, ADDRESS, "GET", "?wsdl", null);
+		assertEquals(200, reply.getStatus());
+		assertTrue(reply.getBody(), reply.getBody().contains("definitions"));
+		assertEquals(1, cache.getHits());
+
+		// 其他查询参数不参与键
+		for (int i = 0; i < 10; i++) {
+			Reply other = EndpointTestTransport.send(bus, ADDRESS, "GET", "?wsdl&_=" + i, null);
+			assertEquals(reply.getBody(), other.getBody());
+		}
+		assertEquals(1, cache.size());
+		assertEquals(11, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testBoundedDocuments() throws Exception {
+
+		// 请求地址不同的文档各自渲染，映射的数量不超过上限
+		for (int i = 0; i < 10; i++) {
+			Reply reply = EndpointTestTransport.send(bus, ADDRESS, "GET", "/p" + i + "?wsdl", null);
+			assertEquals(200, reply.getStatus());
+			assertTrue(reply.getBody(), reply.getBody().contains("definitions"));
+		}
+		assertEquals(3, cache.size());
+		assertEquals(11, cache.getMisses());
+		assertTrue(folder.getRoot().list().length <= 3);
+
+		// 已映射的文档继续由缓存响应
+		long hits = cache.getHits();
+		assertEquals(200, EndpointTestTransport.send(bus, ADDRESS, "GET", "/p0?wsdl", null).getStatus());
+		assertEquals(hits + 1, cache.getHits());
+	}
+
+}
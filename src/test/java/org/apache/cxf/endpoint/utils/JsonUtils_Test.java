@@ -0,0 +1,116 @@
+package org.apache.cxf.endpoint.utils;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonUtils_Test {
+
+	private static void malformed(String json) {
+		try {
+			JsonUtils.parse(json);
+			fail("malformed json must be rejected : " + json);
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testEscapes() {
+
+		assertEquals("a\"b\\c/d", JsonUtils.parse("\"a\\\"b\\\\c\\/d\""));
+		assertEquals("\b\f\n\r\t", JsonUtils.parse("\"\\b\\f\\n\\r\\t\""));
+		assertEquals("\u4e2d\u00e9", JsonUtils.parse("\"\\u4e2d\\u00E9\""));
+		assertEquals("中文", JsonUtils.parse("\"中文\""));
+	}
+
+	@Test
+	public void testNumbers() {
+
+		assertEquals(Long.valueOf(0), JsonUtils.parse("0"));
+		assertEquals(Long.valueOf(-42), JsonUtils.parse("-42"));
+		assertEquals(Long.valueOf(Long.MAX_VALUE), JsonUtils.parse(String.valueOf(Long.MAX_VALUE)));
+		// 超出 long 范围或带小数的数字解析为 BigDecimal
+		assertEquals(new BigDecimal("9223372036854775808"), JsonUtils.parse("9223372036854775808"));
+		assertEquals(new BigDecimal("1.5"), JsonUtils.parse("1.5"));
+		assertEquals(new BigDecimal("-2.5E+3"), JsonUtils.parse("-2.5e3"));
+	}
+
+	@Test
+	public void testNesting() {
+
+		Map<String, Object> map = JsonUtils.parseObject(" { \"a\" : [1, {\"b\": [true, false, null]}, []], \"c\": {}, \"d\": \"x\" } ");
+		assertEquals(Arrays.asList("a", "c", "d"), Arrays.asList(map.keySet().toArray()));
+		List<?> a = (List<?>) map.get("a");
+		assertEquals(Long.valueOf(1), a.get(0));
+		assertEquals(Arrays.asList(true, false, null), ((Map<?, ?>) a.get(1)).get("b"));
+		assertTrue(((List<?>) a.get(2)).isEmpty());
+		assertTrue(((Map<?, ?>) map.get("c")).isEmpty());
+		assertEquals("x", map.get("d"));
+
+		assertTrue(JsonUtils.parseObject("  ").isEmpty());
+		assertNull(JsonUtils.parse("null"));
+	}
+
+	@Test
+	public void testMalformed() {
+
+		malformed("");
+		malformed("{");
+		malformed("{\"a\" 1}");
+		malformed("{\"a\":1,}");
+		malformed("[1,]");
+		malformed("[1 2]");
+		malformed("\"abc");
+		malformed("\"\\x\"");
+		malformed("\"\\u12\"");
+		malformed("\"\\u12zz\"");
+		malformed("tru");
+		malformed("truex");
+		malformed("1-2");
+		malformed("{} {}");
+		malformed("{a:1}");
+		try {
+			JsonUtils.parseObject("[1]");
+			fail("array must be rejected as object");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testReader() {
+
+		// 字符串及转义跨越读取块的边界
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 2000; i++) {
+			json.append(i == 0 ? "" : ",").append("{\"v\":\"a\\u0041\\n").append(i).append("\"}");
+		}
+		json.append("]");
+		JsonUtils.Parser parser = new JsonUtils.Parser(new StringReader(json.toString()));
+		parser.expect('[');
+		int count = 0;
+		while (parser.peek() != ']') {
+			Map<String, Object> element = parser.readObject();
+			parser.release();
+			assertEquals("aA\n" + count, element.get("v"));
+			count++;
+			if (parser.peek() == ',') {
+				parser.expect(',');
+			}
+		}
+		parser.expect(']');
+		assertEquals(2000, count);
+		assertEquals(-1, parser.peek());
+	}
+
+}